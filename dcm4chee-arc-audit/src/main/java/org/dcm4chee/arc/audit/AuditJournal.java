@@ -0,0 +1,245 @@
+/*
+ * *** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is part of dcm4che, an implementation of DICOM(TM) in
+ * Java(TM), hosted at https://github.com/gunterze/dcm4che.
+ *
+ * The Initial Developer of the Original Code is
+ * J4Care.
+ * Portions created by the Initial Developer are Copyright (C) 2017
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):
+ * See @authors listed below
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ *
+ * *** END LICENSE BLOCK *****
+ */
+
+
+package org.dcm4chee.arc.audit;
+
+import org.dcm4che3.util.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Append-only journal of audit events spooled for one Audit Logger.
+ *
+ * Events are aggregated in memory by the key used as name of the audit spool file before and appended to the
+ * current segment file, which is replayed on restart. {@link #poll} rotates the segment and rewrites all events,
+ * which are not yet due, to the new segment, so previous segments can be deleted by {@link #purge} after the
+ * polled events were emitted.
+ *
+ * @author Gunter Zeilinger <gunterze@gmail.com>
+ * @since Apr 2017
+ */
+class AuditJournal {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AuditJournal.class);
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final long MAX_SEGMENT_SIZE = 16 * 1024 * 1024;
+    private static final AtomicLong nextID = new AtomicLong(System.currentTimeMillis() * 1000L);
+
+    private final Path dir;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+    private final ArrayList<Path> closedSegments = new ArrayList<>();
+    private final ArrayList<Path> purgeableSegments = new ArrayList<>();
+    private long segmentNo;
+    private Path segment;
+    private FileOutputStream out;
+    private Writer writer;
+    private long segmentSize;
+
+    AuditJournal(Path dir) throws IOException {
+        this.dir = dir;
+        Files.createDirectories(dir);
+        replay();
+    }
+
+    static boolean isSegment(Path path) {
+        return path.getFileName().toString().endsWith(SEGMENT_SUFFIX);
+    }
+
+    static String uniqueKey(String eventType) {
+        return eventType + '-' + Long.toString(nextID.incrementAndGet(), 36);
+    }
+
+    Path getDirectory() {
+        return dir;
+    }
+
+    synchronized void append(String key, long time, String mainInfo, Collection<String> lines) throws IOException {
+        merge(key, time, mainInfo, lines);
+        if (writer == null || segmentSize > MAX_SEGMENT_SIZE)
+            openNextSegment();
+        writeRecord(key, time, mainInfo, lines);
+        writer.flush();
+    }
+
+    synchronized List<Entry> poll(long maxLastModifiedTime) throws IOException {
+        ArrayList<Entry> due = new ArrayList<>();
+        for (Iterator<Entry> iter = entries.values().iterator(); iter.hasNext();) {
+            Entry entry = iter.next();
+            if (entry.lastModified <= maxLastModifiedTime) {
+                due.add(entry);
+                iter.remove();
+            }
+        }
+        if (due.isEmpty() && closedSegments.isEmpty())
+            return due;
+
+        closeSegment();
+        purgeableSegments.addAll(closedSegments);
+        closedSegments.clear();
+        openNextSegment();
+        for (Entry entry : entries.values())
+            writeRecord(entry.key, entry.lastModified, entry.mainInfo, entry.lines);
+        writer.flush();
+        out.getFD().sync();
+        return due;
+    }
+
+    synchronized void purge() {
+        for (Path segment : purgeableSegments) {
+            try {
+                Files.delete(segment);
+            } catch (IOException e) {
+                LOG.warn("Failed to delete Audit Journal Segment - {}", segment, e);
+            }
+        }
+        purgeableSegments.clear();
+    }
+
+    private void merge(String key, long time, String mainInfo, Collection<String> lines) {
+        Entry entry = entries.get(key);
+        if (entry == null)
+            entries.put(key, entry = new Entry(key, mainInfo));
+        entry.lines.addAll(lines);
+        entry.lastModified = Math.max(entry.lastModified, time);
+    }
+
+    private void openNextSegment() throws IOException {
+        closeSegment();
+        segment = dir.resolve(String.format("%016d", ++segmentNo) + SEGMENT_SUFFIX);
+        out = new FileOutputStream(segment.toFile());
+        writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        segmentSize = 0L;
+    }
+
+    private void closeSegment() throws IOException {
+        if (writer == null)
+            return;
+
+        try {
+            writer.flush();
+            out.getFD().sync();
+        } finally {
+            writer.close();
+            writer = null;
+            out = null;
+            closedSegments.add(segment);
+        }
+    }
+
+    private void writeRecord(String key, long time, String mainInfo, Collection<String> lines) throws IOException {
+        writeLine(key + '\t' + time + '\t' + lines.size());
+        writeLine(mainInfo);
+        for (String line : lines)
+            writeLine(line);
+    }
+
+    private void writeLine(String line) throws IOException {
+        writer.write(line);
+        writer.write('\n');
+        segmentSize += line.length() + 1;
+    }
+
+    private void replay() throws IOException {
+        TreeMap<Long, Path> segments = new TreeMap<>();
+        try (DirectoryStream<Path> dirStream = Files.newDirectoryStream(dir, "*" + SEGMENT_SUFFIX)) {
+            for (Path path : dirStream) {
+                String fileName = path.getFileName().toString();
+                try {
+                    segments.put(Long.valueOf(fileName.substring(0, fileName.length() - SEGMENT_SUFFIX.length())),
+                            path);
+                } catch (NumberFormatException e) {
+                    LOG.warn("Ignore unexpected file in Audit Spool Directory - {}", path);
+                }
+            }
+        }
+        for (Map.Entry<Long, Path> segment : segments.entrySet()) {
+            replay(segment.getValue());
+            segmentNo = segment.getKey();
+            closedSegments.add(segment.getValue());
+        }
+        if (!entries.isEmpty())
+            LOG.info("Recovered {} audit events from Audit Journal - {}", entries.size(), dir);
+    }
+
+    private void replay(Path segment) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(segment, StandardCharsets.UTF_8)) {
+            String header;
+            while ((header = reader.readLine()) != null) {
+                String[] fields = StringUtils.split(header, '\t');
+                String mainInfo = reader.readLine();
+                try {
+                    long time = Long.parseLong(fields[1]);
+                    int size = Integer.parseInt(fields[2]);
+                    ArrayList<String> lines = new ArrayList<>(size);
+                    String line;
+                    while (lines.size() < size && (line = reader.readLine()) != null)
+                        lines.add(line);
+                    if (mainInfo == null || lines.size() < size)
+                        throw new EOFException();
+                    merge(fields[0], time, mainInfo, lines);
+                } catch (RuntimeException | EOFException e) {
+                    LOG.warn("Ignore truncated record {} in Audit Journal Segment - {}", header, segment);
+                    return;
+                }
+            }
+        }
+    }
+
+    static final class Entry {
+        final String key;
+        final String mainInfo;
+        final LinkedHashSet<String> lines = new LinkedHashSet<>();
+        long lastModified;
+
+        Entry(String key, String mainInfo) {
+            this.key = key;
+            this.mainInfo = mainInfo;
+        }
+    }
+}
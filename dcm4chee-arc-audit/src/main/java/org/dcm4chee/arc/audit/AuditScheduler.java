@@ -43,7 +43,6 @@ package org.dcm4chee.arc.audit;
 import org.dcm4che3.net.Device;
 import org.dcm4che3.net.audit.AuditLogger;
 import org.dcm4che3.net.audit.AuditLoggerDeviceExtension;
-import org.dcm4che3.util.StringUtils;
 import org.dcm4chee.arc.Scheduler;
 import org.dcm4chee.arc.conf.ArchiveDeviceExtension;
 import org.dcm4chee.arc.conf.Duration;
@@ -56,10 +55,7 @@ import java.io.IOException;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
 
 /**
  * @author Gunter Zeilinger <gunterze@gmail.com>
@@ -92,6 +88,11 @@ public class AuditScheduler extends Scheduler {
         return arcDev.isAuditAggregate() ? arcDev.getAuditPollingInterval() : null;
     }
 
+    @Override
+    protected boolean isClusterExclusive() {
+        return false;
+    }
+
     @Override
     protected void execute() {
         ArchiveDeviceExtension arcDev = device.getDeviceExtension(ArchiveDeviceExtension.class);
@@ -102,19 +103,20 @@ public class AuditScheduler extends Scheduler {
         if (auditSpoolDir == null || duration == null)
             return;
 
+        final long maxLastModifiedTime = System.currentTimeMillis() - duration.getSeconds() * 1000L;
         for (AuditLogger logger : ext.getAuditLoggers()) {
-            Path dir = Paths.get(StringUtils.replaceSystemProperties(
-                    auditSpoolDir + "/" + logger.getCommonName().replaceAll(" ", "_")));
+            Path dir = AuditService.spoolDirectory(arcDev, logger);
             if (!Files.isDirectory(dir))
-                return;
+                continue;
 
-            final long maxLastModifiedTime = System.currentTimeMillis() - duration.getSeconds() * 1000L;
+            service.auditJournal(logger, dir, maxLastModifiedTime);
             ArrayList<Path> pathList = new ArrayList<>();
             try {
                 try (DirectoryStream<Path> dirStream = Files.newDirectoryStream(dir, new DirectoryStream.Filter<Path>() {
                     @Override
                     public boolean accept(Path file) throws IOException {
                         return !file.getFileName().toString().endsWith(FAILED)
+                                && !AuditJournal.isSegment(file)
                                 && Files.getLastModifiedTime(file).toMillis() <= maxLastModifiedTime;
                     }
                 })) {
@@ -52,6 +52,7 @@ import org.dcm4che3.net.Connection;
 import org.dcm4che3.net.Device;
 import org.dcm4che3.net.audit.AuditLogger;
 import org.dcm4che3.net.audit.AuditLoggerDeviceExtension;
+import org.dcm4che3.util.StreamUtils;
 import org.dcm4che3.util.StringUtils;
 import org.dcm4chee.arc.conf.ArchiveDeviceExtension;
 import org.dcm4chee.arc.conf.ShowPatientInfo;
@@ -80,7 +81,6 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
 import java.util.*;
 
 /**
@@ -91,13 +91,14 @@ import java.util.*;
 @ApplicationScoped
 public class AuditService {
     private final Logger LOG = LoggerFactory.getLogger(AuditService.class);
-    private final String JBOSS_SERVER_TEMP = "${jboss.server.data.dir}/temp";
     private final String studyDate = "StudyDate";
     private final String keycloakClassName = "org.keycloak.KeycloakSecurityContext";
     private final String noValue = "<none>";
     @Inject
     private Device device;
 
+    private final HashMap<Path, AuditJournal> journals = new HashMap<>();
+
     boolean hasAuditLoggers() {
         AuditLoggerDeviceExtension ext = device.getDeviceExtension(AuditLoggerDeviceExtension.class);
         return ext != null && !ext.getAuditLoggers().isEmpty();
@@ -108,8 +109,12 @@ public class AuditService {
         if (path.toFile().length() == 0)
             throw new IOException("Attempt to read from an empty file. ");
         SpoolFileReader readerObj = eventType.eventClass != AuditServiceUtils.EventClass.QUERY
-                ? new SpoolFileReader(path) : null;
-        Calendar eventTime = getEventTime(path, auditLogger);
+                ? new SpoolFileReader(path) : readQuerySpoolFile(path);
+        aggregateAuditMessage(auditLogger, eventType, readerObj, getEventTime(path, auditLogger));
+    }
+
+    private void aggregateAuditMessage(AuditLogger auditLogger, AuditServiceUtils.EventType eventType,
+            SpoolFileReader readerObj, Calendar eventTime) {
         switch (eventType.eventClass) {
             case CONN_REJECT:
                 auditConnectionRejected(auditLogger, readerObj, eventTime, eventType);
@@ -125,7 +130,7 @@ public class AuditService {
                 auditDeletion(auditLogger, readerObj, eventTime, eventType);
                 break;
             case QUERY:
-                auditQuery(auditLogger, path, eventTime, eventType);
+                auditQuery(auditLogger, readerObj, eventTime, eventType);
                 break;
             case HL7:
                 auditPatientRecord(auditLogger, readerObj, eventTime, eventType);
@@ -174,7 +179,7 @@ public class AuditService {
         }
         LinkedHashSet<Object> deleteObjs = getDeletionObjsForSpooling(sopClassMap, new AuditInfo(getAIStoreCtx(ctx)));
         String eventType = String.valueOf(AuditServiceUtils.EventType.RJN_DELETE);
-        writeSpoolFile(eventType, deleteObjs);
+        spool(eventType, deleteObjs);
     }
 
     void spoolStudyDeleted(StudyDeleteContext ctx) {
@@ -195,7 +200,7 @@ public class AuditService {
                 : buildPermDeletionAuditInfoForScheduler(ctx, s, p);
         String eventType = String.valueOf(request != null ? AuditServiceUtils.EventType.PRMDLT_WEB : AuditServiceUtils.EventType.PRMDLT_SCH);
         LinkedHashSet<Object> deleteObjs = getDeletionObjsForSpooling(sopClassMap, new AuditInfo(i));
-        writeSpoolFile(eventType, deleteObjs);
+        spool(eventType, deleteObjs);
     }
 
     private BuildAuditInfo buildPermDeletionAuditInfoForWeb(HttpServletRequest req, StudyDeleteContext ctx, Study s, Patient p) {
@@ -249,7 +254,7 @@ public class AuditService {
                 .calledHost(conn.getHostname()).outcome(e.getMessage()).build();
         obj.add(new AuditInfo(i));
         String eventType = String.valueOf(AuditServiceUtils.EventType.CONN__RJCT);
-        writeSpoolFile(eventType, obj);
+        spool(eventType, obj);
     }
 
     private void auditConnectionRejected(AuditLogger auditLogger, SpoolFileReader readerObj, Calendar eventTime, AuditServiceUtils.EventType eventType) {
@@ -267,35 +272,60 @@ public class AuditService {
     }
 
     void spoolQuery(QueryContext ctx) {
-        ArchiveDeviceExtension arcDev = device.getDeviceExtension(ArchiveDeviceExtension.class);
-        boolean auditAggregate = arcDev.isAuditAggregate();
-        AuditLoggerDeviceExtension ext = device.getDeviceExtension(AuditLoggerDeviceExtension.class);
         AuditServiceUtils.EventType eventType = AuditServiceUtils.EventType.forQuery(ctx);
         AuditInfo auditInfo = ctx.getHttpRequest() != null ? createAuditInfoForQIDO(ctx) : createAuditInfoForFIND(ctx);
-        for (AuditLogger auditLogger : ext.getAuditLoggers()) {
-            if (auditLogger.isInstalled()) {
-                Path directory = Paths.get(StringUtils.replaceSystemProperties(auditAggregate
-                                ? arcDev.getAuditSpoolDirectory() + "/" + auditLogger.getCommonName().replaceAll(" ", "_")
-                                : JBOSS_SERVER_TEMP));
-                try {
-                    Files.createDirectories(directory);
-                    Path file = Files.createTempFile(directory, String.valueOf(eventType), null);
-                    try (BufferedOutputStream out = new BufferedOutputStream(
-                            Files.newOutputStream(file, StandardOpenOption.APPEND))) {
-                        new DataOutputStream(out).writeUTF(auditInfo.toString());
-                        if (ctx.getAssociation() != null) {
-                            try (DicomOutputStream dos = new DicomOutputStream(out, UID.ImplicitVRLittleEndian)) {
-                                dos.writeDataset(null, ctx.getQueryKeys());
-                            } catch (Exception e) {
-                                LOG.warn("Failed to create DicomOutputStream : ", e);
-                            }
-                        }
-                    }
-                    if (!auditAggregate)
-                        auditAndProcessFile(auditLogger, file);
-                } catch (Exception e) {
-                    LOG.warn("Failed to write to Audit Spool File - {}", auditLogger.getCommonName(), e);
-                }
+        List<String> data = Collections.emptyList();
+        if (ctx.getAssociation() != null) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (DicomOutputStream dos = new DicomOutputStream(out, UID.ImplicitVRLittleEndian)) {
+                dos.writeDataset(null, ctx.getQueryKeys());
+            } catch (Exception e) {
+                LOG.warn("Failed to create DicomOutputStream : ", e);
+            }
+            data = Collections.singletonList(Base64.getEncoder().encodeToString(out.toByteArray()));
+        }
+        spool(AuditJournal.uniqueKey(String.valueOf(eventType)), auditInfo, data);
+    }
+
+    private static SpoolFileReader readQuerySpoolFile(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            String mainInfo = in.readUTF();
+            ByteArrayOutputStream data = new ByteArrayOutputStream();
+            StreamUtils.copy(in, data);
+            return new SpoolFileReader(mainInfo, data.size() > 0
+                    ? Collections.singletonList(Base64.getEncoder().encodeToString(data.toByteArray()))
+                    : Collections.<String>emptyList());
+        }
+    }
+
+    void auditJournal(AuditLogger auditLogger, Path dir, long maxLastModifiedTime) {
+        AuditJournal journal;
+        List<AuditJournal.Entry> entries;
+        try {
+            journal = journal(dir);
+            entries = journal.poll(maxLastModifiedTime);
+        } catch (IOException e) {
+            LOG.warn("Failed to access Audit Journal - {}", dir, e);
+            return;
+        }
+        for (AuditJournal.Entry entry : entries)
+            auditAndProcessEntry(auditLogger, journal, entry);
+        journal.purge();
+    }
+
+    private void auditAndProcessEntry(AuditLogger auditLogger, AuditJournal journal, AuditJournal.Entry entry) {
+        try {
+            aggregateAuditMessage(auditLogger, AuditServiceUtils.EventType.fromKey(entry.key),
+                    new SpoolFileReader(entry.mainInfo, entry.lines), getEventTime(entry.lastModified, auditLogger));
+        } catch (Exception e) {
+            LOG.warn("Failed to process Audit Journal entry {} - {}", entry.key, auditLogger.getCommonName(), e);
+            Path file = journal.getDirectory().resolve(entry.key + ".failed");
+            try (SpoolFileWriter writer = new SpoolFileWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+                writer.writeLine(entry.mainInfo);
+                for (String line : entry.lines)
+                    writer.writeLine(line);
+            } catch (IOException e1) {
+                LOG.warn("Failed to write failed Audit Journal entry to {}", file, e1);
             }
         }
     }
@@ -305,11 +335,11 @@ public class AuditService {
             aggregateAuditMessage(auditLogger, file);
             Files.delete(file);
         } catch (Exception e) {
-            LOG.warn("Failed to process Audit Spool File - {}", auditLogger.getCommonName(), file, e);
+            LOG.warn("Failed to process Audit Spool File {} - {}", file, auditLogger.getCommonName(), e);
             try {
                 Files.move(file, file.resolveSibling(file.getFileName().toString() + ".failed"));
             } catch (IOException e1) {
-                LOG.warn("Failed to mark Audit Spool File - {} as failed", auditLogger.getCommonName(), file, e);
+                LOG.warn("Failed to mark Audit Spool File {} - {} as failed", file, auditLogger.getCommonName(), e);
             }
         }
     }
@@ -339,48 +369,35 @@ public class AuditService {
     }
 
     private void auditQuery(
-            AuditLogger auditLogger, Path file, Calendar eventTime, AuditServiceUtils.EventType eventType) throws IOException {
-        AuditInfo qrI;
-        List<ActiveParticipant> apList;
-        List<ParticipantObjectIdentification> poiList;
+            AuditLogger auditLogger, SpoolFileReader readerObj, Calendar eventTime, AuditServiceUtils.EventType eventType) {
         EventIdentification ei = getEI(eventType, null, eventTime);
-        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
-            qrI = new AuditInfo(new DataInputStream(in).readUTF());
-            BuildActiveParticipant ap1 = new BuildActiveParticipant.Builder(qrI.getField(AuditInfo.CALLING_AET),
-                    qrI.getField(AuditInfo.CALLING_HOST)).requester(eventType.isSource).roleIDCode(eventType.source)
-                    .build();
-            BuildActiveParticipant ap2 = new BuildActiveParticipant.Builder(qrI.getField(AuditInfo.CALLED_AET),
-                    getLocalHostName(auditLogger)).altUserID(auditLogger.processID())
-                    .requester(eventType.isDest).roleIDCode(eventType.destination).build();
-            apList = getApList(ap1, ap2);
-            BuildParticipantObjectIdentification poi;
-            if (eventType == AuditServiceUtils.EventType.QUERY_QIDO) {
-                poi = new BuildParticipantObjectIdentification.Builder(
-                        qrI.getField(AuditInfo.Q_POID), AuditMessages.ParticipantObjectIDTypeCode.QIDO_QUERY,
-                        AuditMessages.ParticipantObjectTypeCode.SystemObject,
-                        AuditMessages.ParticipantObjectTypeCodeRole.Query)
-                        .query(qrI.getField(AuditInfo.Q_STRING).getBytes())
-                        .detail(getPod("QueryEncoding", String.valueOf(StandardCharsets.UTF_8))).build();
-            }
-            else {
-                byte[] buffer = new byte[(int) Files.size(file)];
-                int len = in.read(buffer);
-                byte[] data;
-                if (len != -1) {
-                    data = new byte[len];
-                    System.arraycopy(buffer, 0, data, 0, len);
-                }
-                else {
-                    data = new byte[0];
-                }
-                poi = new BuildParticipantObjectIdentification.Builder(
-                        qrI.getField(AuditInfo.Q_POID), AuditMessages.ParticipantObjectIDTypeCode.SOPClassUID,
-                        AuditMessages.ParticipantObjectTypeCode.SystemObject,
-                        AuditMessages.ParticipantObjectTypeCodeRole.Report).query(data)
-                        .detail(getPod("TransferSyntax", UID.ImplicitVRLittleEndian)).build();
-            }
-            poiList = getPoiList(poi);
+        AuditInfo qrI = new AuditInfo(readerObj.getMainInfo());
+        BuildActiveParticipant ap1 = new BuildActiveParticipant.Builder(qrI.getField(AuditInfo.CALLING_AET),
+                qrI.getField(AuditInfo.CALLING_HOST)).requester(eventType.isSource).roleIDCode(eventType.source)
+                .build();
+        BuildActiveParticipant ap2 = new BuildActiveParticipant.Builder(qrI.getField(AuditInfo.CALLED_AET),
+                getLocalHostName(auditLogger)).altUserID(auditLogger.processID())
+                .requester(eventType.isDest).roleIDCode(eventType.destination).build();
+        List<ActiveParticipant> apList = getApList(ap1, ap2);
+        BuildParticipantObjectIdentification poi;
+        if (eventType == AuditServiceUtils.EventType.QUERY_QIDO) {
+            poi = new BuildParticipantObjectIdentification.Builder(
+                    qrI.getField(AuditInfo.Q_POID), AuditMessages.ParticipantObjectIDTypeCode.QIDO_QUERY,
+                    AuditMessages.ParticipantObjectTypeCode.SystemObject,
+                    AuditMessages.ParticipantObjectTypeCodeRole.Query)
+                    .query(qrI.getField(AuditInfo.Q_STRING).getBytes())
+                    .detail(getPod("QueryEncoding", String.valueOf(StandardCharsets.UTF_8))).build();
         }
+        else {
+            Iterator<String> dataLines = readerObj.getInstanceLines().iterator();
+            byte[] data = dataLines.hasNext() ? Base64.getDecoder().decode(dataLines.next()) : new byte[0];
+            poi = new BuildParticipantObjectIdentification.Builder(
+                    qrI.getField(AuditInfo.Q_POID), AuditMessages.ParticipantObjectIDTypeCode.SOPClassUID,
+                    AuditMessages.ParticipantObjectTypeCode.SystemObject,
+                    AuditMessages.ParticipantObjectTypeCodeRole.Report).query(data)
+                    .detail(getPod("TransferSyntax", UID.ImplicitVRLittleEndian)).build();
+        }
+        List<ParticipantObjectIdentification> poiList = getPoiList(poi);
         emitAuditMessage(ei, apList, poiList, auditLogger);
     }
 
@@ -395,7 +412,7 @@ public class AuditService {
             BuildAuditInfo i = getAIStoreCtx(sCtx);
             BuildAuditInfo iI = new BuildAuditInfo.Builder().sopCUID(sCtx.getSopClassUID()).sopIUID(sCtx.getSopInstanceUID())
                     .mppsUID(StringUtils.maskNull(sCtx.getMppsInstanceUID(), " ")).build();
-            writeSpoolFileStoreOrWadoRetrieve(fileName, new AuditInfo(i), new AuditInfo(iI));
+            spoolStoreOrWadoRetrieve(fileName, new AuditInfo(i), new AuditInfo(iI));
         }
         if (rCtx != null) {
             HttpServletRequest req = rCtx.getHttpRequest();
@@ -413,7 +430,7 @@ public class AuditService {
                     .outcome(null != rCtx.getException() ? rCtx.getException().getMessage() : null).build());
             AuditInfo iI = new AuditInfo(
                     new BuildAuditInfo.Builder().sopCUID(sopCUID(attrs)).sopIUID(rCtx.getSopInstanceUIDs()[0]).mppsUID(" ").build());
-            writeSpoolFileStoreOrWadoRetrieve(fileName, i, iI);
+            spoolStoreOrWadoRetrieve(fileName, i, iI);
         }
     }
 
@@ -504,7 +521,7 @@ public class AuditService {
             addInstanceInfoForRetrieve(obj, instanceLocation);
         for (InstanceLocations instanceLocationCStoreForward : ctx.getCStoreForwards())
             addInstanceInfoForRetrieve(obj, instanceLocationCStoreForward);
-        writeSpoolFile(etFile, obj);
+        spool(etFile, obj);
     }
 
     private void addInstanceInfoForRetrieve(LinkedHashSet<Object> obj, InstanceLocations instanceLocation) {
@@ -612,7 +629,7 @@ public class AuditService {
                     .callingAET(source).calledAET(dest).pID(pID).pName(pName)
                     .outcome(getOD(ctx.getException())).hl7MessageType(hl7MessageType).build();
             obj.add(new AuditInfo(i));
-            writeSpoolFile(String.valueOf(eventType), obj);
+            spool(String.valueOf(eventType), obj);
         }
     }
 
@@ -643,7 +660,7 @@ public class AuditService {
                     ? buildAuditInfoFORRestful(ctx)
                     : ctx.getAssociation() != null ? buildAuditInfoForAssociation(ctx) : buildAuditInfoFORHL7(ctx);
             obj.add(new AuditInfo(i));
-            writeSpoolFile(String.valueOf(eventType), obj);
+            spool(String.valueOf(eventType), obj);
         }
     }
 
@@ -691,7 +708,7 @@ public class AuditService {
                     .calledAET(ctx.getApplicationEntity().getAETitle()).studyUID(ctx.getStudyInstanceUID()).accNum(getAcc(sAttr))
                     .pID(getPID(pAttr)).pName(pName(pAttr)).outcome(getOD(ctx.getException())).studyDate(getSD(sAttr)).build();
             obj.add(new AuditInfo(i));
-            writeSpoolFile(String.valueOf(eventType), obj);
+            spool(String.valueOf(eventType), obj);
         }
     }
 
@@ -840,12 +857,18 @@ public class AuditService {
         return AuditMessages.getSOPC(instances, uid, numI);
     }
 
+    private Calendar getEventTime(long timeInMillis, AuditLogger auditLogger) {
+        Calendar eventTime = auditLogger.timeStamp();
+        eventTime.setTimeInMillis(timeInMillis);
+        return eventTime;
+    }
+
     private Calendar getEventTime(Path path, AuditLogger auditLogger){
         Calendar eventTime = auditLogger.timeStamp();
         try {
             eventTime.setTimeInMillis(Files.getLastModifiedTime(path).toMillis());
         } catch (Exception e) {
-            LOG.warn("Failed to get Last Modified Time of Audit Spool File - {} ", auditLogger.getCommonName(), path, e);
+            LOG.warn("Failed to get Last Modified Time of Audit Spool File {} - {}", path, auditLogger.getCommonName(), e);
         }
         return eventTime;
     }
@@ -859,70 +882,62 @@ public class AuditService {
         return log.getConnections().get(0).getHostname();
     }
 
-    private void writeSpoolFile(String eventType, LinkedHashSet<Object> obj) {
+    private void spool(String eventType, LinkedHashSet<Object> obj) {
         if (obj.isEmpty()) {
-            LOG.warn("Attempt to write empty file : " + eventType);
+            LOG.warn("Attempt to spool empty audit event : " + eventType);
             return;
         }
-        ArchiveDeviceExtension arcDev = device.getDeviceExtension(ArchiveDeviceExtension.class);
-        boolean auditAggregate = arcDev.isAuditAggregate();
-        AuditLoggerDeviceExtension ext = device.getDeviceExtension(AuditLoggerDeviceExtension.class);
-        for (AuditLogger auditLogger : ext.getAuditLoggers()) {
-            if (auditLogger.isInstalled()) {
-                Path dir = Paths.get(StringUtils.replaceSystemProperties(auditAggregate
-                        ? arcDev.getAuditSpoolDirectory() + "/" + auditLogger.getCommonName().replaceAll(" ", "_")
-                        : JBOSS_SERVER_TEMP));
-                try {
-                    Files.createDirectories(dir);
-                    Path file = Files.createTempFile(dir, eventType, null);
-                    try (SpoolFileWriter writer = new SpoolFileWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8,
-                            StandardOpenOption.APPEND))) {
-                        for (Object o : obj)
-                            writer.writeLine(o);
-                    }
-                    if (!auditAggregate)
-                        auditAndProcessFile(auditLogger, file);
-                } catch (Exception e) {
-                    LOG.warn("Failed to write to Audit Spool File - {} ", auditLogger.getCommonName(), e);
-                }
-            }
-        }
+        Iterator<Object> iter = obj.iterator();
+        Object mainInfo = iter.next();
+        ArrayList<String> lines = new ArrayList<>(obj.size() - 1);
+        while (iter.hasNext())
+            lines.add(SpoolFileWriter.toLine(iter.next()));
+        spool(AuditJournal.uniqueKey(eventType), mainInfo, lines);
     }
 
-    private void writeSpoolFileStoreOrWadoRetrieve(String fileName, Object patStudyInfo, Object instanceInfo) {
+    private void spoolStoreOrWadoRetrieve(String key, Object patStudyInfo, Object instanceInfo) {
         if (patStudyInfo == null && instanceInfo == null) {
-            LOG.warn("Attempt to write empty file : " + fileName);
+            LOG.warn("Attempt to spool empty audit event : " + key);
             return;
         }
+        spool(key, patStudyInfo, Collections.singletonList(SpoolFileWriter.toLine(instanceInfo)));
+    }
+
+    private void spool(String key, Object mainInfo, List<String> lines) {
         ArchiveDeviceExtension arcDev = device.getDeviceExtension(ArchiveDeviceExtension.class);
         boolean auditAggregate = arcDev.isAuditAggregate();
         AuditLoggerDeviceExtension ext = device.getDeviceExtension(AuditLoggerDeviceExtension.class);
+        long now = System.currentTimeMillis();
+        String mainLine = SpoolFileWriter.toLine(mainInfo);
         for (AuditLogger auditLogger : ext.getAuditLoggers()) {
             if (auditLogger.isInstalled()) {
-                Path dir = Paths.get(StringUtils.replaceSystemProperties(auditAggregate
-                        ? arcDev.getAuditSpoolDirectory() + "/" + auditLogger.getCommonName().replaceAll(" ", "_")
-                        : JBOSS_SERVER_TEMP));
-                Path file = dir.resolve(fileName);
-                boolean append = Files.exists(file);
                 try {
-                    if (!append)
-                        Files.createDirectories(dir);
-                    try (SpoolFileWriter writer = new SpoolFileWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8,
-                            append ? StandardOpenOption.APPEND : StandardOpenOption.CREATE_NEW))) {
-                        if (!append) {
-                            writer.writeLine(patStudyInfo);
-                        }
-                        writer.writeLine(instanceInfo);
-                    }
-                    if (!auditAggregate)
-                        auditAndProcessFile(auditLogger, file);
+                    if (auditAggregate)
+                        journal(spoolDirectory(arcDev, auditLogger)).append(key, now, mainLine, lines);
+                    else
+                        aggregateAuditMessage(auditLogger, AuditServiceUtils.EventType.fromKey(key),
+                                new SpoolFileReader(mainLine, lines), getEventTime(now, auditLogger));
                 } catch (Exception e) {
-                    LOG.warn("Failed to write to Audit Spool File - {} ", auditLogger.getCommonName(), file, e);
+                    LOG.warn("Failed to spool audit event {} - {}", key, auditLogger.getCommonName(), e);
                 }
             }
         }
     }
 
+    static Path spoolDirectory(ArchiveDeviceExtension arcDev, AuditLogger auditLogger) {
+        return Paths.get(StringUtils.replaceSystemProperties(
+                arcDev.getAuditSpoolDirectory() + "/" + auditLogger.getCommonName().replaceAll(" ", "_")));
+    }
+
+    private AuditJournal journal(Path dir) throws IOException {
+        synchronized (journals) {
+            AuditJournal journal = journals.get(dir);
+            if (journal == null)
+                journals.put(dir, journal = new AuditJournal(dir));
+            return journal;
+        }
+    }
+
     private LinkedHashSet<Object> getDeletionObjsForSpooling(HashMap<String, HashSet<String>> sopClassMap,
                                                              AuditInfo i) {
         LinkedHashSet<Object> obj = new LinkedHashSet<>();
@@ -153,7 +153,11 @@ class AuditServiceUtils {
         }
 
         static EventType fromFile(Path file) {
-            return valueOf(file.getFileName().toString().substring(0, 10));
+            return fromKey(file.getFileName().toString());
+        }
+
+        static EventType fromKey(String key) {
+            return valueOf(key.substring(0, 10));
         }
 
         static EventType forQuery(QueryContext ctx) {
@@ -48,6 +48,7 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Collection;
 import java.util.HashSet;
 
 /**
@@ -72,6 +73,11 @@ public class SpoolFileReader {
         }
     }
 
+    public SpoolFileReader(String mainInfo, Collection<String> instanceLines) {
+        this.mainInfo = mainInfo;
+        this.instanceLines.addAll(instanceLines);
+    }
+
     public String getMainInfo() {
         return mainInfo;
     }
@@ -57,10 +57,14 @@ class SpoolFileWriter implements Closeable {
     }
 
     void writeLine(Object o) throws IOException {
-        writer.write(o.toString().replace('\r', '.').replace('\n', '.'));
+        writer.write(toLine(o));
         writer.newLine();
     }
 
+    static String toLine(Object o) {
+        return o.toString().replace('\r', '.').replace('\n', '.');
+    }
+
     @Override
     public void close() throws IOException {
         writer.close();
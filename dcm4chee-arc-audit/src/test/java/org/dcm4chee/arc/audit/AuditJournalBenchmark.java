@@ -0,0 +1,132 @@
+/*
+ * *** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is part of dcm4che, an implementation of DICOM(TM) in
+ * Java(TM), hosted at https://github.com/gunterze/dcm4che.
+ *
+ * The Initial Developer of the Original Code is
+ * J4Care.
+ * Portions created by the Initial Developer are Copyright (C) 2017
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):
+ * See @authors listed below
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ *
+ * *** END LICENSE BLOCK *****
+ */
+
+package org.dcm4chee.arc.audit;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compares spooling audit events by {@link AuditJournal} with spooling them by one file per event, as done before.
+ * Reports events/s and the number of created and deleted files.
+ *
+ * Usage: {@code AuditJournalBenchmark [<events> [<directory>]]}
+ *
+ * @author Gunter Zeilinger <gunterze@gmail.com>
+ * @since Apr 2017
+ */
+public class AuditJournalBenchmark {
+
+    private static final List<String> LINES = Arrays.asList(
+            "1.2.840.10008.5.1.4.1.1.2\t1.2.3.4.5.6.7.8.9.1",
+            "1.2.840.10008.5.1.4.1.1.2\t1.2.3.4.5.6.7.8.9.2");
+    private static final String MAIN_INFO = "STORESCU\tstorescu\tDCM4CHEE\t1.2.3.4.5.6.7.8\tP1\tDOE^JOHN";
+
+    public static void main(String[] args) throws Exception {
+        int events = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        Path dir = args.length > 1 ? Paths.get(args[1]) : Files.createTempDirectory("audit");
+        report("spool files", events, spoolFiles(dir.resolve("spool"), events));
+        report("journal", events, journal(dir.resolve("journal"), events));
+    }
+
+    /**
+     * Returns elapsed nanoseconds and number of created files.
+     */
+    private static long[] spoolFiles(Path dir, int events) throws IOException {
+        Files.createDirectories(dir);
+        long start = System.nanoTime();
+        for (int i = 0; i < events; i++) {
+            Path file = Files.createTempFile(dir, "STORE", null);
+            try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.APPEND)) {
+                writer.write(MAIN_INFO);
+                writer.write('\n');
+                for (String line : LINES) {
+                    writer.write(line);
+                    writer.write('\n');
+                }
+            }
+        }
+        try (DirectoryStream<Path> dirStream = Files.newDirectoryStream(dir)) {
+            for (Path file : dirStream) {
+                Files.readAllLines(file, StandardCharsets.UTF_8);
+                Files.delete(file);
+            }
+        }
+        return new long[] { System.nanoTime() - start, events };
+    }
+
+    /**
+     * Returns elapsed nanoseconds and number of created segment files, including the one opened by the poll.
+     */
+    private static long[] journal(Path dir, int events) throws IOException {
+        long start = System.nanoTime();
+        AuditJournal journal = new AuditJournal(dir);
+        for (int i = 0; i < events; i++)
+            journal.append(AuditJournal.uniqueKey("STORE"), System.currentTimeMillis(), MAIN_INFO, LINES);
+        int segments = countFiles(dir);
+        journal.poll(Long.MAX_VALUE);
+        journal.purge();
+        return new long[] { System.nanoTime() - start, segments + 1 };
+    }
+
+    private static int countFiles(Path dir) throws IOException {
+        int count = 0;
+        try (DirectoryStream<Path> dirStream = Files.newDirectoryStream(dir)) {
+            for (Path ignore : dirStream)
+                count++;
+        }
+        return count;
+    }
+
+    private static void report(String name, int events, long[] result) {
+        long nanos = result[0];
+        System.out.printf("%s: %d events in %d ms (%d events/s), %d files created%n",
+                name, events, nanos / 1000000L, events * 1000000000L / Math.max(1L, nanos), result[1]);
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * *** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is part of dcm4che, an implementation of DICOM(TM) in
+ * Java(TM), hosted at https://github.com/gunterze/dcm4che.
+ *
+ * The Initial Developer of the Original Code is
+ * J4Care.
+ * Portions created by the Initial Developer are Copyright (C) 2017
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):
+ * See @authors listed below
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ *
+ * *** END LICENSE BLOCK *****
+ */
+
+package org.dcm4chee.arc.audit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Gunter Zeilinger <gunterze@gmail.com>
+ * @since Apr 2017
+ */
+public class AuditJournalTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void replayAfterCrash() throws Exception {
+        Path dir = folder.getRoot().toPath();
+        AuditJournal journal = new AuditJournal(dir);
+        journal.append("STORE-1", 1L, "main1", Arrays.asList("a", "b"));
+        journal.append("STORE-1", 3L, "main1", Arrays.asList("b", "c"));
+        journal.append("QUERY-1", 2L, "main2", Collections.singletonList("x"));
+
+        List<AuditJournal.Entry> entries = new AuditJournal(dir).poll(Long.MAX_VALUE);
+        assertEquals(2, entries.size());
+        AuditJournal.Entry store = entries.get(0);
+        assertEquals("STORE-1", store.key);
+        assertEquals("main1", store.mainInfo);
+        assertEquals(3L, store.lastModified);
+        assertEquals(Arrays.asList("a", "b", "c"), new ArrayList<>(store.lines));
+        AuditJournal.Entry query = entries.get(1);
+        assertEquals("QUERY-1", query.key);
+        assertEquals(Collections.singletonList("x"), new ArrayList<>(query.lines));
+    }
+
+    @Test
+    public void replayIgnoresTornLastRecord() throws Exception {
+        Path dir = folder.getRoot().toPath();
+        new AuditJournal(dir).append("STORE-1", 1L, "main1", Collections.singletonList("a"));
+        Path segment = segments(dir).get(0);
+        Files.write(segment, "QUERY-1\t2\t3\nmain2\nx\n".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+        List<AuditJournal.Entry> entries = new AuditJournal(dir).poll(Long.MAX_VALUE);
+        assertEquals(1, entries.size());
+        assertEquals("STORE-1", entries.get(0).key);
+        assertEquals(Collections.singletonList("a"), new ArrayList<>(entries.get(0).lines));
+    }
+
+    @Test
+    public void purgeAfterRotation() throws Exception {
+        Path dir = folder.getRoot().toPath();
+        AuditJournal journal = new AuditJournal(dir);
+        journal.append("STORE-1", 1L, "main1", Collections.singletonList("a"));
+        journal.append("STORE-2", 100L, "main2", Collections.singletonList("b"));
+        Path first = segments(dir).get(0);
+
+        List<AuditJournal.Entry> due = journal.poll(50L);
+        assertEquals(1, due.size());
+        assertEquals("STORE-1", due.get(0).key);
+        assertEquals(2, segments(dir).size());
+
+        journal.purge();
+        List<Path> segments = segments(dir);
+        assertEquals(1, segments.size());
+        assertFalse(segments.contains(first));
+
+        List<AuditJournal.Entry> replayed = new AuditJournal(dir).poll(Long.MAX_VALUE);
+        assertEquals(1, replayed.size());
+        assertEquals("STORE-2", replayed.get(0).key);
+        assertEquals(100L, replayed.get(0).lastModified);
+    }
+
+    private static List<Path> segments(Path dir) throws Exception {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> dirStream = Files.newDirectoryStream(dir)) {
+            for (Path path : dirStream)
+                if (AuditJournal.isSegment(path))
+                    segments.add(path);
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+}
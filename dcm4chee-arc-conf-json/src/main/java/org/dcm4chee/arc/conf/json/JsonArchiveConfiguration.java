@@ -81,6 +81,7 @@ public class JsonArchiveConfiguration extends JsonConfigurationExtension {
         writer.writeNotNull("dcmSeriesMetadataDelay", arcDev.getSeriesMetadataDelay());
         writer.writeNotNull("dcmSeriesMetadataPollingInterval", arcDev.getSeriesMetadataPollingInterval());
         writer.writeNotDef("dcmSeriesMetadataFetchSize", arcDev.getSeriesMetadataFetchSize(), 100);
+        writer.writeNotDef("dcmSeriesMetadataThreads", arcDev.getSeriesMetadataThreads(), 1);
         writer.writeNotNull("dcmPurgeInstanceRecordsDelay", arcDev.getPurgeInstanceRecordsDelay());
         writer.writeNotNull("dcmPurgeInstanceRecordsPollingInterval",
                 arcDev.getPurgeInstanceRecordsPollingInterval());
@@ -98,6 +99,7 @@ public class JsonArchiveConfiguration extends JsonConfigurationExtension {
         writer.writeNotNull("dcmWadoSR2HtmlTemplateURI", arcDev.getWadoSR2HtmlTemplateURI());
         writer.writeNotNull("dcmWadoSR2TextTemplateURI", arcDev.getWadoSR2TextTemplateURI());
         writer.writeNotDef("dcmQidoMaxNumberOfResults", arcDev.getQidoMaxNumberOfResults(), 0);
+        writer.writeNotDef("dcmMaxRetrieveAssociations", arcDev.getMaxRetrieveAssociations(), 1);
         writer.writeNotEmpty("dcmFwdMppsDestination", arcDev.getMppsForwardDestinations());
         writer.writeNotEmpty("dcmIanDestination", arcDev.getIanDestinations());
         writer.writeNotNull("dcmIanDelay", arcDev.getIanDelay());
@@ -112,6 +114,7 @@ public class JsonArchiveConfiguration extends JsonConfigurationExtension {
         writer.writeNotNull("dcmAltCMoveSCP", arcDev.getAlternativeCMoveSCP());
         writer.writeNotNull("dcmExportTaskPollingInterval", arcDev.getExportTaskPollingInterval());
         writer.writeNotDef("dcmExportTaskFetchSize", arcDev.getExportTaskFetchSize(), 5);
+        writer.writeNotNull("dcmExportTaskCoalescingInterval", arcDev.getExportTaskCoalescingInterval());
         writer.writeNotNull("dcmPurgeStoragePollingInterval", arcDev.getPurgeStoragePollingInterval());
         writer.writeNotDef("dcmPurgeStorageFetchSize", arcDev.getPurgeStorageFetchSize(), 100);
         writer.writeNotDef("dcmDeleteStudyBatchSize", arcDev.getDeleteStudyBatchSize(), 10);
@@ -127,6 +130,9 @@ public class JsonArchiveConfiguration extends JsonConfigurationExtension {
         writer.writeNotNull("dcmAuditPollingInterval", arcDev.getAuditPollingInterval());
         writer.writeNotNull("dcmAuditAggregateDuration", arcDev.getAuditAggregateDuration());
         writer.writeNotNull("dcmStowSpoolDirectory", arcDev.getStowSpoolDirectory());
+        writer.writeNotDef("dcmStowMaxParallelism", arcDev.getStowMaxParallelism(), 1);
+        writer.writeNotDef("dcmStowMemoryThreshold", arcDev.getStowMemoryThreshold(), 0);
+        writer.writeNotDef("dcmStoreMemoryThreshold", arcDev.getStoreMemoryThreshold(), 1048576);
         writer.writeNotNull("hl7PatientUpdateTemplateURI", arcDev.getPatientUpdateTemplateURI());
         writer.writeNotNull("hl7ImportReportTemplateURI", arcDev.getImportReportTemplateURI());
         writer.writeNotNull("hl7ScheduleProcedureTemplateURI", arcDev.getScheduleProcedureTemplateURI());
@@ -134,6 +140,7 @@ public class JsonArchiveConfiguration extends JsonConfigurationExtension {
         writer.writeNotNull("hl7ErrorLogFilePattern", arcDev.getHl7ErrorLogFilePattern());
         writer.writeNotNull("dcmUnzipVendorDataToURI", arcDev.getUnzipVendorDataToURI());
         writer.writeNotNull("dcmPurgeQueueMessagePollingInterval", arcDev.getPurgeQueueMessagePollingInterval());
+        writer.writeNotDef("dcmQueueMessageFetchSize", arcDev.getQueueMessageFetchSize(), 1000);
         writer.writeNotNull("dcmWadoSpoolDirectory", arcDev.getWadoSpoolDirectory());
         writer.writeNotNull("dcmRejectExpiredStudiesPollingInterval", arcDev.getRejectExpiredStudiesPollingInterval());
         writer.writeNotNull("dcmRejectExpiredStudiesPollingStartTime",
@@ -153,6 +160,20 @@ public class JsonArchiveConfiguration extends JsonConfigurationExtension {
                 arcDev.getMergeMWLCacheSize(), 10);
         writer.writeNotDef("dcmStoreUpdateDBMaxRetries", arcDev.getStoreUpdateDBMaxRetries(), 1);
         writer.writeNotDef("dcmStoreUpdateDBMaxRetryDelay", arcDev.getStoreUpdateDBMaxRetryDelay(), 1000);
+        writer.writeNotDef("dcmStoreUpdateDBMaxBatchSize", arcDev.getStoreUpdateDBMaxBatchSize(), 1);
+        writer.writeNotDef("dcmStoreUpdateDBMaxBatchDelay", arcDev.getStoreUpdateDBMaxBatchDelay(), 10);
+        writer.writeNotNull("dcmAssociationPoolIdleTimeout", arcDev.getAssociationPoolIdleTimeout());
+        writer.writeNotDef("dcmAssociationPoolSize", arcDev.getAssociationPoolSize(), 10);
+        writer.writeNotNull("dcmStorageReadCacheDirectory", arcDev.getStorageReadCacheDirectory());
+        writer.writeNotDef("dcmStorageReadCacheSize", arcDev.getStorageReadCacheSize(), 1024);
+        writer.writeNotNull("dcmStorageReadCacheEvictionPolicy", arcDev.getStorageReadCacheEvictionPolicy());
+        writer.writeNotDef("dcmStorageReadCachePrefetchStudy", arcDev.isStorageReadCachePrefetchStudy(), false);
+        writer.writeNotNull("dcmWadoRenderedCacheDirectory", arcDev.getWadoRenderedCacheDirectory());
+        writer.writeNotDef("dcmWadoRenderedCacheSize", arcDev.getWadoRenderedCacheSize(), 256);
+        writer.writeNotEmpty("dcmWadoThumbnailSOPClass", arcDev.getWadoThumbnailSOPClasses());
+        writer.writeNotDef("dcmWadoThumbnailSize", arcDev.getWadoThumbnailSize(), 64);
+        writer.writeNotNull("dcmSchedulerLeaseDuration", arcDev.getSchedulerLeaseDuration());
+        writer.writeNotDef("dcmSchedulerPartitions", arcDev.getSchedulerPartitions(), 1);
         writer.writeNotNull("dcmAllowRejectionForDataRetentionPolicyExpired",
                 arcDev.getAllowRejectionForDataRetentionPolicyExpired());
         writer.writeNotNull("dcmAcceptMissingPatientID", arcDev.getAcceptMissingPatientID());
@@ -253,6 +274,8 @@ public class JsonArchiveConfiguration extends JsonConfigurationExtension {
             writer.writeNotNull("dcmDigestAlgorithm", st.getDigestAlgorithm());
             writer.writeNotNull("dcmInstanceAvailability", st.getInstanceAvailability());
             writer.writeNotDef("dcmReadOnly", st.isReadOnly(), false);
+            writer.writeNotDef("dcmReadCache", st.isReadCache(), false);
+            writer.writeNotDef("dcmDeleterThreads", st.getDeleterThreads(), 1);
             writer.writeNotEmpty("dcmDeleterThreshold", st.getDeleterThresholdsAsStrings());
             writer.writeNotEmpty("dcmProperty", descriptorProperties(st.getProperties()));
             writer.writeNotNull("dcmExternalRetrieveAET", st.getExternalRetrieveAETitle());
@@ -488,6 +511,7 @@ public class JsonArchiveConfiguration extends JsonConfigurationExtension {
         writer.writeNotNull("dcmIDGeneratorName", generator.getName());
         writer.writeNotNull("dcmIDGeneratorFormat", generator.getFormat());
         writer.writeNotDef("dcmIDGeneratorInitialValue", generator.getInitialValue(), 1);
+        writer.writeNotDef("dcmIDGeneratorBlockSize", generator.getBlockSize(), 1);
         writer.writeEnd();
     }
 
@@ -515,6 +539,7 @@ public class JsonArchiveConfiguration extends JsonConfigurationExtension {
         writer.writeNotNull("dcmWadoSR2HtmlTemplateURI", arcAE.getWadoSR2HtmlTemplateURI());
         writer.writeNotNull("dcmWadoSR2TextTemplateURI", arcAE.getWadoSR2TextTemplateURI());
         writer.writeNotDef("dcmQidoMaxNumberOfResults", arcAE.getQidoMaxNumberOfResults(), 0);
+        writer.writeNotDef("dcmMaxRetrieveAssociations", arcAE.getMaxRetrieveAssociations(), 0);
         writer.writeNotEmpty("dcmFwdMppsDestination", arcAE.getMppsForwardDestinations());
         writer.writeNotEmpty("dcmIanDestination", arcAE.getIanDestinations());
         writer.writeNotNull("dcmIanDelay", arcAE.getIanDelay());
@@ -605,6 +630,9 @@ public class JsonArchiveConfiguration extends JsonConfigurationExtension {
                 case "dcmSeriesMetadataFetchSize":
                     arcDev.setSeriesMetadataFetchSize(reader.intValue());
                     break;
+                case "dcmSeriesMetadataThreads":
+                    arcDev.setSeriesMetadataThreads(reader.intValue());
+                    break;
                 case "dcmPurgeInstanceRecordsDelay":
                     arcDev.setPurgeInstanceRecordsDelay(Duration.parse(reader.stringValue()));
                     break;
@@ -647,6 +675,9 @@ public class JsonArchiveConfiguration extends JsonConfigurationExtension {
                 case "dcmQidoMaxNumberOfResults":
                     arcDev.setQidoMaxNumberOfResults(reader.intValue());
                     break;
+                case "dcmMaxRetrieveAssociations":
+                    arcDev.setMaxRetrieveAssociations(reader.intValue());
+                    break;
                 case "dcmFwdMppsDestination":
                     arcDev.setMppsForwardDestinations(reader.stringArray());
                     break;
@@ -689,6 +720,9 @@ public class JsonArchiveConfiguration extends JsonConfigurationExtension {
                 case "dcmExportTaskFetchSize":
                     arcDev.setExportTaskFetchSize(reader.intValue());
                     break;
+                case "dcmExportTaskCoalescingInterval":
+                    arcDev.setExportTaskCoalescingInterval(Duration.parse(reader.stringValue()));
+                    break;
                 case "dcmPurgeStoragePollingInterval":
                     arcDev.setPurgeStoragePollingInterval(Duration.parse(reader.stringValue()));
                     break;
@@ -731,6 +765,15 @@ public class JsonArchiveConfiguration extends JsonConfigurationExtension {
                 case "dcmStowSpoolDirectory":
                     arcDev.setStowSpoolDirectory(reader.stringValue());
                     break;
+                case "dcmStowMaxParallelism":
+                    arcDev.setStowMaxParallelism(reader.intValue());
+                    break;
+                case "dcmStowMemoryThreshold":
+                    arcDev.setStowMemoryThreshold(reader.intValue());
+                    break;
+                case "dcmStoreMemoryThreshold":
+                    arcDev.setStoreMemoryThreshold(reader.intValue());
+                    break;
                 case "hl7PatientUpdateTemplateURI":
                     arcDev.setPatientUpdateTemplateURI(reader.stringValue());
                     break;
@@ -752,6 +795,9 @@ public class JsonArchiveConfiguration extends JsonConfigurationExtension {
                 case "dcmPurgeQueueMessagePollingInterval":
                     arcDev.setPurgeQueueMessagePollingInterval(Duration.parse(reader.stringValue()));
                     break;
+                case "dcmQueueMessageFetchSize":
+                    arcDev.setQueueMessageFetchSize(reader.intValue());
+                    break;
                 case "dcmWadoSpoolDirectory":
                     arcDev.setWadoSpoolDirectory(reader.stringValue());
                     break;
@@ -797,6 +843,48 @@ public class JsonArchiveConfiguration extends JsonConfigurationExtension {
                 case "dcmStoreUpdateDBMaxRetryDelay":
                     arcDev.setStoreUpdateDBMaxRetryDelay(reader.intValue());
                     break;
+                case "dcmStoreUpdateDBMaxBatchSize":
+                    arcDev.setStoreUpdateDBMaxBatchSize(reader.intValue());
+                    break;
+                case "dcmStoreUpdateDBMaxBatchDelay":
+                    arcDev.setStoreUpdateDBMaxBatchDelay(reader.intValue());
+                    break;
+                case "dcmAssociationPoolIdleTimeout":
+                    arcDev.setAssociationPoolIdleTimeout(Duration.parse(reader.stringValue()));
+                    break;
+                case "dcmAssociationPoolSize":
+                    arcDev.setAssociationPoolSize(reader.intValue());
+                    break;
+                case "dcmStorageReadCacheDirectory":
+                    arcDev.setStorageReadCacheDirectory(reader.stringValue());
+                    break;
+                case "dcmStorageReadCacheSize":
+                    arcDev.setStorageReadCacheSize(reader.intValue());
+                    break;
+                case "dcmStorageReadCacheEvictionPolicy":
+                    arcDev.setStorageReadCacheEvictionPolicy(CacheEvictionPolicy.valueOf(reader.stringValue()));
+                    break;
+                case "dcmStorageReadCachePrefetchStudy":
+                    arcDev.setStorageReadCachePrefetchStudy(reader.booleanValue());
+                    break;
+                case "dcmWadoRenderedCacheDirectory":
+                    arcDev.setWadoRenderedCacheDirectory(reader.stringValue());
+                    break;
+                case "dcmWadoRenderedCacheSize":
+                    arcDev.setWadoRenderedCacheSize(reader.intValue());
+                    break;
+                case "dcmWadoThumbnailSOPClass":
+                    arcDev.setWadoThumbnailSOPClasses(reader.stringArray());
+                    break;
+                case "dcmWadoThumbnailSize":
+                    arcDev.setWadoThumbnailSize(reader.intValue());
+                    break;
+                case "dcmSchedulerLeaseDuration":
+                    arcDev.setSchedulerLeaseDuration(Duration.parse(reader.stringValue()));
+                    break;
+                case "dcmSchedulerPartitions":
+                    arcDev.setSchedulerPartitions(reader.intValue());
+                    break;
                 case "dcmAllowRejectionForDataRetentionPolicyExpired":
                     arcDev.setAllowRejectionForDataRetentionPolicyExpired(
                             AllowRejectionForDataRetentionPolicyExpired.valueOf(reader.stringValue()));
@@ -1035,6 +1123,12 @@ public class JsonArchiveConfiguration extends JsonConfigurationExtension {
                     case "dcmReadOnly":
                         st.setReadOnly(reader.booleanValue());
                         break;
+                    case "dcmReadCache":
+                        st.setReadCache(reader.booleanValue());
+                        break;
+                    case "dcmDeleterThreads":
+                        st.setDeleterThreads(reader.intValue());
+                        break;
                     case "dcmDeleterThreshold":
                         st.setDeleterThresholdsFromStrings(reader.stringArray());
                         break;
@@ -1557,6 +1651,9 @@ public class JsonArchiveConfiguration extends JsonConfigurationExtension {
                     case "dcmIDGeneratorInitialValue":
                         generator.setInitialValue(reader.intValue());
                         break;
+                    case "dcmIDGeneratorBlockSize":
+                        generator.setBlockSize(reader.intValue());
+                        break;
                     default:
                         reader.skipUnknownProperty();
                 }
@@ -1632,6 +1729,9 @@ public class JsonArchiveConfiguration extends JsonConfigurationExtension {
                 case "dcmQidoMaxNumberOfResults":
                     arcAE.setQidoMaxNumberOfResults(reader.intValue());
                     break;
+                case "dcmMaxRetrieveAssociations":
+                    arcAE.setMaxRetrieveAssociations(reader.intValue());
+                    break;
                 case "dcmFwdMppsDestination":
                     arcAE.setMppsForwardDestinations(reader.stringArray());
                     break;
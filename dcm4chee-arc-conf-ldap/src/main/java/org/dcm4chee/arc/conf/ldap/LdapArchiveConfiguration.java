@@ -85,6 +85,7 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
         LdapUtils.storeNotNull(attrs, "dcmSeriesMetadataDelay", ext.getSeriesMetadataDelay());
         LdapUtils.storeNotNull(attrs, "dcmSeriesMetadataPollingInterval", ext.getSeriesMetadataPollingInterval());
         LdapUtils.storeNotDef(attrs, "dcmSeriesMetadataFetchSize", ext.getSeriesMetadataFetchSize(), 100);
+        LdapUtils.storeNotDef(attrs, "dcmSeriesMetadataThreads", ext.getSeriesMetadataThreads(), 1);
         LdapUtils.storeNotNull(attrs, "dcmPurgeInstanceRecordsDelay", ext.getPurgeInstanceRecordsDelay());
         LdapUtils.storeNotNull(attrs, "dcmPurgeInstanceRecordsPollingInterval", ext.getPurgeInstanceRecordsPollingInterval());
         LdapUtils.storeNotDef(attrs, "dcmPurgeInstanceRecordsFetchSize", ext.getPurgeInstanceRecordsFetchSize(), 100);
@@ -110,6 +111,7 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
         LdapUtils.storeNotNull(attrs, "dcmUnzipVendorDataToURI", ext.getUnzipVendorDataToURI());
         LdapUtils.storeNotEmpty(attrs, "dcmWadoSupportedSRClasses", ext.getWadoSupportedSRClasses());
         LdapUtils.storeNotDef(attrs, "dcmQidoMaxNumberOfResults", ext.getQidoMaxNumberOfResults(), 0);
+        LdapUtils.storeNotDef(attrs, "dcmMaxRetrieveAssociations", ext.getMaxRetrieveAssociations(), 1);
         LdapUtils.storeNotEmpty(attrs, "dcmFwdMppsDestination", ext.getMppsForwardDestinations());
         LdapUtils.storeNotEmpty(attrs, "dcmIanDestination", ext.getIanDestinations());
         LdapUtils.storeNotNull(attrs, "dcmIanDelay", ext.getIanDelay());
@@ -119,6 +121,7 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
         LdapUtils.storeNotDef(attrs, "dcmIanTaskFetchSize", ext.getIanTaskFetchSize(), 100);
         LdapUtils.storeNotNull(attrs, "dcmExportTaskPollingInterval", ext.getExportTaskPollingInterval());
         LdapUtils.storeNotDef(attrs, "dcmExportTaskFetchSize", ext.getExportTaskFetchSize(), 5);
+        LdapUtils.storeNotNull(attrs, "dcmExportTaskCoalescingInterval", ext.getExportTaskCoalescingInterval());
         LdapUtils.storeNotNull(attrs, "dcmPurgeStoragePollingInterval", ext.getPurgeStoragePollingInterval());
         LdapUtils.storeNotDef(attrs, "dcmPurgeStorageFetchSize", ext.getPurgeStorageFetchSize(), 100);
         LdapUtils.storeNotNull(attrs, "dcmDeleteRejectedPollingInterval", ext.getDeleteRejectedPollingInterval());
@@ -134,7 +137,11 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
         LdapUtils.storeNotNull(attrs, "dcmAuditPollingInterval", ext.getAuditPollingInterval());
         LdapUtils.storeNotNull(attrs, "dcmAuditAggregateDuration", ext.getAuditAggregateDuration());
         LdapUtils.storeNotNull(attrs, "dcmStowSpoolDirectory", ext.getStowSpoolDirectory());
+        LdapUtils.storeNotDef(attrs, "dcmStowMaxParallelism", ext.getStowMaxParallelism(), 1);
+        LdapUtils.storeNotDef(attrs, "dcmStowMemoryThreshold", ext.getStowMemoryThreshold(), 0);
+        LdapUtils.storeNotDef(attrs, "dcmStoreMemoryThreshold", ext.getStoreMemoryThreshold(), 1048576);
         LdapUtils.storeNotNull(attrs, "dcmPurgeQueueMessagePollingInterval", ext.getPurgeQueueMessagePollingInterval());
+        LdapUtils.storeNotDef(attrs, "dcmQueueMessageFetchSize", ext.getQueueMessageFetchSize(), 1000);
         LdapUtils.storeNotNull(attrs, "dcmWadoSpoolDirectory", ext.getWadoSpoolDirectory());
         LdapUtils.storeNotEmpty(attrs, "dcmHideSPSWithStatusFromMWL", ext.getHideSPSWithStatusFrom());
         LdapUtils.storeNotNull(attrs, "dcmRejectExpiredStudiesPollingInterval", ext.getRejectExpiredStudiesPollingInterval());
@@ -151,6 +158,20 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
         LdapUtils.storeNotDef(attrs, "dcmMergeMWLCacheSize", ext.getMergeMWLCacheSize(), 10);
         LdapUtils.storeNotDef(attrs, "dcmStoreUpdateDBMaxRetries", ext.getStoreUpdateDBMaxRetries(), 1);
         LdapUtils.storeNotDef(attrs, "dcmStoreUpdateDBMaxRetryDelay", ext.getStoreUpdateDBMaxRetryDelay(), 1000);
+        LdapUtils.storeNotDef(attrs, "dcmStoreUpdateDBMaxBatchSize", ext.getStoreUpdateDBMaxBatchSize(), 1);
+        LdapUtils.storeNotDef(attrs, "dcmStoreUpdateDBMaxBatchDelay", ext.getStoreUpdateDBMaxBatchDelay(), 10);
+        LdapUtils.storeNotNull(attrs, "dcmAssociationPoolIdleTimeout", ext.getAssociationPoolIdleTimeout());
+        LdapUtils.storeNotDef(attrs, "dcmAssociationPoolSize", ext.getAssociationPoolSize(), 10);
+        LdapUtils.storeNotNull(attrs, "dcmStorageReadCacheDirectory", ext.getStorageReadCacheDirectory());
+        LdapUtils.storeNotDef(attrs, "dcmStorageReadCacheSize", ext.getStorageReadCacheSize(), 1024);
+        LdapUtils.storeNotNull(attrs, "dcmStorageReadCacheEvictionPolicy", ext.getStorageReadCacheEvictionPolicy());
+        LdapUtils.storeNotDef(attrs, "dcmStorageReadCachePrefetchStudy", ext.isStorageReadCachePrefetchStudy(), false);
+        LdapUtils.storeNotNull(attrs, "dcmWadoRenderedCacheDirectory", ext.getWadoRenderedCacheDirectory());
+        LdapUtils.storeNotDef(attrs, "dcmWadoRenderedCacheSize", ext.getWadoRenderedCacheSize(), 256);
+        LdapUtils.storeNotEmpty(attrs, "dcmWadoThumbnailSOPClass", ext.getWadoThumbnailSOPClasses());
+        LdapUtils.storeNotDef(attrs, "dcmWadoThumbnailSize", ext.getWadoThumbnailSize(), 64);
+        LdapUtils.storeNotNull(attrs, "dcmSchedulerLeaseDuration", ext.getSchedulerLeaseDuration());
+        LdapUtils.storeNotDef(attrs, "dcmSchedulerPartitions", ext.getSchedulerPartitions(), 1);
         LdapUtils.storeNotNull(attrs, "dcmAllowRejectionForDataRetentionPolicyExpired", ext.getAllowRejectionForDataRetentionPolicyExpired());
         LdapUtils.storeNotNull(attrs, "dcmAcceptMissingPatientID", ext.getAcceptMissingPatientID());
         LdapUtils.storeNotNull(attrs, "dcmAllowDeleteStudyPermanently", ext.getAllowDeleteStudyPermanently());
@@ -199,6 +220,7 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
         ext.setSeriesMetadataDelay(toDuration(attrs.get("dcmSeriesMetadataDelay")));
         ext.setSeriesMetadataPollingInterval(toDuration(attrs.get("dcmSeriesMetadataPollingInterval")));
         ext.setSeriesMetadataFetchSize(LdapUtils.intValue(attrs.get("dcmSeriesMetadataFetchSize"), 100));
+        ext.setSeriesMetadataThreads(LdapUtils.intValue(attrs.get("dcmSeriesMetadataThreads"), 1));
         ext.setPurgeInstanceRecordsDelay(toDuration(attrs.get("dcmPurgeInstanceRecordsDelay")));
         ext.setPurgeInstanceRecordsPollingInterval(toDuration(attrs.get("dcmPurgeInstanceRecordsPollingInterval")));
         ext.setPurgeInstanceRecordsFetchSize(
@@ -225,6 +247,7 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
         ext.setUnzipVendorDataToURI(LdapUtils.stringValue(attrs.get("dcmUnzipVendorDataToURI"), null));
         ext.setWadoSupportedSRClasses(LdapUtils.stringArray(attrs.get("dcmWadoSupportedSRClasses")));
         ext.setQidoMaxNumberOfResults(LdapUtils.intValue(attrs.get("dcmQidoMaxNumberOfResults"), 0));
+        ext.setMaxRetrieveAssociations(LdapUtils.intValue(attrs.get("dcmMaxRetrieveAssociations"), 1));
         ext.setMppsForwardDestinations(LdapUtils.stringArray(attrs.get("dcmFwdMppsDestination")));
         ext.setIanDestinations(LdapUtils.stringArray(attrs.get("dcmIanDestination")));
         ext.setIanDelay(toDuration(attrs.get("dcmIanDelay")));
@@ -234,6 +257,7 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
         ext.setIanTaskFetchSize(LdapUtils.intValue(attrs.get("dcmIanTaskFetchSize"), 100));
         ext.setExportTaskPollingInterval(toDuration(attrs.get("dcmExportTaskPollingInterval")));
         ext.setExportTaskFetchSize(LdapUtils.intValue(attrs.get("dcmExportTaskFetchSize"), 5));
+        ext.setExportTaskCoalescingInterval(toDuration(attrs.get("dcmExportTaskCoalescingInterval")));
         ext.setPurgeStoragePollingInterval(toDuration(attrs.get("dcmPurgeStoragePollingInterval")));
         ext.setPurgeStorageFetchSize(LdapUtils.intValue(attrs.get("dcmPurgeStorageFetchSize"), 100));
         ext.setDeleteRejectedPollingInterval(toDuration(attrs.get("dcmDeleteRejectedPollingInterval")));
@@ -249,7 +273,11 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
         ext.setAuditPollingInterval(toDuration(attrs.get("dcmAuditPollingInterval")));
         ext.setAuditAggregateDuration(toDuration(attrs.get("dcmAuditAggregateDuration")));
         ext.setStowSpoolDirectory(LdapUtils.stringValue(attrs.get("dcmStowSpoolDirectory"), null));
+        ext.setStowMaxParallelism(LdapUtils.intValue(attrs.get("dcmStowMaxParallelism"), 1));
+        ext.setStowMemoryThreshold(LdapUtils.intValue(attrs.get("dcmStowMemoryThreshold"), 0));
+        ext.setStoreMemoryThreshold(LdapUtils.intValue(attrs.get("dcmStoreMemoryThreshold"), 1048576));
         ext.setPurgeQueueMessagePollingInterval(toDuration(attrs.get("dcmPurgeQueueMessagePollingInterval")));
+        ext.setQueueMessageFetchSize(LdapUtils.intValue(attrs.get("dcmQueueMessageFetchSize"), 1000));
         ext.setWadoSpoolDirectory(LdapUtils.stringValue(attrs.get("dcmWadoSpoolDirectory"), null));
         ext.setHideSPSWithStatusFrom(LdapUtils.enumArray(SPSStatus.class, attrs.get("dcmHideSPSWithStatusFromMWL")));
         ext.setRejectExpiredStudiesPollingInterval(toDuration(attrs.get("dcmRejectExpiredStudiesPollingInterval")));
@@ -266,6 +294,22 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
         ext.setMergeMWLCacheSize(LdapUtils.intValue(attrs.get("dcmMergeMWLCacheSize"), 10));
         ext.setStoreUpdateDBMaxRetries(LdapUtils.intValue(attrs.get("dcmStoreUpdateDBMaxRetries"), 1));
         ext.setStoreUpdateDBMaxRetryDelay(LdapUtils.intValue(attrs.get("dcmStoreUpdateDBMaxRetryDelay"), 1000));
+        ext.setStoreUpdateDBMaxBatchSize(LdapUtils.intValue(attrs.get("dcmStoreUpdateDBMaxBatchSize"), 1));
+        ext.setStoreUpdateDBMaxBatchDelay(LdapUtils.intValue(attrs.get("dcmStoreUpdateDBMaxBatchDelay"), 10));
+        ext.setAssociationPoolIdleTimeout(toDuration(attrs.get("dcmAssociationPoolIdleTimeout")));
+        ext.setAssociationPoolSize(LdapUtils.intValue(attrs.get("dcmAssociationPoolSize"), 10));
+        ext.setStorageReadCacheDirectory(LdapUtils.stringValue(attrs.get("dcmStorageReadCacheDirectory"), null));
+        ext.setStorageReadCacheSize(LdapUtils.intValue(attrs.get("dcmStorageReadCacheSize"), 1024));
+        ext.setStorageReadCacheEvictionPolicy(LdapUtils.enumValue(CacheEvictionPolicy.class,
+                attrs.get("dcmStorageReadCacheEvictionPolicy"), null));
+        ext.setStorageReadCachePrefetchStudy(
+                LdapUtils.booleanValue(attrs.get("dcmStorageReadCachePrefetchStudy"), false));
+        ext.setWadoRenderedCacheDirectory(LdapUtils.stringValue(attrs.get("dcmWadoRenderedCacheDirectory"), null));
+        ext.setWadoRenderedCacheSize(LdapUtils.intValue(attrs.get("dcmWadoRenderedCacheSize"), 256));
+        ext.setWadoThumbnailSOPClasses(LdapUtils.stringArray(attrs.get("dcmWadoThumbnailSOPClass")));
+        ext.setWadoThumbnailSize(LdapUtils.intValue(attrs.get("dcmWadoThumbnailSize"), 64));
+        ext.setSchedulerLeaseDuration(toDuration(attrs.get("dcmSchedulerLeaseDuration")));
+        ext.setSchedulerPartitions(LdapUtils.intValue(attrs.get("dcmSchedulerPartitions"), 1));
         ext.setAllowRejectionForDataRetentionPolicyExpired(
                 LdapUtils.enumValue(AllowRejectionForDataRetentionPolicyExpired.class,
                         attrs.get("dcmAllowRejectionForDataRetentionPolicyExpired"), null));
@@ -325,6 +369,10 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
                 aa.getSeriesMetadataFetchSize(),
                 bb.getSeriesMetadataFetchSize(),
                 100);
+        LdapUtils.storeDiff(mods, "dcmSeriesMetadataThreads",
+                aa.getSeriesMetadataThreads(),
+                bb.getSeriesMetadataThreads(),
+                1);
         LdapUtils.storeDiff(mods, "dcmPurgeInstanceRecordsDelay",
                 aa.getPurgeInstanceRecordsDelay(),
                 bb.getPurgeInstanceRecordsDelay());
@@ -372,6 +420,8 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
                 aa.getWadoSupportedSRClasses(), bb.getWadoSupportedSRClasses());
         LdapUtils.storeDiff(mods, "dcmQidoMaxNumberOfResults",
                 aa.getQidoMaxNumberOfResults(), bb.getQidoMaxNumberOfResults(),  0);
+        LdapUtils.storeDiff(mods, "dcmMaxRetrieveAssociations",
+                aa.getMaxRetrieveAssociations(), bb.getMaxRetrieveAssociations(), 1);
         LdapUtils.storeDiff(mods, "dcmFwdMppsDestination",
                 aa.getMppsForwardDestinations(), bb.getMppsForwardDestinations());
         LdapUtils.storeDiff(mods, "dcmIanDestination", aa.getIanDestinations(), bb.getIanDestinations());
@@ -385,6 +435,8 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
                 aa.getExportTaskPollingInterval(), bb.getExportTaskPollingInterval());
         LdapUtils.storeDiff(mods, "dcmExportTaskFetchSize",
                 aa.getExportTaskFetchSize(), bb.getExportTaskFetchSize(), 5);
+        LdapUtils.storeDiff(mods, "dcmExportTaskCoalescingInterval",
+                aa.getExportTaskCoalescingInterval(), bb.getExportTaskCoalescingInterval());
         LdapUtils.storeDiff(mods, "dcmPurgeStoragePollingInterval",
                 aa.getPurgeStoragePollingInterval(), bb.getPurgeStoragePollingInterval());
         LdapUtils.storeDiff(mods, "dcmPurgeStorageFetchSize",
@@ -413,8 +465,16 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
                 aa.getAuditAggregateDuration(), bb.getAuditAggregateDuration());
         LdapUtils.storeDiff(mods, "dcmStowSpoolDirectory",
                 aa.getStowSpoolDirectory(), bb.getStowSpoolDirectory());
+        LdapUtils.storeDiff(mods, "dcmStowMaxParallelism",
+                aa.getStowMaxParallelism(), bb.getStowMaxParallelism(), 1);
+        LdapUtils.storeDiff(mods, "dcmStowMemoryThreshold",
+                aa.getStowMemoryThreshold(), bb.getStowMemoryThreshold(), 0);
+        LdapUtils.storeDiff(mods, "dcmStoreMemoryThreshold",
+                aa.getStoreMemoryThreshold(), bb.getStoreMemoryThreshold(), 1048576);
         LdapUtils.storeDiff(mods, "dcmPurgeQueueMessagePollingInterval", aa.getPurgeQueueMessagePollingInterval(),
                 bb.getPurgeQueueMessagePollingInterval());
+        LdapUtils.storeDiff(mods, "dcmQueueMessageFetchSize",
+                aa.getQueueMessageFetchSize(), bb.getQueueMessageFetchSize(), 1000);
         LdapUtils.storeDiff(mods, "dcmWadoSpoolDirectory",
                 aa.getWadoSpoolDirectory(), bb.getWadoSpoolDirectory());
         LdapUtils.storeDiff(mods, "dcmHideSPSWithStatusFromMWL", aa.getHideSPSWithStatusFrom(), bb.getHideSPSWithStatusFrom());
@@ -446,6 +506,34 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
                 aa.getStoreUpdateDBMaxRetries(), bb.getStoreUpdateDBMaxRetries(), 1);
         LdapUtils.storeDiff(mods, "dcmStoreUpdateDBMaxRetryDelay",
                 aa.getStoreUpdateDBMaxRetryDelay(), bb.getStoreUpdateDBMaxRetryDelay(), 1000);
+        LdapUtils.storeDiff(mods, "dcmStoreUpdateDBMaxBatchSize",
+                aa.getStoreUpdateDBMaxBatchSize(), bb.getStoreUpdateDBMaxBatchSize(), 1);
+        LdapUtils.storeDiff(mods, "dcmStoreUpdateDBMaxBatchDelay",
+                aa.getStoreUpdateDBMaxBatchDelay(), bb.getStoreUpdateDBMaxBatchDelay(), 10);
+        LdapUtils.storeDiff(mods, "dcmAssociationPoolIdleTimeout",
+                aa.getAssociationPoolIdleTimeout(), bb.getAssociationPoolIdleTimeout());
+        LdapUtils.storeDiff(mods, "dcmAssociationPoolSize",
+                aa.getAssociationPoolSize(), bb.getAssociationPoolSize(), 10);
+        LdapUtils.storeDiff(mods, "dcmStorageReadCacheDirectory",
+                aa.getStorageReadCacheDirectory(), bb.getStorageReadCacheDirectory());
+        LdapUtils.storeDiff(mods, "dcmStorageReadCacheSize",
+                aa.getStorageReadCacheSize(), bb.getStorageReadCacheSize(), 1024);
+        LdapUtils.storeDiff(mods, "dcmStorageReadCacheEvictionPolicy",
+                aa.getStorageReadCacheEvictionPolicy(), bb.getStorageReadCacheEvictionPolicy());
+        LdapUtils.storeDiff(mods, "dcmStorageReadCachePrefetchStudy",
+                aa.isStorageReadCachePrefetchStudy(), bb.isStorageReadCachePrefetchStudy(), false);
+        LdapUtils.storeDiff(mods, "dcmWadoRenderedCacheDirectory",
+                aa.getWadoRenderedCacheDirectory(), bb.getWadoRenderedCacheDirectory());
+        LdapUtils.storeDiff(mods, "dcmWadoRenderedCacheSize",
+                aa.getWadoRenderedCacheSize(), bb.getWadoRenderedCacheSize(), 256);
+        LdapUtils.storeDiff(mods, "dcmWadoThumbnailSOPClass",
+                aa.getWadoThumbnailSOPClasses(), bb.getWadoThumbnailSOPClasses());
+        LdapUtils.storeDiff(mods, "dcmWadoThumbnailSize",
+                aa.getWadoThumbnailSize(), bb.getWadoThumbnailSize(), 64);
+        LdapUtils.storeDiff(mods, "dcmSchedulerLeaseDuration",
+                aa.getSchedulerLeaseDuration(), bb.getSchedulerLeaseDuration());
+        LdapUtils.storeDiff(mods, "dcmSchedulerPartitions",
+                aa.getSchedulerPartitions(), bb.getSchedulerPartitions(), 1);
         LdapUtils.storeDiff(mods, "dcmAllowRejectionForDataRetentionPolicyExpired",
                 aa.getAllowRejectionForDataRetentionPolicyExpired(), bb.getAllowRejectionForDataRetentionPolicyExpired());
         LdapUtils.storeDiff(mods, "dcmAcceptMissingPatientID", aa.getAcceptMissingPatientID(), bb.getAcceptMissingPatientID());
@@ -598,6 +686,7 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
         LdapUtils.storeNotNull(attrs, "dcmWadoSR2HtmlTemplateURI", ext.getWadoSR2HtmlTemplateURI());
         LdapUtils.storeNotNull(attrs, "dcmWadoSR2TextTemplateURI", ext.getWadoSR2TextTemplateURI());
         LdapUtils.storeNotDef(attrs, "dcmQidoMaxNumberOfResults", ext.getQidoMaxNumberOfResults(), 0);
+        LdapUtils.storeNotDef(attrs, "dcmMaxRetrieveAssociations", ext.getMaxRetrieveAssociations(), 0);
         LdapUtils.storeNotEmpty(attrs, "dcmFwdMppsDestination", ext.getMppsForwardDestinations());
         LdapUtils.storeNotEmpty(attrs, "dcmIanDestination", ext.getIanDestinations());
         LdapUtils.storeNotNull(attrs, "dcmIanDelay", ext.getIanDelay());
@@ -659,6 +748,7 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
         ext.setWadoSR2HtmlTemplateURI(LdapUtils.stringValue(attrs.get("dcmWadoSR2HtmlTemplateURI"), null));
         ext.setWadoSR2TextTemplateURI(LdapUtils.stringValue(attrs.get("dcmWadoSR2TextTemplateURI"), null));
         ext.setQidoMaxNumberOfResults(LdapUtils.intValue(attrs.get("dcmQidoMaxNumberOfResults"), 0));
+        ext.setMaxRetrieveAssociations(LdapUtils.intValue(attrs.get("dcmMaxRetrieveAssociations"), 0));
         ext.setMppsForwardDestinations(LdapUtils.stringArray(attrs.get("dcmFwdMppsDestination")));
         ext.setIanDestinations(LdapUtils.stringArray(attrs.get("dcmIanDestination")));
         ext.setIanDelay(toDuration(attrs.get("dcmIanDelay")));
@@ -737,6 +827,8 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
                 aa.getWadoSR2TextTemplateURI(), bb.getWadoSR2TextTemplateURI());
         LdapUtils.storeDiff(mods, "dcmQidoMaxNumberOfResults",
                 aa.getQidoMaxNumberOfResults(), bb.getQidoMaxNumberOfResults(), 0);
+        LdapUtils.storeDiff(mods, "dcmMaxRetrieveAssociations",
+                aa.getMaxRetrieveAssociations(), bb.getMaxRetrieveAssociations(), 0);
         LdapUtils.storeDiff(mods, "dcmFwdMppsDestination",
                 aa.getMppsForwardDestinations(), bb.getMppsForwardDestinations());
         LdapUtils.storeDiff(mods, "dcmIanDestination", aa.getIanDestinations(), bb.getIanDestinations());
@@ -1038,6 +1130,8 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
         LdapUtils.storeNotNull(attrs, "dcmDigestAlgorithm", descriptor.getDigestAlgorithm());
         LdapUtils.storeNotNull(attrs, "dcmInstanceAvailability", descriptor.getInstanceAvailability());
         LdapUtils.storeNotDef(attrs, "dcmReadOnly", descriptor.isReadOnly(), false);
+        LdapUtils.storeNotDef(attrs, "dcmReadCache", descriptor.isReadCache(), false);
+        LdapUtils.storeNotDef(attrs, "dcmDeleterThreads", descriptor.getDeleterThreads(), 1);
         LdapUtils.storeNotEmpty(attrs, "dcmDeleterThreshold", descriptor.getDeleterThresholdsAsStrings());
         LdapUtils.storeNotEmpty(attrs, "dcmProperty", toStrings(descriptor.getProperties()));
         LdapUtils.storeNotNull(attrs, "dcmExternalRetrieveAET", descriptor.getExternalRetrieveAETitle());
@@ -1064,6 +1158,8 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
                 desc.setInstanceAvailability(
                         LdapUtils.enumValue(Availability.class, attrs.get("dcmInstanceAvailability"), null));
                 desc.setReadOnly(LdapUtils.booleanValue(attrs.get("dcmReadOnly"), false));
+                desc.setReadCache(LdapUtils.booleanValue(attrs.get("dcmReadCache"), false));
+                desc.setDeleterThreads(LdapUtils.intValue(attrs.get("dcmDeleterThreads"), 1));
                 desc.setDeleterThresholdsFromStrings(LdapUtils.stringArray(attrs.get("dcmDeleterThreshold")));
                 desc.setProperties(LdapUtils.stringArray(attrs.get("dcmProperty")));
                 desc.setExternalRetrieveAETitle(LdapUtils.stringValue(attrs.get("dcmExternalRetrieveAET"), null));
@@ -1101,6 +1197,8 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
         LdapUtils.storeDiff(mods, "dcmInstanceAvailability",
                 prev.getInstanceAvailability(), desc.getInstanceAvailability());
         LdapUtils.storeDiff(mods, "dcmReadOnly", prev.isReadOnly(), desc.isReadOnly(), false);
+        LdapUtils.storeDiff(mods, "dcmReadCache", prev.isReadCache(), desc.isReadCache(), false);
+        LdapUtils.storeDiff(mods, "dcmDeleterThreads", prev.getDeleterThreads(), desc.getDeleterThreads(), 1);
         LdapUtils.storeDiff(mods, "dcmDeleterThreshold",
                 prev.getDeleterThresholdsAsStrings(), desc.getDeleterThresholdsAsStrings());
         storeDiffProperties(mods, prev.getProperties(), desc.getProperties());
@@ -2063,6 +2161,7 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
         attrs.put("dcmIDGeneratorName", generator.getName().name());
         LdapUtils.storeNotNull(attrs, "dcmIDGeneratorFormat", generator.getFormat());
         LdapUtils.storeNotDef(attrs, "dcmIDGeneratorInitialValue", generator.getInitialValue(), 1);
+        LdapUtils.storeNotDef(attrs, "dcmIDGeneratorBlockSize", generator.getBlockSize(), 1);
         return attrs;
     }
 
@@ -2103,6 +2202,7 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
                 generator.setName(LdapUtils.enumValue(IDGenerator.Name.class, attrs.get("dcmIDGeneratorName"), null));
                 generator.setFormat(LdapUtils.stringValue(attrs.get("dcmIDGeneratorFormat"), null));
                 generator.setInitialValue(LdapUtils.intValue(attrs.get("dcmIDGeneratorInitialValue"),1));
+                generator.setBlockSize(LdapUtils.intValue(attrs.get("dcmIDGeneratorBlockSize"),1));
                 arcdev.addIDGenerator(generator);
             }
         } finally {
@@ -2171,6 +2271,7 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
 //        LdapUtils.storeDiff(mods, "dcmIDGeneratorName", prev.getName(), generator.getName());
         LdapUtils.storeDiff(mods, "dcmIDGeneratorFormat", prev.getFormat(), generator.getFormat());
         LdapUtils.storeDiff(mods, "dcmIDGeneratorInitialValue", prev.getInitialValue(), generator.getInitialValue(), 1);
+        LdapUtils.storeDiff(mods, "dcmIDGeneratorBlockSize", prev.getBlockSize(), generator.getBlockSize(), 1);
         return mods;
     }
 
@@ -81,6 +81,7 @@ class Assert {
         assertEquals(expected.getWadoSR2HtmlTemplateURI(), actual.getWadoSR2HtmlTemplateURI());
         assertEquals(expected.getWadoSR2TextTemplateURI(), actual.getWadoSR2TextTemplateURI());
         assertEquals(expected.getQidoMaxNumberOfResults(), actual.getQidoMaxNumberOfResults());
+        assertEquals(expected.getMaxRetrieveAssociations(), actual.getMaxRetrieveAssociations());
         assertArrayEquals(expected.getMppsForwardDestinations(), actual.getMppsForwardDestinations());
         assertEquals(expected.getFallbackCMoveSCP(), actual.getFallbackCMoveSCP());
         assertEquals(expected.getFallbackCMoveSCPDestination(), actual.getFallbackCMoveSCPDestination());
@@ -102,6 +103,7 @@ class Assert {
         assertEquals(expected.getWadoSR2HtmlTemplateURI(), actual.getWadoSR2HtmlTemplateURI());
         assertEquals(expected.getWadoSR2TextTemplateURI(), actual.getWadoSR2TextTemplateURI());
         assertEquals(expected.getQidoMaxNumberOfResults(), actual.getQidoMaxNumberOfResults());
+        assertEquals(expected.getMaxRetrieveAssociations(), actual.getMaxRetrieveAssociations());
         assertArrayEquals(expected.getMppsForwardDestinations(), actual.getMppsForwardDestinations());
         assertEquals(expected.getFallbackCMoveSCP(), actual.getFallbackCMoveSCP());
         assertEquals(expected.getFallbackCMoveSCPDestination(), actual.getFallbackCMoveSCPDestination());
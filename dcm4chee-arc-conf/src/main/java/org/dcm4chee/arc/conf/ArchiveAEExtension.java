@@ -86,6 +86,7 @@ public class ArchiveAEExtension extends AEExtension {
     private String externalRetrieveAEDestination;
     private String alternativeCMoveSCP;
     private int qidoMaxNumberOfResults;
+    private int maxRetrieveAssociations;
     private SPSStatus[] hideSPSWithStatusFromMWL = {};
     private String storePermissionServiceURL;
     private Pattern storePermissionServiceResponsePattern;
@@ -114,6 +115,10 @@ public class ArchiveAEExtension extends AEExtension {
     private final ArrayList<ArchiveAttributeCoercion> attributeCoercions = new ArrayList<>();
     private final ArrayList<StudyRetentionPolicy> studyRetentionPolicies = new ArrayList<>();
     private final ArrayList<StoreAccessControlIDRule> storeAccessControlIDRules = new ArrayList<>();
+    private transient volatile RuleIndex<ExportRule> exportRuleIndex;
+    private transient volatile RuleIndex<ArchiveCompressionRule> compressionRuleIndex;
+    private transient volatile RuleIndex<StudyRetentionPolicy> studyRetentionPolicyIndex;
+    private transient volatile RuleIndex<StoreAccessControlIDRule> storeAccessControlIDRuleIndex;
 
     public String getDefaultCharacterSet() {
         return defaultCharacterSet;
@@ -520,6 +525,20 @@ public class ArchiveAEExtension extends AEExtension {
                 : getArchiveDeviceExtension().getQidoMaxNumberOfResults();
     }
 
+    public int getMaxRetrieveAssociations() {
+        return maxRetrieveAssociations;
+    }
+
+    public void setMaxRetrieveAssociations(int maxRetrieveAssociations) {
+        this.maxRetrieveAssociations = maxRetrieveAssociations;
+    }
+
+    public int maxRetrieveAssociations() {
+        return maxRetrieveAssociations > 0
+                ? maxRetrieveAssociations
+                : getArchiveDeviceExtension().getMaxRetrieveAssociations();
+    }
+
     public SPSStatus[] getHideSPSWithStatusFromMWL() {
         return hideSPSWithStatusFromMWL;
     }
@@ -669,20 +688,34 @@ public class ArchiveAEExtension extends AEExtension {
 
     public void removeExportRule(ExportRule rule) {
         exportRules.remove(rule);
+        exportRuleIndex = null;
     }
 
     public void clearExportRules() {
         exportRules.clear();
+        exportRuleIndex = null;
     }
 
     public void addExportRule(ExportRule rule) {
         exportRules.add(rule);
+        exportRuleIndex = null;
     }
 
     public Collection<ExportRule> getExportRules() {
         return exportRules;
     }
 
+    RuleIndex<ExportRule> exportRuleIndex() {
+        RuleIndex<ExportRule> index = exportRuleIndex;
+        if (index == null || index.size() != exportRules.size()) {
+            index = new RuleIndex<>();
+            for (ExportRule rule : exportRules)
+                index.add(rule, rule.getConditions());
+            exportRuleIndex = index;
+        }
+        return index;
+    }
+
     public void removeRSForwardRule(RSForwardRule rule) {
         rsForwardRules.remove(rule);
     }
@@ -701,36 +734,64 @@ public class ArchiveAEExtension extends AEExtension {
 
     public void removeCompressionRule(ArchiveCompressionRule rule) {
         compressionRules.remove(rule);
+        compressionRuleIndex = null;
     }
 
     public void clearCompressionRules() {
         compressionRules.clear();
+        compressionRuleIndex = null;
     }
 
     public void addCompressionRule(ArchiveCompressionRule rule) {
         compressionRules.add(rule);
+        compressionRuleIndex = null;
     }
 
     public Collection<ArchiveCompressionRule> getCompressionRules() {
         return compressionRules;
     }
 
+    RuleIndex<ArchiveCompressionRule> compressionRuleIndex() {
+        RuleIndex<ArchiveCompressionRule> index = compressionRuleIndex;
+        if (index == null || index.size() != compressionRules.size()) {
+            index = new RuleIndex<>();
+            for (ArchiveCompressionRule rule : compressionRules)
+                index.add(rule, rule.getConditions());
+            compressionRuleIndex = index;
+        }
+        return index;
+    }
+
     public void removeStudyRetentionPolicies(StudyRetentionPolicy policy) {
         studyRetentionPolicies.remove(policy);
+        studyRetentionPolicyIndex = null;
     }
 
     public void clearStudyRetentionPolicy() {
         studyRetentionPolicies.clear();
+        studyRetentionPolicyIndex = null;
     }
 
     public void addStudyRetentionPolicy(StudyRetentionPolicy policy) {
         studyRetentionPolicies.add(policy);
+        studyRetentionPolicyIndex = null;
     }
 
     public Collection<StudyRetentionPolicy> getStudyRetentionPolicies() {
         return studyRetentionPolicies;
     }
 
+    RuleIndex<StudyRetentionPolicy> studyRetentionPolicyIndex() {
+        RuleIndex<StudyRetentionPolicy> index = studyRetentionPolicyIndex;
+        if (index == null || index.size() != studyRetentionPolicies.size()) {
+            index = new RuleIndex<>();
+            for (StudyRetentionPolicy policy : studyRetentionPolicies)
+                index.add(policy, policy.getConditions());
+            studyRetentionPolicyIndex = index;
+        }
+        return index;
+    }
+
     public void removeAttributeCoercion(ArchiveAttributeCoercion coercion) {
         attributeCoercions.remove(coercion);
     }
@@ -749,20 +810,34 @@ public class ArchiveAEExtension extends AEExtension {
 
     public void removeStoreAccessControlIDRule(StoreAccessControlIDRule storeAccessControlIDRule) {
         storeAccessControlIDRules.remove(storeAccessControlIDRule);
+        storeAccessControlIDRuleIndex = null;
     }
 
     public void clearStoreAccessControlIDRules() {
         storeAccessControlIDRules.clear();
+        storeAccessControlIDRuleIndex = null;
     }
 
     public void addStoreAccessControlIDRule(StoreAccessControlIDRule storeAccessControlIDRule) {
         storeAccessControlIDRules.add(storeAccessControlIDRule);
+        storeAccessControlIDRuleIndex = null;
     }
 
     public ArrayList<StoreAccessControlIDRule> getStoreAccessControlIDRules() {
         return storeAccessControlIDRules;
     }
 
+    RuleIndex<StoreAccessControlIDRule> storeAccessControlIDRuleIndex() {
+        RuleIndex<StoreAccessControlIDRule> index = storeAccessControlIDRuleIndex;
+        if (index == null || index.size() != storeAccessControlIDRules.size()) {
+            index = new RuleIndex<>();
+            for (StoreAccessControlIDRule rule : storeAccessControlIDRules)
+                index.add(rule, rule.getConditions());
+            storeAccessControlIDRuleIndex = index;
+        }
+        return index;
+    }
+
     public AllowDeleteStudyPermanently getAllowDeleteStudyPermanently() {
         return allowDeleteStudyPermanently;
     }
@@ -971,6 +1046,7 @@ public class ArchiveAEExtension extends AEExtension {
         externalRetrieveAEDestination = aeExt.externalRetrieveAEDestination;
         alternativeCMoveSCP = aeExt.alternativeCMoveSCP;
         qidoMaxNumberOfResults = aeExt.qidoMaxNumberOfResults;
+        maxRetrieveAssociations = aeExt.maxRetrieveAssociations;
         hideSPSWithStatusFromMWL = aeExt.hideSPSWithStatusFromMWL;
         fallbackCMoveSCPStudyOlderThan = aeExt.fallbackCMoveSCPStudyOlderThan;
         storePermissionServiceURL = aeExt.storePermissionServiceURL;
@@ -997,16 +1073,20 @@ public class ArchiveAEExtension extends AEExtension {
         acceptedUserRoles.addAll(aeExt.acceptedUserRoles);
         exportRules.clear();
         exportRules.addAll(aeExt.exportRules);
+        exportRuleIndex = null;
         rsForwardRules.clear();
         rsForwardRules.addAll(aeExt.rsForwardRules);
         compressionRules.clear();
         compressionRules.addAll(aeExt.compressionRules);
+        compressionRuleIndex = null;
         studyRetentionPolicies.clear();
         studyRetentionPolicies.addAll(aeExt.studyRetentionPolicies);
+        studyRetentionPolicyIndex = null;
         attributeCoercions.clear();
         attributeCoercions.addAll(aeExt.attributeCoercions);
         storeAccessControlIDRules.clear();
         storeAccessControlIDRules.addAll(aeExt.storeAccessControlIDRules);
+        storeAccessControlIDRuleIndex = null;
     }
 
     public ArchiveDeviceExtension getArchiveDeviceExtension() {
@@ -1025,9 +1105,9 @@ public class ArchiveAEExtension extends AEExtension {
     public Map<String, ExportRule> findExportRules(
             String hostName, String sendingAET, String receivingAET, Attributes attrs, Calendar cal) {
         HashMap<String, ExportRule> result = new HashMap<>();
-        for (Collection<ExportRule> rules
-                : new Collection[]{exportRules, getArchiveDeviceExtension().getExportRules() })
-            for (ExportRule rule : rules)
+        for (RuleIndex<ExportRule> index
+                : new RuleIndex[]{ exportRuleIndex(), getArchiveDeviceExtension().exportRuleIndex() })
+            for (ExportRule rule : index.candidates(hostName, sendingAET, receivingAET, attrs))
                 if (rule.match(hostName, sendingAET, receivingAET, attrs, cal))
                     for (String exporterID : rule.getExporterIDs()) {
                         ExportRule rule1 = result.get(exporterID);
@@ -1050,9 +1130,9 @@ public class ArchiveAEExtension extends AEExtension {
     public ArchiveCompressionRule findCompressionRule(
             String hostName, String sendingAET, String receivingAET, Attributes attrs) {
         ArchiveCompressionRule rule1 = null;
-        for (Collection<ArchiveCompressionRule> rules
-                : new Collection[]{ compressionRules, getArchiveDeviceExtension().getCompressionRules() })
-            for (ArchiveCompressionRule rule : rules)
+        for (RuleIndex<ArchiveCompressionRule> index
+                : new RuleIndex[]{ compressionRuleIndex(), getArchiveDeviceExtension().compressionRuleIndex() })
+            for (ArchiveCompressionRule rule : index.candidates(hostName, sendingAET, receivingAET, attrs))
                 if (rule.match(hostName, sendingAET, receivingAET, attrs))
                     if (rule1 == null || rule1.getPriority() < rule.getPriority())
                         rule1 = rule;
@@ -1074,9 +1154,9 @@ public class ArchiveAEExtension extends AEExtension {
     public StudyRetentionPolicy findStudyRetentionPolicy(
             String hostName, String sendingAET, String receivingAET, Attributes attrs) {
         StudyRetentionPolicy policy1 = null;
-        for (Collection<StudyRetentionPolicy> policies
-                : new Collection[]{ studyRetentionPolicies, getArchiveDeviceExtension().getStudyRetentionPolicies() })
-            for (StudyRetentionPolicy policy : policies)
+        for (RuleIndex<StudyRetentionPolicy> index : new RuleIndex[]{
+                studyRetentionPolicyIndex(), getArchiveDeviceExtension().studyRetentionPolicyIndex() })
+            for (StudyRetentionPolicy policy : index.candidates(hostName, sendingAET, receivingAET, attrs))
                 if (policy.match(hostName, sendingAET, receivingAET, attrs))
                     if (policy1 == null || policy1.getPriority() < policy.getPriority())
                         policy1 = policy;
@@ -1085,11 +1165,11 @@ public class ArchiveAEExtension extends AEExtension {
 
     public String storeAccessControlID(String hostName, String sendingAET, String receivingAET, Attributes attrs) {
         StoreAccessControlIDRule rule1 = null;
-        for (Collection<StoreAccessControlIDRule> rules : new Collection[]{
-                storeAccessControlIDRules,
-                    getArchiveDeviceExtension().getStoreAccessControlIDRules()
+        for (RuleIndex<StoreAccessControlIDRule> index : new RuleIndex[]{
+                storeAccessControlIDRuleIndex(),
+                    getArchiveDeviceExtension().storeAccessControlIDRuleIndex()
         }) {
-            for (StoreAccessControlIDRule rule : rules)
+            for (StoreAccessControlIDRule rule : index.candidates(hostName, sendingAET, receivingAET, attrs))
                 if (rule.match(hostName, sendingAET, receivingAET, attrs))
                     if (rule1 == null || rule.getPriority() < rule.getPriority())
                         rule1 = rule;
@@ -68,6 +68,7 @@ public class ArchiveDeviceExtension extends DeviceExtension {
     private Duration seriesMetadataDelay;
     private Duration seriesMetadataPollingInterval;
     private int seriesMetadataFetchSize = 100;
+    private int seriesMetadataThreads = 1;
     private Duration purgeInstanceRecordsDelay;
     private Duration purgeInstanceRecordsPollingInterval;
     private int purgeInstanceRecordsFetchSize = 100;
@@ -81,6 +82,7 @@ public class ArchiveDeviceExtension extends DeviceExtension {
     private Duration sendPendingCMoveInterval;
     private boolean personNameComponentOrderInsensitiveMatching = false;
     private int qidoMaxNumberOfResults = 0;
+    private int maxRetrieveAssociations = 1;
     private String wadoSR2HtmlTemplateURI;
     private String wadoSR2TextTemplateURI;
     private String patientUpdateTemplateURI;
@@ -103,6 +105,7 @@ public class ArchiveDeviceExtension extends DeviceExtension {
     private String alternativeCMoveSCP;
     private Duration exportTaskPollingInterval;
     private int exportTaskFetchSize = 5;
+    private Duration exportTaskCoalescingInterval;
     private Duration deleteRejectedPollingInterval;
     private int deleteRejectedFetchSize = 100;
     private Duration purgeStoragePollingInterval;
@@ -117,8 +120,12 @@ public class ArchiveDeviceExtension extends DeviceExtension {
     private Duration auditPollingInterval;
     private Duration auditAggregateDuration;
     private String stowSpoolDirectory;
+    private int stowMaxParallelism = 1;
+    private int stowMemoryThreshold;
+    private int storeMemoryThreshold = 1048576;
     private String wadoSpoolDirectory;
     private Duration purgeQueueMessagePollingInterval;
+    private int queueMessageFetchSize = 1000;
     private Duration purgeStgCmtPollingInterval;
     private Duration purgeStgCmtCompletedDelay;
     private SPSStatus[] hideSPSWithStatusFrom = {};
@@ -141,6 +148,20 @@ public class ArchiveDeviceExtension extends DeviceExtension {
     private int mergeMWLCacheSize = 10;
     private int storeUpdateDBMaxRetries = 1;
     private int storeUpdateDBMaxRetryDelay = 1000;
+    private int storeUpdateDBMaxBatchSize = 1;
+    private int storeUpdateDBMaxBatchDelay = 10;
+    private Duration associationPoolIdleTimeout;
+    private int associationPoolSize = 10;
+    private String storageReadCacheDirectory;
+    private int storageReadCacheSize = 1024;
+    private CacheEvictionPolicy storageReadCacheEvictionPolicy;
+    private boolean storageReadCachePrefetchStudy;
+    private String wadoRenderedCacheDirectory;
+    private int wadoRenderedCacheSize = 256;
+    private String[] wadoThumbnailSOPClasses = {};
+    private int wadoThumbnailSize = 64;
+    private Duration schedulerLeaseDuration;
+    private int schedulerPartitions = 1;
     private AllowRejectionForDataRetentionPolicyExpired allowRejectionForDataRetentionPolicyExpired;
     private AcceptMissingPatientID acceptMissingPatientID;
     private AllowDeleteStudyPermanently allowDeleteStudyPermanently;
@@ -182,6 +203,10 @@ public class ArchiveDeviceExtension extends DeviceExtension {
     private final ArrayList<StudyRetentionPolicy> studyRetentionPolicies = new ArrayList<>();
     private final ArrayList<ArchiveAttributeCoercion> attributeCoercions = new ArrayList<>();
     private final ArrayList<StoreAccessControlIDRule> storeAccessControlIDRules = new ArrayList<>();
+    private transient volatile RuleIndex<ExportRule> exportRuleIndex;
+    private transient volatile RuleIndex<ArchiveCompressionRule> compressionRuleIndex;
+    private transient volatile RuleIndex<StudyRetentionPolicy> studyRetentionPolicyIndex;
+    private transient volatile RuleIndex<StoreAccessControlIDRule> storeAccessControlIDRuleIndex;
 
     private transient FuzzyStr fuzzyStr;
 
@@ -317,6 +342,14 @@ public class ArchiveDeviceExtension extends DeviceExtension {
         this.seriesMetadataFetchSize =  greaterZero(seriesMetadataFetchSize, "seriesMetadataFetchSize");
     }
 
+    public int getSeriesMetadataThreads() {
+        return seriesMetadataThreads;
+    }
+
+    public void setSeriesMetadataThreads(int seriesMetadataThreads) {
+        this.seriesMetadataThreads = greaterZero(seriesMetadataThreads, "seriesMetadataThreads");
+    }
+
     public Duration getPurgeInstanceRecordsDelay() {
         return purgeInstanceRecordsDelay;
     }
@@ -562,6 +595,14 @@ public class ArchiveDeviceExtension extends DeviceExtension {
         this.qidoMaxNumberOfResults = qidoMaxNumberOfResults;
     }
 
+    public int getMaxRetrieveAssociations() {
+        return maxRetrieveAssociations;
+    }
+
+    public void setMaxRetrieveAssociations(int maxRetrieveAssociations) {
+        this.maxRetrieveAssociations = greaterZero(maxRetrieveAssociations, "maxRetrieveAssociations");
+    }
+
     public int getExportTaskFetchSize() {
         return exportTaskFetchSize;
     }
@@ -570,6 +611,14 @@ public class ArchiveDeviceExtension extends DeviceExtension {
         this.exportTaskFetchSize = greaterZero(exportTaskFetchSize, "exportTaskFetchSize");
     }
 
+    public Duration getExportTaskCoalescingInterval() {
+        return exportTaskCoalescingInterval;
+    }
+
+    public void setExportTaskCoalescingInterval(Duration exportTaskCoalescingInterval) {
+        this.exportTaskCoalescingInterval = exportTaskCoalescingInterval;
+    }
+
     public Duration getExportTaskPollingInterval() {
         return exportTaskPollingInterval;
     }
@@ -707,6 +756,34 @@ public class ArchiveDeviceExtension extends DeviceExtension {
         this.stowSpoolDirectory = stowSpoolDirectory;
     }
 
+    public int getStowMaxParallelism() {
+        return stowMaxParallelism;
+    }
+
+    public void setStowMaxParallelism(int stowMaxParallelism) {
+        this.stowMaxParallelism = greaterZero(stowMaxParallelism, "stowMaxParallelism");
+    }
+
+    public int getStowMemoryThreshold() {
+        return stowMemoryThreshold;
+    }
+
+    public void setStowMemoryThreshold(int stowMemoryThreshold) {
+        if (stowMemoryThreshold < 0)
+            throw new IllegalArgumentException("stowMemoryThreshold: " + stowMemoryThreshold);
+        this.stowMemoryThreshold = stowMemoryThreshold;
+    }
+
+    public int getStoreMemoryThreshold() {
+        return storeMemoryThreshold;
+    }
+
+    public void setStoreMemoryThreshold(int storeMemoryThreshold) {
+        if (storeMemoryThreshold < 0)
+            throw new IllegalArgumentException("storeMemoryThreshold: " + storeMemoryThreshold);
+        this.storeMemoryThreshold = storeMemoryThreshold;
+    }
+
     public String getWadoSpoolDirectory() {
         return wadoSpoolDirectory;
     }
@@ -789,6 +866,14 @@ public class ArchiveDeviceExtension extends DeviceExtension {
         this.purgeQueueMessagePollingInterval = purgeQueueMessagePollingInterval;
     }
 
+    public int getQueueMessageFetchSize() {
+        return queueMessageFetchSize;
+    }
+
+    public void setQueueMessageFetchSize(int queueMessageFetchSize) {
+        this.queueMessageFetchSize = greaterZero(queueMessageFetchSize, "queueMessageFetchSize");
+    }
+
     public Duration getPurgeStgCmtPollingInterval() {
         return purgeStgCmtPollingInterval;
     }
@@ -909,6 +994,125 @@ public class ArchiveDeviceExtension extends DeviceExtension {
         this.storeUpdateDBMaxRetryDelay = storeUpdateDBMaxRetryDelay;
     }
 
+    public int getStoreUpdateDBMaxBatchSize() {
+        return storeUpdateDBMaxBatchSize;
+    }
+
+    public void setStoreUpdateDBMaxBatchSize(int storeUpdateDBMaxBatchSize) {
+        this.storeUpdateDBMaxBatchSize = greaterZero(storeUpdateDBMaxBatchSize, "storeUpdateDBMaxBatchSize");
+    }
+
+    public int getStoreUpdateDBMaxBatchDelay() {
+        return storeUpdateDBMaxBatchDelay;
+    }
+
+    public void setStoreUpdateDBMaxBatchDelay(int storeUpdateDBMaxBatchDelay) {
+        this.storeUpdateDBMaxBatchDelay = storeUpdateDBMaxBatchDelay;
+    }
+
+    public Duration getAssociationPoolIdleTimeout() {
+        return associationPoolIdleTimeout;
+    }
+
+    public void setAssociationPoolIdleTimeout(Duration associationPoolIdleTimeout) {
+        this.associationPoolIdleTimeout = associationPoolIdleTimeout;
+    }
+
+    public int getAssociationPoolSize() {
+        return associationPoolSize;
+    }
+
+    public void setAssociationPoolSize(int associationPoolSize) {
+        this.associationPoolSize = greaterZero(associationPoolSize, "associationPoolSize");
+    }
+
+    public String getStorageReadCacheDirectory() {
+        return storageReadCacheDirectory;
+    }
+
+    public void setStorageReadCacheDirectory(String storageReadCacheDirectory) {
+        this.storageReadCacheDirectory = storageReadCacheDirectory;
+    }
+
+    public int getStorageReadCacheSize() {
+        return storageReadCacheSize;
+    }
+
+    public void setStorageReadCacheSize(int storageReadCacheSize) {
+        this.storageReadCacheSize = greaterZero(storageReadCacheSize, "storageReadCacheSize");
+    }
+
+    public CacheEvictionPolicy getStorageReadCacheEvictionPolicy() {
+        return storageReadCacheEvictionPolicy;
+    }
+
+    public void setStorageReadCacheEvictionPolicy(CacheEvictionPolicy storageReadCacheEvictionPolicy) {
+        this.storageReadCacheEvictionPolicy = storageReadCacheEvictionPolicy;
+    }
+
+    public boolean isStorageReadCachePrefetchStudy() {
+        return storageReadCachePrefetchStudy;
+    }
+
+    public void setStorageReadCachePrefetchStudy(boolean storageReadCachePrefetchStudy) {
+        this.storageReadCachePrefetchStudy = storageReadCachePrefetchStudy;
+    }
+
+    public String getWadoRenderedCacheDirectory() {
+        return wadoRenderedCacheDirectory;
+    }
+
+    public void setWadoRenderedCacheDirectory(String wadoRenderedCacheDirectory) {
+        this.wadoRenderedCacheDirectory = wadoRenderedCacheDirectory;
+    }
+
+    public int getWadoRenderedCacheSize() {
+        return wadoRenderedCacheSize;
+    }
+
+    public void setWadoRenderedCacheSize(int wadoRenderedCacheSize) {
+        this.wadoRenderedCacheSize = greaterZero(wadoRenderedCacheSize, "wadoRenderedCacheSize");
+    }
+
+    public String[] getWadoThumbnailSOPClasses() {
+        return wadoThumbnailSOPClasses;
+    }
+
+    public void setWadoThumbnailSOPClasses(String... wadoThumbnailSOPClasses) {
+        this.wadoThumbnailSOPClasses = wadoThumbnailSOPClasses;
+    }
+
+    public boolean isWadoThumbnailSOPClass(String cuid) {
+        for (String cuid1 : wadoThumbnailSOPClasses)
+            if (cuid1.equals(cuid))
+                return true;
+        return false;
+    }
+
+    public int getWadoThumbnailSize() {
+        return wadoThumbnailSize;
+    }
+
+    public void setWadoThumbnailSize(int wadoThumbnailSize) {
+        this.wadoThumbnailSize = greaterZero(wadoThumbnailSize, "wadoThumbnailSize");
+    }
+
+    public Duration getSchedulerLeaseDuration() {
+        return schedulerLeaseDuration;
+    }
+
+    public void setSchedulerLeaseDuration(Duration schedulerLeaseDuration) {
+        this.schedulerLeaseDuration = schedulerLeaseDuration;
+    }
+
+    public int getSchedulerPartitions() {
+        return schedulerPartitions;
+    }
+
+    public void setSchedulerPartitions(int schedulerPartitions) {
+        this.schedulerPartitions = greaterZero(schedulerPartitions, "schedulerPartitions");
+    }
+
     public AllowRejectionForDataRetentionPolicyExpired getAllowRejectionForDataRetentionPolicyExpired() {
         return allowRejectionForDataRetentionPolicyExpired;
     }
@@ -1181,20 +1385,34 @@ public class ArchiveDeviceExtension extends DeviceExtension {
 
     public void removeExportRule(ExportRule rule) {
         exportRules.remove(rule);
+        exportRuleIndex = null;
     }
 
     public void clearExportRules() {
         exportRules.clear();
+        exportRuleIndex = null;
     }
 
     public void addExportRule(ExportRule rule) {
         exportRules.add(rule);
+        exportRuleIndex = null;
     }
 
     public Collection<ExportRule> getExportRules() {
         return exportRules;
     }
 
+    RuleIndex<ExportRule> exportRuleIndex() {
+        RuleIndex<ExportRule> index = exportRuleIndex;
+        if (index == null || index.size() != exportRules.size()) {
+            index = new RuleIndex<>();
+            for (ExportRule rule : exportRules)
+                index.add(rule, rule.getConditions());
+            exportRuleIndex = index;
+        }
+        return index;
+    }
+
     public void removeRSForwardRule(RSForwardRule rule) {
         rsForwardRules.remove(rule);
     }
@@ -1261,36 +1479,64 @@ public class ArchiveDeviceExtension extends DeviceExtension {
 
     public void removeCompressionRule(ArchiveCompressionRule rule) {
         compressionRules.remove(rule);
+        compressionRuleIndex = null;
     }
 
     public void clearCompressionRules() {
         compressionRules.clear();
+        compressionRuleIndex = null;
     }
 
     public void addCompressionRule(ArchiveCompressionRule rule) {
         compressionRules.add(rule);
+        compressionRuleIndex = null;
     }
 
     public Collection<ArchiveCompressionRule> getCompressionRules() {
         return compressionRules;
     }
 
+    RuleIndex<ArchiveCompressionRule> compressionRuleIndex() {
+        RuleIndex<ArchiveCompressionRule> index = compressionRuleIndex;
+        if (index == null || index.size() != compressionRules.size()) {
+            index = new RuleIndex<>();
+            for (ArchiveCompressionRule rule : compressionRules)
+                index.add(rule, rule.getConditions());
+            compressionRuleIndex = index;
+        }
+        return index;
+    }
+
     public void removeStudyRetentionPolicy(StudyRetentionPolicy policy) {
         studyRetentionPolicies.remove(policy);
+        studyRetentionPolicyIndex = null;
     }
 
     public void clearStudyRetentionPolicies() {
         studyRetentionPolicies.clear();
+        studyRetentionPolicyIndex = null;
     }
 
     public void addStudyRetentionPolicy(StudyRetentionPolicy policy) {
         studyRetentionPolicies.add(policy);
+        studyRetentionPolicyIndex = null;
     }
 
     public Collection<StudyRetentionPolicy> getStudyRetentionPolicies() {
         return studyRetentionPolicies;
     }
 
+    RuleIndex<StudyRetentionPolicy> studyRetentionPolicyIndex() {
+        RuleIndex<StudyRetentionPolicy> index = studyRetentionPolicyIndex;
+        if (index == null || index.size() != studyRetentionPolicies.size()) {
+            index = new RuleIndex<>();
+            for (StudyRetentionPolicy policy : studyRetentionPolicies)
+                index.add(policy, policy.getConditions());
+            studyRetentionPolicyIndex = index;
+        }
+        return index;
+    }
+
     public void removeAttributeCoercion(ArchiveAttributeCoercion coercion) {
         attributeCoercions.remove(coercion);
     }
@@ -1309,20 +1555,34 @@ public class ArchiveDeviceExtension extends DeviceExtension {
 
     public void removeStoreAccessControlIDRule(StoreAccessControlIDRule storeAccessControlIDRule) {
         storeAccessControlIDRules.remove(storeAccessControlIDRule);
+        storeAccessControlIDRuleIndex = null;
     }
 
     public void clearStoreAccessControlIDRules() {
         storeAccessControlIDRules.clear();
+        storeAccessControlIDRuleIndex = null;
     }
 
     public void addStoreAccessControlIDRule(StoreAccessControlIDRule storeAccessControlIDRule) {
         storeAccessControlIDRules.add(storeAccessControlIDRule);
+        storeAccessControlIDRuleIndex = null;
     }
 
     public ArrayList<StoreAccessControlIDRule> getStoreAccessControlIDRules() {
         return storeAccessControlIDRules;
     }
 
+    RuleIndex<StoreAccessControlIDRule> storeAccessControlIDRuleIndex() {
+        RuleIndex<StoreAccessControlIDRule> index = storeAccessControlIDRuleIndex;
+        if (index == null || index.size() != storeAccessControlIDRules.size()) {
+            index = new RuleIndex<>();
+            for (StoreAccessControlIDRule rule : storeAccessControlIDRules)
+                index.add(rule, rule.getConditions());
+            storeAccessControlIDRuleIndex = index;
+        }
+        return index;
+    }
+
     public RejectionNote getRejectionNote(String rjNoteID) {
         return rejectionNoteMap.get(rjNoteID);
     }
@@ -1448,6 +1708,7 @@ public class ArchiveDeviceExtension extends DeviceExtension {
         seriesMetadataDelay = arcdev.seriesMetadataDelay;
         seriesMetadataPollingInterval = arcdev.seriesMetadataPollingInterval;
         seriesMetadataFetchSize = arcdev.seriesMetadataFetchSize;
+        seriesMetadataThreads = arcdev.seriesMetadataThreads;
         purgeInstanceRecordsDelay = arcdev.purgeInstanceRecordsDelay;
         purgeInstanceRecordsPollingInterval = arcdev.purgeInstanceRecordsPollingInterval;
         purgeInstanceRecordsFetchSize = arcdev.purgeInstanceRecordsFetchSize;
@@ -1468,6 +1729,7 @@ public class ArchiveDeviceExtension extends DeviceExtension {
         importReportTemplateURI = arcdev.importReportTemplateURI;
         scheduleProcedureTemplateURI = arcdev.scheduleProcedureTemplateURI;
         qidoMaxNumberOfResults = arcdev.qidoMaxNumberOfResults;
+        maxRetrieveAssociations = arcdev.maxRetrieveAssociations;
         queryRetrieveViewMap.clear();
         queryRetrieveViewMap.putAll(arcdev.queryRetrieveViewMap);
         mppsForwardDestinations = arcdev.mppsForwardDestinations;
@@ -1486,6 +1748,7 @@ public class ArchiveDeviceExtension extends DeviceExtension {
         alternativeCMoveSCP = arcdev.alternativeCMoveSCP;
         exportTaskPollingInterval = arcdev.exportTaskPollingInterval;
         exportTaskFetchSize = arcdev.exportTaskFetchSize;
+        exportTaskCoalescingInterval = arcdev.exportTaskCoalescingInterval;
         deleteRejectedPollingInterval = arcdev.deleteRejectedPollingInterval;
         deleteRejectedFetchSize = arcdev.deleteRejectedFetchSize;
         purgeStoragePollingInterval = arcdev.purgeStoragePollingInterval;
@@ -1500,10 +1763,14 @@ public class ArchiveDeviceExtension extends DeviceExtension {
         auditPollingInterval = arcdev.auditPollingInterval;
         auditAggregateDuration = arcdev.auditAggregateDuration;
         stowSpoolDirectory = arcdev.stowSpoolDirectory;
+        stowMaxParallelism = arcdev.stowMaxParallelism;
+        stowMemoryThreshold = arcdev.stowMemoryThreshold;
+        storeMemoryThreshold = arcdev.storeMemoryThreshold;
         wadoSpoolDirectory = arcdev.wadoSpoolDirectory;
         hl7LogFilePattern = arcdev.hl7LogFilePattern;
         hl7ErrorLogFilePattern = arcdev.hl7ErrorLogFilePattern;
         purgeQueueMessagePollingInterval = arcdev.purgeQueueMessagePollingInterval;
+        queueMessageFetchSize = arcdev.queueMessageFetchSize;
         purgeStgCmtPollingInterval = arcdev.purgeStgCmtPollingInterval;
         purgeStgCmtCompletedDelay = arcdev.purgeStgCmtCompletedDelay;
         hideSPSWithStatusFrom = arcdev.hideSPSWithStatusFrom;
@@ -1524,6 +1791,20 @@ public class ArchiveDeviceExtension extends DeviceExtension {
         mergeMWLCacheSize = arcdev.mergeMWLCacheSize;
         storeUpdateDBMaxRetries = arcdev.storeUpdateDBMaxRetries;
         storeUpdateDBMaxRetryDelay = arcdev.storeUpdateDBMaxRetryDelay;
+        storeUpdateDBMaxBatchSize = arcdev.storeUpdateDBMaxBatchSize;
+        storeUpdateDBMaxBatchDelay = arcdev.storeUpdateDBMaxBatchDelay;
+        associationPoolIdleTimeout = arcdev.associationPoolIdleTimeout;
+        associationPoolSize = arcdev.associationPoolSize;
+        storageReadCacheDirectory = arcdev.storageReadCacheDirectory;
+        storageReadCacheSize = arcdev.storageReadCacheSize;
+        storageReadCacheEvictionPolicy = arcdev.storageReadCacheEvictionPolicy;
+        storageReadCachePrefetchStudy = arcdev.storageReadCachePrefetchStudy;
+        wadoRenderedCacheDirectory = arcdev.wadoRenderedCacheDirectory;
+        wadoRenderedCacheSize = arcdev.wadoRenderedCacheSize;
+        wadoThumbnailSOPClasses = arcdev.wadoThumbnailSOPClasses;
+        wadoThumbnailSize = arcdev.wadoThumbnailSize;
+        schedulerLeaseDuration = arcdev.schedulerLeaseDuration;
+        schedulerPartitions = arcdev.schedulerPartitions;
         allowRejectionForDataRetentionPolicyExpired = arcdev.allowRejectionForDataRetentionPolicyExpired;
         acceptMissingPatientID = arcdev.acceptMissingPatientID;
         allowDeleteStudyPermanently = arcdev.allowDeleteStudyPermanently;
@@ -1560,6 +1841,7 @@ public class ArchiveDeviceExtension extends DeviceExtension {
         exporterDescriptorMap.putAll(arcdev.exporterDescriptorMap);
         exportRules.clear();
         exportRules.addAll(arcdev.exportRules);
+        exportRuleIndex = null;
         rsForwardRules.clear();
         rsForwardRules.addAll(arcdev.rsForwardRules);
         hl7ForwardRules.clear();
@@ -1570,12 +1852,15 @@ public class ArchiveDeviceExtension extends DeviceExtension {
         hl7OrderSPSStatuses.putAll(arcdev.hl7OrderSPSStatuses);
         compressionRules.clear();
         compressionRules.addAll(arcdev.compressionRules);
+        compressionRuleIndex = null;
         studyRetentionPolicies.clear();
         studyRetentionPolicies.addAll(arcdev.studyRetentionPolicies);
+        studyRetentionPolicyIndex = null;
         attributeCoercions.clear();
         attributeCoercions.addAll(arcdev.attributeCoercions);
         storeAccessControlIDRules.clear();
         storeAccessControlIDRules.addAll(arcdev.storeAccessControlIDRules);
+        storeAccessControlIDRuleIndex = null;
         rejectionNoteMap.clear();
         rejectionNoteMap.putAll(arcdev.rejectionNoteMap);
     }
@@ -2,6 +2,7 @@ package org.dcm4chee.arc.conf;
 
 import org.dcm4che3.data.Attributes;
 import org.dcm4che3.data.Sequence;
+import org.dcm4che3.data.Tag;
 import org.dcm4che3.util.TagUtils;
 
 import java.util.Map;
@@ -18,7 +19,10 @@ public class Conditions {
     public static final String SENDING_APPLICATION_ENTITY_TITLE = "SendingApplicationEntityTitle";
     public static final String SENDING_HOSTNAME = "SendingHostname";
 
+    private static final String REGEX_META_CHARS = "\\[](){}.*+?^$|";
+
     private final Map<String, Pattern> map = new TreeMap<>();
+    private Condition[] conditions = {};
 
     public Conditions(String... props) {
          for (String s : props) {
@@ -56,62 +60,72 @@ public class Conditions {
     public void setCondition(String tagPath, String value) {
         Pattern pattern = Pattern.compile(value);
         map.put(tagPath, pattern);
+        Condition[] conditions = new Condition[map.size()];
+        int i = 0;
+        for (Map.Entry<String, Pattern> entry : map.entrySet())
+            conditions[i++] = new Condition(entry.getKey(), entry.getValue());
+        this.conditions = conditions;
     }
 
     public Map<String,Pattern> getMap() {
         return map;
     }
 
+    /**
+     * Returns the value of a condition on the Receiving or Sending AE Title, the Sending Hostname or the SOP Class
+     * UID, which is only satisfied by that value, or {@code null} if there is no such condition.
+     */
+    String getLiteralValue(String key) {
+        for (Condition condition : conditions)
+            if (!condition.ne && condition.literal != null && key.equals(condition.indexKey()))
+                return condition.literal;
+        return null;
+    }
+
     public boolean match(String hostName, String sendingAET, String receivingAET, Attributes attrs) {
-        for (Map.Entry<String, Pattern> entry : map.entrySet()) {
-            String tagPath = entry.getKey();
-            Pattern pattern = entry.getValue();
-            boolean ne = tagPath.endsWith("!");
-            if (ne)
-                tagPath = tagPath.substring(0, tagPath.length()-1);
-            switch (tagPath) {
+        for (Condition condition : conditions) {
+            boolean ne = condition.ne;
+            switch (condition.tagPath) {
                 case RECEIVING_APPLICATION_ENTITY_TITLE:
-                    if (ne ? (receivingAET != null && pattern.matcher(receivingAET).matches())
-                           : (receivingAET == null || !pattern.matcher(receivingAET).matches()))
+                    if (ne ? (receivingAET != null && condition.matches(receivingAET))
+                           : (receivingAET == null || !condition.matches(receivingAET)))
                         return false;
                     break;
                 case SENDING_APPLICATION_ENTITY_TITLE:
-                    if (ne ? (sendingAET != null && pattern.matcher(sendingAET).matches())
-                           : (sendingAET == null || !pattern.matcher(sendingAET).matches()))
+                    if (ne ? (sendingAET != null && condition.matches(sendingAET))
+                           : (sendingAET == null || !condition.matches(sendingAET)))
                         return false;
                     break;
                 case SENDING_HOSTNAME:
-                    if (ne ? (hostName != null && pattern.matcher(hostName).matches())
-                           : (hostName == null || !pattern.matcher(hostName).matches()))
+                    if (ne ? (hostName != null && condition.matches(hostName))
+                           : (hostName == null || !condition.matches(hostName)))
                         return false;
                     break;
                 default:
-                    if (!match(attrs, TagUtils.parseTagPath(tagPath), pattern, 0, ne))
+                    if (!match(attrs, condition.tags(), condition, 0, ne))
                         return false;
             }
         }
         return true;
     }
 
-    private boolean match(Attributes attrs, int[] tagPath, Pattern pattern, int level, boolean ne) {
+    private boolean match(Attributes attrs, int[] tagPath, Condition condition, int level, boolean ne) {
         if (level < tagPath.length-1) {
             Sequence seq = attrs.getSequence(tagPath[level]);
             if (seq != null)
                 for (Attributes item : seq)
-                    if (match(item, tagPath, pattern, level+1, false))
+                    if (match(item, tagPath, condition, level+1, false))
                         return true;
         } else {
             String[] ss = attrs.getStrings(tagPath[level]);
             if (ss != null)
                 for (String s : ss)
-                    if (pattern != null && s != null && pattern.matcher(s).matches() && !ne)
+                    if (s != null && condition.matches(s) && !ne)
                         return true;
-                    else if (pattern == null || s == null)
+                    else if (s == null)
                         return false;
-                    else if (ne && !pattern.matcher(s).matches())
+                    else if (ne && !condition.matches(s))
                         return true;
-//            if (pattern.matcher(s).matches())
-//                        return true;
             if (ss == null && ne)
                 return true;
             if (ss == null && !ne)
@@ -132,4 +146,74 @@ public class Conditions {
 
         return toString().equals(obj.toString());
     }
+
+    /**
+     * Returns the only value matched by {@code regex}, if it does not contain regular expression meta characters
+     * other than escaped dots, otherwise {@code null}.
+     */
+    private static String literalOf(String regex) {
+        StringBuilder sb = null;
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == '\\' && i + 1 < regex.length() && regex.charAt(i + 1) == '.') {
+                if (sb == null)
+                    sb = new StringBuilder(regex.length()).append(regex, 0, i);
+                sb.append('.');
+                i++;
+            } else if (REGEX_META_CHARS.indexOf(c) >= 0) {
+                return null;
+            } else if (sb != null) {
+                sb.append(c);
+            }
+        }
+        return sb != null ? sb.toString() : regex;
+    }
+
+    /**
+     * Condition with pre-parsed tag path; patterns without regular expression meta characters - except escaped
+     * dots, as in {@code 1\.2\.840\.10008\.5\.1\.4\.1\.1\.2} - are matched by string comparison.
+     */
+    private static final class Condition {
+        final String tagPath;
+        final boolean ne;
+        final Pattern pattern;
+        final String literal;
+        final int[] tags;
+
+        Condition(String key, Pattern pattern) {
+            this.ne = key.endsWith("!");
+            this.tagPath = ne ? key.substring(0, key.length()-1) : key;
+            this.pattern = pattern;
+            this.literal = literalOf(pattern.pattern());
+            this.tags = parseTagPath(tagPath);
+        }
+
+        private static int[] parseTagPath(String tagPath) {
+            switch (tagPath) {
+                case RECEIVING_APPLICATION_ENTITY_TITLE:
+                case SENDING_APPLICATION_ENTITY_TITLE:
+                case SENDING_HOSTNAME:
+                    return null;
+            }
+            try {
+                return TagUtils.parseTagPath(tagPath);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+
+        int[] tags() {
+            return tags != null ? tags : TagUtils.parseTagPath(tagPath);
+        }
+
+        String indexKey() {
+            return tags != null
+                    ? (tags.length == 1 && tags[0] == Tag.SOPClassUID ? RuleIndex.SOP_CLASS_UID : null)
+                    : tagPath;
+        }
+
+        boolean matches(String s) {
+            return literal != null ? literal.equals(s) : pattern.matcher(s).matches();
+        }
+    }
 }
@@ -55,6 +55,7 @@ public class IDGenerator {
     private Name name;
     private String format;
     private int initialValue = 1;
+    private int blockSize = 1;
 
     public Name getName() {
         return name;
@@ -79,4 +80,14 @@ public class IDGenerator {
     public void setInitialValue(int initialValue) {
         this.initialValue = initialValue;
     }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    public void setBlockSize(int blockSize) {
+        if (blockSize <= 0)
+            throw new IllegalArgumentException("blockSize: " + blockSize);
+        this.blockSize = blockSize;
+    }
 }
@@ -0,0 +1,117 @@
+/*
+ * *** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is part of dcm4che, an implementation of DICOM(TM) in
+ * Java(TM), hosted at https://github.com/gunterze/dcm4che.
+ *
+ * The Initial Developer of the Original Code is
+ * J4Care.
+ * Portions created by the Initial Developer are Copyright (C) 2017
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):
+ * See @authors listed below
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ *
+ * *** END LICENSE BLOCK *****
+ */
+
+
+package org.dcm4chee.arc.conf;
+
+import org.dcm4che3.data.Attributes;
+import org.dcm4che3.data.Tag;
+
+import java.util.*;
+
+/**
+ * Index of rules by the values of their {@link Conditions} on Receiving AE Title, Sending AE Title, Sending
+ * Hostname or SOP Class UID, which are only satisfied by one particular value. Used to select the candidate rules
+ * for a received object, which still have to be matched against all their conditions.
+ *
+ * @author Gunter Zeilinger <gunterze@gmail.com>
+ * @since Apr 2017
+ */
+final class RuleIndex<T> {
+
+    static final String SOP_CLASS_UID = "SOPClassUID";
+
+    private static final String[] KEYS = {
+            Conditions.RECEIVING_APPLICATION_ENTITY_TITLE,
+            Conditions.SENDING_APPLICATION_ENTITY_TITLE,
+            Conditions.SENDING_HOSTNAME,
+            SOP_CLASS_UID
+    };
+
+    private final List<T> rules = new ArrayList<>();
+    private final BitSet unindexed = new BitSet();
+    private final Map<String, BitSet> index = new HashMap<>();
+
+    void add(T rule, Conditions conditions) {
+        int pos = rules.size();
+        rules.add(rule);
+        for (String key : KEYS) {
+            String value = conditions.getLiteralValue(key);
+            if (value != null) {
+                BitSet bits = index.get(key + '=' + value);
+                if (bits == null)
+                    index.put(key + '=' + value, bits = new BitSet());
+                bits.set(pos);
+                return;
+            }
+        }
+        unindexed.set(pos);
+    }
+
+    int size() {
+        return rules.size();
+    }
+
+    /**
+     * Returns the rules which may match, in the order they were added.
+     */
+    List<T> candidates(String hostName, String sendingAET, String receivingAET, Attributes attrs) {
+        if (index.isEmpty())
+            return rules;
+
+        BitSet bits = (BitSet) unindexed.clone();
+        addCandidates(bits, Conditions.RECEIVING_APPLICATION_ENTITY_TITLE, receivingAET);
+        addCandidates(bits, Conditions.SENDING_APPLICATION_ENTITY_TITLE, sendingAET);
+        addCandidates(bits, Conditions.SENDING_HOSTNAME, hostName);
+        addCandidates(bits, SOP_CLASS_UID, attrs != null ? attrs.getString(Tag.SOPClassUID) : null);
+        List<T> result = new ArrayList<>(bits.cardinality());
+        for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1))
+            result.add(rules.get(i));
+        return result;
+    }
+
+    private void addCandidates(BitSet bits, String key, String value) {
+        if (value != null) {
+            BitSet indexed = index.get(key + '=' + value);
+            if (indexed != null)
+                bits.or(indexed);
+        }
+    }
+}
@@ -20,6 +20,8 @@ public final class StorageDescriptor {
     private Availability instanceAvailability;
     private String externalRetrieveAETitle;
     private boolean readOnly;
+    private boolean readCache;
+    private int deleterThreads = 1;
 
     private final ArrayList<DeleterThreshold> deleterThresholds = new ArrayList<>();
     private final Map<String, String> properties = new HashMap<>();
@@ -97,6 +99,24 @@ public final class StorageDescriptor {
         this.readOnly = readOnly;
     }
 
+    public boolean isReadCache() {
+        return readCache;
+    }
+
+    public void setReadCache(boolean readCache) {
+        this.readCache = readCache;
+    }
+
+    public int getDeleterThreads() {
+        return deleterThreads;
+    }
+
+    public void setDeleterThreads(int deleterThreads) {
+        if (deleterThreads <= 0)
+            throw new IllegalArgumentException("deleterThreads: " + deleterThreads);
+        this.deleterThreads = deleterThreads;
+    }
+
     public boolean hasDeleterThresholds() {
         return !deleterThresholds.isEmpty();
     }
@@ -159,6 +179,8 @@ public final class StorageDescriptor {
                 ", deleterThresholds=" + deleterThresholds +
                 ", externalRetrieveAETitle=" + externalRetrieveAETitle +
                 ", readOnly=" + readOnly +
+                ", readCache=" + readCache +
+                ", deleterThreads=" + deleterThreads +
                 ", properties=" + properties +
                 '}';
     }
@@ -89,6 +89,23 @@ public class ConditionsTest {
         assertFalse(notmodality.match(null, null, null, ct));
         assertTrue(notmodality.match(null, null, null, mr));
         assertTrue(notmodality.match(null, null, null, empty));
+        Conditions regex = new Conditions("Modality=CT|MR");
+        assertTrue(regex.match(null, null, null, ct));
+        assertTrue(regex.match(null, null, null, mr));
+        assertFalse(regex.match(null, null, null, empty));
+    }
+
+    @Test
+    public void matchDots() throws Exception {
+        Attributes empty = new Attributes();
+        Conditions regex = new Conditions("SendingHostname=host.example");
+        assertNull(regex.getLiteralValue(Conditions.SENDING_HOSTNAME));
+        assertTrue(regex.match("host.example", null, null, empty));
+        assertTrue(regex.match("host-example", null, null, empty));
+        Conditions literal = new Conditions("SendingHostname=host\\.example");
+        assertEquals("host.example", literal.getLiteralValue(Conditions.SENDING_HOSTNAME));
+        assertTrue(literal.match("host.example", null, null, empty));
+        assertFalse(literal.match("host-example", null, null, empty));
     }
 
     private Attributes modality(String modality) {
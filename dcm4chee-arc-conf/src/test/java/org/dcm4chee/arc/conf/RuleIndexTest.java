@@ -0,0 +1,99 @@
+/*
+ * *** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is part of dcm4che, an implementation of DICOM(TM) in
+ * Java(TM), hosted at https://github.com/gunterze/dcm4che.
+ *
+ * The Initial Developer of the Original Code is
+ * J4Care.
+ * Portions created by the Initial Developer are Copyright (C) 2017
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):
+ * See @authors listed below
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ *
+ * *** END LICENSE BLOCK *****
+ */
+
+
+package org.dcm4chee.arc.conf;
+
+import org.dcm4che3.data.Attributes;
+import org.dcm4che3.data.Tag;
+import org.dcm4che3.data.UID;
+import org.dcm4che3.data.VR;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Gunter Zeilinger <gunterze@gmail.com>
+ * @since Apr 2017
+ */
+public class RuleIndexTest {
+    @Test
+    public void candidates() throws Exception {
+        RuleIndex<String> index = new RuleIndex<>();
+        index.add("storescu", new Conditions("SendingHostname=storescu"));
+        index.add("ct", new Conditions("SOPClassUID=" + UID.CTImageStorage.replace(".", "\\.")));
+        index.add("regex", new Conditions("SendingApplicationEntityTitle=STORE.*"));
+        index.add("not", new Conditions("ReceivingApplicationEntityTitle!=DCM4CHEE"));
+        index.add("dcm4chee", new Conditions("ReceivingApplicationEntityTitle=DCM4CHEE", "Modality=CT"));
+        Attributes ct = sopClass(UID.CTImageStorage);
+        Attributes mr = sopClass(UID.MRImageStorage);
+        assertEquals(Arrays.asList("storescu", "ct", "regex", "not", "dcm4chee"),
+                index.candidates("storescu", "STORESCU", "DCM4CHEE", ct));
+        assertEquals(Arrays.asList("regex", "not"),
+                index.candidates("dcmqrscp", "STORESCU", "DCMQRSCP", mr));
+        assertEquals(Arrays.asList("regex", "not", "dcm4chee"),
+                index.candidates(null, null, "DCM4CHEE", null));
+        assertEquals(Collections.singletonList("x"), single().candidates(null, null, null, null));
+    }
+
+    @Test
+    public void unescapedDotsNotIndexed() throws Exception {
+        RuleIndex<String> index = new RuleIndex<>();
+        index.add("storescu", new Conditions("SendingHostname=storescu"));
+        index.add("ct", new Conditions("SOPClassUID=" + UID.CTImageStorage));
+        assertEquals(Collections.singletonList("ct"),
+                index.candidates("dcmqrscp", null, null, sopClass(UID.MRImageStorage)));
+    }
+
+    private static RuleIndex<String> single() {
+        RuleIndex<String> index = new RuleIndex<>();
+        index.add("x", new Conditions("Modality=CT"));
+        return index;
+    }
+
+    private static Attributes sopClass(String cuid) {
+        Attributes attrs = new Attributes(1);
+        attrs.setString(Tag.SOPClassUID, VR.UI, cuid);
+        return attrs;
+    }
+}
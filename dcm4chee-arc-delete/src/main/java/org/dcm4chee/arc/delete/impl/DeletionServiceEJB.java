@@ -119,22 +119,28 @@ public class DeletionServiceEJB {
                 .getResultList();
     }
 
-    public void failedToDelete(Location location) {
-        location.setStatus(Location.Status.FAILED_TO_DELETE);
-        em.merge(location);
+    public void removeLocations(Collection<Long> removedPks, Collection<Long> failedPks) {
+        if (!removedPks.isEmpty())
+            em.createNamedQuery(Location.DELETE_BY_PKS)
+                    .setParameter(1, removedPks)
+                    .executeUpdate();
+        if (!failedPks.isEmpty())
+            em.createNamedQuery(Location.UPDATE_STATUS_BY_PKS)
+                    .setParameter(1, failedPks)
+                    .setParameter(2, Location.Status.FAILED_TO_DELETE)
+                    .executeUpdate();
     }
 
-    public void failedToDelete(Metadata metadata) {
-        metadata.setStatus(Metadata.Status.FAILED_TO_DELETE);
-        em.merge(metadata);
-    }
-
-    public void removeLocation(Location location) {
-        em.remove(em.merge(location));
-    }
-
-    public void removeMetadata(Metadata metadata) {
-        em.remove(em.merge(metadata));
+    public void removeMetadata(Collection<Long> removedPks, Collection<Long> failedPks) {
+        if (!removedPks.isEmpty())
+            em.createNamedQuery(Metadata.DELETE_BY_PKS)
+                    .setParameter(1, removedPks)
+                    .executeUpdate();
+        if (!failedPks.isEmpty())
+            em.createNamedQuery(Metadata.UPDATE_STATUS_BY_PKS)
+                    .setParameter(1, failedPks)
+                    .setParameter(2, Metadata.Status.FAILED_TO_DELETE)
+                    .executeUpdate();
     }
 
     public Study deleteStudy(StudyDeleteContext ctx) {
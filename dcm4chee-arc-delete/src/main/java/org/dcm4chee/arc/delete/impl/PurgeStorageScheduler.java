@@ -61,8 +61,10 @@ import javax.inject.Inject;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import java.io.IOException;
-import java.util.Calendar;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * @author Gunter Zeilinger <gunterze@gmail.com>
@@ -211,20 +213,23 @@ public class PurgeStorageScheduler extends Scheduler {
         if (metadata.isEmpty())
             return false;
 
-        try (Storage storage = storageFactory.getStorage(desc)) {
-            for (Metadata m : metadata) {
-                try {
-                    storage.deleteObject(m.getStoragePath());
-                    ejb.removeMetadata(m);
-                    LOG.debug("Successfully delete {} from {}", m, desc.getStorageURI());
-                } catch (IOException e) {
-                    ejb.failedToDelete(m);
-                    LOG.warn("Failed to delete {} from {}", m, desc.getStorageURI(), e);
-                }
+        List<String> storagePaths = new ArrayList<>(metadata.size());
+        for (Metadata m : metadata)
+            storagePaths.add(m.getStoragePath());
+        Map<String, IOException> failures = deleteObjects(desc, storagePaths);
+        List<Long> removedPks = new ArrayList<>(metadata.size());
+        List<Long> failedPks = new ArrayList<>(failures.size());
+        for (Metadata m : metadata) {
+            IOException e = failures.get(m.getStoragePath());
+            if (e == null) {
+                removedPks.add(m.getPk());
+                LOG.debug("Successfully delete {} from {}", m, desc.getStorageURI());
+            } else {
+                failedPks.add(m.getPk());
+                LOG.warn("Failed to delete {} from {}", m, desc.getStorageURI(), e);
             }
-        } catch (IOException e) {
-            LOG.warn("Failed to access {}", desc.getStorageURI(), e);
         }
+        ejb.removeMetadata(removedPks, failedPks);
         return metadata.size() == fetchSize;
     }
 
@@ -233,21 +238,114 @@ public class PurgeStorageScheduler extends Scheduler {
         if (locations.isEmpty())
             return false;
 
-        try (Storage storage = storageFactory.getStorage(desc)) {
-            for (Location location : locations) {
+        List<String> storagePaths = new ArrayList<>(locations.size());
+        for (Location location : locations)
+            storagePaths.add(location.getStoragePath());
+        Map<String, IOException> failures = deleteObjects(desc, storagePaths);
+        List<Long> removedPks = new ArrayList<>(locations.size());
+        List<Long> failedPks = new ArrayList<>(failures.size());
+        for (Location location : locations) {
+            IOException e = failures.get(location.getStoragePath());
+            if (e == null) {
+                removedPks.add(location.getPk());
+                LOG.debug("Successfully delete {} from {}", location, desc.getStorageURI());
+            } else {
+                failedPks.add(location.getPk());
+                LOG.warn("Failed to delete {} from {}", location, desc.getStorageURI(), e);
+            }
+        }
+        ejb.removeLocations(removedPks, failedPks);
+        return locations.size() == fetchSize;
+    }
+
+    /**
+     * Deletes objects from the Storage System by up to {@link StorageDescriptor#getDeleterThreads()} threads,
+     * each deleting the objects of a range of directories - so objects in the same directory are deleted by the
+     * same thread.
+     *
+     * @return storage paths of objects which could not be deleted, mapped to the cause
+     */
+    private Map<String, IOException> deleteObjects(StorageDescriptor desc, List<String> storagePaths) {
+        final Map<String, IOException> failures = new ConcurrentHashMap<>();
+        try (final Storage storage = storageFactory.getStorage(desc)) {
+            List<List<String>> ranges = splitByDirectory(storagePaths,
+                    Math.min(desc.getDeleterThreads(), storagePaths.size()));
+            final CountDownLatch done = new CountDownLatch(ranges.size() - 1);
+            for (final List<String> range : ranges.subList(1, ranges.size())) {
                 try {
-                    storage.deleteObject(location.getStoragePath());
-                    ejb.removeLocation(location);
-                    LOG.debug("Successfully delete {} from {}", location, desc.getStorageURI());
-                } catch (IOException e) {
-                    ejb.failedToDelete(location);
-                    LOG.warn("Failed to delete {} from {}", location, desc.getStorageURI(), e);
+                    device.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                deleteObjects(storage, range, failures);
+                            } finally {
+                                done.countDown();
+                            }
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    deleteObjects(storage, range, failures);
+                    done.countDown();
                 }
             }
+            deleteObjects(storage, ranges.get(0), failures);
+            awaitUninterruptibly(done);
         } catch (IOException e) {
             LOG.warn("Failed to access {}", desc.getStorageURI(), e);
         }
-        return locations.size() == fetchSize;
+        return failures;
+    }
+
+    /**
+     * Splits storage paths grouped by their directory into up to {@code n} ranges of about equal size.
+     */
+    private static List<List<String>> splitByDirectory(List<String> storagePaths, int n) {
+        Map<String, List<String>> byDirectory = new TreeMap<>();
+        for (String storagePath : storagePaths) {
+            String directory = storagePath.substring(0, Math.max(0, storagePath.lastIndexOf('/')));
+            List<String> paths = byDirectory.get(directory);
+            if (paths == null)
+                byDirectory.put(directory, paths = new ArrayList<>());
+            paths.add(storagePath);
+        }
+        int size = storagePaths.size();
+        List<List<String>> ranges = new ArrayList<>(n);
+        List<String> range = new ArrayList<>();
+        int count = 0;
+        for (List<String> paths : byDirectory.values()) {
+            range.addAll(paths);
+            count += paths.size();
+            if (count >= size * (ranges.size() + 1) / n) {
+                ranges.add(range);
+                range = new ArrayList<>();
+            }
+        }
+        return ranges;
+    }
+
+    private static void deleteObjects(Storage storage, List<String> storagePaths,
+            Map<String, IOException> failures) {
+        try {
+            failures.putAll(storage.deleteObjects(storagePaths));
+        } catch (RuntimeException e) {
+            IOException ioe = new IOException(e);
+            for (String storagePath : storagePaths)
+                failures.put(storagePath, ioe);
+        }
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        for (;;) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
     }
 
 }
@@ -54,12 +54,14 @@ import java.util.Date;
                         "join fetch o.mpps mpps " +
                         "join fetch mpps.attributesBlob " +
                         "where o.mpps is not null and o.deviceName=?1 and o.pk>?2 " +
+                        "and mod(o.pk, ?3)=?4 " +
                         "order by o.pk"),
         @NamedQuery(name = HL7PSUTask.FIND_SCHEDULED_BY_DEVICE_NAME,
                 query = "select o from HL7PSUTask o " +
                         "left join fetch o.mpps mpps " +
                         "left join fetch mpps.attributesBlob " +
-                        "where o.deviceName=?1 and o.scheduledTime < current_timestamp"),
+                        "where o.deviceName=?1 and o.scheduledTime < current_timestamp " +
+                        "and mod(o.pk, ?2)=?3"),
         @NamedQuery(name = HL7PSUTask.FIND_BY_STUDY_IUID,
                 query = "select o from HL7PSUTask o where o.studyInstanceUID=?1"),
 
@@ -80,4 +80,10 @@ public class IDSequence {
     public int nextValue() {
         return nextValue++;
     }
+
+    public int nextValues(int count) {
+        int value = nextValue;
+        nextValue += count;
+        return value;
+    }
 }
@@ -53,9 +53,11 @@ import java.util.Date;
         @NamedQuery(name = IanTask.FIND_WITH_MPPS_BY_DEVICE_NAME,
                 query = "select o from IanTask o " +
                         "where o.mpps is not null and o.deviceName=?1 and o.pk>?2 " +
+                        "and mod(o.pk, ?3)=?4 " +
                         "order by o.pk"),
         @NamedQuery(name = IanTask.FIND_SCHEDULED_BY_DEVICE_NAME,
-                query = "select o from IanTask o where o.deviceName=?1 and o.scheduledTime < current_timestamp"),
+                query = "select o from IanTask o where o.deviceName=?1 and o.scheduledTime < current_timestamp " +
+                        "and mod(o.pk, ?2)=?3"),
         @NamedQuery(name = IanTask.FIND_BY_STUDY_IUID,
                 query = "select o from IanTask o where o.studyInstanceUID=?1"),
 
@@ -80,7 +80,11 @@ import java.util.Date;
         @NamedQuery(name = Location.COUNT_BY_MULTI_REF,
                 query = "select count(l) from Location l where l.multiReference=?1"),
         @NamedQuery(name = Location.COUNT_BY_UIDMAP,
-                query = "select count(l) from Location l where l.uidMap=?1")
+                query = "select count(l) from Location l where l.uidMap=?1"),
+        @NamedQuery(name = Location.DELETE_BY_PKS,
+                query = "delete from Location l where l.pk in ?1"),
+        @NamedQuery(name = Location.UPDATE_STATUS_BY_PKS,
+                query = "update Location l set l.status=?2 where l.pk in ?1")
 })
 public class Location {
 
@@ -94,6 +98,8 @@ public class Location {
     public static final String FIND_BY_CONCEPT_NAME_CODE_BEFORE = "Location.FindByConceptNameCodeBefore";
     public static final String COUNT_BY_MULTI_REF = "Location.CountByMultiRef";
     public static final String COUNT_BY_UIDMAP = "Location.CountByUIDMap";
+    public static final String DELETE_BY_PKS = "Location.DeleteByPks";
+    public static final String UPDATE_STATUS_BY_PKS = "Location.UpdateStatusByPks";
 
     public enum Status { OK, TO_DELETE, FAILED_TO_DELETE }
 
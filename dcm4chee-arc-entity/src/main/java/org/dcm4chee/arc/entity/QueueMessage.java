@@ -62,35 +62,52 @@ import java.util.*;
     indexes = {
         @Index(columnList = "queue_name"),
         @Index(columnList = "msg_status"),
-        @Index(columnList = "updated_time")
+        @Index(columnList = "updated_time"),
+        @Index(columnList = "queue_name,msg_status,updated_time"),
+        @Index(columnList = "queue_name,updated_time")
 })
 @NamedQueries({
         @NamedQuery(name = QueueMessage.FIND_BY_MSG_ID,
                 query = "select o from QueueMessage o where o.messageID=?1"),
         @NamedQuery(name = QueueMessage.FIND_BY_QUEUE_NAME,
-                query = "select o from QueueMessage o where o.queueName=?1 order by o.scheduledTime desc"),
+                query = "select o from QueueMessage o where o.queueName=?1 " +
+                        "order by o.updatedTime desc, o.pk desc"),
         @NamedQuery(name = QueueMessage.FIND_BY_QUEUE_NAME_AND_STATUS,
-                query = "select o from QueueMessage o where o.queueName=?1 and o.status=?2 order by o.pk desc"),
-        @NamedQuery(name = QueueMessage.DELETE_BY_QUEUE_NAME,
-                query = "delete from QueueMessage o where o.queueName=?1"),
-        @NamedQuery(name = QueueMessage.DELETE_BY_QUEUE_NAME_AND_STATUS,
-                query = "delete from QueueMessage o where o.queueName=?1 and o.status=?2"),
-        @NamedQuery(name = QueueMessage.DELETE_BY_QUEUE_NAME_AND_UPDATED_BEFORE,
-                query = "delete from QueueMessage o where o.queueName=?1 and o.updatedTime<?2"),
-        @NamedQuery(name = QueueMessage.DELETE_BY_QUEUE_NAME_AND_STATUS_AND_UPDATED_BEFORE,
-                query = "delete from QueueMessage o where o.queueName=?1 and o.status=?2 and o.updatedTime<?3 ")
+                query = "select o from QueueMessage o where o.queueName=?1 and o.status=?2 " +
+                        "order by o.updatedTime desc, o.pk desc"),
+        @NamedQuery(name = QueueMessage.FIND_BY_QUEUE_NAME_BEFORE,
+                query = "select o from QueueMessage o where o.queueName=?1 " +
+                        "and (o.updatedTime<?2 or o.updatedTime=?2 and o.pk<?3) " +
+                        "order by o.updatedTime desc, o.pk desc"),
+        @NamedQuery(name = QueueMessage.FIND_BY_QUEUE_NAME_AND_STATUS_BEFORE,
+                query = "select o from QueueMessage o where o.queueName=?1 and o.status=?2 " +
+                        "and (o.updatedTime<?3 or o.updatedTime=?3 and o.pk<?4) " +
+                        "order by o.updatedTime desc, o.pk desc"),
+        @NamedQuery(name = QueueMessage.FIND_PK_BY_QUEUE_NAME,
+                query = "select o.pk from QueueMessage o where o.queueName=?1"),
+        @NamedQuery(name = QueueMessage.FIND_PK_BY_QUEUE_NAME_AND_STATUS,
+                query = "select o.pk from QueueMessage o where o.queueName=?1 and o.status=?2"),
+        @NamedQuery(name = QueueMessage.FIND_PK_BY_QUEUE_NAME_AND_UPDATED_BEFORE,
+                query = "select o.pk from QueueMessage o where o.queueName=?1 and o.updatedTime<?2"),
+        @NamedQuery(name = QueueMessage.FIND_PK_BY_QUEUE_NAME_AND_STATUS_AND_UPDATED_BEFORE,
+                query = "select o.pk from QueueMessage o where o.queueName=?1 and o.status=?2 and o.updatedTime<?3"),
+        @NamedQuery(name = QueueMessage.DELETE_BY_PKS,
+                query = "delete from QueueMessage o where o.pk in ?1")
 })
 public class QueueMessage {
 
     public static final String FIND_BY_MSG_ID = "QueueMessage.FindByMsgId";
     public static final String FIND_BY_QUEUE_NAME = "QueueMessage.FindByQueueName";
     public static final String FIND_BY_QUEUE_NAME_AND_STATUS = "QueueMessage.FindByQueueNameAndStatus";
-    public static final String DELETE_BY_QUEUE_NAME = "QueueMessage.DeleteByQueueName";
-    public static final String DELETE_BY_QUEUE_NAME_AND_STATUS = "QueueMessage.DeleteByQueueNameAndStatus";
-    public static final String DELETE_BY_QUEUE_NAME_AND_UPDATED_BEFORE =
-            "QueueMessage.DeleteByQueueNameAndUpdatedBefore";
-    public static final String DELETE_BY_QUEUE_NAME_AND_STATUS_AND_UPDATED_BEFORE =
-            "QueueMessage.DeleteByQueueNameAndStatusAndUpdatedBefore";
+    public static final String FIND_BY_QUEUE_NAME_BEFORE = "QueueMessage.FindByQueueNameBefore";
+    public static final String FIND_BY_QUEUE_NAME_AND_STATUS_BEFORE = "QueueMessage.FindByQueueNameAndStatusBefore";
+    public static final String FIND_PK_BY_QUEUE_NAME = "QueueMessage.FindPkByQueueName";
+    public static final String FIND_PK_BY_QUEUE_NAME_AND_STATUS = "QueueMessage.FindPkByQueueNameAndStatus";
+    public static final String FIND_PK_BY_QUEUE_NAME_AND_UPDATED_BEFORE =
+            "QueueMessage.FindPkByQueueNameAndUpdatedBefore";
+    public static final String FIND_PK_BY_QUEUE_NAME_AND_STATUS_AND_UPDATED_BEFORE =
+            "QueueMessage.FindPkByQueueNameAndStatusAndUpdatedBefore";
+    public static final String DELETE_BY_PKS = "QueueMessage.DeleteByPks";
 
     public enum Status {
         SCHEDULED, IN_PROCESS, COMPLETED, WARNING, FAILED, CANCELED
@@ -229,6 +246,10 @@ public class QueueMessage {
         return messageID;
     }
 
+    public Date getUpdatedTime() {
+        return updatedTime;
+    }
+
     public void setMessageID(String messageID) {
         this.messageID = messageID;
     }
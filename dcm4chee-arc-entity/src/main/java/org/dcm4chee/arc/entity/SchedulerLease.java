@@ -0,0 +1,108 @@
+/*
+ * *** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is part of dcm4che, an implementation of DICOM(TM) in
+ * Java(TM), hosted at https://github.com/gunterze/dcm4che.
+ *
+ * The Initial Developer of the Original Code is
+ * J4Care.
+ * Portions created by the Initial Developer are Copyright (C) 2017
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):
+ * See @authors listed below
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ *
+ * *** END LICENSE BLOCK *****
+ */
+
+
+package org.dcm4chee.arc.entity;
+
+import javax.persistence.*;
+import java.util.Date;
+
+/**
+ * Lease on the execution of one partition of a scheduler, claimed by one archive node.
+ *
+ * @author Gunter Zeilinger <gunterze@gmail.com>
+ * @since Apr 2017
+ */
+@NamedQueries({
+        @NamedQuery(name = SchedulerLease.CLAIM,
+                query = "update SchedulerLease o set o.nodeName=?2, o.expirationTime=?3 " +
+                        "where o.name=?1 and (o.nodeName=?2 or o.expirationTime<?4)"),
+        @NamedQuery(name = SchedulerLease.RELEASE,
+                query = "update SchedulerLease o set o.expirationTime=?3 " +
+                        "where o.name=?1 and o.nodeName=?2")
+})
+@Entity
+@Table(name = "scheduler_lease")
+public class SchedulerLease {
+    public static final String CLAIM = "SchedulerLease.claim";
+    public static final String RELEASE = "SchedulerLease.release";
+
+    @Id
+    @Column(name = "name")
+    private String name;
+
+    @Basic(optional = false)
+    @Column(name = "node_name")
+    private String nodeName;
+
+    @Basic(optional = false)
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "expiration_time")
+    private Date expirationTime;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getNodeName() {
+        return nodeName;
+    }
+
+    public void setNodeName(String nodeName) {
+        this.nodeName = nodeName;
+    }
+
+    public Date getExpirationTime() {
+        return expirationTime;
+    }
+
+    public void setExpirationTime(Date expirationTime) {
+        this.expirationTime = expirationTime;
+    }
+
+    @Override
+    public String toString() {
+        return "SchedulerLease[name=" + name + ", node=" + nodeName + ", expires=" + expirationTime + ']';
+    }
+}
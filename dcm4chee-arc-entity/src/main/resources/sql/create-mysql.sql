@@ -16,6 +16,7 @@ create table patient_id (pk bigint not null auto_increment, pat_id varchar(255)
 create table person_name (pk bigint not null auto_increment, family_name varchar(255), given_name varchar(255), i_family_name varchar(255), i_given_name varchar(255), i_middle_name varchar(255), i_name_prefix varchar(255), i_name_suffix varchar(255), middle_name varchar(255), name_prefix varchar(255), name_suffix varchar(255), p_family_name varchar(255), p_given_name varchar(255), p_middle_name varchar(255), p_name_prefix varchar(255), p_name_suffix varchar(255), primary key (pk));
 create table queue_msg (pk bigint not null auto_increment, created_time datetime not null, error_msg varchar(255), msg_body longblob not null, msg_id varchar(255) not null, msg_props varchar(4000) not null, num_failures integer not null, outcome_msg varchar(255), proc_end_time datetime, proc_start_time datetime, queue_name varchar(255), scheduled_time datetime not null, msg_status integer not null, updated_time datetime not null, version bigint, primary key (pk));
 create table rel_study_pcode (study_fk bigint not null, pcode_fk bigint not null);
+create table scheduler_lease (name varchar(64) not null, expiration_time datetime not null, node_name varchar(255) not null, primary key (name));
 create table series (pk bigint not null auto_increment, body_part varchar(255) not null, created_time datetime not null, expiration_date varchar(255), ext_retrieve_aet varchar(255), failed_retrieves integer not null, failed_iuids varchar(4000), inst_purge_state integer not null, inst_purge_time datetime, institution varchar(255) not null, department varchar(255) not null, laterality varchar(255) not null, metadata_update_time datetime, modality varchar(255) not null, pps_cuid varchar(255) not null, pps_iuid varchar(255) not null, pps_start_date varchar(255) not null, pps_start_time varchar(255) not null, rejection_state integer not null, series_custom1 varchar(255) not null, series_custom2 varchar(255) not null, series_custom3 varchar(255) not null, series_desc varchar(255) not null, series_iuid varchar(255) not null, series_no integer, src_aet varchar(255), station_name varchar(255) not null, updated_time datetime not null, version bigint, dicomattrs_fk bigint not null, inst_code_fk bigint, metadata_fk bigint, perf_phys_name_fk bigint, study_fk bigint not null, primary key (pk));
 create table series_query_attrs (pk bigint not null auto_increment, availability integer, num_instances integer, retrieve_aets varchar(255), cuids_in_series varchar(255), view_id varchar(255), series_fk bigint not null, primary key (pk));
 create table series_req (pk bigint not null auto_increment, accession_no varchar(255) not null, req_proc_id varchar(255) not null, req_service varchar(255) not null, sps_id varchar(255) not null, study_iuid varchar(255) not null, accno_issuer_fk bigint, req_phys_name_fk bigint, series_fk bigint, primary key (pk));
@@ -87,6 +88,8 @@ alter table queue_msg add constraint UK_k520j369nwx6rpbkvlp4kn623  unique (msg_i
 create index UK_b5mbe6jenklf1r5wp5csrvf67 on queue_msg (queue_name(64));
 create index UK_o8pu8axwpcm4chqxy75y09gpo on queue_msg (msg_status);
 create index UK_gsdfgth9kxjat98cmabtj8x1h on queue_msg (updated_time);
+create index UK_klbyo58tl4n2c8x5q19ljaklo on queue_msg (queue_name(64), msg_status, updated_time);
+create index UK_l5buebsy9q6bo5c5dty59ppog on queue_msg (queue_name(64), updated_time);
 alter table series add constraint UK_bdj2kuutidekc2en6dckev7l6  unique (dicomattrs_fk);
 alter table series add constraint UK_83y2fx8cou17h3xggxspgikna  unique (study_fk, series_iuid);
 create index UK_jlgy9ifvqak4g2bxkchismw8x on series (rejection_state);
@@ -0,0 +1,3 @@
+create table scheduler_lease (name varchar(255) not null, expiration_time datetime2 not null, node_name varchar(255) not null, primary key (name));
+create index UK_klbyo58tl4n2c8x5q19ljaklo on queue_msg (queue_name, msg_status, updated_time);
+create index UK_l5buebsy9q6bo5c5dty59ppog on queue_msg (queue_name, updated_time);
@@ -54,5 +54,7 @@ public interface ExportManager {
 
     int scheduleExportTasks(int fetchSize);
 
+    int flushExportTasks();
+
     void scheduleExportTask(String studyUID, String seriesUID, String objectUID, ExporterDescriptor exporter, String aeTitle);
 }
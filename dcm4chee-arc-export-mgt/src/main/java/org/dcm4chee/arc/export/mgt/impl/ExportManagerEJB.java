@@ -12,6 +12,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.ejb.Stateless;
+import javax.enterprise.event.Event;
 import javax.enterprise.event.Observes;
 import javax.inject.Inject;
 import javax.jms.JMSException;
@@ -21,6 +22,7 @@ import javax.persistence.EntityManager;
 import javax.persistence.NoResultException;
 import javax.persistence.PersistenceContext;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
@@ -43,6 +45,12 @@ public class ExportManagerEJB implements ExportManager {
     @Inject
     private QueueManager queueManager;
 
+    @Inject
+    private ExportTaskBuffer exportTaskBuffer;
+
+    @Inject
+    private Event<ExportTaskBuffer.Updates> exportTaskUpdatesEvent;
+
     @Override
     public void onStore(@Observes StoreContext ctx) {
         if (ctx.getLocations().isEmpty() || ctx.getException() != null)
@@ -55,6 +63,7 @@ public class ExportManagerEJB implements ExportManager {
         Calendar now = Calendar.getInstance();
         ArchiveAEExtension arcAE = session.getArchiveAEExtension();
         ArchiveDeviceExtension arcDev = arcAE.getArchiveDeviceExtension();
+        Duration coalescingInterval = arcDev.getExportTaskCoalescingInterval();
         for (Map.Entry<String, ExportRule> entry
                 : arcAE.findExportRules(hostname, sendingAET, receivingAET, ctx.getAttributes(), now).entrySet()) {
             String exporterID = entry.getKey();
@@ -63,14 +72,15 @@ public class ExportManagerEJB implements ExportManager {
             Date scheduledTime = scheduledTime(now, rule.getExportDelay(), desc.getSchedules());
             switch (rule.getEntity()) {
                 case Study:
-                    createOrUpdateStudyExportTask(exporterID, ctx.getStudyInstanceUID(), scheduledTime);
+                    coalesceStudyExportTask(exporterID, ctx.getStudyInstanceUID(), scheduledTime,
+                            coalescingInterval);
                     if (rule.isExportPreviousEntity() && ctx.isPreviousDifferentStudy())
                         createOrUpdateStudyExportTask(exporterID,
                                 ctx.getPreviousInstance().getSeries().getStudy().getStudyInstanceUID(), scheduledTime);
                     break;
                 case Series:
-                    createOrUpdateSeriesExportTask(exporterID, ctx.getStudyInstanceUID(), ctx.getSeriesInstanceUID(),
-                            scheduledTime);
+                    coalesceSeriesExportTask(exporterID, ctx.getStudyInstanceUID(), ctx.getSeriesInstanceUID(),
+                            scheduledTime, coalescingInterval);
                     if (rule.isExportPreviousEntity() && ctx.isPreviousDifferentSeries())
                         createOrUpdateSeriesExportTask(exporterID,
                                 ctx.getPreviousInstance().getSeries().getStudy().getStudyInstanceUID(),
@@ -85,6 +95,52 @@ public class ExportManagerEJB implements ExportManager {
         }
     }
 
+    private void coalesceStudyExportTask(String exporterID, String studyIUID, Date scheduledTime,
+                                         Duration coalescingInterval) {
+        if (coalescingInterval == null) {
+            createOrUpdateStudyExportTask(exporterID, studyIUID, scheduledTime);
+            return;
+        }
+        ExportTaskBuffer.Key key = new ExportTaskBuffer.Key(exporterID, studyIUID, "*");
+        if (!exportTaskBuffer.offer(key, scheduledTime, coalescingInterval)) {
+            createOrUpdateStudyExportTask(exporterID, studyIUID, scheduledTime);
+            exportTaskUpdatesEvent.fire(
+                    new ExportTaskBuffer.Updates(Collections.singletonMap(key, scheduledTime), false));
+        }
+    }
+
+    private void coalesceSeriesExportTask(String exporterID, String studyIUID, String seriesIUID,
+                                          Date scheduledTime, Duration coalescingInterval) {
+        if (coalescingInterval == null) {
+            createOrUpdateSeriesExportTask(exporterID, studyIUID, seriesIUID, scheduledTime);
+            return;
+        }
+        ExportTaskBuffer.Key key = new ExportTaskBuffer.Key(exporterID, studyIUID, seriesIUID);
+        if (!exportTaskBuffer.offer(key, scheduledTime, coalescingInterval)) {
+            createOrUpdateSeriesExportTask(exporterID, studyIUID, seriesIUID, scheduledTime);
+            exportTaskUpdatesEvent.fire(
+                    new ExportTaskBuffer.Updates(Collections.singletonMap(key, scheduledTime), false));
+        }
+    }
+
+    @Override
+    public int flushExportTasks() {
+        Map<ExportTaskBuffer.Key, Date> pending = exportTaskBuffer.drain();
+        if (pending.isEmpty())
+            return 0;
+
+        exportTaskUpdatesEvent.fire(new ExportTaskBuffer.Updates(pending, true));
+        for (Map.Entry<ExportTaskBuffer.Key, Date> entry : pending.entrySet()) {
+            ExportTaskBuffer.Key key = entry.getKey();
+            if (key.seriesInstanceUID.equals("*"))
+                createOrUpdateStudyExportTask(key.exporterID, key.studyInstanceUID, entry.getValue());
+            else
+                createOrUpdateSeriesExportTask(key.exporterID, key.studyInstanceUID, key.seriesInstanceUID,
+                        entry.getValue());
+        }
+        return pending.size();
+    }
+
     private void createOrUpdateStudyExportTask(String exporterID, String studyIUID, Date scheduledTime) {
         try {
             ExportTask task = em.createNamedQuery(ExportTask.FIND_BY_EXPORTER_ID_AND_STUDY_IUID, ExportTask.class)
@@ -0,0 +1,187 @@
+/*
+ * *** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is part of dcm4che, an implementation of DICOM(TM) in
+ * Java(TM), hosted at https://github.com/gunterze/dcm4che.
+ *
+ * The Initial Developer of the Original Code is
+ * J4Care.
+ * Portions created by the Initial Developer are Copyright (C) 2017
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):
+ * See @authors listed below
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ *
+ * *** END LICENSE BLOCK *****
+ */
+
+package org.dcm4chee.arc.export.mgt.impl;
+
+import org.dcm4chee.arc.conf.Duration;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.enterprise.event.TransactionPhase;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Coalesces updates of the scheduled time of Study and Series Export Tasks in memory. Updates are only buffered
+ * for Export Tasks, which were already persisted by this node with a scheduled time later than twice the
+ * coalescing interval, so a lost buffer - e.g. on a crash - only causes an earlier export, but never a missed one.
+ *
+ * @author Gunter Zeilinger <gunterze@gmail.com>
+ * @since Apr 2017
+ */
+@ApplicationScoped
+public class ExportTaskBuffer {
+
+    private final Map<Key, Entry> entries = new HashMap<>();
+
+    /**
+     * Returns {@code true} if the update was buffered, {@code false} if the caller has to create or update the
+     * Export Task in the DB.
+     */
+    public synchronized boolean offer(Key key, Date scheduledTime, Duration coalescingInterval) {
+        Entry entry = entries.get(key);
+        if (entry == null || entry.persisted.getTime() - System.currentTimeMillis()
+                < coalescingInterval.getSeconds() * 2000L)
+            return false;
+
+        entry.pending(scheduledTime);
+        return true;
+    }
+
+    public synchronized void persisted(Key key, Date scheduledTime) {
+        Entry entry = entries.get(key);
+        if (entry == null)
+            entries.put(key, new Entry(scheduledTime));
+        else
+            entry.persisted = scheduledTime;
+    }
+
+    /**
+     * Returns buffered updates and removes them from the buffer. Evicts Export Tasks with a passed scheduled time
+     * without buffered update.
+     */
+    public synchronized Map<Key, Date> drain() {
+        long now = System.currentTimeMillis();
+        Map<Key, Date> pending = new HashMap<>();
+        for (Iterator<Map.Entry<Key, Entry>> iter = entries.entrySet().iterator(); iter.hasNext();) {
+            Map.Entry<Key, Entry> next = iter.next();
+            Entry entry = next.getValue();
+            if (entry.pending != null) {
+                pending.put(next.getKey(), entry.pending);
+                entry.pending = null;
+            } else if (entry.persisted.getTime() < now)
+                iter.remove();
+        }
+        return pending;
+    }
+
+    public synchronized void restore(Map<Key, Date> pending) {
+        for (Map.Entry<Key, Date> next : pending.entrySet()) {
+            Entry entry = entries.get(next.getKey());
+            if (entry != null)
+                entry.pending(next.getValue());
+        }
+    }
+
+    public void onCommit(@Observes(during = TransactionPhase.AFTER_SUCCESS) Updates updates) {
+        for (Map.Entry<Key, Date> next : updates.scheduledTimes.entrySet())
+            persisted(next.getKey(), next.getValue());
+    }
+
+    public void onRollback(@Observes(during = TransactionPhase.AFTER_FAILURE) Updates updates) {
+        if (updates.drained)
+            restore(updates.scheduledTimes);
+    }
+
+    /**
+     * Scheduled times of Export Tasks created or updated in the current transaction, applied to the buffer only
+     * after the transaction completed.
+     */
+    public static final class Updates {
+        final Map<Key, Date> scheduledTimes;
+        final boolean drained;
+
+        /**
+         * @param drained {@code true} if the updates were drained from the buffer and shall be restored on
+         *                rollback of the transaction
+         */
+        public Updates(Map<Key, Date> scheduledTimes, boolean drained) {
+            this.scheduledTimes = scheduledTimes;
+            this.drained = drained;
+        }
+    }
+
+    public static final class Key {
+        final String exporterID;
+        final String studyInstanceUID;
+        final String seriesInstanceUID;
+
+        public Key(String exporterID, String studyInstanceUID, String seriesInstanceUID) {
+            this.exporterID = exporterID;
+            this.studyInstanceUID = studyInstanceUID;
+            this.seriesInstanceUID = seriesInstanceUID;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            Key key = (Key) o;
+            return exporterID.equals(key.exporterID)
+                    && studyInstanceUID.equals(key.studyInstanceUID)
+                    && seriesInstanceUID.equals(key.seriesInstanceUID);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = exporterID.hashCode();
+            result = 31 * result + studyInstanceUID.hashCode();
+            result = 31 * result + seriesInstanceUID.hashCode();
+            return result;
+        }
+    }
+
+    private static final class Entry {
+        Date persisted;
+        Date pending;
+
+        Entry(Date persisted) {
+            this.persisted = persisted;
+        }
+
+        void pending(Date scheduledTime) {
+            if (pending == null || pending.before(scheduledTime))
+                pending = scheduledTime;
+        }
+    }
+}
@@ -131,17 +131,24 @@ public class HL7PSUEJB {
         return duration != null ? new Date(System.currentTimeMillis() + duration.getSeconds() * 1000L) : null;
     }
 
-    public List<HL7PSUTask> fetchHL7PSUTasksForMPPS(String deviceName, long prevPk, int fetchSize) {
+    public List<HL7PSUTask> fetchHL7PSUTasksForMPPS(String deviceName, long prevPk, int fetchSize,
+            int partition, int partitions) {
         return em.createNamedQuery(HL7PSUTask.FIND_WITH_MPPS_BY_DEVICE_NAME, HL7PSUTask.class)
                 .setParameter(1, deviceName)
                 .setParameter(2, prevPk)
+                .setParameter(3, (long) partitions)
+                .setParameter(4, (long) partition)
                 .setMaxResults(fetchSize)
                 .getResultList();
     }
 
-    public List<HL7PSUTask> fetchHL7PSUTasksForStudy(String deviceName, int fetchSize) {
+    public List<HL7PSUTask> fetchHL7PSUTasksForStudy(String deviceName, int fetchSize,
+            int partition, int partitions) {
         return em.createNamedQuery(HL7PSUTask.FIND_SCHEDULED_BY_DEVICE_NAME, HL7PSUTask.class)
-                .setParameter(1, deviceName).setMaxResults(fetchSize).getResultList();
+                .setParameter(1, deviceName)
+                .setParameter(2, (long) partitions)
+                .setParameter(3, (long) partition)
+                .setMaxResults(fetchSize).getResultList();
     }
 
     public void removeHL7PSUTask(HL7PSUTask task) {
@@ -95,14 +95,26 @@ public class HL7PSUScheduler extends Scheduler {
         return arcDev.getHl7PSUTaskPollingInterval();
     }
 
+    @Override
+    protected int getPartitions() {
+        ArchiveDeviceExtension arcDev = device.getDeviceExtension(ArchiveDeviceExtension.class);
+        return arcDev.getSchedulerPartitions();
+    }
+
     @Override
     protected void execute() {
+        execute(0, 1);
+    }
+
+    @Override
+    protected void execute(int partition, int partitions) {
         ArchiveDeviceExtension arcDev = device.getDeviceExtension(ArchiveDeviceExtension.class);
         int fetchSize = arcDev.getHl7PSUTaskFetchSize();
         long hl7psuTaskPk = 0;
         List<HL7PSUTask> hl7psuTasks;
         do {
-            hl7psuTasks = ejb.fetchHL7PSUTasksForMPPS(device.getDeviceName(), hl7psuTaskPk, fetchSize);
+            hl7psuTasks = ejb.fetchHL7PSUTasksForMPPS(device.getDeviceName(), hl7psuTaskPk, fetchSize,
+                    partition, partitions);
             for (HL7PSUTask hl7psuTask : hl7psuTasks)
                 try {
                     hl7psuTaskPk = hl7psuTask.getPk();
@@ -117,7 +129,7 @@ public class HL7PSUScheduler extends Scheduler {
                 }
         } while (hl7psuTasks.size() == fetchSize);
         do {
-            hl7psuTasks = ejb.fetchHL7PSUTasksForStudy(device.getDeviceName(), fetchSize);
+            hl7psuTasks = ejb.fetchHL7PSUTasksForStudy(device.getDeviceName(), fetchSize, partition, partitions);
             for (HL7PSUTask hl7psuTask : hl7psuTasks) {
                 ApplicationEntity ae = device.getApplicationEntity(hl7psuTask.getAETitle());
                 ArchiveAEExtension arcAE = ae.getAEExtension(ArchiveAEExtension.class);
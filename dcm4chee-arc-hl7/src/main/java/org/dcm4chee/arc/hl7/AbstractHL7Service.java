@@ -47,21 +47,11 @@ import org.dcm4che3.net.Connection;
 import org.dcm4che3.net.hl7.HL7Application;
 import org.dcm4che3.net.hl7.UnparsedHL7Message;
 import org.dcm4che3.net.hl7.service.DefaultHL7Service;
-import org.dcm4che3.util.StringUtils;
 import org.dcm4chee.arc.conf.ArchiveHL7ApplicationExtension;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import javax.inject.Inject;
-import java.io.*;
 import java.net.Socket;
 
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
-import java.text.SimpleDateFormat;
 import java.util.Collection;
-import java.util.Date;
 
 
 /**
@@ -70,7 +60,6 @@ import java.util.Date;
  * @since Jun 2016
  */
 abstract class AbstractHL7Service extends DefaultHL7Service {
-    private static final Logger LOG = LoggerFactory.getLogger(AbstractHL7Service.class);
     public AbstractHL7Service(String... messageTypes) {
         super(messageTypes);
     }
@@ -78,20 +67,23 @@ abstract class AbstractHL7Service extends DefaultHL7Service {
     @Inject
     HL7Sender hl7sender;
 
+    @Inject
+    HL7Logger hl7Logger;
+
     @Override
     public byte[] onMessage(HL7Application hl7App, Connection conn, Socket s, UnparsedHL7Message msg)
             throws HL7Exception {
         ArchiveHL7ApplicationExtension arcHl7App =
                 hl7App.getHL7ApplicationExtension(ArchiveHL7ApplicationExtension.class);
-        log(msg, arcHl7App.hl7LogFilePattern());
+        hl7Logger.log(arcHl7App.hl7LogFilePattern(), msg);
         forwardHL7(arcHl7App, s, msg);
         try {
             process(hl7App, s, msg);
         } catch (HL7Exception e) {
-            log(msg, arcHl7App.hl7ErrorLogFilePattern());
+            hl7Logger.log(arcHl7App.hl7ErrorLogFilePattern(), msg);
             throw e;
         } catch (Exception e) {
-            log(msg, arcHl7App.hl7ErrorLogFilePattern());
+            hl7Logger.log(arcHl7App.hl7ErrorLogFilePattern(), msg);
             throw new HL7Exception(HL7Exception.AE, e);
         }
         return super.onMessage(hl7App, conn, s, msg);
@@ -107,67 +99,5 @@ abstract class AbstractHL7Service extends DefaultHL7Service {
                     destinations.toArray(new String[destinations.size()]));
     }
 
-    private void log(UnparsedHL7Message msg, String dirpath) {
-        if (dirpath == null)
-            return;
-        String filePath = getPath(StringUtils.replaceSystemProperties(dirpath), msg.getSerialNo(), msg.msh());
-        Path dir = Paths.get(filePath.substring(0,filePath.lastIndexOf("/")));
-        Path file = dir.resolve(filePath.substring(filePath.lastIndexOf("/")+1));
-        try {
-            if (!Files.exists(dir))
-                Files.createDirectories(dir);
-            if (!Files.exists(file))
-                Files.createFile(file);
-            try (BufferedOutputStream out = new BufferedOutputStream(
-                    Files.newOutputStream(file, StandardOpenOption.APPEND))) {
-                new DataOutputStream(out);
-                out.write(msg.data());
-                out.close();
-            }
-        } catch (Exception e) {
-            LOG.warn("Failed to write log file : ", dir, file, e);
-        }
-    }
-
-    private String getPath(String s, int serialNo, HL7Segment msh) {
-        int i = s.indexOf("${");
-        if (i == -1)
-            return s;
-
-        StringBuilder sb = new StringBuilder(s.length());
-        int j = -1;
-        do {
-            sb.append(s.substring(j+1, i));
-            if ((j = s.indexOf('}', i+2)) == -1) {
-                j = i-1;
-                break;
-            }
-            String s1 = s.substring(i+2, j);
-            String dateFormat = null;
-            if (s1.substring(0,4).equalsIgnoreCase("date")) {
-                try {
-                    Date date = new SimpleDateFormat("yyyyMMdd").parse(msh.getField(6, null).substring(0,8));
-                    dateFormat = new SimpleDateFormat(s1.substring(s1.indexOf(",")+1)).format(date);
-                } catch (Exception e) {
-                    LOG.warn("Failed to format date : ", e);
-                }
-            }
-            String prop = s1.equalsIgnoreCase("SerialNo")
-                            ? String.valueOf(serialNo)
-                            : s1.substring(0,4).equalsIgnoreCase("MSH-")
-                            ? msh.getField(Integer.parseInt(s1.substring(4))-1, null)
-                            : s1.substring(0,4).equalsIgnoreCase("date")
-                            ? dateFormat : null;
-            String s2 = s.substring(i, j+1);
-            String val = s.startsWith("env.", i+2)
-                    ? System.getenv(s.substring(i+6, j))
-                    : prop;
-            sb.append(val != null ? val : s2);
-            i = s.indexOf("${", j+1);
-        } while (i != -1);
-        sb.append(s.substring(j+1));
-        return sb.toString();
-    }
-
     protected abstract void process(HL7Application hl7App, Socket s, UnparsedHL7Message msg) throws Exception;
 }
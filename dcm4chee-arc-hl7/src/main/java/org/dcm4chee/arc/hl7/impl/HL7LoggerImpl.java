@@ -0,0 +1,377 @@
+/*
+ * *** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is part of dcm4che, an implementation of DICOM(TM) in
+ * Java(TM), hosted at https://github.com/gunterze/dcm4che.
+ *
+ * The Initial Developer of the Original Code is
+ * J4Care.
+ * Portions created by the Initial Developer are Copyright (C) 2017
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):
+ * See @authors listed below
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ *
+ * *** END LICENSE BLOCK *****
+ */
+
+
+package org.dcm4chee.arc.hl7.impl;
+
+import org.dcm4che3.hl7.HL7Segment;
+import org.dcm4che3.net.Device;
+import org.dcm4che3.net.hl7.UnparsedHL7Message;
+import org.dcm4che3.util.StringUtils;
+import org.dcm4chee.arc.hl7.HL7Logger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Queues messages in a bounded in-memory queue, which is drained by one writer task. The writer appends all
+ * queued messages for one file by one gathering write, keeping the file open for subsequent messages. Files not
+ * written for {@link #CHANNEL_IDLE_TIMEOUT_MILLIS} - e.g. because the date in the file pattern changed - are
+ * closed by a periodic sweep, which runs while any file is open.
+ *
+ * @author Gunter Zeilinger <gunterze@gmail.com>
+ * @since Apr 2017
+ */
+@ApplicationScoped
+public class HL7LoggerImpl implements HL7Logger {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HL7LoggerImpl.class);
+
+    private static final int QUEUE_CAPACITY = 4096;
+    private static final int MAX_BATCH_SIZE = 256;
+    private static final int MAX_OPEN_CHANNELS = 16;
+    private static final long CHANNEL_IDLE_TIMEOUT_MILLIS = 60000L;
+
+    @Inject
+    private Device device;
+
+    private final BlockingQueue<Entry> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final AtomicBoolean writing = new AtomicBoolean();
+    private final AtomicLong writtenMessages = new AtomicLong();
+    private final AtomicLong failedMessages = new AtomicLong();
+    private final AtomicLong blockedCount = new AtomicLong();
+    private final AtomicLong blockedNanos = new AtomicLong();
+
+    // only accessed by the writer task, the idle sweep, or on shutdown
+    private final LinkedHashMap<Path, OpenChannel> channels = new LinkedHashMap<Path, OpenChannel>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Path, OpenChannel> eldest) {
+            if (size() <= MAX_OPEN_CHANNELS)
+                return false;
+
+            eldest.getValue().close();
+            return true;
+        }
+    };
+
+    // guarded by channels
+    private ScheduledFuture<?> idleSweepFuture;
+
+    private final Runnable writer = new Runnable() {
+        @Override
+        public void run() {
+            writeQueuedMessages();
+        }
+    };
+
+    private final Runnable idleSweep = new Runnable() {
+        @Override
+        public void run() {
+            synchronized (channels) {
+                closeIdleChannels();
+                if (channels.isEmpty())
+                    cancelIdleSweep();
+            }
+        }
+    };
+
+    @Override
+    public void log(String pattern, UnparsedHL7Message msg) {
+        if (pattern == null)
+            return;
+
+        String filePath = getPath(StringUtils.replaceSystemProperties(pattern), msg.getSerialNo(), msg.msh());
+        Entry entry;
+        try {
+            entry = new Entry(Paths.get(filePath), msg.data());
+        } catch (InvalidPathException e) {
+            LOG.warn("Invalid log file path: {}", filePath, e);
+            return;
+        }
+        if (!queue.offer(entry)) {
+            long start = System.nanoTime();
+            try {
+                queue.put(entry);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failedMessages.incrementAndGet();
+                LOG.warn("Interrupted while waiting for logging message to {}", entry.path);
+                return;
+            } finally {
+                blockedCount.incrementAndGet();
+                blockedNanos.addAndGet(System.nanoTime() - start);
+            }
+        }
+        startWriter();
+    }
+
+    private void startWriter() {
+        if (writing.compareAndSet(false, true)) {
+            try {
+                device.execute(writer);
+            } catch (RuntimeException e) {
+                writing.set(false);
+                LOG.warn("Failed to start writing of HL7 log files:", e);
+            }
+        }
+    }
+
+    private void writeQueuedMessages() {
+        List<Entry> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        for (;;) {
+            synchronized (channels) {
+                while (queue.drainTo(batch, MAX_BATCH_SIZE) > 0) {
+                    write(batch);
+                    batch.clear();
+                }
+            }
+            writing.set(false);
+            // recheck, if messages were queued after the queue was drained the last time
+            if (queue.isEmpty() || !writing.compareAndSet(false, true))
+                return;
+        }
+    }
+
+    private void write(List<Entry> batch) {
+        LinkedHashMap<Path, List<ByteBuffer>> groups = new LinkedHashMap<>();
+        for (Entry entry : batch) {
+            List<ByteBuffer> group = groups.get(entry.path);
+            if (group == null)
+                groups.put(entry.path, group = new ArrayList<>());
+            group.add(ByteBuffer.wrap(entry.data));
+        }
+        for (Map.Entry<Path, List<ByteBuffer>> group : groups.entrySet()) {
+            Path path = group.getKey();
+            List<ByteBuffer> buffers = group.getValue();
+            try {
+                channelOf(path).write(buffers.toArray(new ByteBuffer[buffers.size()]));
+                writtenMessages.addAndGet(buffers.size());
+            } catch (IOException e) {
+                failedMessages.addAndGet(buffers.size());
+                LOG.warn("Failed to write {} messages to log file {}:", buffers.size(), path, e);
+                OpenChannel channel = channels.remove(path);
+                if (channel != null)
+                    channel.close();
+            }
+        }
+    }
+
+    private OpenChannel channelOf(Path path) throws IOException {
+        OpenChannel channel = channels.get(path);
+        if (channel == null) {
+            Path dir = path.getParent();
+            if (dir != null)
+                Files.createDirectories(dir);
+            channel = new OpenChannel(path, FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND));
+            channels.put(path, channel);
+            scheduleIdleSweep();
+        }
+        return channel;
+    }
+
+    private void scheduleIdleSweep() {
+        if (idleSweepFuture == null)
+            try {
+                idleSweepFuture = device.scheduleWithFixedDelay(idleSweep,
+                        CHANNEL_IDLE_TIMEOUT_MILLIS, CHANNEL_IDLE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (RuntimeException e) {
+                LOG.warn("Failed to schedule closing of idle HL7 log files:", e);
+            }
+    }
+
+    private void cancelIdleSweep() {
+        if (idleSweepFuture != null) {
+            idleSweepFuture.cancel(false);
+            idleSweepFuture = null;
+        }
+    }
+
+    private void closeIdleChannels() {
+        long now = System.currentTimeMillis();
+        for (Iterator<OpenChannel> iter = channels.values().iterator(); iter.hasNext();) {
+            OpenChannel channel = iter.next();
+            if (now - channel.lastWritten > CHANNEL_IDLE_TIMEOUT_MILLIS) {
+                channel.close();
+                iter.remove();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        synchronized (channels) {
+            List<Entry> batch = new ArrayList<>(queue.size());
+            queue.drainTo(batch);
+            write(batch);
+            for (OpenChannel channel : channels.values())
+                channel.close();
+            channels.clear();
+            cancelIdleSweep();
+        }
+    }
+
+    @Override
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    @Override
+    public int getQueueCapacity() {
+        return QUEUE_CAPACITY;
+    }
+
+    @Override
+    public long getWrittenMessages() {
+        return writtenMessages.get();
+    }
+
+    @Override
+    public long getFailedMessages() {
+        return failedMessages.get();
+    }
+
+    @Override
+    public long getBlockedCount() {
+        return blockedCount.get();
+    }
+
+    @Override
+    public long getBlockedTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(blockedNanos.get());
+    }
+
+    static String getPath(String s, int serialNo, HL7Segment msh) {
+        int i = s.indexOf("${");
+        if (i == -1)
+            return s;
+
+        StringBuilder sb = new StringBuilder(s.length());
+        int j = -1;
+        do {
+            sb.append(s.substring(j+1, i));
+            if ((j = s.indexOf('}', i+2)) == -1) {
+                j = i-1;
+                break;
+            }
+            String s1 = s.substring(i+2, j);
+            String dateFormat = null;
+            if (s1.substring(0,4).equalsIgnoreCase("date")) {
+                try {
+                    Date date = new SimpleDateFormat("yyyyMMdd").parse(msh.getField(6, null).substring(0,8));
+                    dateFormat = new SimpleDateFormat(s1.substring(s1.indexOf(",")+1)).format(date);
+                } catch (Exception e) {
+                    LOG.warn("Failed to format date : ", e);
+                }
+            }
+            String prop = s1.equalsIgnoreCase("SerialNo")
+                            ? String.valueOf(serialNo)
+                            : s1.substring(0,4).equalsIgnoreCase("MSH-")
+                            ? msh.getField(Integer.parseInt(s1.substring(4))-1, null)
+                            : s1.substring(0,4).equalsIgnoreCase("date")
+                            ? dateFormat : null;
+            String s2 = s.substring(i, j+1);
+            String val = s.startsWith("env.", i+2)
+                    ? System.getenv(s.substring(i+6, j))
+                    : prop;
+            sb.append(val != null ? val : s2);
+            i = s.indexOf("${", j+1);
+        } while (i != -1);
+        sb.append(s.substring(j+1));
+        return sb.toString();
+    }
+
+    private static final class Entry {
+        final Path path;
+        final byte[] data;
+
+        Entry(Path path, byte[] data) {
+            this.path = path;
+            this.data = data;
+        }
+    }
+
+    private static final class OpenChannel {
+        final Path path;
+        final FileChannel channel;
+        long lastWritten = System.currentTimeMillis();
+
+        OpenChannel(Path path, FileChannel channel) {
+            this.path = path;
+            this.channel = channel;
+        }
+
+        void write(ByteBuffer[] buffers) throws IOException {
+            long remaining = 0L;
+            for (ByteBuffer buffer : buffers)
+                remaining += buffer.remaining();
+            while (remaining > 0L)
+                remaining -= channel.write(buffers);
+            lastWritten = System.currentTimeMillis();
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                LOG.warn("Failed to close log file {}:", path, e);
+            }
+        }
+    }
+}
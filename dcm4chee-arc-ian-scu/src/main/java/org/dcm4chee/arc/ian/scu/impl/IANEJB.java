@@ -120,17 +120,22 @@ public class IANEJB {
         return duration != null ? new Date(System.currentTimeMillis() + duration.getSeconds() * 1000L) : null;
     }
 
-    public List<IanTask> fetchIANTasksForMPPS(String deviceName, long prevPk, int fetchSize) {
+    public List<IanTask> fetchIANTasksForMPPS(String deviceName, long prevPk, int fetchSize,
+            int partition, int partitions) {
         return em.createNamedQuery(IanTask.FIND_WITH_MPPS_BY_DEVICE_NAME, IanTask.class)
                 .setParameter(1, deviceName)
                 .setParameter(2, prevPk)
+                .setParameter(3, (long) partitions)
+                .setParameter(4, (long) partition)
                 .setMaxResults(fetchSize)
                 .getResultList();
     }
 
-    public List<IanTask> fetchIANTasksForStudy(String deviceName, int fetchSize) {
+    public List<IanTask> fetchIANTasksForStudy(String deviceName, int fetchSize, int partition, int partitions) {
         return em.createNamedQuery(IanTask.FIND_SCHEDULED_BY_DEVICE_NAME, IanTask.class)
                 .setParameter(1, deviceName)
+                .setParameter(2, (long) partitions)
+                .setParameter(3, (long) partition)
                 .setMaxResults(fetchSize)
                 .getResultList();
     }
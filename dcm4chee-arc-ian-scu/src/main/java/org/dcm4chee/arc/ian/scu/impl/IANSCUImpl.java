@@ -47,6 +47,7 @@ import org.dcm4che3.data.UID;
 import org.dcm4che3.net.*;
 import org.dcm4che3.net.pdu.AAssociateRQ;
 import org.dcm4che3.net.pdu.PresentationContext;
+import org.dcm4chee.arc.AssociationPool;
 import org.dcm4chee.arc.entity.QueueMessage;
 import org.dcm4chee.arc.ian.scu.IANSCU;
 import org.dcm4chee.arc.qmgt.Outcome;
@@ -71,13 +72,16 @@ public class IANSCUImpl implements IANSCU {
     @Inject
     private IApplicationEntityCache aeCache;
 
+    @Inject
+    private AssociationPool associationPool;
+
     @Override
     public Outcome sendIAN(String localAET, String remoteAET, String sopInstanceUID, Attributes attrs)
             throws Exception {
         ApplicationEntity localAE = device.getApplicationEntity(localAET, true);
         ApplicationEntity remoteAE = aeCache.findApplicationEntity(remoteAET);
         AAssociateRQ aarq = mkAAssociateRQ(localAE);
-        Association as = localAE.connect(remoteAE, aarq);
+        Association as = associationPool.open(localAE, remoteAE, aarq);
         try {
             DimseRSP rsp = as.ncreate(UID.InstanceAvailabilityNotificationSOPClass, sopInstanceUID, attrs, null);
             rsp.next();
@@ -90,7 +94,7 @@ public class IANSCUImpl implements IANSCU {
                             + " failed with error status: " + Integer.toHexString(status) + 'H');
         } finally {
             try {
-                as.release();
+                associationPool.release(as);
             } catch (IOException e) {
                 LOG.info("{}: Failed to release association to {}", as, remoteAET);
             }
@@ -94,15 +94,27 @@ public class IANScheduler extends Scheduler {
         return arcDev.getIanTaskPollingInterval();
     }
 
+    @Override
+    protected int getPartitions() {
+        ArchiveDeviceExtension arcDev = device.getDeviceExtension(ArchiveDeviceExtension.class);
+        return arcDev.getSchedulerPartitions();
+    }
+
     @Override
     protected void execute() {
+        execute(0, 1);
+    }
+
+    @Override
+    protected void execute(int partition, int partitions) {
         ArchiveDeviceExtension arcDev = device.getDeviceExtension(ArchiveDeviceExtension.class);
         int fetchSize = arcDev.getIanTaskFetchSize();
         long ianTaskPk = 0;
         List<IanTask> ianTasks;
         Attributes ian;
         do {
-            ianTasks = ejb.fetchIANTasksForMPPS(device.getDeviceName(), ianTaskPk, fetchSize);
+            ianTasks = ejb.fetchIANTasksForMPPS(device.getDeviceName(), ianTaskPk, fetchSize,
+                    partition, partitions);
             for (IanTask ianTask : ianTasks)
                 try {
                     ianTaskPk = ianTask.getPk();
@@ -118,7 +130,7 @@ public class IANScheduler extends Scheduler {
                 }
         } while (ianTasks.size() == fetchSize);
         do {
-            ianTasks = ejb.fetchIANTasksForStudy(device.getDeviceName(), fetchSize);
+            ianTasks = ejb.fetchIANTasksForStudy(device.getDeviceName(), fetchSize, partition, partitions);
             for (IanTask ianTask : ianTasks)
                 try {
                     ApplicationEntity ae = device.getApplicationEntity(ianTask.getCallingAET(), true);
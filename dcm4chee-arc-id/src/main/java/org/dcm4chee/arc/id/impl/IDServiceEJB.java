@@ -61,15 +61,20 @@ public class IDServiceEJB {
     @PersistenceContext(unitName="dcm4chee-arc")
     private EntityManager em;
 
+    /**
+     * Reserves {@code count} consecutive values of the sequence in one transaction.
+     *
+     * @return first reserved value
+     */
     @Lock(LockType.WRITE)
-    public int nextValue(IDGenerator.Name name, int initialValue) {
+    public int nextValues(IDGenerator.Name name, int initialValue, int count) {
         IDSequence idSeq = em.find(IDSequence.class, name);
         if (idSeq != null)
-            return idSeq.nextValue();
+            return idSeq.nextValues(count);
 
         idSeq = new IDSequence();
         idSeq.setName(name);
-        idSeq.setNextValue(initialValue + 1);
+        idSeq.setNextValue(initialValue + count);
         em.persist(idSeq);
         return initialValue;
     }
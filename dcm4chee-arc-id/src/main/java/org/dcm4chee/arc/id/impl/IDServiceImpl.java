@@ -53,8 +53,14 @@ import org.slf4j.LoggerFactory;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
+ * Hands out sequence values from blocks of {@link IDGenerator#getBlockSize()} values, reserved in one
+ * transaction. Values of a block not used before shutdown are skipped, never reused.
+ *
  * @author Gunter Zeilinger <gunterze@gmail.com>
  * @since Jun 2016
  */
@@ -69,10 +75,14 @@ public class IDServiceImpl implements IDService {
     @Inject
     private IDServiceEJB ejb;
 
+    private final Map<IDGenerator.Name, ValueBlock> blocks = new ConcurrentHashMap<>();
+    private final Object reserveLock = new Object();
+
     @Override
     public String createID(IDGenerator.Name name) {
         IDGenerator generator = device.getDeviceExtension(ArchiveDeviceExtension.class).getIDGenerator(name);
-        return String.format(generator.getFormat(), nextValue(generator.getName(), generator.getInitialValue()));
+        return String.format(generator.getFormat(),
+                nextValue(generator.getName(), generator.getInitialValue(), generator.getBlockSize()));
     }
 
     @Override
@@ -104,15 +114,45 @@ public class IDServiceImpl implements IDService {
 
     @Override
     public int newLocationMultiReference() {
-        return nextValue(IDGenerator.Name.LocationMultiReference, 0);
+        IDGenerator generator = device.getDeviceExtension(ArchiveDeviceExtension.class).getIDGenerators()
+                .get(IDGenerator.Name.LocationMultiReference);
+        return nextValue(IDGenerator.Name.LocationMultiReference, 0,
+                generator != null ? generator.getBlockSize() : 1);
+    }
+
+    private int nextValue(IDGenerator.Name name, int initialValue, int blockSize) {
+        for (;;) {
+            ValueBlock block = blocks.get(name);
+            if (block != null) {
+                int value = block.next.getAndIncrement();
+                if (value < block.end)
+                    return value;
+            }
+            synchronized (reserveLock) {
+                if (blocks.get(name) == block)
+                    blocks.put(name, reserveValues(name, initialValue, blockSize));
+            }
+        }
     }
 
-    private int nextValue(IDGenerator.Name name, int initalValue) {
+    private ValueBlock reserveValues(IDGenerator.Name name, int initialValue, int count) {
+        int first;
         try {
-            return ejb.nextValue(name, initalValue);
+            first = ejb.nextValues(name, initialValue, count);
         } catch (RuntimeException e) {
             LOG.info("Failed to create {} - retry\n", name, e);
-            return ejb.nextValue(name, initalValue);
+            first = ejb.nextValues(name, initialValue, count);
+        }
+        return new ValueBlock(first, count);
+    }
+
+    private static final class ValueBlock {
+        final AtomicInteger next;
+        final int end;
+
+        ValueBlock(int first, int count) {
+            this.next = new AtomicInteger(first);
+            this.end = first + count;
         }
     }
 }
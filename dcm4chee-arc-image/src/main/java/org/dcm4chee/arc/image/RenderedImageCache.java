@@ -0,0 +1,302 @@
+/*
+ * *** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is part of dcm4che, an implementation of DICOM(TM) in
+ * Java(TM), hosted at https://github.com/gunterze/dcm4che.
+ *
+ * The Initial Developer of the Original Code is
+ * J4Care.
+ * Portions created by the Initial Developer are Copyright (C) 2017
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):
+ * See @authors listed below
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ *
+ * *** END LICENSE BLOCK *****
+ */
+
+
+package org.dcm4chee.arc.image;
+
+import org.dcm4che3.data.Tag;
+import org.dcm4che3.imageio.plugins.dcm.DicomImageReadParam;
+import org.dcm4che3.io.DicomInputStream;
+import org.dcm4che3.net.Device;
+import org.dcm4che3.ws.rs.MediaTypes;
+import org.dcm4chee.arc.conf.ArchiveDeviceExtension;
+import org.dcm4chee.arc.conf.CacheEvictionPolicy;
+import org.dcm4chee.arc.conf.StorageDescriptor;
+import org.dcm4chee.arc.entity.Location;
+import org.dcm4chee.arc.storage.FileCache;
+import org.dcm4chee.arc.storage.ReadContext;
+import org.dcm4chee.arc.storage.Storage;
+import org.dcm4chee.arc.storage.StorageFactory;
+import org.dcm4chee.arc.store.StoreContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriter;
+import javax.inject.Inject;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.Iterator;
+
+/**
+ * Cache for images rendered by WADO, keyed by instance, frame, rendering parameters and media type. Cached images
+ * of an instance are not longer hit after its update, because its update time is part of the key. Optionally renders
+ * thumbnails of received objects of configured SOP Classes, so it is deployed in the EAR to observe Store events.
+ *
+ * @author Gunter Zeilinger <gunterze@gmail.com>
+ * @since Apr 2017
+ */
+@ApplicationScoped
+public class RenderedImageCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RenderedImageCache.class);
+
+    @Inject
+    private Device device;
+
+    @Inject
+    private StorageFactory storageFactory;
+
+    private FileCache cache;
+
+    public static String keyOf(String iuid, Date updatedTime, int imageIndex, MediaType mediaType,
+                               String... params) {
+        StringBuilder sb = new StringBuilder(64);
+        sb.append(imageIndex).append('/').append(mediaType.getSubtype());
+        for (String param : params)
+            sb.append('/').append(param);
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e);
+        }
+        return iuid + '/' + (updatedTime != null ? updatedTime.getTime() / 1000 : 0) + '-'
+                + new BigInteger(1, digest.digest(sb.toString().getBytes(StandardCharsets.UTF_8))).toString(36)
+                + '.' + mediaType.getSubtype();
+    }
+
+    public static String thumbnailKeyOf(String iuid, Date updatedTime, int size) {
+        String rowsColumns = Integer.toString(size);
+        return keyOf(iuid, updatedTime, 0, MediaTypes.IMAGE_JPEG_TYPE, rowsColumns, rowsColumns,
+                null, null, null, null, null, null);
+    }
+
+    /**
+     * Returns output of the cached image, or {@code null} if there is no image cached for {@code key}.
+     */
+    public StreamingOutput get(String key) {
+        FileCache cache = cache();
+        if (cache == null)
+            return null;
+
+        final Path path = cache.get(key);
+        if (path == null)
+            return null;
+
+        if (!Files.exists(path)) {
+            cache.remove(key);
+            return null;
+        }
+        return new StreamingOutput() {
+            @Override
+            public void write(OutputStream out) throws IOException, WebApplicationException {
+                Files.copy(path, out);
+            }
+        };
+    }
+
+    /**
+     * Returns output which writes the image rendered by {@code output} also into the cache, if caching is enabled
+     * and the image is not already written into the cache by another request.
+     */
+    public StreamingOutput cacheOutput(final String key, final StreamingOutput output) {
+        final FileCache cache = cache();
+        if (cache == null || !cache.beginFetch(key))
+            return output;
+
+        return new StreamingOutput() {
+            @Override
+            public void write(OutputStream out) throws IOException, WebApplicationException {
+                boolean committed = false;
+                try {
+                    Path part = cache.partPathOf(key);
+                    Files.createDirectories(part.getParent());
+                    try (OutputStream cacheOut = Files.newOutputStream(part)) {
+                        output.write(new TeeOutputStream(out, cacheOut));
+                    }
+                    cache.commit(key, maxSize(), CacheEvictionPolicy.LRU);
+                    committed = true;
+                } finally {
+                    if (!committed)
+                        cache.abort(key);
+                    cache.endFetch(key);
+                }
+            }
+        };
+    }
+
+    public void onStore(@Observes final StoreContext ctx) {
+        if (ctx.getException() != null || ctx.getStoredInstance() == null || ctx.getLocations().isEmpty())
+            return;
+
+        final ArchiveDeviceExtension arcDev = device.getDeviceExtension(ArchiveDeviceExtension.class);
+        if (arcDev.getWadoRenderedCacheDirectory() == null
+                || !arcDev.isWadoThumbnailSOPClass(ctx.getSopClassUID())
+                || ctx.getAttributes().getInt(Tag.NumberOfFrames, 1) > 1)
+            return;
+
+        for (final Location location : ctx.getLocations()) {
+            if (location.getObjectType() == Location.ObjectType.DICOM_FILE) {
+                final String key = thumbnailKeyOf(ctx.getSopInstanceUID(), ctx.getStoredInstance().getUpdatedTime(),
+                        arcDev.getWadoThumbnailSize());
+                final String studyIUID = ctx.getStudyInstanceUID();
+                device.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        renderThumbnail(arcDev, location, studyIUID, key);
+                    }
+                });
+                return;
+            }
+        }
+    }
+
+    private void renderThumbnail(ArchiveDeviceExtension arcDev, Location location, String studyIUID, String key) {
+        FileCache cache = cache();
+        StorageDescriptor descriptor = arcDev.getStorageDescriptor(location.getStorageID());
+        if (cache == null || cache.contains(key) || descriptor == null)
+            return;
+
+        try (Storage storage = storageFactory.getStorage(descriptor)) {
+            ReadContext readContext = storage.createReadContext();
+            readContext.setStoragePath(location.getStoragePath());
+            readContext.setStudyInstanceUID(studyIUID);
+            int size = arcDev.getWadoThumbnailSize();
+            ImageWriter imageWriter = getJPEGImageWriter();
+            StreamingOutput output = cacheOutput(key, new RenderedImageOutput(
+                    new DicomInputStream(storage.openInputStream(readContext)),
+                    getDicomImageReader(), new DicomImageReadParam(), size, size, 0,
+                    imageWriter, imageWriter.getDefaultWriteParam()));
+            output.write(new NullOutputStream());
+            LOG.debug("Rendered thumbnail {}", key);
+        } catch (Exception e) {
+            LOG.warn("Failed to render thumbnail of {}", location, e);
+        }
+    }
+
+    private static ImageReader getDicomImageReader() {
+        Iterator<ImageReader> readers = ImageIO.getImageReadersByFormatName("DICOM");
+        if (!readers.hasNext()) {
+            ImageIO.scanForPlugins();
+            readers = ImageIO.getImageReadersByFormatName("DICOM");
+            if (!readers.hasNext())
+                throw new RuntimeException("DICOM Image Reader not registered");
+        }
+        return readers.next();
+    }
+
+    private static ImageWriter getJPEGImageWriter() {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("JPEG");
+        if (!writers.hasNext())
+            throw new RuntimeException("JPEG Image Writer not registered");
+        return writers.next();
+    }
+
+    private synchronized FileCache cache() {
+        String dir = device.getDeviceExtension(ArchiveDeviceExtension.class).getWadoRenderedCacheDirectory();
+        if (dir == null)
+            cache = null;
+        else if (cache == null || !cache.getDirectory().equals(Paths.get(dir)))
+            cache = new FileCache(Paths.get(dir));
+        return cache;
+    }
+
+    private long maxSize() {
+        return device.getDeviceExtension(ArchiveDeviceExtension.class).getWadoRenderedCacheSize() * 1000000L;
+    }
+
+    private static final class TeeOutputStream extends FilterOutputStream {
+        private final OutputStream out2;
+
+        TeeOutputStream(OutputStream out, OutputStream out2) {
+            super(out);
+            this.out2 = out2;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            out2.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            out2.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+            out2.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            // closing of the response stream is left to the container
+        }
+    }
+
+    private static final class NullOutputStream extends OutputStream {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    }
+}
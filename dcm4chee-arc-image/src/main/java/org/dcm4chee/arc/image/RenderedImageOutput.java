@@ -38,7 +38,7 @@
  * *** END LICENSE BLOCK *****
  */
 
-package org.dcm4chee.arc.wado;
+package org.dcm4chee.arc.image;
 
 import org.dcm4che3.data.Attributes;
 import org.dcm4che3.data.Tag;
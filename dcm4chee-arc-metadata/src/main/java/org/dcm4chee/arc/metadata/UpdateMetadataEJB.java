@@ -46,7 +46,11 @@ import org.dcm4chee.arc.entity.Series;
 import javax.ejb.Stateless;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author Gunter Zeilinger <gunterze@gmail.com>
@@ -64,13 +68,39 @@ public class UpdateMetadataEJB {
                 .getResultList();
     }
 
-    public void updateDB(Long seriesPk, Metadata metadata) {
+    /**
+     * Returns the pks of Series which were deleted meanwhile.
+     */
+    public List<Long> updateDB(Map<Long, Metadata> metadataBySeriesPk) {
+        List<Long> deleted = new ArrayList<>();
+        for (Map.Entry<Long, Metadata> entry : metadataBySeriesPk.entrySet())
+            if (!updateDB(entry.getKey(), entry.getValue()))
+                deleted.add(entry.getKey());
+        return deleted;
+    }
+
+    /**
+     * Sets the scheduled Metadata update time of the Series to {@code scheduledTime}, or clears it if {@code null}.
+     */
+    public void scheduleMetadataUpdate(Collection<Long> seriesPks, Date scheduledTime) {
+        for (Long seriesPk : seriesPks) {
+            Series series = em.find(Series.class, seriesPk);
+            if (series != null)
+                series.setMetadataScheduledUpdateTime(scheduledTime);
+        }
+    }
+
+    private boolean updateDB(Long seriesPk, Metadata metadata) {
         Series series = em.find(Series.class, seriesPk);
+        if (series == null)
+            return false;
+
         em.persist(metadata);
         Metadata prev = series.getMetadata();
         if (prev != null)
             prev.setStatus(Metadata.Status.TO_DELETE);
         series.setMetadata(metadata);
         series.setMetadataScheduledUpdateTime(null);
+        return true;
     }
 }
@@ -58,12 +58,20 @@ import org.dcm4chee.arc.storage.WriteContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.ejb.EJBException;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 import javax.json.Json;
 import javax.json.stream.JsonGenerator;
 import java.io.IOException;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -116,23 +124,175 @@ public class UpdateMetadataScheduler extends Scheduler {
         ArchiveDeviceExtension arcDev = device.getDeviceExtension(ArchiveDeviceExtension.class);
         StorageDescriptor storageDesc = arcDev.getStorageDescriptor(arcDev.getSeriesMetadataStorageID());
         int fetchSize = arcDev.getSeriesMetadataFetchSize();
+        int threads = arcDev.getSeriesMetadataThreads();
+        long retryDelay = arcDev.getSeriesMetadataPollingInterval().getSeconds() * 1000L;
+        long startTime = System.currentTimeMillis();
+        int count = 0;
         try (Storage storage = storageFactory.getStorage(storageDesc)) {
             List<Series.MetadataUpdate> metadataUpdates;
             do {
                 metadataUpdates = ejb.findSeriesForScheduledMetadataUpdate(fetchSize);
-                for (Series.MetadataUpdate metadataUpdate : metadataUpdates) {
-                    updateMetadata(retrieveService.newRetrieveContextSeriesMetadata(metadataUpdate), storage);
+                Collection<Long> noMatches = new ConcurrentLinkedQueue<>();
+                Collection<Long> failed = new ConcurrentLinkedQueue<>();
+                Map<Long, WriteContext> written = updateMetadata(metadataUpdates, storage, threads, noMatches, failed);
+                if (!written.isEmpty()) {
+                    int updated = updateDB(written, storage);
+                    if (updated < 0)
+                        break;
+                    count += updated;
                 }
+                if (!scheduleMetadataUpdate(noMatches, null)
+                        || !scheduleMetadataUpdate(failed, new Date(System.currentTimeMillis() + retryDelay)))
+                    break;
             }
             while (metadataUpdates.size() == fetchSize);
         } catch (IOException e) {
             LOG.error("Failed to store Series Metadata to {}:\n", storageDesc.getStorageURI(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (count > 0) {
+            long time = Math.max(1, System.currentTimeMillis() - startTime);
+            LOG.info("Updated Metadata of {} Series in {} ms ({} Series/s)", count, time, count * 1000L / time);
+        }
+    }
+
+    /**
+     * Updates the DB for the written Metadata of Series in one transaction. Revokes the written Metadata of Series
+     * deleted meanwhile, or of all Series if the transaction failed.
+     *
+     * @return number of updated Series, or -1 if the transaction failed
+     */
+    private int updateDB(Map<Long, WriteContext> written, Storage storage) {
+        Map<Long, Metadata> metadataBySeriesPk = new HashMap<>();
+        for (Map.Entry<Long, WriteContext> entry : written.entrySet())
+            metadataBySeriesPk.put(entry.getKey(), createMetadata(entry.getValue()));
+        List<Long> deleted;
+        try {
+            deleted = ejb.updateDB(metadataBySeriesPk);
+        } catch (EJBException e) {
+            LOG.error("Failed to update Metadata of {} Series in DB:\n", written.size(), e);
+            revokeStorage(written.values(), storage);
+            return -1;
+        }
+        for (Long seriesPk : deleted) {
+            LOG.info("Series[pk={}] deleted - revoke stored Metadata", seriesPk);
+            revokeStorage(written.get(seriesPk), storage);
+        }
+        return written.size() - deleted.size();
+    }
+
+    /**
+     * Clears or postpones the scheduled Metadata update of Series without matches or with failed Metadata write,
+     * so they are not fetched again in this run.
+     *
+     * @return {@code false} if the transaction failed
+     */
+    private boolean scheduleMetadataUpdate(Collection<Long> seriesPks, Date scheduledTime) {
+        if (seriesPks.isEmpty())
+            return true;
+
+        try {
+            ejb.scheduleMetadataUpdate(seriesPks, scheduledTime);
+            return true;
+        } catch (EJBException e) {
+            LOG.error("Failed to reschedule Metadata update of {} Series in DB:\n", seriesPks.size(), e);
+            return false;
         }
     }
 
-    private void updateMetadata(RetrieveContext ctx, Storage storage) throws IOException {
+    private void revokeStorage(Collection<WriteContext> writeCtxs, Storage storage) {
+        for (WriteContext writeCtx : writeCtxs)
+            revokeStorage(writeCtx, storage);
+    }
+
+    private void revokeStorage(WriteContext writeCtx, Storage storage) {
+        try {
+            storage.revokeStorage(writeCtx);
+        } catch (IOException e) {
+            LOG.warn("Failed to revoke storage of Metadata {} on {}:\n",
+                    writeCtx.getStoragePath(), storage.getStorageDescriptor().getStorageURI(), e);
+        }
+    }
+
+    /**
+     * Writes the Metadata of the Series by up to {@code threads} concurrent workers, the calling thread being one
+     * of them. Returns the write contexts of successfully written Metadata by Series pk, to update the DB in one
+     * transaction. Collects the pks of Series without matching instances in {@code noMatches} and of Series, for
+     * which the write failed, in {@code failed}. If interrupted, waits for the workers and revokes all written
+     * Metadata.
+     */
+    private Map<Long, WriteContext> updateMetadata(List<Series.MetadataUpdate> metadataUpdates,
+            final Storage storage, int threads, final Collection<Long> noMatches, final Collection<Long> failed)
+            throws InterruptedException {
+        final Map<Long, WriteContext> updated = new ConcurrentHashMap<>();
+        if (metadataUpdates.isEmpty())
+            return updated;
+
+        final ConcurrentLinkedQueue<Series.MetadataUpdate> queue = new ConcurrentLinkedQueue<>(metadataUpdates);
+        final Runnable worker = new Runnable() {
+            @Override
+            public void run() {
+                Series.MetadataUpdate metadataUpdate;
+                while ((metadataUpdate = queue.poll()) != null) {
+                    try {
+                        WriteContext writeCtx = updateMetadata(
+                                retrieveService.newRetrieveContextSeriesMetadata(metadataUpdate), storage);
+                        if (writeCtx != null)
+                            updated.put(metadataUpdate.seriesPk, writeCtx);
+                        else
+                            noMatches.add(metadataUpdate.seriesPk);
+                    } catch (Exception e) {
+                        LOG.error("Failed to store Metadata of Series[pk={}] to {}:\n",
+                                metadataUpdate.seriesPk, storage.getStorageDescriptor().getStorageURI(), e);
+                        failed.add(metadataUpdate.seriesPk);
+                    }
+                }
+            }
+        };
+        int workers = Math.min(threads, metadataUpdates.size());
+        final CountDownLatch done = new CountDownLatch(workers - 1);
+        for (int i = 1; i < workers; i++) {
+            device.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        worker.run();
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            });
+        }
+        worker.run();
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            queue.clear();
+            awaitUninterruptibly(done);
+            revokeStorage(updated.values(), storage);
+            throw e;
+        }
+        return updated;
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        for (;;) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    private WriteContext updateMetadata(RetrieveContext ctx, Storage storage) throws IOException {
         if (!retrieveService.calculateMatches(ctx))
-            return;
+            return null;
 
         WriteContext writeCtx = createWriteContext(storage, ctx.getMatches().iterator().next());
         try (ZipOutputStream out = new ZipOutputStream(storage.openOutputStream(writeCtx))) {
@@ -154,7 +314,7 @@ public class UpdateMetadataScheduler extends Scheduler {
             storage.revokeStorage(writeCtx);
             throw e;
         }
-        ejb.updateDB(ctx.getSeriesMetadataUpdate().seriesPk, createMetadata(writeCtx));
+        return writeCtx;
     }
 
     private Attributes loadMetadata(RetrieveContext ctx, InstanceLocations match) throws IOException {
@@ -48,6 +48,14 @@ package org.dcm4chee.arc.monitor.rs;
 import org.dcm4che3.net.Association;
 import org.dcm4che3.net.Device;
 import org.dcm4che3.net.Dimse;
+import org.dcm4chee.arc.Cache;
+import org.dcm4chee.arc.LeadingCFindSCPQueryCache;
+import org.dcm4chee.arc.MergeMWLCache;
+import org.dcm4chee.arc.StorePermissionCache;
+import org.dcm4chee.arc.hl7.HL7Logger;
+import org.dcm4chee.arc.metrics.Histogram;
+import org.dcm4chee.arc.metrics.Metric;
+import org.dcm4chee.arc.metrics.MetricsService;
 import org.jboss.resteasy.annotations.cache.NoCache;
 
 import javax.enterprise.context.RequestScoped;
@@ -62,6 +70,7 @@ import java.io.Writer;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.Map;
 
 @Path("/monitor")
 @RequestScoped
@@ -70,6 +79,23 @@ public class ArchiveMonitor {
     @Inject
     private Device device;
 
+    @Inject
+    private LeadingCFindSCPQueryCache leadingCFindSCPQueryCache;
+
+    @Inject
+    private MergeMWLCache mergeMWLCache;
+
+    @Inject
+    private StorePermissionCache storePermissionCache;
+
+    @Inject
+    private MetricsService metricsService;
+
+    @Inject
+    private HL7Logger hl7Logger;
+
+    private static final double[] QUANTILES = { 0.5, 0.9, 0.99 };
+
     @GET
     @NoCache
     @Path("associations")
@@ -109,6 +135,178 @@ public class ArchiveMonitor {
         };
     }
 
+    @GET
+    @NoCache
+    @Path("caches")
+    @Produces("application/json")
+    public StreamingOutput listCacheStatistics() throws Exception {
+        return new StreamingOutput() {
+            @Override
+            public void write(OutputStream out) throws IOException {
+                Writer w = new OutputStreamWriter(out, "UTF-8");
+                w.write('{');
+                writeCacheStatistics(w, "leadingCFindSCPQueryCache", leadingCFindSCPQueryCache);
+                w.write(',');
+                writeCacheStatistics(w, "mergeMWLCache", mergeMWLCache);
+                w.write(',');
+                writeCacheStatistics(w, "storePermissionCache", storePermissionCache);
+                w.write('}');
+                w.flush();
+            }
+        };
+    }
+
+    @GET
+    @NoCache
+    @Path("hl7log")
+    @Produces("application/json")
+    public StreamingOutput getHL7LogStatistics() throws Exception {
+        return new StreamingOutput() {
+            @Override
+            public void write(OutputStream out) throws IOException {
+                Writer w = new OutputStreamWriter(out, "UTF-8");
+                w.write("{\"queueSize\":");
+                w.write(String.valueOf(hl7Logger.getQueueSize()));
+                w.write(",\"queueCapacity\":");
+                w.write(String.valueOf(hl7Logger.getQueueCapacity()));
+                w.write(",\"writtenMessages\":");
+                w.write(String.valueOf(hl7Logger.getWrittenMessages()));
+                w.write(",\"failedMessages\":");
+                w.write(String.valueOf(hl7Logger.getFailedMessages()));
+                w.write(",\"blockedCount\":");
+                w.write(String.valueOf(hl7Logger.getBlockedCount()));
+                w.write(",\"blockedTimeMillis\":");
+                w.write(String.valueOf(hl7Logger.getBlockedTimeMillis()));
+                w.write('}');
+                w.flush();
+            }
+        };
+    }
+
+    @GET
+    @NoCache
+    @Path("metrics")
+    @Produces("application/json")
+    public StreamingOutput listMetrics() throws Exception {
+        return new StreamingOutput() {
+            @Override
+            public void write(OutputStream out) throws IOException {
+                Writer w = new OutputStreamWriter(out, "UTF-8");
+                int count = 0;
+                w.write('{');
+                for (Metric metric : Metric.values()) {
+                    if (count++ > 0)
+                        w.write(',');
+                    w.write('\"');
+                    w.write(metric.getName());
+                    w.write("\":{");
+                    int labelCount = 0;
+                    for (Map.Entry<String, Histogram> entry : metricsService.histograms(metric).entrySet()) {
+                        if (labelCount++ > 0)
+                            w.write(',');
+                        writeHistogram(w, entry.getKey(), entry.getValue());
+                    }
+                    w.write('}');
+                }
+                w.write('}');
+                w.flush();
+            }
+        };
+    }
+
+    @GET
+    @NoCache
+    @Path("metrics")
+    @Produces("text/plain")
+    public StreamingOutput listMetricsAsPrometheusText() throws Exception {
+        return new StreamingOutput() {
+            @Override
+            public void write(OutputStream out) throws IOException {
+                Writer w = new OutputStreamWriter(out, "UTF-8");
+                for (Metric metric : Metric.values()) {
+                    String name = "dcm4chee_arc_" + metric.getName() + "_seconds";
+                    w.write("# HELP ");
+                    w.write(name);
+                    w.write(' ');
+                    w.write(metric.getDescription());
+                    w.write("\n# TYPE ");
+                    w.write(name);
+                    w.write(" summary\n");
+                    for (Map.Entry<String, Histogram> entry : metricsService.histograms(metric).entrySet()) {
+                        String label = metric.getLabelName() + "=\"" + entry.getKey() + '\"';
+                        Histogram histogram = entry.getValue();
+                        long[] values = histogram.valuesAtQuantiles(QUANTILES);
+                        for (int i = 0; i < QUANTILES.length; i++)
+                            writeSample(w, name, label + ",quantile=\"" + QUANTILES[i] + '\"', values[i]);
+                        writeSample(w, name + "_sum", label, histogram.getSum());
+                        w.write(name);
+                        w.write("_count{");
+                        w.write(label);
+                        w.write("} ");
+                        w.write(String.valueOf(histogram.getCount()));
+                        w.write('\n');
+                    }
+                }
+                w.flush();
+            }
+        };
+    }
+
+    private static void writeHistogram(Writer w, String label, Histogram histogram) throws IOException {
+        long count = histogram.getCount();
+        long[] values = histogram.valuesAtQuantiles(QUANTILES);
+        w.write('\"');
+        w.write(label);
+        w.write("\":{\"count\":");
+        w.write(String.valueOf(count));
+        w.write(",\"sumMillis\":");
+        w.write(toMillis(histogram.getSum()));
+        w.write(",\"meanMillis\":");
+        w.write(toMillis(count > 0 ? histogram.getSum() / count : 0L));
+        w.write(",\"maxMillis\":");
+        w.write(toMillis(histogram.getMax()));
+        w.write(",\"p50Millis\":");
+        w.write(toMillis(values[0]));
+        w.write(",\"p90Millis\":");
+        w.write(toMillis(values[1]));
+        w.write(",\"p99Millis\":");
+        w.write(toMillis(values[2]));
+        w.write('}');
+    }
+
+    private static void writeSample(Writer w, String name, String labels, long micros) throws IOException {
+        w.write(name);
+        w.write('{');
+        w.write(labels);
+        w.write("} ");
+        w.write(String.valueOf(micros / 1e6));
+        w.write('\n');
+    }
+
+    private static String toMillis(long micros) {
+        return String.valueOf(micros / 1000.0);
+    }
+
+    private static void writeCacheStatistics(Writer w, String name, Cache<?,?> cache) throws IOException {
+        w.write('\"');
+        w.write(name);
+        w.write("\":{\"size\":");
+        w.write(String.valueOf(cache.size()));
+        w.write(",\"maxSize\":");
+        w.write(String.valueOf(cache.getMaxSize()));
+        w.write(",\"hits\":");
+        w.write(String.valueOf(cache.getHits()));
+        w.write(",\"misses\":");
+        w.write(String.valueOf(cache.getMisses()));
+        w.write(",\"loads\":");
+        w.write(String.valueOf(cache.getLoads()));
+        w.write(",\"loadTimeMillis\":");
+        w.write(String.valueOf(cache.getLoadTimeNanos() / 1000000L));
+        w.write(",\"evictions\":");
+        w.write(String.valueOf(cache.getEvictions()));
+        w.write('}');
+    }
+
     @DELETE
     @Path("associations/{serialNo}")
     public void abortAssociation(@PathParam("serialNo") int serialNo) {
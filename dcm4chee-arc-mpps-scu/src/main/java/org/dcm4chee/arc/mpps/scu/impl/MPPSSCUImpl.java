@@ -47,6 +47,7 @@ import org.dcm4che3.data.UID;
 import org.dcm4che3.net.*;
 import org.dcm4che3.net.pdu.AAssociateRQ;
 import org.dcm4che3.net.pdu.PresentationContext;
+import org.dcm4chee.arc.AssociationPool;
 import org.dcm4chee.arc.conf.ArchiveAEExtension;
 import org.dcm4chee.arc.entity.QueueMessage;
 import org.dcm4chee.arc.qmgt.Outcome;
@@ -80,6 +81,9 @@ class MPPSSCUImpl implements MPPSSCU {
     @Inject
     private IApplicationEntityCache aeCache;
 
+    @Inject
+    private AssociationPool associationPool;
+
     void onMPPSReceive(@Observes MPPSContext ctx) {
         ApplicationEntity ae = ctx.getLocalApplicationEntity();
         ArchiveAEExtension arcAE = ctx.getArchiveAEExtension();
@@ -109,7 +113,7 @@ class MPPSSCUImpl implements MPPSSCU {
         ApplicationEntity localAE = device.getApplicationEntity(localAET, true);
         ApplicationEntity remoteAE = aeCache.findApplicationEntity(remoteAET);
         AAssociateRQ aarq = mkAAssociateRQ(localAE);
-        Association as = localAE.connect(remoteAE, aarq);
+        Association as = associationPool.open(localAE, remoteAE, aarq);
         try {
             DimseRSP rsp = dimse == Dimse.N_CREATE_RQ
                     ? as.ncreate(UID.ModalityPerformedProcedureStepSOPClass, sopInstanceUID, attrs, null)
@@ -124,7 +128,7 @@ class MPPSSCUImpl implements MPPSSCU {
                                 + " failed with error status: " + Integer.toHexString(status) + 'H');
         } finally {
             try {
-                as.release();
+                associationPool.release(as);
             } catch (IOException e) {
                 LOG.info("{}: Failed to release association to {}", as, remoteAET);
             }
@@ -48,7 +48,6 @@ import org.dcm4che3.io.SAXTransformer;
 import org.dcm4che3.json.JSONWriter;
 import org.dcm4che3.net.ApplicationEntity;
 import org.dcm4che3.net.Device;
-import org.dcm4che3.net.service.DicomServiceException;
 import org.dcm4che3.net.service.QueryRetrieveLevel2;
 import org.dcm4chee.arc.conf.ArchiveDeviceExtension;
 import org.dcm4chee.arc.entity.*;
@@ -61,10 +60,10 @@ import org.dcm4chee.arc.query.QueryContext;
 import org.dcm4chee.arc.query.QueryService;
 import org.dcm4chee.arc.validation.constraints.ValidUriInfo;
 import org.jboss.resteasy.annotations.cache.NoCache;
-import org.jboss.resteasy.plugins.providers.multipart.MultipartRelatedOutput;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.PreDestroy;
 import javax.enterprise.context.RequestScoped;
 import javax.inject.Inject;
 import javax.json.Json;
@@ -77,6 +76,7 @@ import javax.ws.rs.core.*;
 import javax.xml.transform.stream.StreamResult;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 /**
@@ -165,6 +165,8 @@ public class QidoRS {
             Tag.ConfidentialityConstraintOnPatientDataDescription
     };
 
+    private static final byte[] CLOSE_DELIMITER = { '-', '-', '\r', '\n' };
+
     private final static int[] STUDY_SERIES_FIELDS = catAndSort(STUDY_FIELDS, SERIES_FIELDS);
 
     private final static int[] STUDY_SERIES_INSTANCE_FIELDS = catAndSort(STUDY_SERIES_FIELDS, INSTANCE_FIELDS);
@@ -224,6 +226,18 @@ public class QidoRS {
     @QueryParam("StudyReceiveDateTime")
     private String studyReceiveDateTime;
 
+    // open query passed to the response entity, closed after writing it or at the end of the request
+    private Query streamedQuery;
+
+    @PreDestroy
+    public void closeStreamedQuery() {
+        Query query = streamedQuery;
+        if (query != null) {
+            streamedQuery = null;
+            query.close();
+        }
+    }
+
     @Override
     public String toString() {
         return request.getRequestURI() + '?' + request.getQueryString();
@@ -376,6 +390,7 @@ public class QidoRS {
         QueryAttributes queryAttrs = new QueryAttributes(uriInfo);
         QueryContext ctx = newQueryContext(method, queryAttrs, studyInstanceUID, seriesInstanceUID, includetags, model);
         Query query = model.createQuery(service, ctx);
+        boolean closeQuery = true;
         try {
             query.initQuery();
             int maxResults = ctx.getArchiveAEExtension().qidoMaxNumberOfResults();
@@ -412,9 +427,13 @@ public class QidoRS {
             if (remaining > 0)
                 builder.header("Warning", warning(remaining));
 
-            return builder.entity(output.entity(this, method, query, model)).build();
+            output.entity(builder, this, method, query, model);
+            streamedQuery = query;
+            closeQuery = false;
+            return builder.build();
         } finally {
-            query.close();
+            if (closeQuery)
+                query.close();
         }
     }
 
@@ -639,70 +658,82 @@ public class QidoRS {
     private enum Output {
         DICOM_XML {
             @Override
-            Object entity(QidoRS service, String method, Query query, Model model) throws DicomServiceException {
-                return service.writeXML(method, query, model);
+            void entity(Response.ResponseBuilder builder, QidoRS service, String method, Query query, Model model) {
+                String boundary = UUID.randomUUID().toString();
+                builder.type(MediaType.valueOf(
+                        "multipart/related;type=\"application/dicom+xml\";boundary=" + boundary));
+                builder.entity(service.writeXML(method, query, model, boundary));
             }
         },
         JSON {
             @Override
-            Object entity(QidoRS service, String method, Query query, Model model) throws DicomServiceException {
-                return service.writeJSON(method, query, model);
+            void entity(Response.ResponseBuilder builder, QidoRS service, String method, Query query, Model model) {
+                builder.entity(service.writeJSON(method, query, model));
             }
         };
 
-        abstract Object entity(QidoRS service, String method, Query query, Model model) throws DicomServiceException;
+        abstract void entity(Response.ResponseBuilder builder, QidoRS service, String method, Query query,
+                             Model model);
     }
 
-    private Object writeXML(String method, Query query, Model model) throws DicomServiceException {
-        MultipartRelatedOutput output = new MultipartRelatedOutput();
-        int count = 0;
-        while (query.hasMoreMatches()) {
-            Attributes tmp = query.nextMatch();
-            if (tmp == null)
-                continue;
-
-            final Attributes match = adjust(tmp, model, query);
-            LOG.debug("{}: Match #{}:\n{}", method, ++count, match);
-            output.addPart(
-                    new StreamingOutput() {
-                        @Override
-                        public void write(OutputStream out) throws IOException,
-                                WebApplicationException {
-                            try {
-                                SAXTransformer.getSAXWriter(new StreamResult(out)).write(match);
-                            } catch (Exception e) {
-                                throw new WebApplicationException(e);
-                            }
-                        }
-                    },
-                    MediaTypes.APPLICATION_DICOM_XML_TYPE);
-        }
-        LOG.info("{}: {} Matches", method, count);
-        return output;
+    private StreamingOutput writeXML(final String method, final Query query, final Model model,
+                                     final String boundary) {
+        return new StreamingOutput() {
+            @Override
+            public void write(OutputStream out) throws IOException, WebApplicationException {
+                try {
+                    byte[] delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.US_ASCII);
+                    byte[] partHeader = ("\r\nContent-Type: " + MediaTypes.APPLICATION_DICOM_XML + "\r\n\r\n")
+                            .getBytes(StandardCharsets.US_ASCII);
+                    int count = 0;
+                    while (query.hasMoreMatches()) {
+                        Attributes tmp = query.nextMatch();
+                        if (tmp == null)
+                            continue;
+
+                        Attributes match = adjust(tmp, model, query);
+                        LOG.debug("{}: Match #{}:\n{}", method, ++count, match);
+                        out.write(delimiter);
+                        out.write(partHeader);
+                        SAXTransformer.getSAXWriter(new StreamResult(out)).write(match);
+                        out.flush();
+                    }
+                    out.write(delimiter);
+                    out.write(CLOSE_DELIMITER);
+                    LOG.info("{}: {} Matches", method, count);
+                } catch (IOException | WebApplicationException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new WebApplicationException(e);
+                } finally {
+                    closeStreamedQuery();
+                }
+            }
+        };
     }
 
-    private Object writeJSON(String method, Query query, Model model) throws DicomServiceException {
-        final ArrayList<Attributes> matches = new ArrayList<>();
-        int count = 0;
-        while (query.hasMoreMatches()) {
-            Attributes tmp = query.nextMatch();
-            if (tmp == null)
-                continue;
-            Attributes match = adjust(tmp, model, query);
-            LOG.debug("{}: Match #{}:\n{}", method, ++count, match);
-            matches.add(match);
-        }
-        LOG.info("{}: {} Matches", method, count);
+    private StreamingOutput writeJSON(final String method, final Query query, final Model model) {
         return new StreamingOutput() {
             @Override
             public void write(OutputStream out) throws IOException {
                 try (JsonGenerator gen = Json.createGenerator(out)) {
                     JSONWriter writer = new JSONWriter(gen);
                     gen.writeStartArray();
-                    for (Attributes match : matches) {
+                    int count = 0;
+                    while (query.hasMoreMatches()) {
+                        Attributes tmp = query.nextMatch();
+                        if (tmp == null)
+                            continue;
+
+                        Attributes match = adjust(tmp, model, query);
+                        LOG.debug("{}: Match #{}:\n{}", method, ++count, match);
                         writer.write(match);
+                        gen.flush();
                     }
                     gen.writeEnd();
+                    LOG.info("{}: {} Matches", method, count);
+                } finally {
+                    closeStreamedQuery();
                 }
             }
         };
@@ -40,6 +40,8 @@
 
 package org.dcm4chee.arc.qmgt.rs;
 
+import org.dcm4che3.net.Device;
+import org.dcm4chee.arc.conf.ArchiveDeviceExtension;
 import org.dcm4chee.arc.entity.QueueMessage;
 import org.dcm4chee.arc.qmgt.QueueManager;
 import org.jboss.resteasy.annotations.cache.NoCache;
@@ -71,6 +73,9 @@ public class QueueManagerRS {
     @Inject
     private QueueManager mgr;
 
+    @Inject
+    private Device device;
+
     @PathParam("queueName")
     private String queueName;
 
@@ -86,6 +91,9 @@ public class QueueManagerRS {
     @Pattern(regexp = "[1-9]\\d{0,4}")
     private String limit;
 
+    @QueryParam("before")
+    private String before;
+
     @QueryParam("updatedBefore")
     @Pattern(regexp = "(19|20)\\d{2}\\-\\d{2}\\-\\d{2}")
     private String updatedBefore;
@@ -94,8 +102,8 @@ public class QueueManagerRS {
     @NoCache
     @Produces("application/json")
     public Response search() throws Exception {
-        return Response.ok(toEntity(mgr.search(queueName, parseStatus(status), parseInt(offset), parseInt(limit))))
-                .build();
+        QueueMessage last = before != null ? mgr.getQueueMessage(before) : null;
+        return Response.ok(toEntity(parseStatus(status), last, parseInt(offset), parseInt(limit))).build();
     }
 
     @POST
@@ -119,29 +127,53 @@ public class QueueManagerRS {
     @DELETE
     @Produces("application/json")
     public String deleteMessages() {
-        return "{\"deleted\":"
-                + mgr.deleteMessages(queueName, parseStatus(status), parseDate(updatedBefore))
-                + '}';
+        QueueMessage.Status status = parseStatus(this.status);
+        Date updatedBefore = parseDate(this.updatedBefore);
+        int fetchSize = fetchSize();
+        int deleted = 0;
+        int count;
+        do {
+            count = mgr.deleteMessages(queueName, status, updatedBefore, fetchSize);
+            deleted += count;
+        } while (count == fetchSize);
+        return "{\"deleted\":" + deleted + '}';
     }
 
-    private Object toEntity(final List<QueueMessage> msgs) {
+    private Object toEntity(final QueueMessage.Status status, final QueueMessage before,
+                            final int offset, final int limit) {
+        final String queueName = this.queueName;
+        final int fetchSize = fetchSize();
         return new StreamingOutput() {
             @Override
             public void write(OutputStream out) throws IOException {
                 Writer w = new OutputStreamWriter(out, "UTF-8");
+                QueueMessage last = before;
+                int skip = offset;
                 int count = 0;
+                int maxResults;
+                List<QueueMessage> msgs;
                 w.write('[');
-                for (QueueMessage msg : msgs) {
-                    if (count++ > 0)
-                        w.write(',');
-                    msg.writeAsJSON(w);
-                }
+                do {
+                    maxResults = limit > 0 ? Math.min(limit - count, fetchSize) : fetchSize;
+                    msgs = mgr.search(queueName, status, last, skip, maxResults);
+                    for (QueueMessage msg : msgs) {
+                        if (count++ > 0)
+                            w.write(',');
+                        msg.writeAsJSON(w);
+                        last = msg;
+                    }
+                    skip = 0;
+                } while (msgs.size() == maxResults && count != limit);
                 w.write(']');
                 w.flush();
             }
         };
     }
 
+    private int fetchSize() {
+        return device.getDeviceExtension(ArchiveDeviceExtension.class).getQueueMessageFetchSize();
+    }
+
     private static QueueMessage.Status parseStatus(String s) {
         return s != null
                 ? s.equals("IN PROCESS")
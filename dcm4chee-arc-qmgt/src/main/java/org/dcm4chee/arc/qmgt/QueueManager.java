@@ -70,7 +70,18 @@ public interface QueueManager {
 
     void deleteMessage(String msgId) throws MessageAlreadyDeletedException;
 
-    int deleteMessages(String queueName, QueueMessage.Status status, Date updatedBefore);
+    QueueMessage getQueueMessage(String msgId) throws MessageAlreadyDeletedException;
 
-    List<QueueMessage> search(String queueName, QueueMessage.Status status, int offset, int limit);
+    /**
+     * Deletes at most {@code limit} messages in one transaction. Callers shall invoke this method repeatedly
+     * until it returns less than {@code limit}.
+     */
+    int deleteMessages(String queueName, QueueMessage.Status status, Date updatedBefore, int limit);
+
+    /**
+     * Returns messages ordered by descending updated time. If {@code before} is not {@code null}, only messages
+     * following the specified message in this order are returned.
+     */
+    List<QueueMessage> search(String queueName, QueueMessage.Status status, QueueMessage before,
+                              int offset, int limit);
 }
@@ -204,33 +204,51 @@ public class QueueManagerEJB implements QueueManager {
     }
 
     @Override
-    public int deleteMessages(String queueName, QueueMessage.Status status, Date updatedBefore) {
-        Query query = status != null
+    public int deleteMessages(String queueName, QueueMessage.Status status, Date updatedBefore, int limit) {
+        TypedQuery<Long> query = status != null
                 ? updatedBefore != null
-                    ? em.createNamedQuery(QueueMessage.DELETE_BY_QUEUE_NAME_AND_STATUS_AND_UPDATED_BEFORE)
+                    ? em.createNamedQuery(QueueMessage.FIND_PK_BY_QUEUE_NAME_AND_STATUS_AND_UPDATED_BEFORE, Long.class)
                         .setParameter(1, queueName)
                         .setParameter(2, status)
                         .setParameter(3, updatedBefore)
-                    : em.createNamedQuery(QueueMessage.DELETE_BY_QUEUE_NAME_AND_STATUS)
+                    : em.createNamedQuery(QueueMessage.FIND_PK_BY_QUEUE_NAME_AND_STATUS, Long.class)
                         .setParameter(1, queueName)
                         .setParameter(2, status)
                 : updatedBefore != null
-                    ? em.createNamedQuery(QueueMessage.DELETE_BY_QUEUE_NAME_AND_UPDATED_BEFORE)
+                    ? em.createNamedQuery(QueueMessage.FIND_PK_BY_QUEUE_NAME_AND_UPDATED_BEFORE, Long.class)
                         .setParameter(1, queueName)
                         .setParameter(2, updatedBefore)
-                    : em.createNamedQuery(QueueMessage.DELETE_BY_QUEUE_NAME)
+                    : em.createNamedQuery(QueueMessage.FIND_PK_BY_QUEUE_NAME, Long.class)
                         .setParameter(1, queueName);
-        return query.executeUpdate();
+        List<Long> pks = query.setMaxResults(limit).getResultList();
+        if (pks.isEmpty())
+            return 0;
+
+        return em.createNamedQuery(QueueMessage.DELETE_BY_PKS)
+                .setParameter(1, pks)
+                .executeUpdate();
     }
 
     @Override
-    public List<QueueMessage> search(String queueName, QueueMessage.Status status, int offset, int limit) {
+    public List<QueueMessage> search(String queueName, QueueMessage.Status status, QueueMessage before,
+                                     int offset, int limit) {
         TypedQuery<QueueMessage> query = status != null
-                ? em.createNamedQuery(QueueMessage.FIND_BY_QUEUE_NAME_AND_STATUS, QueueMessage.class)
-                    .setParameter(1, queueName)
-                    .setParameter(2, status)
-                : em.createNamedQuery(QueueMessage.FIND_BY_QUEUE_NAME, QueueMessage.class)
-                    .setParameter(1, queueName);
+                ? before != null
+                    ? em.createNamedQuery(QueueMessage.FIND_BY_QUEUE_NAME_AND_STATUS_BEFORE, QueueMessage.class)
+                        .setParameter(1, queueName)
+                        .setParameter(2, status)
+                        .setParameter(3, before.getUpdatedTime())
+                        .setParameter(4, before.getPk())
+                    : em.createNamedQuery(QueueMessage.FIND_BY_QUEUE_NAME_AND_STATUS, QueueMessage.class)
+                        .setParameter(1, queueName)
+                        .setParameter(2, status)
+                : before != null
+                    ? em.createNamedQuery(QueueMessage.FIND_BY_QUEUE_NAME_BEFORE, QueueMessage.class)
+                        .setParameter(1, queueName)
+                        .setParameter(2, before.getUpdatedTime())
+                        .setParameter(3, before.getPk())
+                    : em.createNamedQuery(QueueMessage.FIND_BY_QUEUE_NAME, QueueMessage.class)
+                        .setParameter(1, queueName);
         if (offset > 0)
             query.setFirstResult(offset);
         if (limit > 0)
@@ -262,7 +280,8 @@ public class QueueManagerEJB implements QueueManager {
         }
     }
 
-    private QueueMessage getQueueMessage(String msgId) throws MessageAlreadyDeletedException {
+    @Override
+    public QueueMessage getQueueMessage(String msgId) throws MessageAlreadyDeletedException {
         try {
             return queryQueueMessage(msgId);
         } catch (NoResultException e) {
@@ -45,6 +45,7 @@ import org.dcm4che3.data.*;
 import org.dcm4che3.net.*;
 import org.dcm4che3.net.pdu.AAssociateRQ;
 import org.dcm4che3.net.pdu.PresentationContext;
+import org.dcm4chee.arc.AssociationPool;
 import org.dcm4chee.arc.Cache;
 import org.dcm4chee.arc.conf.ArchiveDeviceExtension;
 import org.dcm4chee.arc.conf.Entity;
@@ -68,11 +69,14 @@ public class CFindSCUImpl implements CFindSCU {
     @Inject
     private IApplicationEntityCache aeCache;
 
+    @Inject
+    private AssociationPool associationPool;
+
     @Override
     public Attributes queryStudy(ApplicationEntity localAE, String calledAET, String studyIUID)
             throws Exception {
         ApplicationEntity remoteAE = aeCache.get(calledAET);
-        Association as = localAE.connect(remoteAE, createAARQ());
+        Association as = associationPool.open(localAE, remoteAE, createAARQ());
         try {
             DimseRSP rsp = as.cfind(UID.StudyRootQueryRetrieveInformationModelFIND, Priority.NORMAL,
                     mkQueryStudyKeys(studyIUID), UID.ImplicitVRLittleEndian, 0);
@@ -80,26 +84,24 @@ public class CFindSCUImpl implements CFindSCU {
             return rsp.getDataset();
         } finally {
             as.waitForOutstandingRSP();
-            as.release();
+            associationPool.release(as);
         }
     }
 
     @Override
     public Attributes queryStudy(
-            ApplicationEntity localAE, String calledAET, String studyIUID, Cache<String, Attributes> cache) {
-        Cache.Entry<Attributes> entry = cache.getEntry(studyIUID);
-        Attributes newAttrs;
-        if (entry != null) {
-            newAttrs = entry.value();
-        } else {
-            try {
-                newAttrs = queryStudy(localAE, calledAET, studyIUID);
-            } catch (Exception e) {
-                newAttrs = null;
+            final ApplicationEntity localAE, final String calledAET, String studyIUID,
+            Cache<String, Attributes> cache) {
+        return cache.getEntry(studyIUID, new Cache.Loader<String, Attributes, RuntimeException>() {
+            @Override
+            public Attributes load(String studyIUID) {
+                try {
+                    return queryStudy(localAE, calledAET, studyIUID);
+                } catch (Exception e) {
+                    return null;
+                }
             }
-            cache.put(studyIUID, newAttrs);
-        }
-        return newAttrs;
+        }).value();
     }
 
     private Attributes mkQueryStudyKeys(String studyIUID) {
@@ -57,6 +57,7 @@ import java.io.IOException;
 import java.util.Collection;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.zip.ZipInputStream;
 
 /**
@@ -89,6 +90,11 @@ public interface QueryService {
 
     SeriesQueryAttributes calculateSeriesQueryAttributesIfNotExists(Long seriesPk, QueryParam queryParam);
 
+    Map<Long, StudyQueryAttributes> calculateStudyQueryAttributes(Collection<Long> studyPks, QueryParam queryParam);
+
+    Map<Long, SeriesQueryAttributes> calculateSeriesQueryAttributesIfNotExists(
+            Collection<Long> seriesPks, QueryParam queryParam);
+
     SeriesQueryAttributes calculateSeriesQueryAttributes(Long seriesPk, QueryRetrieveView qrView);
 
     Attributes getStudyAttributesWithSOPInstanceRefs(
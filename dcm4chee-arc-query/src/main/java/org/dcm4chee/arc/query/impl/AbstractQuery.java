@@ -47,11 +47,15 @@ import org.dcm4che3.data.Attributes;
 import org.dcm4che3.data.Tag;
 import org.dcm4che3.net.service.DicomServiceException;
 import org.dcm4che3.util.StringUtils;
+import org.dcm4chee.arc.metrics.Metric;
+import org.dcm4chee.arc.metrics.MetricsService;
 import org.dcm4chee.arc.query.Query;
 import org.dcm4chee.arc.query.QueryContext;
 import org.hibernate.StatelessSession;
 
+import java.util.ArrayDeque;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Iterator;
 
 /**
@@ -60,18 +64,23 @@ import java.util.Iterator;
  */
 abstract class AbstractQuery implements Query {
 
+    private static final int MAX_PREFETCH = 100;
+
     protected final QueryContext context;
     protected final StatelessSession session;
+    private final MetricsService metricsService;
     private HibernateQuery<Tuple> query;
     private Iterator<Tuple> results;
+    private final ArrayDeque<Tuple> prefetched = new ArrayDeque<>();
     private long offset;
     private long limit;
     private int rejected;
     private int matches;
 
-    public AbstractQuery(QueryContext context, StatelessSession session) {
+    public AbstractQuery(QueryContext context, StatelessSession session, MetricsService metricsService) {
         this.context = context;
         this.session = session;
+        this.metricsService = metricsService;
     }
 
     public void initQuery() {
@@ -82,6 +91,18 @@ abstract class AbstractQuery implements Query {
 
     protected abstract Attributes toAttributes(Tuple results);
 
+    /**
+     * Returns {@code true} if the query attributes of the result are not yet calculated, which triggers
+     * prefetching of following results to calculate missing query attributes by
+     * {@link #calculateQueryAttributes(Collection)} in one batch.
+     */
+    protected boolean missingQueryAttributes(Tuple result) {
+        return false;
+    }
+
+    protected void calculateQueryAttributes(Collection<Tuple> results) {
+    }
+
     private void checkQuery() {
         if (query == null)
             throw new IllegalStateException("query not initalized");
@@ -92,7 +113,10 @@ abstract class AbstractQuery implements Query {
         checkQuery();
         rejected = 0;
         matches = 0;
+        prefetched.clear();
+        long start = System.nanoTime();
         results = offset > 0 ? query.fetch().iterator() : query.iterate();
+        metricsService.recordSince(Metric.QUERY_EXECUTE, context.getCalledAET(), start);
     }
 
     @Override
@@ -123,7 +147,7 @@ abstract class AbstractQuery implements Query {
 
     @Override
     public boolean hasMoreMatches() throws DicomServiceException {
-        boolean hasNext = results.hasNext();
+        boolean hasNext = !prefetched.isEmpty() || results.hasNext();
         if (hasNext || rejected == 0 || limit != matches)
             return hasNext;
 
@@ -135,13 +159,27 @@ abstract class AbstractQuery implements Query {
 
     @Override
     public Attributes nextMatch() {
-        Attributes attrs = toAttributes(results.next());
+        Attributes attrs = toAttributes(nextResult());
         matches++;
         if (attrs == null)
             rejected++;
         return attrs;
     }
 
+    private Tuple nextResult() {
+        if (prefetched.isEmpty()) {
+            Tuple result = results.next();
+            if (!missingQueryAttributes(result))
+                return result;
+
+            prefetched.add(result);
+            while (prefetched.size() < MAX_PREFETCH && results.hasNext())
+                prefetched.add(results.next());
+            calculateQueryAttributes(prefetched);
+        }
+        return prefetched.remove();
+    }
+
     @Override
     public Attributes adjust(Attributes match) {
         if (match == null)
@@ -59,6 +59,7 @@ import org.dcm4chee.arc.conf.Availability;
 import org.dcm4chee.arc.conf.Entity;
 import org.dcm4chee.arc.conf.QueryRetrieveView;
 import org.dcm4chee.arc.entity.*;
+import org.dcm4chee.arc.metrics.MetricsService;
 import org.dcm4chee.arc.query.QueryContext;
 import org.dcm4chee.arc.query.util.QueryBuilder;
 import org.hibernate.StatelessSession;
@@ -123,8 +124,8 @@ class InstanceQuery extends AbstractQuery {
     private int[] instTags;
     private Attributes instQueryKeys;
 
-    public InstanceQuery(QueryContext context, StatelessSession session) {
-        super(context, session);
+    public InstanceQuery(QueryContext context, StatelessSession session, MetricsService metricsService) {
+        super(context, session, metricsService);
     }
 
     @Override
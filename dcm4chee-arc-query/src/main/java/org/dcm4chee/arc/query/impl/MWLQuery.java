@@ -49,6 +49,7 @@ import org.dcm4che3.data.Tag;
 import org.dcm4che3.data.VR;
 import org.dcm4chee.arc.conf.Availability;
 import org.dcm4chee.arc.entity.*;
+import org.dcm4chee.arc.metrics.MetricsService;
 import org.dcm4chee.arc.query.Query;
 import org.dcm4chee.arc.query.QueryContext;
 import org.dcm4chee.arc.query.util.QueryBuilder;
@@ -66,8 +67,8 @@ public class MWLQuery extends AbstractQuery {
             QueryBuilder.patientAttributesBlob.encodedAttributes
     };
 
-    public MWLQuery(QueryContext context, StatelessSession session) {
-        super(context, session);
+    public MWLQuery(QueryContext context, StatelessSession session, MetricsService metricsService) {
+        super(context, session, metricsService);
     }
 
     @Override
@@ -50,6 +50,7 @@ import org.dcm4che3.data.VR;
 import org.dcm4che3.dict.archive.ArchiveTag;
 import org.dcm4chee.arc.entity.AttributesBlob;
 import org.dcm4chee.arc.entity.QPatient;
+import org.dcm4chee.arc.metrics.MetricsService;
 import org.dcm4chee.arc.query.QueryContext;
 import org.dcm4chee.arc.query.util.QueryBuilder;
 import org.hibernate.StatelessSession;
@@ -68,8 +69,8 @@ class PatientQuery extends AbstractQuery {
             QueryBuilder.patientAttributesBlob.encodedAttributes
     };
 
-    public PatientQuery(QueryContext context, StatelessSession session) {
-        super(context, session);
+    public PatientQuery(QueryContext context, StatelessSession session, MetricsService metricsService) {
+        super(context, session, metricsService);
     }
 
     @Override
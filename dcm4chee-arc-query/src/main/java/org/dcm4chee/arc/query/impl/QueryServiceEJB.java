@@ -122,12 +122,31 @@ public class QueryServiceEJB {
         QSeriesQueryAttributes.seriesQueryAttributes.availability,
     };
 
+    static final Expression<?>[] CALC_STUDIES_QUERY_ATTRS = {
+        QSeries.series.study.pk,
+        QSeries.series.pk,
+        QSeries.series.modality,
+        QSeriesQueryAttributes.seriesQueryAttributes.numberOfInstances,
+        QSeriesQueryAttributes.seriesQueryAttributes.sopClassesInSeries,
+        QSeriesQueryAttributes.seriesQueryAttributes.retrieveAETs,
+        QSeriesQueryAttributes.seriesQueryAttributes.availability,
+    };
+
     static final Expression<?>[] CALC_SERIES_QUERY_ATTRS = {
         QInstance.instance.sopClassUID,
         QInstance.instance.retrieveAETs,
         QInstance.instance.availability
     };
 
+    static final Expression<?>[] CALC_MULTIPLE_SERIES_QUERY_ATTRS = {
+        QInstance.instance.series.pk,
+        QInstance.instance.sopClassUID,
+        QInstance.instance.retrieveAETs,
+        QInstance.instance.availability
+    };
+
+    private static final int MAX_PKS_PER_IN_CLAUSE = 500;
+
     static final Expression<?>[] SOP_REFS_OF_STUDY = {
             QStudy.study.pk,
             QSeries.series.pk,
@@ -416,6 +435,117 @@ public class QueryServiceEJB {
         return queryAttrs;
     }
 
+    public Map<Long, StudyQueryAttributes> calculateStudyQueryAttributes(
+            Collection<Long> studyPks, QueryParam queryParam) {
+        HashMap<Long, StudyQueryAttributesBuilder> builders = new HashMap<>();
+        for (Long studyPk : studyPks)
+            builders.put(studyPk, new StudyQueryAttributesBuilder());
+
+        List<Tuple> tuples = new ArrayList<>();
+        Set<Long> seriesPksWithoutQueryAttrs = new HashSet<>();
+        for (List<Long> pks : partition(studyPks)) {
+            for (Tuple tuple : new HibernateQuery<Void>(em.unwrap(Session.class))
+                    .select(CALC_STUDIES_QUERY_ATTRS)
+                    .from(QSeries.series)
+                    .leftJoin(QSeries.series.queryAttributes, QSeriesQueryAttributes.seriesQueryAttributes)
+                    .on(QSeriesQueryAttributes.seriesQueryAttributes.viewID.eq(queryParam.getViewID()))
+                    .where(QSeries.series.study.pk.in(pks))
+                    .fetch()) {
+                tuples.add(tuple);
+                if (tuple.get(QSeriesQueryAttributes.seriesQueryAttributes.numberOfInstances) == null)
+                    seriesPksWithoutQueryAttrs.add(tuple.get(QSeries.series.pk));
+            }
+        }
+        Map<Long, SeriesQueryAttributes> calculatedSeries = seriesPksWithoutQueryAttrs.isEmpty()
+                ? Collections.<Long, SeriesQueryAttributes>emptyMap()
+                : calculateSeriesQueryAttributes(seriesPksWithoutQueryAttrs, queryParam);
+        for (Tuple tuple : tuples) {
+            StudyQueryAttributesBuilder builder = builders.get(tuple.get(QSeries.series.study.pk));
+            SeriesQueryAttributes series = calculatedSeries.get(tuple.get(QSeries.series.pk));
+            if (series != null) {
+                builder.add(tuple, series);
+            } else {
+                builder.add(tuple);
+            }
+        }
+        HashMap<Long, StudyQueryAttributes> result = new HashMap<>();
+        for (Map.Entry<Long, StudyQueryAttributesBuilder> entry : builders.entrySet()) {
+            StudyQueryAttributes queryAttrs = entry.getValue().build();
+            queryAttrs.setViewID(queryParam.getViewID());
+            queryAttrs.setStudy(em.getReference(Study.class, entry.getKey()));
+            em.persist(queryAttrs);
+            result.put(entry.getKey(), queryAttrs);
+        }
+        return result;
+    }
+
+    public Map<Long, SeriesQueryAttributes> calculateSeriesQueryAttributesIfNotExists(
+            Collection<Long> seriesPks, QueryParam queryParam) {
+        HashMap<Long, SeriesQueryAttributes> result = new HashMap<>();
+        for (List<Long> pks : partition(seriesPks)) {
+            for (Tuple tuple : new HibernateQuery<Void>(em.unwrap(Session.class))
+                    .select(QSeriesQueryAttributes.seriesQueryAttributes.series.pk,
+                            QSeriesQueryAttributes.seriesQueryAttributes)
+                    .from(QSeriesQueryAttributes.seriesQueryAttributes)
+                    .where(QSeriesQueryAttributes.seriesQueryAttributes.viewID.eq(queryParam.getViewID()),
+                            QSeriesQueryAttributes.seriesQueryAttributes.series.pk.in(pks))
+                    .fetch())
+                result.put(tuple.get(QSeriesQueryAttributes.seriesQueryAttributes.series.pk),
+                        tuple.get(QSeriesQueryAttributes.seriesQueryAttributes));
+        }
+        if (result.size() < seriesPks.size()) {
+            Set<Long> seriesPksWithoutQueryAttrs = new HashSet<>(seriesPks);
+            seriesPksWithoutQueryAttrs.removeAll(result.keySet());
+            result.putAll(calculateSeriesQueryAttributes(seriesPksWithoutQueryAttrs, queryParam));
+        }
+        return result;
+    }
+
+    private Map<Long, SeriesQueryAttributes> calculateSeriesQueryAttributes(
+            Collection<Long> seriesPks, QueryParam queryParam) {
+        QueryRetrieveView qrView = queryParam.getQueryRetrieveView();
+        HashMap<Long, SeriesQueryAttributesBuilder> builders = new HashMap<>();
+        for (Long seriesPk : seriesPks)
+            builders.put(seriesPk, new SeriesQueryAttributesBuilder());
+
+        for (List<Long> pks : partition(seriesPks)) {
+            BooleanBuilder predicate = new BooleanBuilder(QInstance.instance.series.pk.in(pks));
+            predicate.and(QueryBuilder.hideRejectedInstance(
+                    queryParam.getShowInstancesRejectedByCode(),
+                    qrView.isHideNotRejectedInstances()));
+            predicate.and(QueryBuilder.hideRejectionNote(queryParam.getHideRejectionNotesWithCode()));
+            try (
+                CloseableIterator<Tuple> results = new HibernateQuery<Void>(em.unwrap(Session.class))
+                        .select(CALC_MULTIPLE_SERIES_QUERY_ATTRS)
+                        .from(QInstance.instance)
+                        .where(predicate)
+                        .iterate()) {
+
+                while (results.hasNext()) {
+                    Tuple tuple = results.next();
+                    builders.get(tuple.get(QInstance.instance.series.pk)).addInstance(tuple);
+                }
+            }
+        }
+        HashMap<Long, SeriesQueryAttributes> result = new HashMap<>();
+        for (Map.Entry<Long, SeriesQueryAttributesBuilder> entry : builders.entrySet()) {
+            SeriesQueryAttributes queryAttrs = entry.getValue().build();
+            queryAttrs.setViewID(qrView.getViewID());
+            queryAttrs.setSeries(em.getReference(Series.class, entry.getKey()));
+            em.persist(queryAttrs);
+            result.put(entry.getKey(), queryAttrs);
+        }
+        return result;
+    }
+
+    private static List<List<Long>> partition(Collection<Long> pks) {
+        ArrayList<Long> list = new ArrayList<>(pks);
+        ArrayList<List<Long>> partitions = new ArrayList<>(list.size() / MAX_PKS_PER_IN_CLAUSE + 1);
+        for (int from = 0; from < list.size(); from += MAX_PKS_PER_IN_CLAUSE)
+            partitions.add(list.subList(from, Math.min(from + MAX_PKS_PER_IN_CLAUSE, list.size())));
+        return partitions;
+    }
+
     public SeriesQueryAttributes calculateSeriesQueryAttributesIfNotExists(Long seriesPk, QueryParam queryParam) {
         try {
             return em.createNamedQuery(
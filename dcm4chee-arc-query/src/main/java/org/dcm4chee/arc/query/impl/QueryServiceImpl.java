@@ -53,6 +53,7 @@ import org.dcm4chee.arc.conf.Availability;
 import org.dcm4chee.arc.conf.QueryRetrieveView;
 import org.dcm4chee.arc.conf.RejectionNote;
 import org.dcm4chee.arc.entity.*;
+import org.dcm4chee.arc.metrics.MetricsService;
 import org.dcm4chee.arc.query.Query;
 import org.dcm4chee.arc.query.QueryContext;
 import org.dcm4chee.arc.query.QueryService;
@@ -75,6 +76,7 @@ import java.util.Collection;
 import java.util.Date;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.zip.ZipInputStream;
 
 /**
@@ -100,6 +102,9 @@ class QueryServiceImpl implements QueryService {
     @Inject
     private Event<QueryContext> queryEvent;
 
+    @Inject
+    private MetricsService metricsService;
+
     StatelessSession openStatelessSession() {
         return em.unwrap(Session.class).getSessionFactory().openStatelessSession();
     }
@@ -145,28 +150,28 @@ class QueryServiceImpl implements QueryService {
 
     @Override
     public Query createPatientQuery(QueryContext ctx) {
-        return new PatientQuery(ctx, openStatelessSession());
+        return new PatientQuery(ctx, openStatelessSession(), metricsService);
     }
 
     @Override
     public Query createStudyQuery(QueryContext ctx) {
-        return new StudyQuery(ctx, openStatelessSession());
+        return new StudyQuery(ctx, openStatelessSession(), metricsService);
     }
 
     @Override
     public Query createSeriesQuery(QueryContext ctx) {
-        return new SeriesQuery(ctx, openStatelessSession());
+        return new SeriesQuery(ctx, openStatelessSession(), metricsService);
     }
 
     @Override
     public Query createInstanceQuery(QueryContext ctx) {
-        return new InstanceQuery(ctx, openStatelessSession());
+        return new InstanceQuery(ctx, openStatelessSession(), metricsService);
     }
 
     @Override
     public Query createMWLQuery(QueryContext ctx) {
         queryEvent.fire(ctx);
-        return new MWLQuery(ctx, openStatelessSession());
+        return new MWLQuery(ctx, openStatelessSession(), metricsService);
     }
 
     @Override
@@ -184,6 +189,18 @@ class QueryServiceImpl implements QueryService {
         return ejb.calculateSeriesQueryAttributesIfNotExists(seriesPk, queryParam);
     }
 
+    @Override
+    public Map<Long, StudyQueryAttributes> calculateStudyQueryAttributes(
+            Collection<Long> studyPks, QueryParam queryParam) {
+        return ejb.calculateStudyQueryAttributes(studyPks, queryParam);
+    }
+
+    @Override
+    public Map<Long, SeriesQueryAttributes> calculateSeriesQueryAttributesIfNotExists(
+            Collection<Long> seriesPks, QueryParam queryParam) {
+        return ejb.calculateSeriesQueryAttributesIfNotExists(seriesPks, queryParam);
+    }
+
     @Override
     public SeriesQueryAttributes calculateSeriesQueryAttributes(Long seriesPk, QueryRetrieveView qrView) {
         return ejb.calculateSeriesQueryAttributes(seriesPk, qrView,
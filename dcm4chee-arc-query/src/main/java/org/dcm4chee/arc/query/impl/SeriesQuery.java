@@ -52,11 +52,18 @@ import org.dcm4che3.net.service.QueryRetrieveLevel2;
 import org.dcm4che3.util.StringUtils;
 import org.dcm4chee.arc.conf.Availability;
 import org.dcm4chee.arc.entity.*;
+import org.dcm4chee.arc.metrics.MetricsService;
 import org.dcm4chee.arc.query.util.QueryBuilder;
 import org.dcm4chee.arc.query.QueryContext;
+import org.dcm4chee.arc.query.QueryService;
 import org.dcm4chee.arc.query.util.QueryParam;
 import org.hibernate.StatelessSession;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+
 /**
  * @author Gunter Zeilinger <gunterze@gmail.com>
  * @author Vrinda Nayak <vrinda.nayak@j4care.com>
@@ -109,8 +116,36 @@ class SeriesQuery extends AbstractQuery {
     private Long studyPk;
     private Attributes studyAttrs;
 
-    public SeriesQuery(QueryContext context, StatelessSession session) {
-        super(context, session);
+    private Map<Long, SeriesQueryAttributes> calculatedSeriesQueryAttributes = Collections.emptyMap();
+    private Map<Long, StudyQueryAttributes> calculatedStudyQueryAttributes = Collections.emptyMap();
+
+    public SeriesQuery(QueryContext context, StatelessSession session, MetricsService metricsService) {
+        super(context, session, metricsService);
+    }
+
+    @Override
+    protected boolean missingQueryAttributes(Tuple result) {
+        return result.get(QSeriesQueryAttributes.seriesQueryAttributes.numberOfInstances) == null
+                || result.get(QStudyQueryAttributes.studyQueryAttributes.numberOfInstances) == null;
+    }
+
+    @Override
+    protected void calculateQueryAttributes(Collection<Tuple> results) {
+        HashSet<Long> seriesPks = new HashSet<>();
+        HashSet<Long> studyPks = new HashSet<>();
+        for (Tuple result : results) {
+            if (result.get(QSeriesQueryAttributes.seriesQueryAttributes.numberOfInstances) == null)
+                seriesPks.add(result.get(QSeries.series.pk));
+            if (result.get(QStudyQueryAttributes.studyQueryAttributes.numberOfInstances) == null)
+                studyPks.add(result.get(QStudy.study.pk));
+        }
+        QueryService queryService = context.getQueryService();
+        QueryParam queryParam = context.getQueryParam();
+        if (!seriesPks.isEmpty())
+            calculatedSeriesQueryAttributes =
+                    queryService.calculateSeriesQueryAttributesIfNotExists(seriesPks, queryParam);
+        if (!studyPks.isEmpty())
+            calculatedStudyQueryAttributes = queryService.calculateStudyQueryAttributes(studyPks, queryParam);
     }
 
     @Override
@@ -159,8 +194,10 @@ class SeriesQuery extends AbstractQuery {
             retrieveAETs = results.get(QSeriesQueryAttributes.seriesQueryAttributes.retrieveAETs);
             availability = results.get(QSeriesQueryAttributes.seriesQueryAttributes.availability);
         } else {
-            SeriesQueryAttributes seriesView = context.getQueryService()
-                    .calculateSeriesQueryAttributesIfNotExists(seriesPk, queryParam);
+            SeriesQueryAttributes seriesView = calculatedSeriesQueryAttributes.remove(seriesPk);
+            if (seriesView == null)
+                seriesView = context.getQueryService()
+                        .calculateSeriesQueryAttributesIfNotExists(seriesPk, queryParam);
             numberOfSeriesRelatedInstances = seriesView.getNumberOfInstances();
             if (numberOfSeriesRelatedInstances == 0 && !queryParam.isReturnEmpty()) {
                 return null;
@@ -235,8 +272,10 @@ class SeriesQuery extends AbstractQuery {
             modalitiesInStudy = results.get(QStudyQueryAttributes.studyQueryAttributes.modalitiesInStudy);
             sopClassesInStudy = results.get(QStudyQueryAttributes.studyQueryAttributes.sopClassesInStudy);
         } else {
-            StudyQueryAttributes studyView = context.getQueryService()
-                    .calculateStudyQueryAttributes(studyPk, context.getQueryParam());
+            StudyQueryAttributes studyView = calculatedStudyQueryAttributes.remove(studyPk);
+            if (studyView == null)
+                studyView = context.getQueryService()
+                        .calculateStudyQueryAttributes(studyPk, context.getQueryParam());
             numberOfStudyRelatedInstances = studyView.getNumberOfInstances();
             numberOfStudyRelatedSeries = studyView.getNumberOfSeries();
             modalitiesInStudy = studyView.getModalitiesInStudy();
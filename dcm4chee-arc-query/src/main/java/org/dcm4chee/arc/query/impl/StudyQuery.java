@@ -52,12 +52,16 @@ import org.dcm4che3.net.service.QueryRetrieveLevel2;
 import org.dcm4che3.util.StringUtils;
 import org.dcm4chee.arc.conf.Availability;
 import org.dcm4chee.arc.entity.*;
+import org.dcm4chee.arc.metrics.MetricsService;
 import org.dcm4chee.arc.query.QueryContext;
 import org.dcm4chee.arc.query.util.QueryBuilder;
 import org.dcm4chee.arc.query.util.QueryParam;
 import org.hibernate.StatelessSession;
 
-
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
 
 /**
  * @author Gunter Zeilinger <gunterze@gmail.com>
@@ -91,8 +95,25 @@ class StudyQuery extends AbstractQuery {
             QueryBuilder.patientAttributesBlob.encodedAttributes
     };
 
-    public StudyQuery(QueryContext context, StatelessSession session) {
-        super(context, session);
+    private Map<Long, StudyQueryAttributes> calculatedQueryAttributes = Collections.emptyMap();
+
+    public StudyQuery(QueryContext context, StatelessSession session, MetricsService metricsService) {
+        super(context, session, metricsService);
+    }
+
+    @Override
+    protected boolean missingQueryAttributes(Tuple result) {
+        return result.get(QStudyQueryAttributes.studyQueryAttributes.numberOfInstances) == null;
+    }
+
+    @Override
+    protected void calculateQueryAttributes(Collection<Tuple> results) {
+        HashSet<Long> studyPks = new HashSet<>();
+        for (Tuple result : results)
+            if (missingQueryAttributes(result))
+                studyPks.add(result.get(QStudy.study.pk));
+        calculatedQueryAttributes = context.getQueryService()
+                .calculateStudyQueryAttributes(studyPks, context.getQueryParam());
     }
 
     @Override
@@ -139,8 +160,9 @@ class StudyQuery extends AbstractQuery {
             retrieveAETs = results.get(QStudyQueryAttributes.studyQueryAttributes.retrieveAETs);
             availability = results.get(QStudyQueryAttributes.studyQueryAttributes.availability);
         } else {
-            StudyQueryAttributes studyView = context.getQueryService()
-                    .calculateStudyQueryAttributes(studyPk, queryParam);
+            StudyQueryAttributes studyView = calculatedQueryAttributes.remove(studyPk);
+            if (studyView == null)
+                studyView = context.getQueryService().calculateStudyQueryAttributes(studyPk, queryParam);
             numberOfStudyRelatedInstances = studyView.getNumberOfInstances();
             if (numberOfStudyRelatedInstances == 0 && !queryParam.isReturnEmpty()) {
                 return null;
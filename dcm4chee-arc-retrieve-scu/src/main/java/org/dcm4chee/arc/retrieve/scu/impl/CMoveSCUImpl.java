@@ -50,6 +50,7 @@ import org.dcm4che3.net.pdu.ExtendedNegotiation;
 import org.dcm4che3.net.pdu.PresentationContext;
 import org.dcm4che3.net.service.DicomServiceException;
 import org.dcm4che3.net.service.RetrieveTask;
+import org.dcm4chee.arc.AssociationPool;
 import org.dcm4chee.arc.conf.ArchiveAEExtension;
 import org.dcm4chee.arc.retrieve.RetrieveContext;
 import org.dcm4chee.arc.retrieve.RetrieveEnd;
@@ -76,6 +77,9 @@ public class CMoveSCUImpl implements CMoveSCU {
     @Inject
     private CStoreForwardSCU storeForwardSCU;
 
+    @Inject
+    private AssociationPool associationPool;
+
     @Inject @RetrieveEnd
     private Event<RetrieveContext> retrieveEnd;
 
@@ -84,7 +88,7 @@ public class CMoveSCUImpl implements CMoveSCU {
             final RetrieveContext ctx, PresentationContext pc, Attributes rq, Attributes keys, String otherCMoveSCP,
             String otherMoveDest) throws DicomServiceException {
         try {
-            Association fwdas = openAssociation(ctx, pc, otherCMoveSCP);
+            Association fwdas = openAssociation(ctx, pc, otherCMoveSCP, false);
             if (otherMoveDest == null) {
                 return new ForwardRetrieveTask.BackwardCMoveRSP(ctx, pc, rq, keys, fwdas);
             }
@@ -108,7 +112,7 @@ public class CMoveSCUImpl implements CMoveSCU {
             RetrieveContext ctx, PresentationContext pc, Attributes rq, Attributes keys, String otherCMoveSCP,
             String otherMoveDest) throws DicomServiceException {
         try {
-            Association fwdas = openAssociation(ctx, pc, otherCMoveSCP);
+            Association fwdas = openAssociation(ctx, pc, otherCMoveSCP, otherMoveDest == null);
             if (otherMoveDest == null) {
                 ctx.setForwardAssociation(fwdas);
                 new ForwardRetrieveTask.UpdateRetrieveCtx(ctx, pc, rq, keys, fwdas).forwardMoveRQ();
@@ -129,8 +133,8 @@ public class CMoveSCUImpl implements CMoveSCU {
         }
     }
 
-    private Association openAssociation(RetrieveContext ctx, PresentationContext pc, String otherCMoveSCP)
-            throws Exception {
+    private Association openAssociation(RetrieveContext ctx, PresentationContext pc, String otherCMoveSCP,
+                                        boolean pooled) throws Exception {
         ApplicationEntity remoteAE = aeCache.findApplicationEntity(otherCMoveSCP);
         Association as = ctx.getRequestAssociation();
         PresentationContext rqpc = as.getAAssociateRQ().getPresentationContext(pc.getPCID());
@@ -140,7 +144,10 @@ public class CMoveSCUImpl implements CMoveSCU {
         aarq.addPresentationContext(rqpc);
         aarq.addExtendedNegotiation(new ExtendedNegotiation(rqpc.getAbstractSyntax(),
                 QueryOption.toExtendedNegotiationInformation(EnumSet.of(QueryOption.RELATIONAL))));
-        Association fwdas = ctx.getLocalApplicationEntity().connect(remoteAE, aarq);
+        ApplicationEntity localAE = ctx.getLocalApplicationEntity();
+        Association fwdas = pooled
+                ? associationPool.open(localAE, remoteAE, aarq)
+                : localAE.connect(remoteAE, aarq);
         fwdas.setProperty("forward-C-MOVE-RQ-for-Study", ctx.getStudyInstanceUID());
         return fwdas;
     }
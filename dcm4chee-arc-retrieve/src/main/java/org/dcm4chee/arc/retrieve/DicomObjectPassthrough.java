@@ -0,0 +1,104 @@
+/*
+ * *** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is part of dcm4che, an implementation of DICOM(TM) in
+ * Java(TM), hosted at https://github.com/gunterze/dcm4che.
+ *
+ * The Initial Developer of the Original Code is
+ * J4Care.
+ * Portions created by the Initial Developer are Copyright (C) 2017
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):
+ * See @authors listed below
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ *
+ * *** END LICENSE BLOCK *****
+ */
+
+
+package org.dcm4chee.arc.retrieve;
+
+import org.dcm4che3.data.Attributes;
+import org.dcm4che3.data.AttributesCoercion;
+import org.dcm4che3.data.Tag;
+import org.dcm4che3.data.UID;
+import org.dcm4che3.io.DicomInputStream;
+import org.dcm4che3.io.DicomOutputStream;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Stored object which is sent in its stored Transfer Syntax: only the attributes preceding the Pixel Data are
+ * parsed - and coerced -, the Pixel Data and any trailing attributes are copied unchanged from the storage.
+ *
+ * @author Gunter Zeilinger <gunterze@gmail.com>
+ * @since Apr 2017
+ */
+public final class DicomObjectPassthrough implements Closeable {
+
+    private final DicomInputStream dis;
+    private final String tsuid;
+    private final boolean includeFileMetaInformation;
+
+    public DicomObjectPassthrough(DicomInputStream dis, String tsuid, boolean includeFileMetaInformation) {
+        this.dis = dis;
+        this.tsuid = tsuid;
+        this.includeFileMetaInformation = includeFileMetaInformation;
+    }
+
+    public String getTransferSyntax() {
+        return tsuid;
+    }
+
+    /**
+     * Writes the attributes preceding the Pixel Data and the header of the Pixel Data element.
+     */
+    public void writeHeader(OutputStream out, AttributesCoercion coerce) throws IOException {
+        Attributes attrs = dis.readDataset(-1, Tag.PixelData);
+        if (coerce != null)
+            coerce.coerce(attrs, null);
+        DicomOutputStream dos = new DicomOutputStream(out,
+                includeFileMetaInformation ? UID.ExplicitVRLittleEndian : tsuid);
+        dos.writeDataset(includeFileMetaInformation ? attrs.createFileMetaInformation(tsuid) : null, attrs);
+        if (dis.tag() == Tag.PixelData)
+            dos.writeHeader(Tag.PixelData, dis.vr(), dis.length());
+    }
+
+    /**
+     * Returns the remaining bytes of the object after {@link #writeHeader}.
+     */
+    public InputStream getInputStream() {
+        return dis;
+    }
+
+    @Override
+    public void close() throws IOException {
+        dis.close();
+    }
+}
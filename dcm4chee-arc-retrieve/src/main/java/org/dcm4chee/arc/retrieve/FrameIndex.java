@@ -0,0 +1,112 @@
+/*
+ * *** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is part of dcm4che, an implementation of DICOM(TM) in
+ * Java(TM), hosted at https://github.com/gunterze/dcm4che.
+ *
+ * The Initial Developer of the Original Code is
+ * J4Care.
+ * Portions created by the Initial Developer are Copyright (C) 2017
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):
+ * See @authors listed below
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ *
+ * *** END LICENSE BLOCK *****
+ */
+
+
+package org.dcm4chee.arc.retrieve;
+
+/**
+ * Positions of the frames of the Pixel Data of a stored object, used to read particular frames by
+ * ranged reads instead of reading the object sequentially from its start.
+ *
+ * @author Gunter Zeilinger <gunterze@gmail.com>
+ * @since Apr 2017
+ */
+public final class FrameIndex {
+
+    private final String storageID;
+    private final String storagePath;
+    private final String studyInstanceUID;
+    private final long[] offsets;
+    private final int[] lengths;
+
+    public FrameIndex(String storageID, String storagePath, String studyInstanceUID,
+                      long[] offsets, int[] lengths) {
+        if (offsets.length != lengths.length)
+            throw new IllegalArgumentException("offsets.length != lengths.length");
+        this.storageID = storageID;
+        this.storagePath = storagePath;
+        this.studyInstanceUID = studyInstanceUID;
+        this.offsets = offsets;
+        this.lengths = lengths;
+    }
+
+    public String getStorageID() {
+        return storageID;
+    }
+
+    public String getStoragePath() {
+        return storagePath;
+    }
+
+    public String getStudyInstanceUID() {
+        return studyInstanceUID;
+    }
+
+    public int getNumberOfFrames() {
+        return offsets.length;
+    }
+
+    /**
+     * @param frame frame number, starting with 1
+     * @return offset of the frame's (compressed) pixel data in the stored object
+     */
+    public long getOffset(int frame) {
+        return offsets[checkFrame(frame) - 1];
+    }
+
+    /**
+     * @param frame frame number, starting with 1
+     * @return length of the frame's (compressed) pixel data in bytes
+     */
+    public int getLength(int frame) {
+        return lengths[checkFrame(frame) - 1];
+    }
+
+    private int checkFrame(int frame) {
+        if (frame < 1 || frame > offsets.length)
+            throw new IllegalArgumentException("frame: " + frame + " not in [1.." + offsets.length + "]");
+        return frame;
+    }
+
+    @Override
+    public String toString() {
+        return "FrameIndex[" + storageID + ':' + storagePath + ", frames=" + offsets.length + ']';
+    }
+}
@@ -53,6 +53,7 @@ import org.dcm4chee.arc.entity.Series;
 
 import javax.servlet.http.HttpServletRequest;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
@@ -99,8 +100,23 @@ public interface RetrieveService {
     Transcoder openTranscoder(RetrieveContext ctx, InstanceLocations inst, Collection<String> tsuids, boolean fmi)
             throws IOException;
 
+    /**
+     * Opens the object for transfer without transcoding, if it is stored in one of the specified Transfer Syntaxes.
+     * Returns {@code null} if the object has to be transcoded by {@link #openTranscoder}.
+     */
+    DicomObjectPassthrough openPassthrough(RetrieveContext ctx, InstanceLocations inst, Collection<String> tsuids,
+                                           boolean fmi) throws IOException;
+
     DicomInputStream openDicomInputStream(RetrieveContext ctx, InstanceLocations inst) throws IOException;
 
+    /**
+     * Returns the positions of the frames in the stored object, or {@code null} if they cannot be determined -
+     * e.g. if compressed frames are split into several fragments.
+     */
+    FrameIndex getFrameIndex(RetrieveContext ctx, InstanceLocations inst) throws IOException;
+
+    InputStream openFrameInputStream(RetrieveContext ctx, FrameIndex frameIndex, int frame) throws IOException;
+
     Attributes loadMetadata(RetrieveContext ctx, InstanceLocations inst) throws IOException;
 
     Map<String,Collection<InstanceLocations>> removeNotAccessableMatches(RetrieveContext ctx);
@@ -40,6 +40,7 @@
 
 package org.dcm4chee.arc.retrieve.impl;
 
+import org.dcm4chee.arc.entity.Location;
 import org.dcm4chee.arc.entity.Series;
 import org.dcm4chee.arc.entity.Study;
 import org.dcm4chee.arc.retrieve.RetrieveContext;
@@ -47,6 +48,7 @@ import org.dcm4chee.arc.retrieve.RetrieveContext;
 import javax.ejb.Stateless;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import java.util.List;
 
 /**
  * @author Gunter Zeilinger <gunterze@gmail.com>
@@ -64,6 +66,12 @@ public class RetrieveServiceEJB {
                 .executeUpdate();
     }
 
+    public List<Location> findLocationsOfStudy(Long studyPk) {
+        return em.createNamedQuery(Location.FIND_BY_STUDY_PK, Location.class)
+                .setParameter(1, studyPk)
+                .getResultList();
+    }
+
     public void updateFailedSOPInstanceUIDList(RetrieveContext ctx, String failedIUIDList) {
         String[] studyIUIDs = ctx.getStudyInstanceUIDs();
         String[] seriesIUIDs = ctx.getSeriesInstanceUIDs();
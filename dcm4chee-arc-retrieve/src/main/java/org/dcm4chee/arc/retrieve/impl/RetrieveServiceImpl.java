@@ -48,6 +48,7 @@ import org.dcm4che3.conf.api.ConfigurationException;
 import org.dcm4che3.conf.api.IApplicationEntityCache;
 import org.dcm4che3.data.*;
 import org.dcm4che3.dict.archive.ArchiveTag;
+import org.dcm4che3.imageio.codec.ImageDescriptor;
 import org.dcm4che3.imageio.codec.Transcoder;
 import org.dcm4che3.io.BulkDataCreator;
 import org.dcm4che3.io.DicomInputStream;
@@ -57,20 +58,28 @@ import org.dcm4che3.json.JSONReader;
 import org.dcm4che3.net.*;
 import org.dcm4che3.net.service.DicomServiceException;
 import org.dcm4che3.net.service.QueryRetrieveLevel2;
+import org.dcm4che3.util.ByteUtils;
 import org.dcm4che3.util.SafeClose;
+import org.dcm4che3.util.StreamUtils;
 import org.dcm4che3.util.StringUtils;
 import org.dcm4che3.util.TagUtils;
+import org.dcm4chee.arc.AssociationPool;
+import org.dcm4chee.arc.Cache;
 import org.dcm4chee.arc.LeadingCFindSCPQueryCache;
 import org.dcm4chee.arc.conf.*;
 import org.dcm4chee.arc.entity.*;
 import org.dcm4chee.arc.query.scu.CFindSCU;
 import org.dcm4chee.arc.query.scu.CFindSCUAttributeCoercion;
+import org.dcm4chee.arc.metrics.Metric;
+import org.dcm4chee.arc.metrics.MetricsService;
 import org.dcm4chee.arc.retrieve.*;
 import org.dcm4chee.arc.code.CodeCache;
 import org.dcm4chee.arc.query.util.QueryBuilder;
+import org.dcm4chee.arc.storage.RandomAccessZip;
 import org.dcm4chee.arc.storage.ReadContext;
 import org.dcm4chee.arc.storage.Storage;
 import org.dcm4chee.arc.storage.StorageFactory;
+import org.dcm4chee.arc.storage.StorageReadCache;
 import org.hibernate.Session;
 import org.hibernate.StatelessSession;
 import org.slf4j.Logger;
@@ -89,6 +98,7 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.*;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
 import java.util.zip.ZipInputStream;
 
 /**
@@ -152,8 +162,15 @@ public class RetrieveServiceImpl implements RetrieveService {
             QSeries.series.pk,
             QMetadata.metadata.storageID,
             QMetadata.metadata.storagePath,
+            QMetadata.metadata.size,
     };
 
+    private static final int MAX_RANDOM_ACCESS_METADATA_ENTRIES = 10;
+
+    private static final int FRAME_INDEX_CACHE_SIZE = 1000;
+    private static final int EXTENDED_OFFSET_TABLE = 0x7FE00001;
+    private static final int EXTENDED_OFFSET_TABLE_LENGTHS = 0x7FE00002;
+
     @PersistenceContext(unitName = "dcm4chee-arc")
     private EntityManager em;
 
@@ -178,6 +195,21 @@ public class RetrieveServiceImpl implements RetrieveService {
     @Inject
     private LeadingCFindSCPQueryCache leadingCFindSCPQueryCache;
 
+    @Inject
+    private AssociationPool associationPool;
+
+    @Inject
+    private StorageReadCache readCache;
+
+    @Inject
+    private MetricsService metricsService;
+
+    private final Cache<String,FrameIndex> frameIndexCache = new Cache<>();
+
+    public RetrieveServiceImpl() {
+        frameIndexCache.setMaxSize(FRAME_INDEX_CACHE_SIZE);
+    }
+
     StatelessSession openStatelessSession() {
         return em.unwrap(Session.class).getSessionFactory().openStatelessSession();
     }
@@ -353,6 +385,7 @@ public class RetrieveServiceImpl implements RetrieveService {
 
     @Override
     public boolean calculateMatches(RetrieveContext ctx) throws DicomServiceException {
+        long start = System.nanoTime();
         StatelessSession session = openStatelessSession();
         Collection<InstanceLocations> matches = ctx.getMatches();
         matches.clear();
@@ -368,6 +401,7 @@ public class RetrieveServiceImpl implements RetrieveService {
                 addLocationsFromMetadata(ctx,
                         metadataUpdate.storageID,
                         metadataUpdate.storagePath,
+                        null,
                         seriesAttributes.attrs);
             } else {
                 for (Tuple tuple : createQuery(ctx, session).fetch()) {
@@ -403,6 +437,7 @@ public class RetrieveServiceImpl implements RetrieveService {
                         addLocationsFromMetadata(ctx,
                                 tuple.get(QMetadata.metadata.storageID),
                                 tuple.get(QMetadata.metadata.storagePath),
+                                tuple.get(QMetadata.metadata.size),
                                 seriesAttributes.attrs);
                     }
                 }
@@ -410,6 +445,7 @@ public class RetrieveServiceImpl implements RetrieveService {
             ctx.setNumberOfMatches(matches.size());
             ctx.getStudyInfos().addAll(studyInfoMap.values());
             updateStudyAccessTime(ctx);
+            metricsService.recordSince(Metric.RETRIEVE_CALCULATE_MATCHES, ctx.getLocalAETitle(), start);
             return !matches.isEmpty();
         } catch (IOException e) {
             throw new DicomServiceException(Status.UnableToCalculateNumberOfMatches, e);
@@ -430,31 +466,56 @@ public class RetrieveServiceImpl implements RetrieveService {
     }
 
     private void addLocationsFromMetadata(
-            RetrieveContext ctx, String storageID, String storagePath, Attributes seriesAttrs)
+            RetrieveContext ctx, String storageID, String storagePath, Long size, Attributes seriesAttrs)
             throws IOException {
-        QueryRetrieveView qrView = ctx.getQueryRetrieveView();
         Storage storage = getStorage(storageID, ctx);
+        String[] sopIUIDs = ctx.getSopInstanceUIDs();
+        if (size != null && sopIUIDs.length > 0 && sopIUIDs.length <= MAX_RANDOM_ACCESS_METADATA_ENTRIES) {
+            RandomAccessZip zip;
+            try {
+                zip = RandomAccessZip.open(storage, storagePath, size);
+            } catch (ZipException e) {
+                LOG.info("Failed to read index of Series Metadata {} from {} - read sequentially:\n",
+                        storagePath, storage.getStorageDescriptor().getStorageURI(), e);
+                zip = null;
+            }
+            if (zip != null) {
+                for (String sopIUID : sopIUIDs) {
+                    RandomAccessZip.Entry entry = zip.getEntry(sopIUID);
+                    if (entry != null)
+                        try (InputStream in = zip.openInputStream(entry)) {
+                            addLocationFromMetadata(ctx, in, seriesAttrs);
+                        }
+                }
+                return;
+            }
+        }
         try (InputStream in = storage.openInputStream(
                 createReadContext(storage, storagePath, null))) {
             ZipInputStream zip = new ZipInputStream(in);
             ZipEntry entry;
             while ((entry = zip.getNextEntry()) != null) {
-                if (isEmptyOrContains(ctx.getSopInstanceUIDs(), entry.getName())) {
-                    Attributes metadata = parseJSON(zip, !ctx.isRetrieveMetadata());
-                    if (qrView == null
-                            || !qrView.hideRejectedInstance(
-                                metadata.getNestedDataset(ArchiveTag.PrivateCreator, ArchiveTag.RejectionCodeSequence))
-                            && !qrView.hideRejectionNote(metadata)) {
-                        Attributes.unifyCharacterSets(seriesAttrs, metadata);
-                        metadata.addAll(seriesAttrs);
-                        ctx.getMatches().add(instanceLocationsFromMetadata(metadata));
-                    }
-                }
+                if (isEmptyOrContains(sopIUIDs, entry.getName()))
+                    addLocationFromMetadata(ctx, zip, seriesAttrs);
                 zip.closeEntry();
             }
         }
     }
 
+    private void addLocationFromMetadata(RetrieveContext ctx, InputStream in, Attributes seriesAttrs)
+            throws IOException {
+        QueryRetrieveView qrView = ctx.getQueryRetrieveView();
+        Attributes metadata = parseJSON(in, !ctx.isRetrieveMetadata());
+        if (qrView == null
+                || !qrView.hideRejectedInstance(
+                    metadata.getNestedDataset(ArchiveTag.PrivateCreator, ArchiveTag.RejectionCodeSequence))
+                && !qrView.hideRejectionNote(metadata)) {
+            Attributes.unifyCharacterSets(seriesAttrs, metadata);
+            metadata.addAll(seriesAttrs);
+            ctx.getMatches().add(instanceLocationsFromMetadata(metadata));
+        }
+    }
+
     private static boolean isEmptyOrContains(String[] ss, String s) {
         if (ss.length == 0)
             return true;
@@ -671,7 +732,18 @@ public class RetrieveServiceImpl implements RetrieveService {
             else
                 throw new NoPresentationContextException(inst.getSopClassUID(), tsuid);
         }
-        Transcoder transcoder = new Transcoder(locationInputStream.getDicomInputStream());
+        final String aet = ctx.getLocalAETitle();
+        final long start = System.nanoTime();
+        Transcoder transcoder = new Transcoder(locationInputStream.getDicomInputStream()) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    metricsService.recordSince(Metric.RETRIEVE_TRANSCODE, aet, start);
+                }
+            }
+        };
         transcoder.setIncludeBulkData(DicomInputStream.IncludeBulkData.URI);
         transcoder.setConcatenateBulkDataFiles(true);
         transcoder.setBulkDataDirectory(ctx.getArchiveAEExtension().getBulkDataSpoolDirectoryFile());
@@ -681,11 +753,204 @@ public class RetrieveServiceImpl implements RetrieveService {
         return transcoder;
     }
 
+    @Override
+    public DicomObjectPassthrough openPassthrough(RetrieveContext ctx, InstanceLocations inst,
+                                                  Collection<String> tsuids, boolean fmi) throws IOException {
+        String studyInstanceUID = inst.getAttributes().getString(Tag.StudyInstanceUID);
+        for (Location location : inst.getLocations()) {
+            String tsuid = location.getTransferSyntaxUID();
+            if (location.getObjectType() != Location.ObjectType.DICOM_FILE
+                    || tsuid.equals(UID.DeflatedExplicitVRLittleEndian)
+                    || !tsuids.isEmpty() && !tsuids.contains(tsuid))
+                continue;
+
+            DicomInputStream dis;
+            try {
+                Storage storage = getStorage(location.getStorageID(), ctx);
+                prefetchStudy(ctx, storage, location, studyInstanceUID);
+                dis = openLocationInputStream(storage, location, studyInstanceUID).getDicomInputStream();
+            } catch (IOException e) {
+                LOG.info("Failed to open {} - try to transcode other location", location, e);
+                return null;
+            }
+            try {
+                dis.readFileMetaInformation();
+                if (tsuid.equals(dis.getTransferSyntax()))
+                    return new DicomObjectPassthrough(dis, tsuid, fmi);
+            } catch (IOException e) {
+                SafeClose.close(dis);
+                throw e;
+            }
+            LOG.info("Transfer Syntax {} of {} does not match - transcode object", dis.getTransferSyntax(), location);
+            SafeClose.close(dis);
+            return null;
+        }
+        return null;
+    }
+
     @Override
     public DicomInputStream openDicomInputStream(RetrieveContext ctx, InstanceLocations inst) throws IOException {
         return openLocationInputStream(ctx, inst).getDicomInputStream();
     }
 
+    @Override
+    public FrameIndex getFrameIndex(RetrieveContext ctx, InstanceLocations inst) throws IOException {
+        IOException ex = null;
+        final String studyInstanceUID = inst.getAttributes().getString(Tag.StudyInstanceUID);
+        for (final Location location : inst.getLocations()) {
+            if (location.getObjectType() == Location.ObjectType.DICOM_FILE)
+                try {
+                    final Storage storage = getStorage(location.getStorageID(), ctx);
+                    String cacheKey = location.getStorageID() + ':' + location.getStoragePath();
+                    FrameIndex frameIndex = frameIndexCache.getEntry(cacheKey,
+                            new Cache.Loader<String, FrameIndex, IOException>() {
+                                @Override
+                                public FrameIndex load(String key) throws IOException {
+                                    return loadFrameIndex(storage, location, studyInstanceUID);
+                                }
+                            }).value();
+                    if (frameIndex == null)
+                        frameIndexCache.remove(cacheKey);
+                    return frameIndex;
+                } catch (IOException e) {
+                    ex = e;
+                }
+        }
+        if (ex != null) throw ex;
+        return null;
+    }
+
+    /**
+     * Returns the positions of the frames in the stored object, taken from the Extended Offset Table or the Basic
+     * Offset Table of encapsulated Pixel Data. Only on local storage, the fragments of encapsulated Pixel Data
+     * without offset table are scanned. Returns {@code null}, if the frames cannot be accessed by ranged reads.
+     */
+    private FrameIndex loadFrameIndex(Storage storage, Location location, String studyInstanceUID)
+            throws IOException {
+        long[] offsets;
+        int[] lengths;
+        boolean basicOffsetTable = false;
+        DicomInputStream dis = openLocationInputStream(storage, location, studyInstanceUID).getDicomInputStream();
+        try {
+            Attributes attrs = dis.readDataset(-1, Tag.PixelData);
+            if (dis.tag() != Tag.PixelData || UID.DeflatedExplicitVRLittleEndian.equals(dis.getTransferSyntax()))
+                return null;
+
+            int numFrames = attrs.getInt(Tag.NumberOfFrames, 1);
+            offsets = new long[numFrames];
+            lengths = new int[numFrames];
+            if (dis.length() != -1) {
+                int frameLength = new ImageDescriptor(attrs).getFrameLength();
+                if ((long) frameLength * numFrames > (dis.length() & 0xffffffffL))
+                    return null;
+
+                long offset = dis.getPosition();
+                for (int i = 0; i < numFrames; i++) {
+                    offsets[i] = offset + (long) frameLength * i;
+                    lengths[i] = frameLength;
+                }
+            } else {
+                if (!dis.readItemHeader())
+                    return null;
+
+                byte[] bot = new byte[dis.length()];
+                dis.readFully(bot);
+                long firstItemPos = dis.getPosition();
+                byte[] eot = attrs.getBytes(EXTENDED_OFFSET_TABLE);
+                byte[] eotLengths = attrs.getBytes(EXTENDED_OFFSET_TABLE_LENGTHS);
+                if (eot != null && eotLengths != null) {
+                    if (eot.length != numFrames * 8 || eotLengths.length != numFrames * 8)
+                        return null;
+
+                    for (int i = 0; i < numFrames; i++) {
+                        long length = bytesToLongLE(eotLengths, i * 8);
+                        if (length > Integer.MAX_VALUE)
+                            return null;
+
+                        offsets[i] = firstItemPos + bytesToLongLE(eot, i * 8) + 8;
+                        lengths[i] = (int) length;
+                    }
+                } else if (bot.length != 0) {
+                    if (bot.length != numFrames * 4)
+                        return null;
+
+                    for (int i = 0; i < numFrames; i++)
+                        offsets[i] = firstItemPos + (ByteUtils.bytesToIntLE(bot, i * 4) & 0xffffffffL) + 8;
+                    for (int i = 1; i < numFrames; i++)
+                        lengths[i - 1] = (int) (offsets[i] - offsets[i - 1] - 8);
+                    basicOffsetTable = true;
+                } else if (isLocal(storage)) {
+                    for (int i = 0; i < numFrames; i++) {
+                        if (!dis.readItemHeader())
+                            return null;
+
+                        offsets[i] = dis.getPosition();
+                        lengths[i] = dis.length();
+                        dis.skipFully(lengths[i]);
+                    }
+                    if (dis.readItemHeader()) {
+                        LOG.debug("Frames of {} are split into several fragments", location);
+                        return null;
+                    }
+                } else
+                    return null;
+            }
+        } finally {
+            SafeClose.close(dis);
+        }
+        if (basicOffsetTable
+                && !readFragmentLengthsFromBasicOffsetTable(storage, location, studyInstanceUID, offsets, lengths))
+            return null;
+
+        return new FrameIndex(location.getStorageID(), location.getStoragePath(), studyInstanceUID,
+                offsets, lengths);
+    }
+
+    /**
+     * Reads the item headers of the first and the last frame located by the Basic Offset Table, to determine the
+     * length of the last frame and to verify that the first frame is not split into several fragments.
+     */
+    private boolean readFragmentLengthsFromBasicOffsetTable(Storage storage, Location location,
+            String studyInstanceUID, long[] offsets, int[] lengths) throws IOException {
+        int last = offsets.length - 1;
+        int firstLength = readItemLength(storage, location, studyInstanceUID, offsets[0] - 8);
+        if (last > 0 && firstLength != lengths[0]) {
+            LOG.debug("Frames of {} are split into several fragments", location);
+            return false;
+        }
+        lengths[last] = last > 0
+                ? readItemLength(storage, location, studyInstanceUID, offsets[last] - 8)
+                : firstLength;
+        return lengths[last] > 0;
+    }
+
+    private int readItemLength(Storage storage, Location location, String studyInstanceUID, long offset)
+            throws IOException {
+        ReadContext readContext = createReadContext(storage, location.getStoragePath(), studyInstanceUID);
+        byte[] header = new byte[8];
+        try (InputStream in = storage.openInputStream(readContext, offset, header.length)) {
+            StreamUtils.readFully(in, header, 0, header.length);
+        }
+        return ByteUtils.bytesToTagLE(header, 0) == Tag.Item ? ByteUtils.bytesToIntLE(header, 4) : -1;
+    }
+
+    private static long bytesToLongLE(byte[] b, int off) {
+        return (ByteUtils.bytesToIntLE(b, off) & 0xffffffffL) | ((long) ByteUtils.bytesToIntLE(b, off + 4) << 32);
+    }
+
+    private static boolean isLocal(Storage storage) {
+        return "file".equals(storage.getStorageDescriptor().getStorageURI().getScheme());
+    }
+
+    @Override
+    public InputStream openFrameInputStream(RetrieveContext ctx, FrameIndex frameIndex, int frame)
+            throws IOException {
+        Storage storage = getStorage(frameIndex.getStorageID(), ctx);
+        ReadContext readContext = createReadContext(storage, frameIndex.getStoragePath(),
+                frameIndex.getStudyInstanceUID());
+        return storage.openInputStream(readContext, frameIndex.getOffset(frame), frameIndex.getLength(frame));
+    }
+
     @Override
     public Map<String,Collection<InstanceLocations>> removeNotAccessableMatches(RetrieveContext ctx) {
         ArchiveAEExtension arcAE = ctx.getArchiveAEExtension();
@@ -765,7 +1030,7 @@ public class RetrieveServiceImpl implements RetrieveService {
                     rqas, moveSCP, e);
         }
         try {
-            fwdas.release();
+            associationPool.release(fwdas);
         } catch (IOException e) {
             LOG.warn("{}: failed to release association to {}:\n", rqas, moveSCP, e);
         }
@@ -886,7 +1151,9 @@ public class RetrieveServiceImpl implements RetrieveService {
         for (Location location : inst.getLocations()) {
             if (location.getObjectType() == Location.ObjectType.DICOM_FILE)
                 try {
-                    return openLocationInputStream(getStorage(location.getStorageID(), ctx), location, studyInstanceUID);
+                    Storage storage = getStorage(location.getStorageID(), ctx);
+                    prefetchStudy(ctx, storage, location, studyInstanceUID);
+                    return openLocationInputStream(storage, location, studyInstanceUID);
                 } catch (IOException e) {
                     ex = e;
                 }
@@ -899,7 +1166,9 @@ public class RetrieveServiceImpl implements RetrieveService {
             Storage storage, Location location, String studyInstanceUID)
             throws IOException {
         ReadContext readContext = createReadContext(storage, location.getStoragePath(), studyInstanceUID);
+        long start = System.nanoTime();
         InputStream stream = storage.openInputStream(readContext);
+        metricsService.recordSince(Metric.STORAGE_OPEN, location.getStorageID(), start);
         try {
             return new LocationDicomInputStream(new DicomInputStream(stream), readContext, location);
         } catch (IOException e) {
@@ -908,6 +1177,65 @@ public class RetrieveServiceImpl implements RetrieveService {
         }
     }
 
+    private void prefetchStudy(RetrieveContext ctx, Storage storage, Location location, String studyInstanceUID) {
+        if (!storage.getStorageDescriptor().isReadCache()
+                || !getArchiveDeviceExtension().isStorageReadCachePrefetchStudy()
+                || !readCache.isEnabled()
+                || readCache.isCached(location.getStorageID(), location.getStoragePath()))
+            return;
+
+        Long studyPk = null;
+        for (StudyInfo studyInfo : ctx.getStudyInfos())
+            if (studyInfo.getStudyInstanceUID().equals(studyInstanceUID))
+                studyPk = studyInfo.getStudyPk();
+
+        if (studyPk == null || !readCache.beginPrefetchStudy(studyInstanceUID))
+            return;
+
+        final Long pk = studyPk;
+        final String suid = studyInstanceUID;
+        device.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    prefetchStudy(pk, suid);
+                } finally {
+                    readCache.endPrefetchStudy(suid);
+                }
+            }
+        });
+    }
+
+    private void prefetchStudy(Long studyPk, String studyInstanceUID) {
+        ArchiveDeviceExtension arcDev = getArchiveDeviceExtension();
+        Map<String, Storage> storageMap = new HashMap<>();
+        try {
+            LOG.info("Start prefetching objects of Study[uid={}] to read cache", studyInstanceUID);
+            for (Location location : ejb.findLocationsOfStudy(studyPk)) {
+                if (location.getObjectType() != Location.ObjectType.DICOM_FILE
+                        || location.getStatus() != Location.Status.OK)
+                    continue;
+
+                String storageID = location.getStorageID();
+                Storage storage = storageMap.get(storageID);
+                if (storage == null) {
+                    StorageDescriptor descriptor = arcDev.getStorageDescriptor(storageID);
+                    if (descriptor == null || !descriptor.isReadCache())
+                        continue;
+                    storage = storageFactory.getStorage(descriptor);
+                    storageMap.put(storageID, storage);
+                }
+                readCache.fetch(storage, location.getStoragePath(), studyInstanceUID);
+            }
+            LOG.info("Finished prefetching objects of Study[uid={}] to read cache", studyInstanceUID);
+        } catch (Exception e) {
+            LOG.warn("Failed to prefetch objects of Study[uid={}] to read cache", studyInstanceUID, e);
+        } finally {
+            for (Storage storage : storageMap.values())
+                SafeClose.close(storage);
+        }
+    }
+
     private ReadContext createReadContext(Storage storage, String storagePath, String studyInstanceUID) {
         ReadContext readContext = storage.createReadContext();
         readContext.setStoragePath(storagePath);
@@ -916,13 +1244,15 @@ public class RetrieveServiceImpl implements RetrieveService {
     }
 
     private Storage getStorage(String storageID, RetrieveContext ctx) {
-        Storage storage = ctx.getStorage(storageID);
-        if (storage == null) {
-            ArchiveDeviceExtension arcDev = getArchiveDeviceExtension();
-            storage = storageFactory.getStorage(arcDev.getStorageDescriptorNotNull(storageID));
-            ctx.putStorage(storageID, storage);
+        synchronized (ctx) {
+            Storage storage = ctx.getStorage(storageID);
+            if (storage == null) {
+                ArchiveDeviceExtension arcDev = getArchiveDeviceExtension();
+                storage = storageFactory.getStorage(arcDev.getStorageDescriptorNotNull(storageID));
+                ctx.putStorage(storageID, storage);
+            }
+            return storage;
         }
-        return storage;
     }
 
     @Override
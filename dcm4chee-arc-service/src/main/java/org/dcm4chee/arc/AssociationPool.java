@@ -0,0 +1,249 @@
+/*
+ * *** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is part of dcm4che, an implementation of DICOM(TM) in
+ * Java(TM), hosted at https://github.com/gunterze/dcm4che.
+ *
+ * The Initial Developer of the Original Code is
+ * J4Care.
+ * Portions created by the Initial Developer are Copyright (C) 2017
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):
+ * See @authors listed below
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ *
+ * *** END LICENSE BLOCK *****
+ */
+
+
+package org.dcm4chee.arc;
+
+import org.dcm4che3.net.*;
+import org.dcm4che3.net.pdu.AAssociateAC;
+import org.dcm4che3.net.pdu.AAssociateRQ;
+import org.dcm4che3.net.pdu.ExtendedNegotiation;
+import org.dcm4che3.net.pdu.PresentationContext;
+import org.dcm4che3.net.pdu.RoleSelection;
+import org.dcm4chee.arc.conf.ArchiveDeviceExtension;
+import org.dcm4chee.arc.conf.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.*;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pool of idle outgoing Associations per local AE, Calling AE Title and remote AE. An idle Association is reused
+ * for a request, if all requested Presentation Contexts, Role Selections and Extended Negotiations were negotiated
+ * on it. Associations are only pooled if an Association Pool Idle Timeout is configured.
+ *
+ * @author Gunter Zeilinger <gunterze@gmail.com>
+ * @since Apr 2017
+ */
+@ApplicationScoped
+public class AssociationPool {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AssociationPool.class);
+
+    private static final String POOL_KEY = AssociationPool.class.getName();
+
+    @Inject
+    private Device device;
+
+    private final Map<String, Deque<IdleAssociation>> pool = new HashMap<>();
+
+    private final AssociationListener onClose = new AssociationListener() {
+        @Override
+        public void onClose(Association as) {
+            removeIdle((String) as.getProperty(POOL_KEY), as);
+        }
+    };
+
+    /**
+     * Returns a compatible idle Association from the pool or opens a new one.
+     */
+    public Association open(ApplicationEntity localAE, ApplicationEntity remoteAE, AAssociateRQ aarq)
+            throws IOException, InterruptedException, IncompatibleConnectionException, GeneralSecurityException {
+        if (idleTimeout() == null)
+            return localAE.connect(remoteAE, aarq);
+
+        String key = localAE.getAETitle() + '\\' + aarq.getCallingAET() + '\\' + remoteAE.getAETitle();
+        Association as = takeIdle(key, aarq);
+        if (as != null) {
+            LOG.debug("{}: reuse pooled association", as);
+            return as;
+        }
+        as = localAE.connect(remoteAE, aarq);
+        as.setProperty(POOL_KEY, key);
+        as.addAssociationListener(onClose);
+        return as;
+    }
+
+    /**
+     * Returns an Association opened by {@link #open} to the pool, or releases it, if it was not opened by the pool,
+     * is not ready for data transfer or the maximal number of idle Associations is reached.
+     */
+    public void release(Association as) throws IOException {
+        String key = (String) as.getProperty(POOL_KEY);
+        if (key == null || !as.isReadyForDataTransfer() || !addIdle(key, as))
+            as.release();
+    }
+
+    @PreDestroy
+    public void releaseAll() {
+        List<IdleAssociation> idles = new ArrayList<>();
+        synchronized (pool) {
+            for (Deque<IdleAssociation> deque : pool.values())
+                idles.addAll(deque);
+            pool.clear();
+        }
+        for (IdleAssociation idle : idles)
+            idle.release();
+    }
+
+    private Duration idleTimeout() {
+        return device.getDeviceExtension(ArchiveDeviceExtension.class).getAssociationPoolIdleTimeout();
+    }
+
+    private boolean addIdle(String key, Association as) {
+        Duration idleTimeout = idleTimeout();
+        if (idleTimeout == null)
+            return false;
+
+        int maxIdle = device.getDeviceExtension(ArchiveDeviceExtension.class).getAssociationPoolSize();
+        IdleAssociation idle = new IdleAssociation(key, as);
+        synchronized (pool) {
+            Deque<IdleAssociation> deque = pool.get(key);
+            if (deque == null)
+                pool.put(key, deque = new ArrayDeque<>());
+            else if (deque.size() >= maxIdle)
+                return false;
+            deque.addFirst(idle);
+            idle.expire = device.schedule(idle, idleTimeout.getSeconds(), TimeUnit.SECONDS);
+        }
+        return true;
+    }
+
+    private Association takeIdle(String key, AAssociateRQ aarq) {
+        synchronized (pool) {
+            Deque<IdleAssociation> deque = pool.get(key);
+            if (deque == null)
+                return null;
+
+            try {
+                for (Iterator<IdleAssociation> iter = deque.iterator(); iter.hasNext();) {
+                    IdleAssociation idle = iter.next();
+                    if (!idle.as.isReadyForDataTransfer()) {
+                        iter.remove();
+                        idle.expire.cancel(false);
+                    } else if (isCompatible(idle.as, aarq)) {
+                        iter.remove();
+                        idle.expire.cancel(false);
+                        return idle.as;
+                    }
+                }
+                return null;
+            } finally {
+                if (deque.isEmpty())
+                    pool.remove(key);
+            }
+        }
+    }
+
+    private boolean removeIdle(String key, Association as) {
+        synchronized (pool) {
+            Deque<IdleAssociation> deque = pool.get(key);
+            if (deque == null)
+                return false;
+
+            for (Iterator<IdleAssociation> iter = deque.iterator(); iter.hasNext();) {
+                IdleAssociation idle = iter.next();
+                if (idle.as == as) {
+                    iter.remove();
+                    idle.expire.cancel(false);
+                    if (deque.isEmpty())
+                        pool.remove(key);
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static boolean isCompatible(Association as, AAssociateRQ aarq) {
+        for (PresentationContext pc : aarq.getPresentationContexts()) {
+            Set<String> tsuids = as.getTransferSyntaxesFor(pc.getAbstractSyntax());
+            if (Collections.disjoint(tsuids, Arrays.asList(pc.getTransferSyntaxes())))
+                return false;
+        }
+        AAssociateAC accepted = as.getAAssociateAC();
+        for (RoleSelection rs : aarq.getRoleSelections()) {
+            RoleSelection pooledRS = accepted.getRoleSelectionFor(rs.getSOPClassUID());
+            if (pooledRS == null || pooledRS.isSCU() != rs.isSCU() || pooledRS.isSCP() != rs.isSCP())
+                return false;
+        }
+        for (ExtendedNegotiation extNeg : aarq.getExtendedNegotiations()) {
+            ExtendedNegotiation pooledExtNeg = accepted.getExtNegotiationFor(extNeg.getSOPClassUID());
+            if (pooledExtNeg == null || !Arrays.equals(pooledExtNeg.getInformation(), extNeg.getInformation()))
+                return false;
+        }
+        return true;
+    }
+
+    private final class IdleAssociation implements Runnable {
+        final String key;
+        final Association as;
+        ScheduledFuture<?> expire;
+
+        IdleAssociation(String key, Association as) {
+            this.key = key;
+            this.as = as;
+        }
+
+        @Override
+        public void run() {
+            if (removeIdle(key, as)) {
+                LOG.debug("{}: release idle pooled association", as);
+                release();
+            }
+        }
+
+        void release() {
+            expire.cancel(false);
+            try {
+                as.release();
+            } catch (IOException e) {
+                LOG.info("{}: Failed to release association to {}", as, as.getRemoteAET());
+            }
+        }
+    }
+}
@@ -40,16 +40,31 @@
 
 package org.dcm4chee.arc;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
+ * Thread-safe, size bounded LRU cache with per-entry stale timeout.
+ * <p>
+ * Entries are spread over lock-striped segments, each maintaining its own access ordered map, so concurrent
+ * lookups of different keys do not contend on one lock. The maximal number of entries is split between the
+ * segments. Stale entries are removed on access of the entry and by a sweep over all entries of the segment on
+ * insertion of new entries, performed at most once per quarter of the stale timeout and only if an entry may have
+ * become stale since the last sweep. Concurrent misses on the same key passed to {@link #getEntry(Object, Loader)}
+ * are resolved by one invocation of the loader.
+ *
  * @author Gunter Zeilinger <gunterze@gmail.com>
  * @since May 2016
  */
 public class Cache<K,V> {
 
+    private static final int SEGMENTS = 16;
+
     public static final class Entry<V> {
         final V value;
         final long fetchTime;
@@ -62,32 +77,116 @@ public class Cache<K,V> {
         }
     }
 
-    private int maxSize;
-    private long staleTimeout;
+    public interface Loader<K,V,E extends Exception> {
+        V load(K key) throws E;
+    }
+
+    private static final class Loading<V> {
+        final CountDownLatch done = new CountDownLatch(1);
+        volatile Entry<V> entry;
+    }
+
+    private final class Segment extends LinkedHashMap<K,Cache.Entry<V>> {
+        int maxSize;
+        long nextStaleSweep;
+
+        Segment() {
+            super(16, 0.75f, true);
+        }
 
-    private final LinkedHashMap<K,Entry<V>> cache = new LinkedHashMap<K,Entry<V>>(){
         @Override
         protected boolean removeEldestEntry(Map.Entry<K, Cache.Entry<V>> eldest) {
-            return maxSize > 0 && size() > maxSize;
+            if (maxSize > 0 && size() > maxSize) {
+                evictions.increment();
+                return true;
+            }
+            return false;
         }
-    };
 
-    public int getMaxSize() {
-        return maxSize;
-    }
+        void removeStaleEntries(long now, long staleTimeout) {
+            if (now < nextStaleSweep)
+                return;
+
+            long minFetchTime = now - staleTimeout;
+            long oldestFetchTime = now;
+            for (Iterator<Cache.Entry<V>> iter = values().iterator(); iter.hasNext();) {
+                long fetchTime = iter.next().fetchTime;
+                if (fetchTime <= minFetchTime) {
+                    iter.remove();
+                    evictions.increment();
+                } else if (fetchTime < oldestFetchTime) {
+                    oldestFetchTime = fetchTime;
+                }
+            }
+            nextStaleSweep = Math.max(oldestFetchTime + staleTimeout, now + staleTimeout / 4);
+        }
 
-    public void setMaxSize(int maxSize) {
-        if (maxSize > 0) {
-            int remove = cache.size() - maxSize;
+        void trimToSize(int maxSize) {
+            int remove = size() - maxSize;
             if (remove > 0) {
-                Iterator<Map.Entry<K, Entry<V>>> iter = cache.entrySet().iterator();
+                Iterator<Cache.Entry<V>> iter = values().iterator();
                 do {
                     iter.next();
                     iter.remove();
+                    evictions.increment();
                 } while (--remove > 0);
             }
         }
+    }
+
+    private final ArrayList<Segment> segments = new ArrayList<>(SEGMENTS);
+    private final ConcurrentHashMap<K,Loading<V>> loading = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadTime = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private volatile int maxSize;
+    private volatile int segmentMask = SEGMENTS - 1;
+    private volatile long staleTimeout;
+
+    public Cache() {
+        for (int i = 0; i < SEGMENTS; i++)
+            segments.add(new Segment());
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Sets the maximal number of entries. The number of used segments is limited to the highest power of two
+     * not exceeding the maximal number of entries, which is distributed over the used segments.
+     */
+    public synchronized void setMaxSize(int maxSize) {
+        int numSegments = maxSize > 0 ? Math.min(SEGMENTS, Integer.highestOneBit(maxSize)) : SEGMENTS;
         this.maxSize = maxSize;
+        this.segmentMask = numSegments - 1;
+        ArrayList<Map.Entry<K,Entry<V>>> moved = new ArrayList<>();
+        for (int i = 0; i < SEGMENTS; i++) {
+            Segment segment = segments.get(i);
+            synchronized (segment) {
+                segment.maxSize = maxSize > 0 && i < numSegments
+                        ? maxSize / numSegments + (i < maxSize % numSegments ? 1 : 0)
+                        : 0;
+                Iterator<Map.Entry<K,Entry<V>>> iter = segment.entrySet().iterator();
+                while (iter.hasNext()) {
+                    Map.Entry<K,Entry<V>> entry = iter.next();
+                    if (segmentFor(entry.getKey()) != segment) {
+                        moved.add(entry);
+                        iter.remove();
+                    }
+                }
+                if (segment.maxSize > 0)
+                    segment.trimToSize(segment.maxSize);
+            }
+        }
+        for (Map.Entry<K,Entry<V>> entry : moved) {
+            Segment segment = segmentFor(entry.getKey());
+            synchronized (segment) {
+                segment.putIfAbsent(entry.getKey(), entry.getValue());
+            }
+        }
     }
 
     public long getStaleTimeout() {
@@ -99,14 +198,38 @@ public class Cache<K,V> {
     }
 
     public Entry<V> getEntry(K key) {
-        if (staleTimeout <= 0)
-            return cache.get(key);
+        Entry<V> entry = getEntry0(key);
+        if (entry != null)
+            hits.increment();
+        else
+            misses.increment();
+        return entry;
+    }
 
-        long minFetchTime = System.currentTimeMillis() - staleTimeout;
-        for (Iterator<Entry<V>> iter = cache.values().iterator(); iter.hasNext(); iter.remove())
-            if (iter.next().fetchTime > minFetchTime)
-                return cache.get(key);
-        return null;
+    /**
+     * Returns the cached entry for the key, or invokes the loader to fetch the value, if there is no such entry.
+     * Concurrent invocations for the same key wait for the completion of the first loader, and only retry
+     * loading if that loader failed.
+     */
+    public <E extends Exception> Entry<V> getEntry(K key, Loader<K,V,E> loader) throws E {
+        Entry<V> entry = getEntry(key);
+        while (entry == null) {
+            Loading<V> newLoading = new Loading<>();
+            Loading<V> prevLoading = loading.putIfAbsent(key, newLoading);
+            if (prevLoading == null) {
+                try {
+                    entry = load(key, loader);
+                    newLoading.entry = entry;
+                } finally {
+                    loading.remove(key, newLoading);
+                    newLoading.done.countDown();
+                }
+            } else {
+                awaitUninterruptibly(prevLoading.done);
+                entry = prevLoading.entry;
+            }
+        }
+        return entry;
     }
 
     public V get(K key) {
@@ -115,16 +238,122 @@ public class Cache<K,V> {
     }
 
     public V put(K key, V value) {
-        Entry<V> entry = cache.put(key, new Entry<V>(value, System.currentTimeMillis()));
+        Entry<V> entry = put0(key, new Entry<V>(value, System.currentTimeMillis()));
         return entry != null ? entry.value : null;
     }
 
     public V remove(K key) {
-        Entry<V> entry = cache.remove(key);
+        Segment segment = segmentFor(key);
+        Entry<V> entry;
+        synchronized (segment) {
+            entry = segment.remove(key);
+        }
         return entry != null ? entry.value : null;
     }
 
     public void clear() {
-        cache.clear();
+        for (Segment segment : segments)
+            synchronized (segment) {
+                segment.clear();
+            }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments)
+            synchronized (segment) {
+                size += segment.size();
+            }
+        return size;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getLoads() {
+        return loads.sum();
+    }
+
+    public long getLoadTimeNanos() {
+        return loadTime.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    private Entry<V> getEntry0(K key) {
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            Entry<V> entry = segment.get(key);
+            if (entry == null || !isStale(entry))
+                return entry;
+
+            segment.remove(key);
+            evictions.increment();
+            return null;
+        }
+    }
+
+    private Entry<V> put0(K key, Entry<V> entry) {
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            long staleTimeout = this.staleTimeout;
+            if (staleTimeout > 0)
+                segment.removeStaleEntries(entry.fetchTime, staleTimeout);
+            return segment.put(key, entry);
+        }
+    }
+
+    private <E extends Exception> Entry<V> load(K key, Loader<K,V,E> loader) throws E {
+        long start = System.nanoTime();
+        V value = loader.load(key);
+        loads.increment();
+        loadTime.add(System.nanoTime() - start);
+        Entry<V> entry = new Entry<>(value, System.currentTimeMillis());
+        put0(key, entry);
+        return entry;
+    }
+
+    private boolean isStale(Entry<V> entry) {
+        long staleTimeout = this.staleTimeout;
+        return staleTimeout > 0 && entry.fetchTime <= System.currentTimeMillis() - staleTimeout;
+    }
+
+    private Segment segmentFor(K key) {
+        int h = key != null ? key.hashCode() : 0;
+        h ^= (h >>> 16);
+        return segments.get(h & segmentMask);
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[size=" + size()
+                + ", maxSize=" + maxSize
+                + ", hits=" + getHits()
+                + ", misses=" + getMisses()
+                + ", loads=" + getLoads()
+                + ", loadTime=" + getLoadTimeNanos() / 1000000L + "ms"
+                + ", evictions=" + getEvictions()
+                + ']';
     }
 }
@@ -40,25 +40,37 @@
 
 package org.dcm4chee.arc;
 
+import org.dcm4che3.net.Device;
+import org.dcm4chee.arc.conf.ArchiveDeviceExtension;
 import org.dcm4chee.arc.conf.Duration;
 
 import javax.annotation.Resource;
 import javax.enterprise.concurrent.ManagedScheduledExecutorService;
+import javax.inject.Inject;
+import java.lang.management.ManagementFactory;
 import java.time.LocalTime;
 import java.time.temporal.ChronoUnit;
 import java.time.temporal.TemporalUnit;
 import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
 /**
+ * If a Scheduler Lease Duration is configured, each execution - or each partition of an execution - is guarded by a
+ * {@link org.dcm4chee.arc.entity.SchedulerLease} in the database, so several archive nodes do not execute the same
+ * scheduler or the same partition of it concurrently. The lease is renewed periodically until the execution
+ * completes.
+ *
  * @author Gunter Zeilinger <gunterze@gmail.com>
  * @since Nov 2015
  */
 public abstract class Scheduler implements Runnable {
 
     private static final int SECONDS_PER_DAY = 3600 * 24;
+    private static final String NODE_NAME = System.getProperty("jboss.node.name",
+            ManagementFactory.getRuntimeMXBean().getName());
 
     private final Mode mode;
     volatile private long pollingIntervalInSeconds;
@@ -68,6 +80,12 @@ public abstract class Scheduler implements Runnable {
     @Resource
     private ManagedScheduledExecutorService scheduledExecutor;
 
+    @Inject
+    private Device device;
+
+    @Inject
+    private SchedulerLeaseEJB leaseEJB;
+
     protected Scheduler(Mode mode) {
         this.mode = mode;
     }
@@ -75,12 +93,107 @@ public abstract class Scheduler implements Runnable {
     @Override
     public void run() {
         try {
-            execute();
+            Duration leaseDuration = isClusterExclusive()
+                    ? device.getDeviceExtension(ArchiveDeviceExtension.class).getSchedulerLeaseDuration()
+                    : null;
+            int partitions = getPartitions();
+            if (partitions > 1)
+                executePartitions(partitions, leaseDuration);
+            else
+                executePartition(0, 1, leaseDuration);
         } catch (Throwable e) {
             log().warn("execute throws Exception", e);
         }
     }
 
+    private void executePartitions(final int partitions, final Duration leaseDuration) throws InterruptedException {
+        final CountDownLatch done = new CountDownLatch(partitions - 1);
+        for (int i = 1; i < partitions; i++) {
+            final int partition = i;
+            device.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        executePartition(partition, partitions, leaseDuration);
+                    } catch (Throwable e) {
+                        log().warn("execute partition {} of {} throws Exception", partition, partitions, e);
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            });
+        }
+        try {
+            executePartition(0, partitions, leaseDuration);
+        } finally {
+            done.await();
+        }
+    }
+
+    private void executePartition(int partition, int partitions, Duration leaseDuration) {
+        if (leaseDuration == null) {
+            execute(partition, partitions);
+            return;
+        }
+        final String leaseName = leaseName(partition);
+        if (!claimLease(leaseName, leaseDuration))
+            return;
+
+        ScheduledFuture<?> renewal = scheduleRenewLease(leaseName, leaseDuration);
+        try {
+            execute(partition, partitions);
+        } finally {
+            renewal.cancel(false);
+            try {
+                leaseEJB.release(leaseName, NODE_NAME);
+            } catch (Exception e) {
+                log().warn("Failed to release lease {}", leaseName, e);
+            }
+        }
+    }
+
+    private boolean claimLease(String leaseName, Duration leaseDuration) {
+        try {
+            if (leaseEJB.claim(leaseName, NODE_NAME, leaseDuration))
+                return true;
+        } catch (Exception e) {
+            log().debug("Failed to claim lease {}", leaseName, e);
+            return false;
+        }
+        log().debug("Lease {} held by other node", leaseName);
+        return false;
+    }
+
+    /**
+     * Renews the lease after every third of the lease duration, so it does not expire during long executions.
+     */
+    private ScheduledFuture<?> scheduleRenewLease(final String leaseName, final Duration leaseDuration) {
+        long period = Math.max(1L, leaseDuration.getSeconds() / 3);
+        return scheduledExecutor.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                renewLease(leaseName, leaseDuration);
+            }
+        }, period, period, TimeUnit.SECONDS);
+    }
+
+    private void renewLease(String leaseName, Duration leaseDuration) {
+        try {
+            if (leaseEJB.claim(leaseName, NODE_NAME, leaseDuration))
+                return;
+
+            log().warn("Failed to renew lease {} - claimed by other node", leaseName);
+        } catch (Exception e) {
+            log().warn("Failed to renew lease {}", leaseName, e);
+        }
+    }
+
+    private String leaseName(int partition) {
+        String className = getClass().getSimpleName();
+        int proxySuffix = className.indexOf('$');
+        return (proxySuffix > 0 ? className.substring(0, proxySuffix) : className) + '#' + partition;
+    }
+
     public void start() {
         Duration pollingInterval = getPollingInterval();
         if (pollingInterval != null) {
@@ -114,6 +227,30 @@ public abstract class Scheduler implements Runnable {
 
     protected abstract void execute();
 
+    /**
+     * Returns the number of partitions of the work, which are executed concurrently by
+     * {@link #execute(int, int)}.
+     */
+    protected int getPartitions() {
+        return 1;
+    }
+
+    /**
+     * Executes one partition of the work. The default implementation invokes {@link #execute()}, so subclasses
+     * which override {@link #getPartitions()} have to override this method too.
+     */
+    protected void execute(int partition, int partitions) {
+        execute();
+    }
+
+    /**
+     * Returns if executions shall be guarded by leases in the database. Schedulers processing resources local to
+     * one archive node shall return {@code false}.
+     */
+    protected boolean isClusterExclusive() {
+        return true;
+    }
+
     protected LocalTime getStartTime() {
         return null;
     }
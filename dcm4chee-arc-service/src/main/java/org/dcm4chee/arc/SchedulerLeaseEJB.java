@@ -0,0 +1,104 @@
+/*
+ * *** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is part of dcm4che, an implementation of DICOM(TM) in
+ * Java(TM), hosted at https://github.com/gunterze/dcm4che.
+ *
+ * The Initial Developer of the Original Code is
+ * J4Care.
+ * Portions created by the Initial Developer are Copyright (C) 2017
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):
+ * See @authors listed below
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ *
+ * *** END LICENSE BLOCK *****
+ */
+
+
+package org.dcm4chee.arc;
+
+import org.dcm4chee.arc.conf.Duration;
+import org.dcm4chee.arc.entity.SchedulerLease;
+
+import javax.ejb.Stateless;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.Date;
+
+/**
+ * Claims and releases {@link SchedulerLease}s in separate transactions.
+ *
+ * @author Gunter Zeilinger <gunterze@gmail.com>
+ * @since Apr 2017
+ */
+@Stateless
+public class SchedulerLeaseEJB {
+
+    @PersistenceContext(unitName="dcm4chee-arc")
+    private EntityManager em;
+
+    /**
+     * Claims or renews the lease with the specified name for the specified node, if it is not held by another
+     * node or if it expired. Throws a system exception, if another node created the lease concurrently.
+     *
+     * @return {@code true} if the lease was claimed, {@code false} if it is held by another node
+     */
+    @TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+    public boolean claim(String name, String nodeName, Duration leaseDuration) {
+        Date now = new Date();
+        Date expirationTime = new Date(now.getTime() + leaseDuration.getSeconds() * 1000L);
+        if (em.createNamedQuery(SchedulerLease.CLAIM)
+                .setParameter(1, name)
+                .setParameter(2, nodeName)
+                .setParameter(3, expirationTime)
+                .setParameter(4, now)
+                .executeUpdate() > 0)
+            return true;
+
+        if (em.find(SchedulerLease.class, name) != null)
+            return false;
+
+        SchedulerLease lease = new SchedulerLease();
+        lease.setName(name);
+        lease.setNodeName(nodeName);
+        lease.setExpirationTime(expirationTime);
+        em.persist(lease);
+        em.flush();
+        return true;
+    }
+
+    @TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+    public void release(String name, String nodeName) {
+        em.createNamedQuery(SchedulerLease.RELEASE)
+                .setParameter(1, name)
+                .setParameter(2, nodeName)
+                .setParameter(3, new Date())
+                .executeUpdate();
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * *** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is part of dcm4che, an implementation of DICOM(TM) in
+ * Java(TM), hosted at https://github.com/gunterze/dcm4che.
+ *
+ * The Initial Developer of the Original Code is
+ * J4Care.
+ * Portions created by the Initial Developer are Copyright (C) 2017
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):
+ * See @authors listed below
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ *
+ * *** END LICENSE BLOCK *****
+ */
+
+
+package org.dcm4chee.arc.metrics;
+
+/**
+ * Timed operations, labeled by the local AE Title or by the Storage ID.
+ *
+ * @author Gunter Zeilinger <gunterze@gmail.com>
+ * @since Apr 2017
+ */
+public enum Metric {
+    STORE_RECEIVE("store_receive", "aet",
+            "Parsing of received objects, including writing to the Storage"),
+    STORE_TRANSCODE("store_transcode", "aet",
+            "Transcoding of received objects, which shall be compressed or were received deflated"),
+    STORE_COERCE("store_coerce", "aet",
+            "Coercion of attributes of received objects"),
+    STORE_UPDATE_DB("store_update_db", "aet",
+            "Update of the database for received objects, including retries"),
+    STORAGE_WRITE("storage_write", "storage",
+            "Writing of objects to the Storage, measured from opening to closing the output stream"),
+    STORAGE_OPEN("storage_open", "storage",
+            "Opening of objects on the Storage for retrieval"),
+    RETRIEVE_CALCULATE_MATCHES("retrieve_calculate_matches", "aet",
+            "Query for instances to retrieve"),
+    RETRIEVE_TRANSCODE("retrieve_transcode", "aet",
+            "Transcoding of retrieved objects, including writing to the destination"),
+    QUERY_EXECUTE("query_execute", "aet",
+            "Execution of database queries for C-FIND and QIDO-RS requests");
+
+    private final String name;
+    private final String labelName;
+    private final String description;
+
+    Metric(String name, String labelName, String description) {
+        this.name = name;
+        this.labelName = labelName;
+        this.description = description;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getLabelName() {
+        return labelName;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
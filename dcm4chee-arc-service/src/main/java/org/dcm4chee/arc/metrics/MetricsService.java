@@ -0,0 +1,88 @@
+/*
+ * *** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is part of dcm4che, an implementation of DICOM(TM) in
+ * Java(TM), hosted at https://github.com/gunterze/dcm4che.
+ *
+ * The Initial Developer of the Original Code is
+ * J4Care.
+ * Portions created by the Initial Developer are Copyright (C) 2017
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):
+ * See @authors listed below
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ *
+ * *** END LICENSE BLOCK *****
+ */
+
+
+package org.dcm4chee.arc.metrics;
+
+import javax.enterprise.context.ApplicationScoped;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Records durations of {@link Metric}s in microseconds, in one {@link Histogram} per metric and label value.
+ *
+ * @author Gunter Zeilinger <gunterze@gmail.com>
+ * @since Apr 2017
+ */
+@ApplicationScoped
+public class MetricsService {
+
+    private final EnumMap<Metric, ConcurrentMap<String, Histogram>> histograms = new EnumMap<>(Metric.class);
+
+    public MetricsService() {
+        for (Metric metric : Metric.values())
+            histograms.put(metric, new ConcurrentHashMap<String, Histogram>());
+    }
+
+    /**
+     * Records the time elapsed since {@code startNanos}, as returned by {@link System#nanoTime()}.
+     */
+    public void recordSince(Metric metric, String label, long startNanos) {
+        histogram(metric, label).record((System.nanoTime() - startNanos) / 1000L);
+    }
+
+    public Histogram histogram(Metric metric, String label) {
+        ConcurrentMap<String, Histogram> byLabel = histograms.get(metric);
+        String key = label != null ? label : "";
+        Histogram histogram = byLabel.get(key);
+        if (histogram == null) {
+            Histogram prev = byLabel.putIfAbsent(key, histogram = new Histogram());
+            if (prev != null)
+                histogram = prev;
+        }
+        return histogram;
+    }
+
+    public Map<String, Histogram> histograms(Metric metric) {
+        return histograms.get(metric);
+    }
+}
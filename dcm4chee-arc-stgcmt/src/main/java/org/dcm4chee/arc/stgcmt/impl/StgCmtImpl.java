@@ -54,6 +54,7 @@ import org.dcm4che3.net.service.AbstractDicomService;
 import org.dcm4che3.net.service.DicomService;
 import org.dcm4che3.net.service.DicomServiceException;
 import org.dcm4che3.util.TagUtils;
+import org.dcm4chee.arc.AssociationPool;
 import org.dcm4chee.arc.conf.ExporterDescriptor;
 import org.dcm4chee.arc.entity.QueueMessage;
 import org.dcm4chee.arc.entity.StgCmtResult;
@@ -95,6 +96,9 @@ class StgCmtImpl extends AbstractDicomService implements StgCmtSCP, StgCmtSCU {
     @Inject
     private IApplicationEntityCache aeCache;
 
+    @Inject
+    private AssociationPool associationPool;
+
     @Inject
     private QueryService queryService;
 
@@ -210,7 +214,7 @@ class StgCmtImpl extends AbstractDicomService implements StgCmtSCP, StgCmtSCU {
         ApplicationEntity localAE = device.getApplicationEntity(localAET, true);
         ApplicationEntity remoteAE = aeCache.findApplicationEntity(remoteAET);
         AAssociateRQ aarq = mkAAssociateRQ(localAE, localAET, TransferCapability.Role.SCU);
-        Association as = localAE.connect(remoteAE, aarq);
+        Association as = associationPool.open(localAE, remoteAE, aarq);
         try {
             StgCmtResult result = new StgCmtResult();
             result.setStgCmtRequest(actionInfo);
@@ -241,7 +245,7 @@ class StgCmtImpl extends AbstractDicomService implements StgCmtSCP, StgCmtSCU {
         }
         finally {
             try {
-                as.release();
+                associationPool.release(as);
             } catch (IOException e) {
                 LOG.info("{}: Failed to release association to {}", as, remoteAET);
             }
@@ -254,7 +258,7 @@ class StgCmtImpl extends AbstractDicomService implements StgCmtSCP, StgCmtSCU {
             ApplicationEntity localAE = device.getApplicationEntity(localAET, true);
             ApplicationEntity remoteAE = aeCache.findApplicationEntity(remoteAET);
             AAssociateRQ aarq = mkAAssociateRQ(localAE, localAET, TransferCapability.Role.SCP);
-            Association as = localAE.connect(remoteAE, aarq);
+            Association as = associationPool.open(localAE, remoteAE, aarq);
             try {
                 int successful = sequenceSizeOf(eventInfo, Tag.ReferencedSOPSequence);
                 int failed = sequenceSizeOf(eventInfo, Tag.FailedSOPSequence);
@@ -268,7 +272,7 @@ class StgCmtImpl extends AbstractDicomService implements StgCmtSCP, StgCmtSCU {
                                 + "] to AE: " + remoteAET);
             } finally {
                 try {
-                    as.release();
+                    associationPool.release(as);
                 } catch (IOException e) {
                     LOG.info("{}: Failed to release association to {}", as, remoteAET);
                 }
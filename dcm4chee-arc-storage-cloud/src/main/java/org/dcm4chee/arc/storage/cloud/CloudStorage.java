@@ -44,22 +44,27 @@ import org.dcm4che3.net.Device;
 import org.dcm4che3.util.AttributesFormat;
 import org.dcm4chee.arc.conf.StorageDescriptor;
 import org.dcm4chee.arc.storage.AbstractStorage;
+import org.dcm4chee.arc.storage.MultipartUpload;
 import org.dcm4chee.arc.storage.ReadContext;
 import org.dcm4chee.arc.storage.WriteContext;
 import org.jclouds.ContextBuilder;
 import org.jclouds.blobstore.BlobStore;
 import org.jclouds.blobstore.BlobStoreContext;
 import org.jclouds.blobstore.domain.Blob;
+import org.jclouds.blobstore.options.GetOptions;
 import org.jclouds.io.Payload;
 import org.jclouds.io.payloads.InputStreamPayload;
 import org.jclouds.logging.slf4j.config.SLF4JLoggingModule;
 
 import java.io.*;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.ThreadLocalRandom;
 
@@ -85,7 +90,7 @@ public class CloudStorage extends AbstractStorage {
     private final String container;
     private final BlobStoreContext context;
     private final Uploader uploader;
-    private int count;
+    private boolean containerExists;
 
     @Override
     public WriteContext createWriteContext() {
@@ -97,7 +102,7 @@ public class CloudStorage extends AbstractStorage {
         this.device = device;
         pathFormat = new AttributesFormat(descriptor.getProperty("pathFormat", DEFAULT_PATH_FORMAT));
         container = descriptor.getProperty("container", DEFAULT_CONTAINER);
-        if (Boolean.parseBoolean(descriptor.getProperty("containerExists", null))) count++;
+        containerExists = Boolean.parseBoolean(descriptor.getProperty("containerExists", null));
         String api = descriptor.getStorageURI().getSchemeSpecificPart();
         String endpoint = null;
         int endApi = api.indexOf(':');
@@ -105,7 +110,10 @@ public class CloudStorage extends AbstractStorage {
             endpoint = api.substring(endApi + 1);
             api = api.substring(0, endApi);
         }
-        this.uploader = api.endsWith("s3") ? new S3Uploader() : DEFAULT_UPLOADER;
+        this.uploader = api.endsWith("s3")
+                ? new S3Uploader(executor(device), MultipartUpload.createBufferPool(descriptor),
+                        MultipartUpload.concurrencyOf(descriptor))
+                : DEFAULT_UPLOADER;
         ContextBuilder ctxBuilder = ContextBuilder.newBuilder(api);
         String identity = descriptor.getProperty("identity", null);
         if (identity != null)
@@ -126,7 +134,7 @@ public class CloudStorage extends AbstractStorage {
     @Override
     protected OutputStream openOutputStreamA(final WriteContext ctx) throws IOException {
         final PipedInputStream in = new PipedInputStream();
-        FutureTask<Void> task = new FutureTask<>(new Callable<Void>() {
+        UploadTask task = new UploadTask(new Callable<Void>() {
             @Override
             public Void call() throws Exception {
                 try {
@@ -137,11 +145,63 @@ public class CloudStorage extends AbstractStorage {
                 return null;
             }
         });
-        ((CloudWriteContext) ctx).setUploadTask(task);
         device.execute(task);
+        ((CloudWriteContext) ctx).setUploadTask(task);
         return new PipedOutputStream(in);
     }
 
+    private static Executor executor(final Device device) {
+        return new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                device.execute(command);
+            }
+        };
+    }
+
+    @Override
+    public void revokeStorage(WriteContext ctx) throws IOException {
+        UploadTask task = (UploadTask) ((CloudWriteContext) ctx).getUploadTask();
+        if (task != null) {
+            task.cancel(true);
+            task.awaitTermination();
+            if (ctx.getStoragePath() == null)
+                return;
+        }
+        super.revokeStorage(ctx);
+    }
+
+    private static final class UploadTask extends FutureTask<Void> {
+        private final CountDownLatch terminated = new CountDownLatch(1);
+
+        UploadTask(Callable<Void> callable) {
+            super(callable);
+        }
+
+        @Override
+        public void run() {
+            try {
+                super.run();
+            } finally {
+                terminated.countDown();
+            }
+        }
+
+        void awaitTermination() {
+            boolean interrupted = false;
+            for (;;) {
+                try {
+                    terminated.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+    }
+
     @Override
     protected void afterOutputStreamClosed(WriteContext ctx) throws IOException {
         FutureTask<Void> task = ((CloudWriteContext) ctx).getUploadTask();
@@ -160,9 +220,7 @@ public class CloudStorage extends AbstractStorage {
     private void upload(WriteContext ctx, InputStream in) throws IOException {
         BlobStore blobStore = context.getBlobStore();
         String storagePath = pathFormat.format(ctx.getAttributes());
-        if (count++ == 0 && !blobStore.containerExists(container))
-            blobStore.createContainerInLocation(null, container);
-        else {
+        if (!createContainerIfNotExists(blobStore)) {
             while (blobStore.blobExists(container, storagePath))
                 storagePath = storagePath.substring(0, storagePath.lastIndexOf('/') + 1)
                         .concat(String.format("%08X", ThreadLocalRandom.current().nextInt()));
@@ -180,6 +238,16 @@ public class CloudStorage extends AbstractStorage {
         return blob.getPayload().openStream();
     }
 
+    @Override
+    protected InputStream openInputStreamA(ReadContext ctx, long offset, long length) throws IOException {
+        BlobStore blobStore = context.getBlobStore();
+        Blob blob = blobStore.getBlob(container, ctx.getStoragePath(),
+                GetOptions.Builder.range(offset, offset + length - 1));
+        if (blob == null)
+            throw objectNotFound(ctx.getStoragePath());
+        return blob.getPayload().openStream();
+    }
+
     @Override
     public void deleteObject(String storagePath) throws IOException {
         BlobStore blobStore = context.getBlobStore();
@@ -188,6 +256,28 @@ public class CloudStorage extends AbstractStorage {
         blobStore.removeBlob(container, storagePath);
     }
 
+    @Override
+    public Map<String, IOException> deleteObjects(Collection<String> storagePaths) {
+        try {
+            context.getBlobStore().removeBlobs(container, storagePaths);
+            return Collections.emptyMap();
+        } catch (RuntimeException e) {
+            // determine which objects could not be deleted
+            return super.deleteObjects(storagePaths);
+        }
+    }
+
+    private synchronized boolean createContainerIfNotExists(BlobStore blobStore) {
+        if (containerExists)
+            return false;
+
+        boolean create = !blobStore.containerExists(container);
+        if (create)
+            blobStore.createContainerInLocation(null, container);
+        containerExists = true;
+        return create;
+    }
+
     private IOException objectNotFound(String storagePath) {
         return new IOException("No Object[" + storagePath
                 + "] in Container[" + container
@@ -40,7 +40,8 @@
 
 package org.dcm4chee.arc.storage.cloud;
 
-import org.dcm4chee.arc.storage.CacheInputStream;
+import org.dcm4chee.arc.storage.BufferPool;
+import org.dcm4chee.arc.storage.MultipartUpload;
 import org.jclouds.blobstore.BlobStore;
 import org.jclouds.blobstore.BlobStoreContext;
 import org.jclouds.blobstore.domain.Blob;
@@ -49,51 +50,69 @@ import org.jclouds.io.payloads.InputStreamPayload;
 import org.jclouds.s3.S3Client;
 import org.jclouds.s3.domain.ObjectMetadataBuilder;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.Executor;
 
 /**
  * @author Gunter Zeilinger <gunterze@gmail.com>
  * @since Oct 2015
  */
-class S3Uploader extends CacheInputStream implements Uploader {
+class S3Uploader implements Uploader {
 
-    @Override
-    public void upload(BlobStoreContext context, InputStream in, BlobStore blobStore,
-                       String container, String storagePath) throws IOException {
-        if (fillBuffers(in))
-            uploadMultipleParts(context, in, container, storagePath);
-        else
-            uploadSinglePart(blobStore, container, storagePath);
-    }
+    private final Executor executor;
+    private final BufferPool bufferPool;
+    private final int concurrency;
 
-    private void uploadSinglePart(BlobStore blobStore, String container, String storagePath) {
-        Blob blob = blobStore.blobBuilder(storagePath).payload(createPayload()).build();
-        blobStore.putBlob(container, blob);
+    S3Uploader(Executor executor, BufferPool bufferPool, int concurrency) {
+        this.executor = executor;
+        this.bufferPool = bufferPool;
+        this.concurrency = concurrency;
     }
 
-    private Payload createPayload() {
-        Payload payload = new InputStreamPayload(this);
-        payload.getContentMetadata().setContentLength(new Long(available()));
-        return payload;
+    @Override
+    public void upload(final BlobStoreContext context, InputStream in, final BlobStore blobStore,
+                       final String container, final String storagePath) throws IOException {
+        new MultipartUpload<String>(executor, bufferPool, concurrency) {
+            private S3Client client;
+            private String uploadId;
+
+            @Override
+            protected void uploadSinglePart(byte[] b, int len) {
+                Blob blob = blobStore.blobBuilder(storagePath).payload(createPayload(b, len)).build();
+                blobStore.putBlob(container, blob);
+            }
+
+            @Override
+            protected void initiateMultipartUpload() {
+                client = context.unwrapApi(S3Client.class);
+                uploadId = client.initiateMultipartUpload(container,
+                        ObjectMetadataBuilder.create().key(storagePath).build());
+            }
+
+            @Override
+            protected String uploadPart(int partNumber, byte[] b, int len) {
+                return client.uploadPart(container, storagePath, partNumber, uploadId, createPayload(b, len));
+            }
+
+            @Override
+            protected void completeMultipartUpload(SortedMap<Integer, String> parts) {
+                client.completeMultipartUpload(container, storagePath, uploadId, parts);
+            }
+
+            @Override
+            protected void abortMultipartUpload() {
+                client.abortMultipartUpload(container, storagePath, uploadId);
+            }
+        }.upload(in);
     }
 
-    private void uploadMultipleParts(BlobStoreContext context, InputStream in, String container, String storagePath)
-            throws IOException {
-        S3Client client = context.unwrapApi(S3Client.class);
-        String uploadId = client.initiateMultipartUpload(container,
-                ObjectMetadataBuilder.create().key(storagePath).build());
-        Map<Integer, String> parts = new HashMap<>();
-        int partNumber = 1;
-        do {
-            parts.put(partNumber, client.uploadPart(container, storagePath, partNumber, uploadId, createPayload()));
-            partNumber++;
-        } while (fillBuffers(in));
-        if (available() > 0)
-            parts.put(partNumber, client.uploadPart(container, storagePath, partNumber, uploadId, createPayload()));
-        client.completeMultipartUpload(container, storagePath, uploadId, parts);
+    private static Payload createPayload(byte[] b, int len) {
+        Payload payload = new InputStreamPayload(new ByteArrayInputStream(b, 0, len));
+        payload.getContentMetadata().setContentLength((long) len);
+        return payload;
     }
 
 }
@@ -40,23 +40,32 @@
 
 package org.dcm4chee.arc.storage.emc.ecs;
 
+import com.emc.object.Range;
 import com.emc.object.s3.S3Client;
 import com.emc.object.s3.S3Config;
 import com.emc.object.s3.S3Exception;
+import com.emc.object.s3.bean.AbstractDeleteResult;
+import com.emc.object.s3.bean.DeleteError;
+import com.emc.object.s3.bean.DeleteObjectsResult;
 import com.emc.object.s3.bean.GetObjectResult;
 import com.emc.object.s3.jersey.S3JerseyClient;
+import com.emc.object.s3.request.DeleteObjectsRequest;
 import com.sun.jersey.client.urlconnection.URLConnectionClientHandler;
 import org.dcm4che3.net.Device;
 import org.dcm4che3.util.AttributesFormat;
 import org.dcm4chee.arc.conf.StorageDescriptor;
 import org.dcm4chee.arc.storage.AbstractStorage;
+import org.dcm4chee.arc.storage.MultipartUpload;
 import org.dcm4chee.arc.storage.ReadContext;
 import org.dcm4chee.arc.storage.WriteContext;
 
 import java.io.*;
 import java.net.URI;
+import java.util.*;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.ThreadLocalRandom;
 
@@ -70,6 +79,7 @@ public class EMCECSStorage extends AbstractStorage {
     public static final String PROPERTY_URL_CONNECTION_CLIENT_HANDLER = "emc-ecs-s3.URLConnectionClientHandler";
 
     private static final String DEFAULT_CONTAINER = "org.dcm4chee.arc";
+    private static final int MAX_KEYS_PER_DELETE_REQUEST = 1000;
     private static final Uploader STREAMING_UPLOADER = new Uploader() {
         @Override
         public void upload(S3Client s3, InputStream in, String container,  String storagePath) throws IOException {
@@ -82,14 +92,14 @@ public class EMCECSStorage extends AbstractStorage {
     private final String container;
     private final S3Client s3;
     private final Uploader uploader;
-    private int count;
+    private boolean containerExists;
 
     public EMCECSStorage(StorageDescriptor descriptor, Device device) {
         super(descriptor);
         this.device = device;
         pathFormat = new AttributesFormat(descriptor.getProperty("pathFormat", DEFAULT_PATH_FORMAT));
         container = descriptor.getProperty("container", DEFAULT_CONTAINER);
-        if (Boolean.parseBoolean(descriptor.getProperty("containerExists", null))) count++;
+        containerExists = Boolean.parseBoolean(descriptor.getProperty("containerExists", null));
         String endpoint = descriptor.getStorageURI().getSchemeSpecificPart();
         S3Config config = new S3Config(URI.create(endpoint));
         String identity = descriptor.getProperty("identity", null);
@@ -97,7 +107,8 @@ public class EMCECSStorage extends AbstractStorage {
             config.withIdentity(identity).withSecretKey(descriptor.getProperty("credential", null));
         this.uploader = Boolean.parseBoolean(descriptor.getProperty(PROPERTY_STREAMING, null))
                 ? STREAMING_UPLOADER
-                : new S3Uploader();
+                : new S3Uploader(executor(device), MultipartUpload.createBufferPool(descriptor),
+                        MultipartUpload.concurrencyOf(descriptor));
         s3 = new S3JerseyClient(config,
                 Boolean.parseBoolean(descriptor.getProperty(PROPERTY_URL_CONNECTION_CLIENT_HANDLER, null))
                         ? new URLConnectionClientHandler()
@@ -112,7 +123,7 @@ public class EMCECSStorage extends AbstractStorage {
     @Override
     protected OutputStream openOutputStreamA(final WriteContext ctx) throws IOException {
         final PipedInputStream in = new PipedInputStream();
-        FutureTask<Void> task = new FutureTask<>(new Callable<Void>() {
+        UploadTask task = new UploadTask(new Callable<Void>() {
             @Override
             public Void call() throws Exception {
                 try {
@@ -123,11 +134,63 @@ public class EMCECSStorage extends AbstractStorage {
                 return null;
             }
         });
-        ((EMCECSWriteContext) ctx).setUploadTask(task);
         device.execute(task);
+        ((EMCECSWriteContext) ctx).setUploadTask(task);
         return new PipedOutputStream(in);
     }
 
+    private static Executor executor(final Device device) {
+        return new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                device.execute(command);
+            }
+        };
+    }
+
+    @Override
+    public void revokeStorage(WriteContext ctx) throws IOException {
+        UploadTask task = (UploadTask) ((EMCECSWriteContext) ctx).getUploadTask();
+        if (task != null) {
+            task.cancel(true);
+            task.awaitTermination();
+            if (ctx.getStoragePath() == null)
+                return;
+        }
+        super.revokeStorage(ctx);
+    }
+
+    private static final class UploadTask extends FutureTask<Void> {
+        private final CountDownLatch terminated = new CountDownLatch(1);
+
+        UploadTask(Callable<Void> callable) {
+            super(callable);
+        }
+
+        @Override
+        public void run() {
+            try {
+                super.run();
+            } finally {
+                terminated.countDown();
+            }
+        }
+
+        void awaitTermination() {
+            boolean interrupted = false;
+            for (;;) {
+                try {
+                    terminated.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+    }
+
     @Override
     protected void afterOutputStreamClosed(WriteContext ctx) throws IOException {
         FutureTask<Void> task = ((EMCECSWriteContext) ctx).getUploadTask();
@@ -145,9 +208,7 @@ public class EMCECSStorage extends AbstractStorage {
 
     private void upload(WriteContext ctx, InputStream in) throws IOException {
         String storagePath = pathFormat.format(ctx.getAttributes());
-        if (count++ == 0 && !s3.bucketExists(container))
-            s3.createBucket(container);
-        else while (exits(storagePath)) {
+        if (!createBucketIfNotExists()) while (exits(storagePath)) {
             storagePath = storagePath.substring(0, storagePath.lastIndexOf('/') + 1)
                     .concat(String.format("%08X", ThreadLocalRandom.current().nextInt()));
         }
@@ -155,6 +216,17 @@ public class EMCECSStorage extends AbstractStorage {
         ctx.setStoragePath(storagePath);
     }
 
+    private synchronized boolean createBucketIfNotExists() {
+        if (containerExists)
+            return false;
+
+        boolean create = !s3.bucketExists(container);
+        if (create)
+            s3.createBucket(container);
+        containerExists = true;
+        return create;
+    }
+
     private boolean exits(String storagePath) {
         try {
             s3.getObjectMetadata(container, storagePath);
@@ -173,6 +245,16 @@ public class EMCECSStorage extends AbstractStorage {
         return s3Object.getObject();
     }
 
+    @Override
+    protected InputStream openInputStreamA(ReadContext readContext, long offset, long length) throws IOException {
+        InputStream stream = s3.readObjectStream(container, readContext.getStoragePath(),
+                new Range(offset, offset + length - 1));
+        if (stream == null)
+            throw objectNotFound(readContext.getStoragePath());
+
+        return stream;
+    }
+
     private IOException objectNotFound(String storagePath) {
         return new IOException("No Object[" + storagePath
                 + "] in Container[" + container
@@ -185,6 +267,29 @@ public class EMCECSStorage extends AbstractStorage {
         s3.deleteObject(container, storagePath);
     }
 
+    @Override
+    public Map<String, IOException> deleteObjects(Collection<String> storagePaths) {
+        Map<String, IOException> failures = new HashMap<>();
+        List<String> keys = new ArrayList<>(storagePaths);
+        for (int from = 0; from < keys.size(); from += MAX_KEYS_PER_DELETE_REQUEST) {
+            List<String> chunk = keys.subList(from, Math.min(from + MAX_KEYS_PER_DELETE_REQUEST, keys.size()));
+            try {
+                DeleteObjectsResult result = s3.deleteObjects(
+                        new DeleteObjectsRequest(container).withKeys(chunk.toArray(new String[chunk.size()])));
+                for (AbstractDeleteResult deleteResult : result.getResults())
+                    if (deleteResult instanceof DeleteError) {
+                        DeleteError error = (DeleteError) deleteResult;
+                        failures.put(error.getKey(),
+                                new IOException(error.getCode() + ": " + error.getMessage()));
+                    }
+            } catch (S3Exception e) {
+                for (String key : chunk)
+                    failures.put(key, new IOException(e));
+            }
+        }
+        return failures;
+    }
+
     @Override
     public void close() throws IOException {
         s3.destroy();
@@ -43,53 +43,71 @@ package org.dcm4chee.arc.storage.emc.ecs;
 import com.emc.object.s3.S3Client;
 import com.emc.object.s3.S3ObjectMetadata;
 import com.emc.object.s3.bean.MultipartPartETag;
+import com.emc.object.s3.request.AbortMultipartUploadRequest;
 import com.emc.object.s3.request.CompleteMultipartUploadRequest;
 import com.emc.object.s3.request.InitiateMultipartUploadRequest;
 import com.emc.object.s3.request.PutObjectRequest;
 import com.emc.object.s3.request.UploadPartRequest;
-import org.dcm4chee.arc.storage.CacheInputStream;
+import org.dcm4chee.arc.storage.BufferPool;
+import org.dcm4chee.arc.storage.MultipartUpload;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.*;
+import java.util.concurrent.Executor;
 
 /**
  * @author Gunter Zeilinger <gunterze@gmail.com>
  * @since Oct 2016
  */
-class S3Uploader extends CacheInputStream implements Uploader {
+class S3Uploader implements Uploader {
 
-    @Override
-    public void upload(S3Client s3, InputStream in, String container, String storagePath) throws IOException {
-        if (fillBuffers(in))
-            uploadMultipleParts(s3, in, container, storagePath);
-        else
-            uploadSinglePart(s3, container, storagePath);
-    }
+    private final Executor executor;
+    private final BufferPool bufferPool;
+    private final int concurrency;
 
-    private void uploadSinglePart(S3Client s3, String container, String storagePath) {
-        s3.putObject(new PutObjectRequest(container, storagePath, this)
-                .withObjectMetadata(new S3ObjectMetadata().withContentLength(available())));
+    S3Uploader(Executor executor, BufferPool bufferPool, int concurrency) {
+        this.executor = executor;
+        this.bufferPool = bufferPool;
+        this.concurrency = concurrency;
     }
 
-    private void uploadMultipleParts(S3Client s3, InputStream in, String container, String storagePath)
+    @Override
+    public void upload(final S3Client s3, InputStream in, final String container, final String storagePath)
             throws IOException {
-        String uploadId = s3.initiateMultipartUpload(new InitiateMultipartUploadRequest(container, storagePath))
-                .getUploadId();
-        SortedSet<MultipartPartETag> parts = new TreeSet<>();
-        int partNumber = 1;
-        do {
-            parts.add(s3.uploadPart(new UploadPartRequest(container,  storagePath, uploadId, partNumber, this)
-                    .withContentLength(new Long(available()))));
-            partNumber++;
-        } while (fillBuffers(in));
-        if (available() > 0) {
-            parts.add(s3.uploadPart(
-                    new UploadPartRequest(container,  storagePath, uploadId, partNumber, this)
-                            .withContentLength(new Long(available()))));
-        }
-        s3.completeMultipartUpload(
-                new CompleteMultipartUploadRequest(container, storagePath, uploadId).withParts(parts));
+        new MultipartUpload<MultipartPartETag>(executor, bufferPool, concurrency) {
+            private String uploadId;
+
+            @Override
+            protected void uploadSinglePart(byte[] b, int len) {
+                s3.putObject(new PutObjectRequest(container, storagePath, new ByteArrayInputStream(b, 0, len))
+                        .withObjectMetadata(new S3ObjectMetadata().withContentLength(len)));
+            }
+
+            @Override
+            protected void initiateMultipartUpload() {
+                uploadId = s3.initiateMultipartUpload(new InitiateMultipartUploadRequest(container, storagePath))
+                        .getUploadId();
+            }
+
+            @Override
+            protected MultipartPartETag uploadPart(int partNumber, byte[] b, int len) {
+                return s3.uploadPart(new UploadPartRequest(container, storagePath, uploadId, partNumber,
+                        new ByteArrayInputStream(b, 0, len)).withContentLength(new Long(len)));
+            }
+
+            @Override
+            protected void completeMultipartUpload(SortedMap<Integer, MultipartPartETag> parts) {
+                s3.completeMultipartUpload(new CompleteMultipartUploadRequest(container, storagePath, uploadId)
+                        .withParts(new TreeSet<>(parts.values())));
+            }
+
+            @Override
+            protected void abortMultipartUpload() {
+                s3.abortMultipartUpload(new AbortMultipartUploadRequest(container, storagePath, uploadId));
+            }
+        }.upload(in);
     }
 
 }
@@ -52,7 +52,10 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.file.*;
+import java.util.*;
 import java.util.concurrent.ThreadLocalRandom;
 
 /**
@@ -63,6 +66,14 @@ public class FileSystemStorage extends AbstractStorage {
 
     private static final Logger LOG = LoggerFactory.getLogger(FileSystemStorage.class);
 
+    private static final Comparator<Path> DEEPEST_FIRST = new Comparator<Path>() {
+        @Override
+        public int compare(Path o1, Path o2) {
+            int diff = o2.getNameCount() - o1.getNameCount();
+            return diff != 0 ? diff : o1.compareTo(o2);
+        }
+    };
+
     private final URI rootURI;
     private final AttributesFormat pathFormat;
     private final Path checkMountFilePath;
@@ -112,26 +123,63 @@ public class FileSystemStorage extends AbstractStorage {
         return Files.newInputStream(path);
     }
 
+    @Override
+    protected InputStream openInputStreamA(ReadContext ctx, long offset, long length) throws IOException {
+        Path path = Paths.get(rootURI.resolve(ctx.getStoragePath()));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            channel.position(offset);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return Channels.newInputStream(channel);
+    }
+
     @Override
     public void deleteObject(String storagePath) throws IOException {
         Path path = Paths.get(rootURI.resolve(storagePath));
         Files.delete(path);
-        deleteEmptyDirectories(path);
+        deleteEmptyDirectories(Collections.singleton(path.getParent()));
     }
 
-    private void deleteEmptyDirectories(Path path) {
+    @Override
+    public Map<String, IOException> deleteObjects(Collection<String> storagePaths) {
+        Map<String, IOException> failures = new HashMap<>();
+        Set<Path> dirPaths = new HashSet<>();
+        for (String storagePath : storagePaths) {
+            Path path = Paths.get(rootURI.resolve(storagePath));
+            try {
+                Files.delete(path);
+                dirPaths.add(path.getParent());
+            } catch (IOException e) {
+                failures.put(storagePath, e);
+            }
+        }
+        deleteEmptyDirectories(dirPaths);
+        return failures;
+    }
+
+    /**
+     * Deletes the specified directories and their ancestors below the root directory, if they are empty.
+     * Deepest directories are processed first, so each directory is only visited once.
+     */
+    private void deleteEmptyDirectories(Collection<Path> dirPaths) {
         Path rootPath = Paths.get(rootURI);
-        Path dirPath = path.getParent();
-        while (!dirPath.equals(rootPath)) {
+        TreeSet<Path> dirs = new TreeSet<>(DEEPEST_FIRST);
+        dirs.addAll(dirPaths);
+        Path dirPath;
+        while ((dirPath = dirs.pollFirst()) != null) {
+            if (dirPath.equals(rootPath) || !dirPath.startsWith(rootPath))
+                continue;
+
             try {
-                Files.deleteIfExists(dirPath);
+                if (Files.deleteIfExists(dirPath))
+                    dirs.add(dirPath.getParent());
             } catch (DirectoryNotEmptyException ignore) {
-                break;
             } catch (IOException e) {
-                LOG.warn("Failed to delete directory {}", path, e);
-                break;
+                LOG.warn("Failed to delete directory {}", dirPath, e);
             }
-            dirPath = dirPath.getParent();
         }
     }
 
@@ -40,11 +40,16 @@
 
 package org.dcm4chee.arc.storage;
 
+import org.dcm4che3.util.SafeClose;
+import org.dcm4che3.util.StreamUtils;
 import org.dcm4chee.arc.conf.StorageDescriptor;
 
 import java.io.*;
 import java.security.DigestInputStream;
 import java.security.DigestOutputStream;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * @author Gunter Zeilinger <gunterze@gmail.com>
@@ -155,10 +160,32 @@ public abstract class AbstractStorage implements Storage {
         deleteObject(ctx.getStoragePath());
     }
 
+    @Override
+    public Map<String, IOException> deleteObjects(Collection<String> storagePaths) {
+        Map<String, IOException> failures = new HashMap<>();
+        for (String storagePath : storagePaths) {
+            try {
+                deleteObject(storagePath);
+            } catch (IOException e) {
+                failures.put(storagePath, e);
+            }
+        }
+        return failures;
+    }
+
     @Override
     public InputStream openInputStream(final ReadContext ctx) throws IOException {
         checkAccessable();
-        InputStream stream = openInputStreamA(ctx);
+        return wrapInputStream(openInputStreamA(ctx), ctx);
+    }
+
+    @Override
+    public InputStream openInputStream(ReadContext ctx, long offset, long length) throws IOException {
+        checkAccessable();
+        return wrapInputStream(openInputStreamA(ctx, offset, length), ctx);
+    }
+
+    private InputStream wrapInputStream(InputStream stream, final ReadContext ctx) {
         if (ctx.getMessageDigest() != null) {
             stream = new DigestInputStream(stream, ctx.getMessageDigest());
         }
@@ -225,6 +252,22 @@ public abstract class AbstractStorage implements Storage {
 
     protected abstract InputStream openInputStreamA(ReadContext ctx) throws IOException;
 
+    /**
+     * Opens a stream of the object content starting at {@code offset}, which may be used to read at least
+     * {@code length} bytes. The default implementation skips the leading bytes of the whole object stream;
+     * implementations supporting positioned or ranged reads should override it.
+     */
+    protected InputStream openInputStreamA(ReadContext ctx, long offset, long length) throws IOException {
+        InputStream stream = openInputStreamA(ctx);
+        try {
+            StreamUtils.skipFully(stream, offset);
+        } catch (IOException e) {
+            SafeClose.close(stream);
+            throw e;
+        }
+        return stream;
+    }
+
     protected void beforeInputStreamClosed(ReadContext ctx, InputStream stream)  throws IOException {}
 
     protected void afterInputStreamClosed(ReadContext ctx)  throws IOException {}
@@ -0,0 +1,220 @@
+/*
+ * *** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is part of dcm4che, an implementation of DICOM(TM) in
+ * Java(TM), hosted at https://github.com/gunterze/dcm4che.
+ *
+ * The Initial Developer of the Original Code is
+ * J4Care.
+ * Portions created by the Initial Developer are Copyright (C) 2017
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):
+ * See @authors listed below
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ *
+ * *** END LICENSE BLOCK *****
+ */
+
+
+package org.dcm4chee.arc.storage;
+
+import org.dcm4chee.arc.conf.CacheEvictionPolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+
+/**
+ * Index of files in a local cache directory, which keeps the total size of the cached files below a limit by
+ * evicting files according to a {@link CacheEvictionPolicy}. On creation, the index is initialized from the files
+ * found in the directory; incomplete files left from a previous run are deleted.
+ *
+ * @author Gunter Zeilinger <gunterze@gmail.com>
+ * @since Apr 2017
+ */
+public class FileCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FileCache.class);
+
+    private static final String PART_SUFFIX = ".part";
+
+    private final Path dir;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final Set<String> fetching = new HashSet<>();
+    private long size;
+
+    public FileCache(Path dir) {
+        this.dir = dir;
+        scan();
+    }
+
+    public Path getDirectory() {
+        return dir;
+    }
+
+    public Path pathOf(String key) {
+        return dir.resolve(key);
+    }
+
+    /**
+     * Returns the path to which the file for {@code key} shall be written before it is added by
+     * {@link #commit(String, long, CacheEvictionPolicy)}.
+     */
+    public Path partPathOf(String key) {
+        Path path = pathOf(key);
+        return path.resolveSibling(path.getFileName() + PART_SUFFIX);
+    }
+
+    public synchronized boolean contains(String key) {
+        return entries.containsKey(key);
+    }
+
+    public synchronized Path get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null)
+            return null;
+
+        entry.hits++;
+        return entry.path;
+    }
+
+    /**
+     * Returns {@code false}, if the file for {@code key} is already cached or is written by another thread.
+     */
+    public synchronized boolean beginFetch(String key) {
+        return !entries.containsKey(key) && fetching.add(key);
+    }
+
+    public synchronized void endFetch(String key) {
+        fetching.remove(key);
+    }
+
+    /**
+     * Moves the written file for {@code key} to its final location and adds it to the index.
+     */
+    public void commit(String key, long maxSize, CacheEvictionPolicy policy) throws IOException {
+        Path path = pathOf(key);
+        Files.move(partPathOf(key), path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        add(key, path, Files.size(path), maxSize, policy);
+    }
+
+    /**
+     * Deletes the incompletely written file for {@code key}.
+     */
+    public void abort(String key) {
+        Path part = partPathOf(key);
+        try {
+            Files.deleteIfExists(part);
+        } catch (IOException e) {
+            LOG.warn("Failed to delete {}", part, e);
+        }
+    }
+
+    public synchronized void remove(String key) {
+        if (entries.containsKey(key))
+            delete(key);
+    }
+
+    private synchronized void add(String key, Path path, long fileSize, long maxSize, CacheEvictionPolicy policy) {
+        Entry prev = entries.put(key, new Entry(path, fileSize));
+        if (prev != null)
+            size -= prev.size;
+        size += fileSize;
+        while (size > maxSize && !entries.isEmpty())
+            delete(policy == CacheEvictionPolicy.LFU ? leastFrequentlyUsed() : entries.keySet().iterator().next());
+    }
+
+    private void scan() {
+        if (!Files.isDirectory(dir))
+            return;
+
+        final List<Object[]> files = new ArrayList<>();
+        try {
+            Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    if (file.getFileName().toString().endsWith(PART_SUFFIX))
+                        Files.delete(file);
+                    else
+                        files.add(new Object[]{ file, attrs });
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            LOG.warn("Failed to scan cache directory {}", dir, e);
+        }
+        Collections.sort(files, new Comparator<Object[]>() {
+            @Override
+            public int compare(Object[] o1, Object[] o2) {
+                return ((BasicFileAttributes) o1[1]).lastModifiedTime()
+                        .compareTo(((BasicFileAttributes) o2[1]).lastModifiedTime());
+            }
+        });
+        for (Object[] file : files) {
+            Path path = (Path) file[0];
+            long fileSize = ((BasicFileAttributes) file[1]).size();
+            entries.put(dir.relativize(path).toString().replace('\\', '/'), new Entry(path, fileSize));
+            size += fileSize;
+        }
+        LOG.info("Found {} files with {} bytes in cache directory {}", entries.size(), size, dir);
+    }
+
+    private String leastFrequentlyUsed() {
+        String key = null;
+        int minHits = Integer.MAX_VALUE;
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            if (e.getValue().hits < minHits) {
+                key = e.getKey();
+                minHits = e.getValue().hits;
+            }
+        }
+        return key;
+    }
+
+    private void delete(String key) {
+        Entry entry = entries.remove(key);
+        size -= entry.size;
+        try {
+            Files.deleteIfExists(entry.path);
+        } catch (IOException e) {
+            LOG.warn("Failed to delete {} from cache", entry.path, e);
+        }
+    }
+
+    private static final class Entry {
+        final Path path;
+        final long size;
+        int hits;
+
+        Entry(Path path, long size) {
+            this.path = path;
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * *** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is part of dcm4che, an implementation of DICOM(TM) in
+ * Java(TM), hosted at https://github.com/gunterze/dcm4che.
+ *
+ * The Initial Developer of the Original Code is
+ * J4Care.
+ * Portions created by the Initial Developer are Copyright (C) 2017
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):
+ * See @authors listed below
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ *
+ * *** END LICENSE BLOCK *****
+ */
+
+
+package org.dcm4chee.arc.storage;
+
+import org.dcm4chee.arc.conf.StorageDescriptor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Uploads an object read from an input stream in parts of the buffer size of the specified {@link BufferPool},
+ * up to {@code maxConcurrentParts} parts concurrently. Objects not exceeding one part are uploaded by a single
+ * request. Reading from the input stream blocks, if all buffers of the pool are in use. On failure, the multipart
+ * upload is aborted after all submitted parts are finished.
+ *
+ * @param <P> type of the part identifier returned by the storage system
+ *
+ * @author Gunter Zeilinger <gunterze@gmail.com>
+ * @since Apr 2017
+ */
+public abstract class MultipartUpload<P> {
+
+    public static final String PROPERTY_PART_SIZE = "multipartUpload.partSize";
+    public static final String PROPERTY_CONCURRENCY = "multipartUpload.concurrency";
+    public static final String PROPERTY_MAX_BUFFERS = "multipartUpload.maxBuffers";
+
+    private static final int DEFAULT_PART_SIZE = 5 * 1024 * 1024;
+    private static final int DEFAULT_CONCURRENCY = 4;
+    private static final int DEFAULT_MAX_BUFFERS = 16;
+
+    private final Executor executor;
+    private final BufferPool bufferPool;
+    private final int maxConcurrentParts;
+    private final SortedMap<Integer, P> parts = new TreeMap<>();
+    private volatile Exception failure;
+
+    protected MultipartUpload(Executor executor, BufferPool bufferPool, int maxConcurrentParts) {
+        this.executor = executor;
+        this.bufferPool = bufferPool;
+        this.maxConcurrentParts = maxConcurrentParts;
+    }
+
+    public static BufferPool createBufferPool(StorageDescriptor descriptor) {
+        return new BufferPool(
+                Integer.parseInt(descriptor.getProperty(PROPERTY_PART_SIZE, Integer.toString(DEFAULT_PART_SIZE))),
+                Integer.parseInt(descriptor.getProperty(PROPERTY_MAX_BUFFERS, Integer.toString(DEFAULT_MAX_BUFFERS))));
+    }
+
+    public static int concurrencyOf(StorageDescriptor descriptor) {
+        return Integer.parseInt(descriptor.getProperty(PROPERTY_CONCURRENCY, Integer.toString(DEFAULT_CONCURRENCY)));
+    }
+
+    public void upload(InputStream in) throws IOException {
+        byte[] b = bufferPool.acquire();
+        int len;
+        try {
+            len = read(in, b);
+        } catch (IOException e) {
+            bufferPool.release(b);
+            throw e;
+        }
+        if (len < b.length) {
+            try {
+                uploadSinglePart(b, len);
+            } catch (Exception e) {
+                throw toIOException(e);
+            } finally {
+                bufferPool.release(b);
+            }
+        } else {
+            uploadMultipleParts(in, b);
+        }
+    }
+
+    private void uploadMultipleParts(InputStream in, byte[] b) throws IOException {
+        try {
+            initiateMultipartUpload();
+        } catch (Exception e) {
+            bufferPool.release(b);
+            throw toIOException(e);
+        }
+        Semaphore permits = new Semaphore(maxConcurrentParts);
+        boolean completed = false;
+        try {
+            int partNumber = 1;
+            int len = b.length;
+            for (;;) {
+                acquire(permits, 1);
+                submitPart(partNumber++, b, len, permits);
+                b = null;
+                if (len < bufferPool.getBufferSize() || failure != null)
+                    break;
+
+                b = bufferPool.acquire();
+                if ((len = read(in, b)) == 0) {
+                    bufferPool.release(b);
+                    b = null;
+                    break;
+                }
+            }
+            acquire(permits, maxConcurrentParts);
+            completed = true;
+            if (failure != null)
+                throw failure;
+
+            synchronized (parts) {
+                completeMultipartUpload(parts);
+            }
+        } catch (Exception e) {
+            if (b != null)
+                bufferPool.release(b);
+            if (!completed) {
+                if (failure == null)
+                    failure = e;
+                permits.acquireUninterruptibly(maxConcurrentParts);
+            }
+            try {
+                abortMultipartUpload();
+            } catch (Exception e2) {
+                e.addSuppressed(e2);
+            }
+            throw toIOException(e);
+        }
+    }
+
+    private void submitPart(final int partNumber, final byte[] b, final int len, final Semaphore permits) {
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    if (failure == null) {
+                        P part = uploadPart(partNumber, b, len);
+                        synchronized (parts) {
+                            parts.put(partNumber, part);
+                        }
+                    }
+                } catch (Exception e) {
+                    if (failure == null)
+                        failure = e;
+                } finally {
+                    bufferPool.release(b);
+                    permits.release();
+                }
+            }
+        };
+        try {
+            executor.execute(task);
+        } catch (RuntimeException e) {
+            bufferPool.release(b);
+            permits.release();
+            throw e;
+        }
+    }
+
+    private static void acquire(Semaphore permits, int n) throws InterruptedIOException {
+        try {
+            permits.acquire(n);
+        } catch (InterruptedException e) {
+            throw new InterruptedIOException();
+        }
+    }
+
+    private static int read(InputStream in, byte[] b) throws IOException {
+        int off = 0;
+        int r;
+        while (off < b.length && (r = in.read(b, off, b.length - off)) > 0)
+            off += r;
+        return off;
+    }
+
+    private static IOException toIOException(Exception e) {
+        return e instanceof IOException ? (IOException) e : new IOException("Upload failed", e);
+    }
+
+    protected abstract void uploadSinglePart(byte[] b, int len) throws Exception;
+
+    protected abstract void initiateMultipartUpload() throws Exception;
+
+    protected abstract P uploadPart(int partNumber, byte[] b, int len) throws Exception;
+
+    protected abstract void completeMultipartUpload(SortedMap<Integer, P> parts) throws Exception;
+
+    protected abstract void abortMultipartUpload() throws Exception;
+}
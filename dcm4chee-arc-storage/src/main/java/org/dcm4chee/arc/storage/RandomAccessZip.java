@@ -0,0 +1,227 @@
+/*
+ * *** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is part of dcm4che, an implementation of DICOM(TM) in
+ * Java(TM), hosted at https://github.com/gunterze/dcm4che.
+ *
+ * The Initial Developer of the Original Code is
+ * J4Care.
+ * Portions created by the Initial Developer are Copyright (C) 2017
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):
+ * See @authors listed below
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ *
+ * *** END LICENSE BLOCK *****
+ */
+
+
+package org.dcm4chee.arc.storage;
+
+import org.dcm4che3.util.SafeClose;
+import org.dcm4che3.util.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+/**
+ * Provides random access to entries of a ZIP object on a {@link Storage} using its Central Directory as index,
+ * so individual entries can be read by positioned/ranged reads without inflating preceding entries.
+ * ZIP64 archives are not supported.
+ *
+ * @author Gunter Zeilinger <gunterze@gmail.com>
+ * @since Apr 2017
+ */
+public class RandomAccessZip {
+
+    private static final int LOCSIG = 0x04034b50;
+    private static final int CENSIG = 0x02014b50;
+    private static final int ENDSIG = 0x06054b50;
+    private static final int LOCHDR = 30;
+    private static final int CENHDR = 46;
+    private static final int ENDHDR = 22;
+    private static final int MAX_COMMENT_LENGTH = 0xffff;
+
+    public static final class Entry {
+        private final String name;
+        private final int method;
+        private final long compressedSize;
+        private final long offset;
+        private long end;
+
+        Entry(String name, int method, long compressedSize, long offset) {
+            this.name = name;
+            this.method = method;
+            this.compressedSize = compressedSize;
+            this.offset = offset;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    private final Storage storage;
+    private final String storagePath;
+    private final Map<String, Entry> entries;
+
+    private RandomAccessZip(Storage storage, String storagePath, Map<String, Entry> entries) {
+        this.storage = storage;
+        this.storagePath = storagePath;
+        this.entries = entries;
+    }
+
+    /**
+     * Reads the Central Directory of the ZIP object.
+     *
+     * @param storage       Storage of the ZIP object
+     * @param storagePath   Storage Path of the ZIP object
+     * @param size          size of the ZIP object in bytes
+     * @return random access view of the ZIP object
+     * @throws ZipException if the object is not a ZIP file or is a ZIP64 file
+     * @throws IOException  if an I/O error has occurred
+     */
+    public static RandomAccessZip open(Storage storage, String storagePath, long size) throws IOException {
+        byte[] end = readEnd(storage, storagePath, size);
+        int total = uint16(end, 10);
+        long cenSize = uint32(end, 12);
+        long cenOffset = uint32(end, 16);
+        if (total == 0xffff || cenSize == 0xffffffffL || cenOffset == 0xffffffffL)
+            throw new ZipException("ZIP64 not supported");
+
+        byte[] cen = read(storage, storagePath, cenOffset, (int) cenSize);
+        HashMap<String, Entry> entries = new HashMap<>(total * 4 / 3 + 1);
+        Entry[] sorted = new Entry[total];
+        int pos = 0;
+        for (int i = 0; i < total; i++) {
+            if (pos + CENHDR > cen.length || int32(cen, pos) != CENSIG)
+                throw new ZipException("invalid CEN header");
+
+            int nameLength = uint16(cen, pos + 28);
+            Entry entry = new Entry(
+                    new String(cen, pos + CENHDR, nameLength, StandardCharsets.UTF_8),
+                    uint16(cen, pos + 10),
+                    uint32(cen, pos + 20),
+                    uint32(cen, pos + 42));
+            entries.put(entry.name, entry);
+            sorted[i] = entry;
+            pos += CENHDR + nameLength + uint16(cen, pos + 30) + uint16(cen, pos + 32);
+        }
+        Arrays.sort(sorted, 0, total, new Comparator<Entry>() {
+            @Override
+            public int compare(Entry e1, Entry e2) {
+                return Long.compare(e1.offset, e2.offset);
+            }
+        });
+        for (int i = 0; i < total; i++)
+            sorted[i].end = i + 1 < total ? sorted[i + 1].offset : cenOffset;
+        return new RandomAccessZip(storage, storagePath, entries);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public Entry getEntry(String name) {
+        return entries.get(name);
+    }
+
+    /**
+     * Reads the local header and compressed data of the entry with one positioned/ranged read, and returns
+     * a stream of the uncompressed content.
+     */
+    public InputStream openInputStream(Entry entry) throws IOException {
+        byte[] b = read(storage, storagePath, entry.offset, (int) (entry.end - entry.offset));
+        if (b.length < LOCHDR || int32(b, 0) != LOCSIG)
+            throw new ZipException("invalid LOC header of entry " + entry.name);
+
+        int off = LOCHDR + uint16(b, 26) + uint16(b, 28);
+        if (off + entry.compressedSize > b.length)
+            throw new ZipException("truncated entry " + entry.name);
+
+        InputStream in = new ByteArrayInputStream(b, off, (int) entry.compressedSize);
+        switch (entry.method) {
+            case ZipEntry.STORED:
+                return in;
+            case ZipEntry.DEFLATED:
+                return new InflaterInputStream(in, new Inflater(true));
+        }
+        throw new ZipException("unsupported compression method " + entry.method + " of entry " + entry.name);
+    }
+
+    private static byte[] readEnd(Storage storage, String storagePath, long size) throws IOException {
+        if (size < ENDHDR)
+            throw new ZipException("not a ZIP file");
+
+        byte[] b = read(storage, storagePath, size - ENDHDR, ENDHDR);
+        if (int32(b, 0) == ENDSIG && uint16(b, 20) == 0)
+            return b;
+
+        // archive with comment - search backwards for END header
+        int len = (int) Math.min(size, ENDHDR + MAX_COMMENT_LENGTH);
+        b = read(storage, storagePath, size - len, len);
+        for (int pos = len - ENDHDR; pos >= 0; pos--)
+            if (int32(b, pos) == ENDSIG && pos + ENDHDR + uint16(b, pos + 20) == len)
+                return Arrays.copyOfRange(b, pos, pos + ENDHDR);
+
+        throw new ZipException("END header not found");
+    }
+
+    private static byte[] read(Storage storage, String storagePath, long offset, int length) throws IOException {
+        ReadContext readContext = storage.createReadContext();
+        readContext.setStoragePath(storagePath);
+        byte[] b = new byte[length];
+        InputStream in = storage.openInputStream(readContext, offset, length);
+        try {
+            StreamUtils.readFully(in, b, 0, length);
+        } finally {
+            SafeClose.close(in);
+        }
+        return b;
+    }
+
+    private static int uint16(byte[] b, int off) {
+        return (b[off] & 0xff) | ((b[off + 1] & 0xff) << 8);
+    }
+
+    private static int int32(byte[] b, int off) {
+        return uint16(b, off) | (uint16(b, off + 2) << 16);
+    }
+
+    private static long uint32(byte[] b, int off) {
+        return int32(b, off) & 0xffffffffL;
+    }
+}
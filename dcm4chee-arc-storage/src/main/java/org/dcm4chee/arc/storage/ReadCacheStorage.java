@@ -0,0 +1,141 @@
+/*
+ * *** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is part of dcm4che, an implementation of DICOM(TM) in
+ * Java(TM), hosted at https://github.com/gunterze/dcm4che.
+ *
+ * The Initial Developer of the Original Code is
+ * J4Care.
+ * Portions created by the Initial Developer are Copyright (C) 2017
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):
+ * See @authors listed below
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ *
+ * *** END LICENSE BLOCK *****
+ */
+
+
+package org.dcm4chee.arc.storage;
+
+import org.dcm4chee.arc.conf.StorageDescriptor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Reads objects through the {@link StorageReadCache}.
+ *
+ * @author Gunter Zeilinger <gunterze@gmail.com>
+ * @since Apr 2017
+ */
+class ReadCacheStorage implements Storage {
+
+    private final Storage storage;
+    private final StorageReadCache readCache;
+
+    ReadCacheStorage(Storage storage, StorageReadCache readCache) {
+        this.storage = storage;
+        this.readCache = readCache;
+    }
+
+    @Override
+    public StorageDescriptor getStorageDescriptor() {
+        return storage.getStorageDescriptor();
+    }
+
+    @Override
+    public WriteContext createWriteContext() {
+        return storage.createWriteContext();
+    }
+
+    @Override
+    public ReadContext createReadContext() {
+        return storage.createReadContext();
+    }
+
+    @Override
+    public boolean isAccessable() {
+        return storage.isAccessable();
+    }
+
+    @Override
+    public OutputStream openOutputStream(WriteContext ctx) throws IOException {
+        return storage.openOutputStream(ctx);
+    }
+
+    @Override
+    public long getUsableSpace() throws IOException {
+        return storage.getUsableSpace();
+    }
+
+    @Override
+    public void commitStorage(WriteContext ctx) throws IOException {
+        storage.commitStorage(ctx);
+    }
+
+    @Override
+    public void revokeStorage(WriteContext ctx) throws IOException {
+        storage.revokeStorage(ctx);
+    }
+
+    @Override
+    public void deleteObject(String storagePath) throws IOException {
+        readCache.remove(getStorageDescriptor().getStorageID(), storagePath);
+        storage.deleteObject(storagePath);
+    }
+
+    @Override
+    public Map<String, IOException> deleteObjects(Collection<String> storagePaths) {
+        String storageID = getStorageDescriptor().getStorageID();
+        for (String storagePath : storagePaths)
+            readCache.remove(storageID, storagePath);
+        return storage.deleteObjects(storagePaths);
+    }
+
+    @Override
+    public InputStream openInputStream(ReadContext ctx) throws IOException {
+        return readCache.openInputStream(storage, ctx);
+    }
+
+    @Override
+    public InputStream openInputStream(ReadContext ctx, long offset, long length) throws IOException {
+        return readCache.openInputStream(storage, ctx, offset, length);
+    }
+
+    @Override
+    public void close() throws IOException {
+        storage.close();
+    }
+
+    @Override
+    public String toString() {
+        return storage.toString();
+    }
+}
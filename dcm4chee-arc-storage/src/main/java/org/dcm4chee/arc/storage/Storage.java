@@ -6,6 +6,8 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Map;
 
 /**
  * @author Gunter Zeilinger <gunterze@gmail.com>
@@ -30,5 +32,15 @@ public interface Storage extends Closeable {
 
     void deleteObject(String storagePath) throws IOException;
 
+    /**
+     * Deletes objects with the specified storage paths. Storage systems may delete objects in bulk and may report
+     * objects which did not exist as deleted.
+     *
+     * @return storage paths of objects which could not be deleted, mapped to the cause
+     */
+    Map<String, IOException> deleteObjects(Collection<String> storagePaths);
+
     InputStream openInputStream(ReadContext ctx) throws IOException;
+
+    InputStream openInputStream(ReadContext ctx, long offset, long length) throws IOException;
 }
@@ -2,23 +2,208 @@ package org.dcm4chee.arc.storage;
 
 import org.dcm4chee.arc.conf.NamedQualifier;
 import org.dcm4chee.arc.conf.StorageDescriptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import javax.annotation.PreDestroy;
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.inject.Instance;
 import javax.inject.Inject;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
 
 /**
+ * Provides one shared {@link Storage} instance per configured Storage Descriptor. Returned instances are
+ * reference counted handles: {@link Storage#close()} releases the handle, the shared instance is only closed
+ * after it was replaced because of a modified Storage Descriptor and all its handles are released.
+ *
  * @author Gunter Zeilinger <gunterze@gmail.com>
  * @since Jul 2015
  */
 @ApplicationScoped
 public class StorageFactory {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StorageFactory.class);
+
     @Inject
     private Instance<StorageProvider> providers;
 
+    @Inject
+    private StorageReadCache readCache;
+
+    private final Map<String, SharedStorage> storages = new HashMap<>();
+
     public Storage getStorage(StorageDescriptor descriptor) {
+        synchronized (storages) {
+            SharedStorage shared = storages.get(descriptor.getStorageID());
+            if (shared == null || !equalsConfiguration(shared.descriptor, descriptor)) {
+                if (shared != null) {
+                    LOG.info("Configuration of Storage {} changed - replace {}", descriptor.getStorageID(),
+                            shared.storage);
+                    shared.retire();
+                }
+                shared = new SharedStorage(descriptor, openStorage(descriptor));
+                storages.put(descriptor.getStorageID(), shared);
+            }
+            return shared.acquire();
+        }
+    }
+
+    @PreDestroy
+    public void closeStorages() {
+        synchronized (storages) {
+            for (Iterator<SharedStorage> iter = storages.values().iterator(); iter.hasNext();) {
+                iter.next().retire();
+                iter.remove();
+            }
+        }
+    }
+
+    private Storage openStorage(StorageDescriptor descriptor) {
         String scheme = descriptor.getStorageURI().getScheme();
         StorageProvider provider = providers.select(new NamedQualifier(scheme)).get();
-        return provider.openStorage(descriptor);
+        Storage storage = provider.openStorage(descriptor);
+        return descriptor.isReadCache() ? new ReadCacheStorage(storage, readCache) : storage;
+    }
+
+    private static boolean equalsConfiguration(StorageDescriptor a, StorageDescriptor b) {
+        return a == b
+                || Objects.equals(a.getStorageURIStr(), b.getStorageURIStr())
+                && Objects.equals(a.getDigestAlgorithm(), b.getDigestAlgorithm())
+                && a.getInstanceAvailability() == b.getInstanceAvailability()
+                && Objects.equals(a.getExternalRetrieveAETitle(), b.getExternalRetrieveAETitle())
+                && a.isReadOnly() == b.isReadOnly()
+                && a.isReadCache() == b.isReadCache()
+                && a.getDeleterThreads() == b.getDeleterThreads()
+                && Arrays.equals(a.getDeleterThresholdsAsStrings(), b.getDeleterThresholdsAsStrings())
+                && a.getProperties().equals(b.getProperties());
+    }
+
+    private static final class SharedStorage {
+        final StorageDescriptor descriptor;
+        final Storage storage;
+        private int refCount;
+        private boolean retired;
+
+        SharedStorage(StorageDescriptor descriptor, Storage storage) {
+            this.descriptor = descriptor;
+            this.storage = storage;
+        }
+
+        synchronized Storage acquire() {
+            refCount++;
+            return new StorageHandle(this);
+        }
+
+        synchronized void release() {
+            if (--refCount == 0 && retired)
+                close();
+        }
+
+        synchronized void retire() {
+            retired = true;
+            if (refCount == 0)
+                close();
+        }
+
+        private void close() {
+            try {
+                storage.close();
+            } catch (IOException e) {
+                LOG.warn("Failed to close {}", storage, e);
+            }
+        }
+    }
+
+    private static final class StorageHandle implements Storage {
+        private final SharedStorage shared;
+        private final Storage storage;
+        private boolean closed;
+
+        StorageHandle(SharedStorage shared) {
+            this.shared = shared;
+            this.storage = shared.storage;
+        }
+
+        @Override
+        public StorageDescriptor getStorageDescriptor() {
+            return storage.getStorageDescriptor();
+        }
+
+        @Override
+        public WriteContext createWriteContext() {
+            return storage.createWriteContext();
+        }
+
+        @Override
+        public ReadContext createReadContext() {
+            return storage.createReadContext();
+        }
+
+        @Override
+        public boolean isAccessable() {
+            return storage.isAccessable();
+        }
+
+        @Override
+        public OutputStream openOutputStream(WriteContext ctx) throws IOException {
+            return storage.openOutputStream(ctx);
+        }
+
+        @Override
+        public long getUsableSpace() throws IOException {
+            return storage.getUsableSpace();
+        }
+
+        @Override
+        public void commitStorage(WriteContext ctx) throws IOException {
+            storage.commitStorage(ctx);
+        }
+
+        @Override
+        public void revokeStorage(WriteContext ctx) throws IOException {
+            storage.revokeStorage(ctx);
+        }
+
+        @Override
+        public void deleteObject(String storagePath) throws IOException {
+            storage.deleteObject(storagePath);
+        }
+
+        @Override
+        public Map<String, IOException> deleteObjects(Collection<String> storagePaths) {
+            return storage.deleteObjects(storagePaths);
+        }
+
+        @Override
+        public InputStream openInputStream(ReadContext ctx) throws IOException {
+            return storage.openInputStream(ctx);
+        }
+
+        @Override
+        public InputStream openInputStream(ReadContext ctx, long offset, long length) throws IOException {
+            return storage.openInputStream(ctx, offset, length);
+        }
+
+        @Override
+        public synchronized void close() {
+            if (closed)
+                return;
+
+            closed = true;
+            shared.release();
+        }
+
+        @Override
+        public String toString() {
+            return storage.toString();
+        }
     }
 }
@@ -0,0 +1,327 @@
+/*
+ * *** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is part of dcm4che, an implementation of DICOM(TM) in
+ * Java(TM), hosted at https://github.com/gunterze/dcm4che.
+ *
+ * The Initial Developer of the Original Code is
+ * J4Care.
+ * Portions created by the Initial Developer are Copyright (C) 2017
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):
+ * See @authors listed below
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ *
+ * *** END LICENSE BLOCK *****
+ */
+
+
+package org.dcm4chee.arc.storage;
+
+import org.dcm4che3.net.Device;
+import org.dcm4chee.arc.conf.ArchiveDeviceExtension;
+import org.dcm4chee.arc.conf.CacheEvictionPolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Local read-through cache for objects on Storage Systems with enabled read cache. Objects are written to the cache
+ * while they are read completely for the first time and evicted according the configured size limit and eviction
+ * policy.
+ *
+ * @author Gunter Zeilinger <gunterze@gmail.com>
+ * @since Apr 2017
+ */
+@ApplicationScoped
+public class StorageReadCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StorageReadCache.class);
+
+    @Inject
+    private Device device;
+
+    private FileCache index;
+
+    private final Set<String> prefetchingStudies = new HashSet<>();
+
+    public boolean isEnabled() {
+        return index() != null;
+    }
+
+    public boolean isCached(String storageID, String storagePath) {
+        FileCache index = index();
+        return index != null && index.contains(storageID + '/' + storagePath);
+    }
+
+    public InputStream openInputStream(Storage storage, ReadContext ctx) throws IOException {
+        if (ctx.getMessageDigest() != null)
+            return storage.openInputStream(ctx);
+
+        FileCache index = index();
+        if (index == null)
+            return storage.openInputStream(ctx);
+
+        String key = keyOf(storage, ctx);
+        Path path = index.get(key);
+        if (path != null)
+            try {
+                return Files.newInputStream(path);
+            } catch (NoSuchFileException e) {
+                index.remove(key);
+            }
+        InputStream in = storage.openInputStream(ctx);
+        if (!index.beginFetch(key))
+            return in;
+
+        try {
+            Path part = index.partPathOf(key);
+            Files.createDirectories(part.getParent());
+            return new ReadThroughInputStream(in, Files.newOutputStream(part), index, key);
+        } catch (IOException e) {
+            LOG.warn("Failed to cache {} from {}", ctx.getStoragePath(), storage, e);
+            index.abort(key);
+            index.endFetch(key);
+            return in;
+        }
+    }
+
+    public InputStream openInputStream(Storage storage, ReadContext ctx, long offset, long length)
+            throws IOException {
+        FileCache index = ctx.getMessageDigest() == null ? index() : null;
+        Path path = index != null ? index.get(keyOf(storage, ctx)) : null;
+        if (path != null)
+            try {
+                FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+                try {
+                    channel.position(offset);
+                } catch (IOException e) {
+                    channel.close();
+                    throw e;
+                }
+                return Channels.newInputStream(channel);
+            } catch (NoSuchFileException e) {
+                index.remove(keyOf(storage, ctx));
+            }
+        return storage.openInputStream(ctx, offset, length);
+    }
+
+    /**
+     * Fetches object from Storage System into the cache, if it is not already cached or fetched by another thread.
+     */
+    public void fetch(Storage storage, String storagePath, String studyInstanceUID) {
+        FileCache index = index();
+        if (index == null)
+            return;
+
+        String key = storage.getStorageDescriptor().getStorageID() + '/' + storagePath;
+        if (index.beginFetch(key))
+            fetch(index, key, storage, storagePath, studyInstanceUID);
+    }
+
+    public void remove(String storageID, String storagePath) {
+        FileCache index = index();
+        if (index != null)
+            index.remove(storageID + '/' + storagePath);
+    }
+
+    public boolean beginPrefetchStudy(String studyInstanceUID) {
+        synchronized (prefetchingStudies) {
+            return prefetchingStudies.add(studyInstanceUID);
+        }
+    }
+
+    public void endPrefetchStudy(String studyInstanceUID) {
+        synchronized (prefetchingStudies) {
+            prefetchingStudies.remove(studyInstanceUID);
+        }
+    }
+
+    private static String keyOf(Storage storage, ReadContext ctx) {
+        return storage.getStorageDescriptor().getStorageID() + '/' + ctx.getStoragePath();
+    }
+
+    private synchronized FileCache index() {
+        ArchiveDeviceExtension arcdev = device.getDeviceExtension(ArchiveDeviceExtension.class);
+        String dir = arcdev.getStorageReadCacheDirectory();
+        if (dir == null)
+            index = null;
+        else if (index == null || !index.getDirectory().equals(Paths.get(dir)))
+            index = new FileCache(Paths.get(dir));
+        return index;
+    }
+
+    private void fetch(FileCache index, String key, Storage storage, String storagePath, String studyInstanceUID) {
+        Path part = index.partPathOf(key);
+        try {
+            ReadContext readContext = storage.createReadContext();
+            readContext.setStoragePath(storagePath);
+            readContext.setStudyInstanceUID(studyInstanceUID);
+            Files.createDirectories(part.getParent());
+            try (InputStream in = storage.openInputStream(readContext)) {
+                Files.copy(in, part, StandardCopyOption.REPLACE_EXISTING);
+            }
+            index.commit(key, maxSize(), evictionPolicy());
+        } catch (Exception e) {
+            LOG.warn("Failed to cache {} from {}", storagePath, storage, e);
+            index.abort(key);
+        } finally {
+            index.endFetch(key);
+        }
+    }
+
+    private long maxSize() {
+        return device.getDeviceExtension(ArchiveDeviceExtension.class).getStorageReadCacheSize() * 1000000L;
+    }
+
+    private CacheEvictionPolicy evictionPolicy() {
+        return device.getDeviceExtension(ArchiveDeviceExtension.class).getStorageReadCacheEvictionPolicy();
+    }
+
+    /**
+     * Copies read bytes into the part file of the cache entry, which is committed if the stream is read until its
+     * end, and aborted if the stream is closed before or writing to the part file fails.
+     */
+    private final class ReadThroughInputStream extends FilterInputStream {
+        private final FileCache index;
+        private final String key;
+        private OutputStream part;
+        private boolean closed;
+
+        ReadThroughInputStream(InputStream in, OutputStream part, FileCache index, String key) {
+            super(in);
+            this.part = part;
+            this.index = index;
+            this.key = key;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b < 0)
+                commit();
+            else if (part != null)
+                try {
+                    part.write(b);
+                } catch (IOException e) {
+                    abort(e);
+                }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = in.read(b, off, len);
+            if (n < 0)
+                commit();
+            else if (part != null)
+                try {
+                    part.write(b, off, n);
+                } catch (IOException e) {
+                    abort(e);
+                }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            if (part == null)
+                return in.skip(n);
+
+            byte[] buf = new byte[(int) Math.min(n, 8192)];
+            long remaining = n;
+            int read;
+            while (remaining > 0 && (read = read(buf, 0, (int) Math.min(remaining, buf.length))) > 0)
+                remaining -= read;
+            return n - remaining;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public synchronized void mark(int readlimit) {
+        }
+
+        @Override
+        public synchronized void reset() throws IOException {
+            throw new IOException("mark/reset not supported");
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed)
+                return;
+
+            closed = true;
+            try {
+                in.close();
+            } finally {
+                if (part != null)
+                    abort(null);
+                index.endFetch(key);
+            }
+        }
+
+        private void commit() {
+            if (part == null)
+                return;
+
+            try {
+                part.close();
+                part = null;
+                index.commit(key, maxSize(), evictionPolicy());
+            } catch (IOException e) {
+                abort(e);
+            }
+        }
+
+        private void abort(IOException e) {
+            if (e != null)
+                LOG.warn("Failed to cache {}", key, e);
+            try {
+                if (part != null)
+                    part.close();
+            } catch (IOException ignore) {
+            }
+            part = null;
+            index.abort(key);
+        }
+    }
+}
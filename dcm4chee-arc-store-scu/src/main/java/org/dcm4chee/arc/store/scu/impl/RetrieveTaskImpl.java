@@ -38,9 +38,11 @@
  * *** END LICENSE BLOCK *****
  */
 
+
 package org.dcm4chee.arc.store.scu.impl;
 
 import org.dcm4che3.data.Attributes;
+import org.dcm4che3.data.AttributesCoercion;
 import org.dcm4che3.data.Tag;
 import org.dcm4che3.data.VR;
 import org.dcm4che3.imageio.codec.Transcoder;
@@ -50,6 +52,7 @@ import org.dcm4che3.net.service.RetrieveTask;
 import org.dcm4che3.util.SafeClose;
 import org.dcm4chee.arc.conf.ArchiveAEExtension;
 import org.dcm4chee.arc.conf.Duration;
+import org.dcm4chee.arc.retrieve.DicomObjectPassthrough;
 import org.dcm4chee.arc.retrieve.InstanceLocations;
 import org.dcm4chee.arc.retrieve.RetrieveContext;
 import org.dcm4chee.arc.retrieve.RetrieveService;
@@ -57,11 +60,17 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.enterprise.event.Event;
+import java.io.Closeable;
 import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.*;
 
 /**
+ * Sends the matching instances over one or - for C-MOVE with configured
+ * {@link ArchiveAEExtension#maxRetrieveAssociations()} > 1 - several Store Associations. The next
+ * instances are opened in advance by the device executor, so fetching the objects from storage overlaps with the
+ * transmission of the current one.
+ *
  * @author Gunter Zeilinger <gunterze@gmail.com>
  * @since Aug 2015
  */
@@ -69,10 +78,13 @@ final class RetrieveTaskImpl implements RetrieveTask {
 
     static final Logger LOG = LoggerFactory.getLogger(RetrieveTaskImpl.class);
 
+    private static final int READ_AHEAD_PER_ASSOCIATION = 2;
+
     private final Event<RetrieveContext> retrieveStart;
     private final Event<RetrieveContext> retrieveEnd;
     private final RetrieveContext ctx;
     private final Association storeas;
+    private final List<Association> storeAssociations = new ArrayList<>();
     private final ArchiveAEExtension aeExt;
     private final String hostName;
     private Dimse dimserq;
@@ -82,8 +94,8 @@ final class RetrieveTaskImpl implements RetrieveTask {
     private int msgId;
     private boolean pendingRSP;
     private Duration pendingRSPInterval;
-    private final Collection<InstanceLocations> outstandingRSP =
-            Collections.synchronizedCollection(new ArrayList<InstanceLocations>());
+    private final Object outstandingRSPLock = new Object();
+    private int outstandingRSP;
     private volatile boolean canceled;
 
     RetrieveTaskImpl(RetrieveContext ctx, Association storeas,
@@ -92,6 +104,7 @@ final class RetrieveTaskImpl implements RetrieveTask {
         this.retrieveEnd = retrieveEnd;
         this.ctx = ctx;
         this.storeas = storeas;
+        this.storeAssociations.add(storeas);
         this.aeExt = ctx.getArchiveAEExtension();
         this.hostName = storeas.getSocket().getInetAddress().getHostName();
     }
@@ -120,14 +133,17 @@ final class RetrieveTaskImpl implements RetrieveTask {
         try {
             if (ctx.getFallbackAssociation() == null)
                 startWritePendingRSP();
-            for (InstanceLocations match : ctx.getMatches()) {
-                if (canceled)
-                    break;
-                store(match);
+            if (dimserq != Dimse.C_GET_RQ)
+                openAdditionalStoreAssociations();
+            ReadAhead readAhead = new ReadAhead(READ_AHEAD_PER_ASSOCIATION * storeAssociations.size());
+            try {
+                storeAll(readAhead);
+            } finally {
+                readAhead.close();
             }
             waitForOutstandingCStoreRSP();
         } finally {
-            releaseStoreAssociation();
+            releaseStoreAssociations();
             waitForPendingCMoveForward();
             waitForPendingCStoreForward();
             updateFailedSOPInstanceUIDList();
@@ -141,39 +157,114 @@ final class RetrieveTaskImpl implements RetrieveTask {
         retrieveEnd.fire(ctx);
     }
 
-    private void store(InstanceLocations inst) {
-        CStoreRSPHandler rspHandler = new CStoreRSPHandler(inst);
+    private void openAdditionalStoreAssociations() {
+        int n = Math.min(aeExt.maxRetrieveAssociations(), ctx.getMatches().size());
+        ApplicationEntity localAE = ctx.getLocalApplicationEntity();
+        while (storeAssociations.size() < n && !canceled) {
+            try {
+                storeAssociations.add(localAE.connect(ctx.getDestinationAE(), CStoreSCUImpl.createAARQ(ctx)));
+            } catch (Exception e) {
+                LOG.info("{}: failed to open additional association to {} - continue with {} association(s):",
+                        rqas, ctx.getDestinationAETitle(), storeAssociations.size(), e);
+                break;
+            }
+        }
+    }
+
+    private void storeAll(final ReadAhead readAhead) {
+        int n = storeAssociations.size();
+        if (n == 1) {
+            store(storeas, readAhead);
+            return;
+        }
+
+        final CountDownLatch latch = new CountDownLatch(n - 1);
+        Device device = ctx.getLocalApplicationEntity().getDevice();
+        for (final Association as : storeAssociations.subList(1, n)) {
+            device.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        store(as, readAhead);
+                    } finally {
+                        latch.countDown();
+                    }
+                }
+            });
+        }
+        store(storeas, readAhead);
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            LOG.warn("{}: failed to wait for sending instances on additional associations to {}",
+                    rqas, ctx.getDestinationAETitle(), e);
+        }
+    }
+
+    private void store(Association as, ReadAhead readAhead) {
+        Prefetch prefetch;
+        while (!canceled && (prefetch = readAhead.next()) != null)
+            store(as, prefetch);
+    }
+
+    private void store(Association as, Prefetch prefetch) {
+        InstanceLocations inst = prefetch.inst;
+        CStoreRSPHandler rspHandler = new CStoreRSPHandler(as, inst);
         String iuid = inst.getSopInstanceUID();
         String cuid = inst.getSopClassUID();
         int priority = ctx.getPriority();
-        Set<String> tsuids = storeas.getTransferSyntaxesFor(cuid);
         try {
-            if (tsuids.isEmpty()) {
-                throw new NoPresentationContextException(cuid);
-            }
             RetrieveService service = ctx.getRetrieveService();
-            try (Transcoder transcoder = service.openTranscoder(ctx, inst, tsuids, false)) {
-                String tsuid = transcoder.getDestinationTransferSyntax();
-                DataWriter data = new TranscoderDataWriter(transcoder,
-                        service.getAttributesCoercion(ctx, inst));
-                outstandingRSP.add(inst);
+            try (DicomObject obj = openDicomObject(as, prefetch)) {
+                String tsuid = obj.getTransferSyntax();
+                DataWriter data = obj.newDataWriter(service.getAttributesCoercion(ctx, inst));
+                rspHandler.addOutstandingRSP();
                 if (ctx.getMoveOriginatorAETitle() != null) {
-                    storeas.cstore(cuid, iuid, priority,
+                    as.cstore(cuid, iuid, priority,
                             ctx.getMoveOriginatorAETitle(), ctx.getMoveOriginatorMessageID(),
                             data, tsuid, rspHandler);
                 } else {
-                    storeas.cstore(cuid, iuid, priority,
+                    as.cstore(cuid, iuid, priority,
                             data, tsuid, rspHandler);
                 }
             }
         } catch (Exception e) {
-            outstandingRSP.remove(inst);
+            rspHandler.removeOutstandingRSP();
             ctx.incrementFailed();
             ctx.addFailedSOPInstanceUID(iuid);
             LOG.info("{}: failed to send {} to {}:", rqas, inst, ctx.getDestinationAETitle(), e);
         }
     }
 
+    private DicomObject openDicomObject(Association as, Prefetch prefetch) throws Exception {
+        DicomObject obj;
+        try {
+            obj = prefetch.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : e;
+        }
+        if (as == storeas || as.getTransferSyntaxesFor(prefetch.inst.getSopClassUID())
+                .contains(obj.getTransferSyntax()))
+            return obj;
+
+        SafeClose.close(obj);
+        return openDicomObject(as, prefetch.inst);
+    }
+
+    private DicomObject openDicomObject(Association as, InstanceLocations inst) throws IOException {
+        String cuid = inst.getSopClassUID();
+        Set<String> tsuids = as.getTransferSyntaxesFor(cuid);
+        if (tsuids.isEmpty()) {
+            throw new NoPresentationContextException(cuid);
+        }
+        RetrieveService service = ctx.getRetrieveService();
+        DicomObjectPassthrough passthrough = service.openPassthrough(ctx, inst, tsuids, false);
+        return passthrough != null
+                ? new DicomObject(passthrough)
+                : new DicomObject(service.openTranscoder(ctx, inst, tsuids, false));
+    }
+
     private void writeFinalRSP() {
         ctx.addFailed(ctx.remaining());
         writeRSP(ctx.status(), 0, finalRSPDataset());
@@ -242,11 +333,24 @@ final class RetrieveTaskImpl implements RetrieveTask {
                             0, pendingRSPInterval.getSeconds(), TimeUnit.SECONDS));
     }
 
+    private void addOutstandingRSP() {
+        synchronized (outstandingRSPLock) {
+            outstandingRSP++;
+        }
+    }
+
+    private void removeOutstandingRSP() {
+        synchronized (outstandingRSPLock) {
+            if (--outstandingRSP == 0)
+                outstandingRSPLock.notifyAll();
+        }
+    }
+
     private void waitForOutstandingCStoreRSP() {
         try {
-            synchronized (outstandingRSP) {
-                while (!outstandingRSP.isEmpty())
-                    outstandingRSP.wait();
+            synchronized (outstandingRSPLock) {
+                while (outstandingRSP > 0)
+                    outstandingRSPLock.wait();
             }
         } catch (InterruptedException e) {
             LOG.warn("{}: failed to wait for outstanding C-STORE RSP(s) on association to {}",
@@ -268,28 +372,119 @@ final class RetrieveTaskImpl implements RetrieveTask {
             ctx.getRetrieveService().updateFailedSOPInstanceUIDList(ctx);
     }
 
-    private void removeOutstandingRSP(InstanceLocations inst) {
-        outstandingRSP.remove(inst);
-        synchronized (outstandingRSP) {
-            outstandingRSP.notify();
+    protected void releaseStoreAssociations() {
+        if (dimserq != Dimse.C_GET_RQ)
+            for (Association as : storeAssociations)
+                try {
+                    as.release();
+                } catch (IOException e) {
+                    LOG.warn("{}: failed to release association to {}", rqas, as.getRemoteAET(), e);
+                }
+    }
+
+    private final class ReadAhead {
+
+        private final Iterator<InstanceLocations> matches = ctx.getMatches().iterator();
+        private final ArrayDeque<Prefetch> prefetched = new ArrayDeque<>();
+        private final Device device = ctx.getLocalApplicationEntity().getDevice();
+        private final int depth;
+
+        ReadAhead(int depth) {
+            this.depth = depth;
+        }
+
+        synchronized Prefetch next() {
+            while (prefetched.size() <= depth && matches.hasNext()) {
+                Prefetch prefetch = new Prefetch(matches.next());
+                prefetched.add(prefetch);
+                device.execute(prefetch);
+            }
+            return prefetched.poll();
+        }
+
+        synchronized void close() {
+            Prefetch prefetch;
+            while ((prefetch = prefetched.poll()) != null)
+                prefetch.close();
         }
     }
 
-    protected void releaseStoreAssociation() {
-        if (dimserq != Dimse.C_GET_RQ)
+    private final class Prefetch extends FutureTask<DicomObject> {
+
+        final InstanceLocations inst;
+
+        Prefetch(final InstanceLocations inst) {
+            super(new Callable<DicomObject>() {
+                @Override
+                public DicomObject call() throws Exception {
+                    return openDicomObject(storeas, inst);
+                }
+            });
+            this.inst = inst;
+        }
+
+        @Override
+        protected void set(DicomObject obj) {
+            super.set(obj);
+            if (isCancelled())
+                SafeClose.close(obj);
+        }
+
+        void close() {
+            if (cancel(false))
+                return;
+
             try {
-                storeas.release();
-            } catch (IOException e) {
-                LOG.warn("{}: failed to release association to {}", rqas, storeas.getRemoteAET(), e);
+                SafeClose.close(get());
+            } catch (Exception ignore) {
             }
+        }
+    }
+
+    /**
+     * Object opened for sending: either unchanged in its stored Transfer Syntax, or by a {@link Transcoder}.
+     */
+    private static final class DicomObject implements Closeable {
+
+        private final DicomObjectPassthrough passthrough;
+        private final Transcoder transcoder;
+
+        DicomObject(DicomObjectPassthrough passthrough) {
+            this.passthrough = passthrough;
+            this.transcoder = null;
+        }
+
+        DicomObject(Transcoder transcoder) {
+            this.passthrough = null;
+            this.transcoder = transcoder;
+        }
+
+        String getTransferSyntax() {
+            return passthrough != null
+                    ? passthrough.getTransferSyntax()
+                    : transcoder.getDestinationTransferSyntax();
+        }
+
+        DataWriter newDataWriter(AttributesCoercion coerce) {
+            return passthrough != null
+                    ? new PassthroughDataWriter(passthrough, coerce)
+                    : new TranscoderDataWriter(transcoder, coerce);
+        }
+
+        @Override
+        public void close() {
+            SafeClose.close(passthrough);
+            SafeClose.close(transcoder);
+        }
     }
 
     private final class CStoreRSPHandler extends DimseRSPHandler {
 
         private final InstanceLocations inst;
+        private boolean outstanding;
 
-        public CStoreRSPHandler(InstanceLocations inst) {
-            super(storeas.nextMessageID());
+        public CStoreRSPHandler(Association as, InstanceLocations inst) {
+            super(as.nextMessageID());
             this.inst = inst;
         }
 
@@ -307,13 +502,25 @@ final class RetrieveTaskImpl implements RetrieveTask {
             }
             if (pendingRSP)
                 writePendingRSP();
-            removeOutstandingRSP(inst);
+            removeOutstandingRSP();
         }
 
         @Override
         public void onClose(Association as) {
             super.onClose(as);
-            removeOutstandingRSP(inst);
+            removeOutstandingRSP();
+        }
+
+        synchronized void addOutstandingRSP() {
+            outstanding = true;
+            RetrieveTaskImpl.this.addOutstandingRSP();
+        }
+
+        synchronized void removeOutstandingRSP() {
+            if (outstanding) {
+                outstanding = false;
+                RetrieveTaskImpl.this.removeOutstandingRSP();
+            }
         }
     }
 
@@ -0,0 +1,199 @@
+/*
+ * *** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is part of dcm4che, an implementation of DICOM(TM) in
+ * Java(TM), hosted at https://github.com/gunterze/dcm4che.
+ *
+ * The Initial Developer of the Original Code is
+ * J4Care.
+ * Portions created by the Initial Developer are Copyright (C) 2017
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):
+ * See @authors listed below
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ *
+ * *** END LICENSE BLOCK *****
+ */
+
+
+package org.dcm4chee.arc.store.impl;
+
+import org.dcm4che3.util.StreamUtils;
+
+import java.io.*;
+
+/**
+ * Records all bytes read from the underlying stream, so the header of a received object can be parsed
+ * before deciding how the object shall be written. Recorded bytes exceeding the memory threshold are spooled
+ * to a file.
+ *
+ * @author Gunter Zeilinger <gunterze@gmail.com>
+ * @since Apr 2017
+ */
+class ReplayableInputStream extends FilterInputStream {
+
+    private final Buffer buffer = new Buffer();
+    private final int memoryThreshold;
+    private final File spoolDirectory;
+    private File spoolFile;
+    private OutputStream spool;
+    private OutputStream forward;
+
+    ReplayableInputStream(InputStream in, int memoryThreshold, File spoolDirectory) {
+        super(in);
+        this.memoryThreshold = memoryThreshold;
+        this.spoolDirectory = spoolDirectory;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = in.read();
+        if (b >= 0)
+            record(new byte[]{ (byte) b }, 0, 1);
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = in.read(b, off, len);
+        if (n > 0)
+            record(b, off, n);
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        byte[] b = new byte[(int) Math.min(n, 8192)];
+        long remaining = n;
+        int read;
+        while (remaining > 0 && (read = read(b, 0, (int) Math.min(remaining, b.length))) > 0)
+            remaining -= read;
+        return n - remaining;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    private void record(byte[] b, int off, int len) throws IOException {
+        if (forward != null) {
+            forward.write(b, off, len);
+            return;
+        }
+        if (spool == null && buffer.size() + len > memoryThreshold)
+            spool();
+        if (spool != null)
+            spool.write(b, off, len);
+        else
+            buffer.write(b, off, len);
+    }
+
+    private void spool() throws IOException {
+        spoolDirectory.mkdirs();
+        spoolFile = File.createTempFile("replay", null, spoolDirectory);
+        spool = new BufferedOutputStream(new FileOutputStream(spoolFile));
+        buffer.writeTo(spool);
+        buffer.reset();
+    }
+
+    /**
+     * Returns if the recorded bytes exceeded the memory threshold and were spooled to a file.
+     */
+    boolean isSpooled() {
+        return spoolFile != null;
+    }
+
+    /**
+     * Returns a stream providing all bytes read so far followed by the not yet read bytes of the underlying stream.
+     */
+    InputStream replay() throws IOException {
+        return new SequenceInputStream(recorded(0L), in);
+    }
+
+    /**
+     * Writes the bytes read so far, starting at {@code offset}, to {@code out}. Bytes read afterwards are written
+     * to {@code out} instead of being recorded.
+     */
+    void forwardTo(OutputStream out, long offset) throws IOException {
+        try (InputStream recorded = recorded(offset)) {
+            StreamUtils.copy(recorded, out);
+        }
+        forward = out;
+    }
+
+    /**
+     * Writes the not yet read bytes of the underlying stream to {@code out}, without recording them.
+     */
+    void transferTo(OutputStream out, byte[] copyBuffer) throws IOException {
+        int read;
+        while ((read = in.read(copyBuffer)) > 0)
+            out.write(copyBuffer, 0, read);
+    }
+
+    /**
+     * Closes and deletes the spool file, if any.
+     */
+    void release() {
+        if (spoolFile == null)
+            return;
+
+        try {
+            spool.close();
+        } catch (IOException ignore) {
+        }
+        spoolFile.delete();
+    }
+
+    private InputStream recorded(long offset) throws IOException {
+        if (spool == null)
+            return buffer.toInputStream((int) Math.min(offset, buffer.size()));
+
+        spool.flush();
+        InputStream is = new BufferedInputStream(new FileInputStream(spoolFile));
+        StreamUtils.skipFully(is, offset);
+        return is;
+    }
+
+    private static class Buffer extends ByteArrayOutputStream {
+        Buffer() {
+            super(8192);
+        }
+
+        InputStream toInputStream(int offset) {
+            return new ByteArrayInputStream(buf, offset, count - offset);
+        }
+    }
+}
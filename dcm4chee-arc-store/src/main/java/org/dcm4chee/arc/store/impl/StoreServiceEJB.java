@@ -52,6 +52,7 @@ import org.dcm4che3.util.StringUtils;
 import org.dcm4che3.util.TagUtils;
 import org.dcm4chee.arc.MergeMWLQueryParam;
 import org.dcm4chee.arc.StorePermission;
+import org.dcm4chee.arc.Cache;
 import org.dcm4chee.arc.StorePermissionCache;
 import org.dcm4chee.arc.code.CodeCache;
 import org.dcm4chee.arc.conf.*;
@@ -124,6 +125,21 @@ public class StoreServiceEJB {
     @Inject
     private IDService idService;
 
+    public void updateDB(List<UpdateDBQueue.Entry> batch) {
+        for (UpdateDBQueue.Entry entry : batch) {
+            StoreContext ctx = entry.getStoreContext();
+            try {
+                UpdateDBResult result = updateDB(ctx, new UpdateDBResult());
+                Instance instance = result.getCreatedInstance();
+                if (instance != null)
+                    ctx.getStoreSession().cacheSeries(instance.getSeries());
+                entry.setResult(result);
+            } catch (DicomServiceException e) {
+                entry.setException(e);
+            }
+        }
+    }
+
     public UpdateDBResult updateDB(StoreContext ctx, UpdateDBResult result)
             throws DicomServiceException {
         StoreSession session = ctx.getStoreSession();
@@ -911,7 +927,7 @@ public class StoreServiceEJB {
     }
 
     private void checkStorePermission(StoreContext ctx, Patient pat) throws DicomServiceException {
-        StoreSession session = ctx.getStoreSession();
+        final StoreSession session = ctx.getStoreSession();
         String serviceURL = session.getArchiveAEExtension().storePermissionServiceURL();
         if (serviceURL == null)
             return;
@@ -920,14 +936,14 @@ public class StoreServiceEJB {
         if (pat != null)
             attrs.addAll(pat.getAttributes());
         String urlspec = new AttributesFormat(serviceURL).format(attrs);
-        StorePermission storePermission = storePermissionCache.get(urlspec);
-        if (storePermission == null) {
-            storePermission = queryStorePermission(session, urlspec);
-            storePermissionCache.put(urlspec, storePermission);
-        } else {
-            LOG.debug("{}: Use cached result of Query Store Permission Service {} - {}",
-                    session, urlspec, storePermission);
-        }
+        StorePermission storePermission = storePermissionCache.getEntry(urlspec,
+                new Cache.Loader<String, StorePermission, DicomServiceException>() {
+                    @Override
+                    public StorePermission load(String urlspec) throws DicomServiceException {
+                        return queryStorePermission(session, urlspec);
+                    }
+                }).value();
+        LOG.debug("{}: Result of Query Store Permission Service {} - {}", session, urlspec, storePermission);
         if (storePermission.exception != null)
             throw storePermission.exception;
 
@@ -57,6 +57,8 @@ import org.dcm4chee.arc.MergeMWLQueryParam;
 import org.dcm4chee.arc.MergeMWLCache;
 import org.dcm4chee.arc.conf.*;
 import org.dcm4chee.arc.entity.*;
+import org.dcm4chee.arc.metrics.Metric;
+import org.dcm4chee.arc.metrics.MetricsService;
 import org.dcm4chee.arc.retrieve.InstanceLocations;
 import org.dcm4chee.arc.retrieve.RetrieveContext;
 import org.dcm4chee.arc.retrieve.RetrieveService;
@@ -78,6 +80,7 @@ import javax.servlet.http.HttpServletRequest;
 import javax.xml.transform.Templates;
 import javax.xml.transform.TransformerConfigurationException;
 import java.io.File;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -113,6 +116,9 @@ class StoreServiceImpl implements StoreService {
     @Inject
     private MergeMWLCache mergeMWLCache;
 
+    @Inject
+    private MetricsService metricsService;
+
     @Override
     public StoreSession newStoreSession(Association as) {
         return new StoreSessionImpl(null, null, as, as.getApplicationEntity(), as.getSocket(), null, this);
@@ -142,21 +148,15 @@ class StoreServiceImpl implements StoreService {
     public void store(StoreContext ctx, InputStream data) throws IOException {
         UpdateDBResult result = null;
         List<File> bulkDataFiles = Collections.emptyList();
+        UpdateDBQueue updateDBQueue = updateDBQueue(ctx);
+        boolean receiving = updateDBQueue != null;
+        if (receiving)
+            updateDBQueue.receiveStarted();
         try {
-            String receiveTranferSyntax = ctx.getReceiveTranferSyntax();
-            try (Transcoder transcoder = receiveTranferSyntax != null
-                    ? new Transcoder(data, receiveTranferSyntax)
-                    : new Transcoder(data)) {
-                ctx.setReceiveTransferSyntax(transcoder.getSourceTransferSyntax());
-                transcoder.setIncludeBulkData(DicomInputStream.IncludeBulkData.URI);
-                transcoder.setPixelDataBulkDataURI("");
-                transcoder.setConcatenateBulkDataFiles(true);
-                transcoder.setBulkDataDirectory(
-                        ctx.getStoreSession().getArchiveAEExtension().getBulkDataSpoolDirectoryFile());
-                transcoder.setIncludeFileMetaInformation(true);
-                transcoder.setDeleteBulkDataFiles(false);
-                transcoder.transcode(new TranscoderHandler(ctx));
-                bulkDataFiles = transcoder.getBulkDataFiles();
+            try {
+                long start = System.nanoTime();
+                bulkDataFiles = receive(ctx, data);
+                metricsService.recordSince(Metric.STORE_RECEIVE, ctx.getStoreSession().getCalledAET(), start);
             } catch (StorageException e) {
                 LOG.warn("{}: Failed to store received object:\n", ctx.getStoreSession(), e);
                 throw new DicomServiceException(Status.OutOfResources, e);
@@ -174,7 +174,10 @@ class StoreServiceImpl implements StoreService {
             checkCharacterSet(ctx);
             storeMetadata(ctx);
             coerceAttributes(ctx);
-            result = updateDB(ctx);
+            receiving = false;
+            long start = System.nanoTime();
+            result = updateDB(ctx, updateDBQueue);
+            metricsService.recordSince(Metric.STORE_UPDATE_DB, ctx.getStoreSession().getCalledAET(), start);
             postUpdateDB(ctx, result);
         } catch (DicomServiceException e) {
             ctx.setException(e);
@@ -184,6 +187,8 @@ class StoreServiceImpl implements StoreService {
             ctx.setException(dse);
             throw dse;
         } finally {
+            if (receiving)
+                updateDBQueue.receiveFailed();
             for (File tmpFile : bulkDataFiles)
                 tmpFile.delete();
             revokeStorage(ctx, result);
@@ -191,6 +196,139 @@ class StoreServiceImpl implements StoreService {
         }
     }
 
+    /**
+     * Parses the header of the received object up to the Pixel Data and writes the object unchanged to the Storage,
+     * without spooling bulk data. Objects which shall be compressed, which are received with Deflated Transfer
+     * Syntax or which header exceeds the Store Memory Threshold are passed to the {@link Transcoder}.
+     *
+     * @return spooled bulk data files, to be deleted after the object was processed
+     */
+    private List<File> receive(StoreContext ctx, InputStream data) throws IOException {
+        ArchiveAEExtension arcAE = ctx.getStoreSession().getArchiveAEExtension();
+        ReplayableInputStream in = new ReplayableInputStream(data,
+                arcAE.getArchiveDeviceExtension().getStoreMemoryThreshold(),
+                arcAE.getBulkDataSpoolDirectoryFile());
+        try {
+            return receive(ctx, in);
+        } finally {
+            in.release();
+        }
+    }
+
+    private List<File> receive(StoreContext ctx, ReplayableInputStream in) throws IOException {
+        String receiveTranferSyntax = ctx.getReceiveTranferSyntax();
+        DicomInputStream dis = receiveTranferSyntax != null
+                ? new DicomInputStream(in, receiveTranferSyntax)
+                : new DicomInputStream(in);
+        dis.readFileMetaInformation();
+        long datasetPos = dis.getPosition();
+        String tsuid = dis.getTransferSyntax();
+        if (tsuid.equals(UID.DeflatedExplicitVRLittleEndian))
+            return transcode(ctx, in.replay(), receiveTranferSyntax);
+
+        dis.setIncludeBulkData(DicomInputStream.IncludeBulkData.URI);
+        dis.setURI("");
+        Attributes attrs = dis.readDataset(-1, Tag.PixelData);
+        boolean pixelData = dis.tag() == Tag.PixelData;
+        ImageDescriptor imageDescriptor = null;
+        if (pixelData) {
+            attrs.setValue(Tag.PixelData, dis.vr(), new BulkData(null, "", dis.bigEndian()));
+            imageDescriptor = new ImageDescriptor(attrs);
+        }
+        ctx.setReceiveTransferSyntax(tsuid);
+        ctx.setAttributes(attrs);
+        if (in.isSpooled() || selectCompressionRule(imageDescriptor, TransferSyntaxType.forUID(tsuid), ctx) != null)
+            return transcode(ctx, in.replay(), receiveTranferSyntax);
+
+        try (OutputStream out = openOutputStream(ctx, Location.ObjectType.DICOM_FILE)) {
+            if (out != null) {
+                DicomOutputStream dos = new DicomOutputStream(out, UID.ExplicitVRLittleEndian);
+                dos.writeFileMetaInformation(attrs.createFileMetaInformation(tsuid));
+                dos.flush();
+                in.forwardTo(out, datasetPos);
+                if (pixelData)
+                    readAttributesAfterPixelData(dis, attrs);
+                in.transferTo(out, new byte[8192]);
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    private static void readAttributesAfterPixelData(DicomInputStream dis, Attributes attrs) throws IOException {
+        VR vr = dis.vr();
+        Object value = attrs.getValue(Tag.PixelData);
+        dis.readValue(dis, attrs);
+        attrs.setValue(Tag.PixelData, vr, value);
+        dis.readAttributes(attrs, -1, -1);
+    }
+
+    private List<File> transcode(StoreContext ctx, InputStream data, String receiveTranferSyntax)
+            throws IOException {
+        long start = System.nanoTime();
+        try (Transcoder transcoder = receiveTranferSyntax != null
+                ? new Transcoder(data, receiveTranferSyntax)
+                : new Transcoder(data)) {
+            ctx.setReceiveTransferSyntax(transcoder.getSourceTransferSyntax());
+            transcoder.setIncludeBulkData(DicomInputStream.IncludeBulkData.URI);
+            transcoder.setPixelDataBulkDataURI("");
+            transcoder.setConcatenateBulkDataFiles(true);
+            transcoder.setBulkDataDirectory(
+                    ctx.getStoreSession().getArchiveAEExtension().getBulkDataSpoolDirectoryFile());
+            transcoder.setIncludeFileMetaInformation(true);
+            transcoder.setDeleteBulkDataFiles(false);
+            transcoder.transcode(new TranscoderHandler(ctx));
+            metricsService.recordSince(Metric.STORE_TRANSCODE, ctx.getStoreSession().getCalledAET(), start);
+            return transcoder.getBulkDataFiles();
+        }
+    }
+
+    private UpdateDBQueue updateDBQueue(StoreContext ctx) {
+        StoreSession session = ctx.getStoreSession();
+        ArchiveDeviceExtension arcDev = session.getArchiveAEExtension().getArchiveDeviceExtension();
+        return arcDev.getStoreUpdateDBMaxBatchSize() > 1 ? ((StoreSessionImpl) session).getUpdateDBQueue() : null;
+    }
+
+    private UpdateDBResult updateDB(StoreContext ctx, UpdateDBQueue updateDBQueue) throws DicomServiceException {
+        if (updateDBQueue == null)
+            return updateDB(ctx);
+
+        ArchiveDeviceExtension arcDev = ctx.getStoreSession().getArchiveAEExtension().getArchiveDeviceExtension();
+        return updateDBQueue.updateDB(ctx,
+                arcDev.getStoreUpdateDBMaxBatchSize(),
+                arcDev.getStoreUpdateDBMaxBatchDelay(),
+                new UpdateDBQueue.Updater() {
+                    @Override
+                    public void updateDB(List<UpdateDBQueue.Entry> batch) {
+                        StoreServiceImpl.this.updateDB(batch);
+                    }
+                });
+    }
+
+    private void updateDB(List<UpdateDBQueue.Entry> batch) {
+        if (batch.size() > 1) {
+            StoreContext ctx = batch.get(0).getStoreContext();
+            StoreSessionImpl session = (StoreSessionImpl) ctx.getStoreSession();
+            try {
+                ejb.updateDB(batch);
+                LOG.debug("{}: Updated DB for {} instances in one transaction", session, batch.size());
+                return;
+            } catch (EJBException e) {
+                LOG.info("{}: Failed to update DB for {} instances in one transaction - update DB for each instance:\n",
+                        session, batch.size(), e);
+                session.clearCache();
+            }
+        }
+        for (UpdateDBQueue.Entry entry : batch) {
+            try {
+                entry.setResult(updateDB(entry.getStoreContext()));
+            } catch (DicomServiceException e) {
+                entry.setException(e);
+            } catch (RuntimeException e) {
+                entry.setException(e);
+            }
+        }
+    }
+
     private UpdateDBResult updateDB(StoreContext ctx) throws DicomServiceException {
         StoreSession session = ctx.getStoreSession();
         ArchiveAEExtension arcAE = session.getArchiveAEExtension();
@@ -269,7 +407,9 @@ class StoreServiceImpl implements StoreService {
                 storeMetadata(ctx);
                 coerceAttributes(ctx);
             }
+            long start = System.nanoTime();
             result = updateDB(ctx);
+            metricsService.recordSince(Metric.STORE_UPDATE_DB, ctx.getStoreSession().getCalledAET(), start);
             postUpdateDB(ctx, result);
         } catch (DicomServiceException e) {
             ctx.setException(e);
@@ -424,6 +564,7 @@ class StoreServiceImpl implements StoreService {
     }
 
     private void coerceAttributes(StoreContext ctx) {
+        long start = System.nanoTime();
         StoreSession session = ctx.getStoreSession();
         ArchiveAttributeCoercion rule = session.getArchiveAEExtension().findAttributeCoercion(
                 session.getRemoteHostName(),
@@ -449,28 +590,35 @@ class StoreServiceImpl implements StoreService {
             coercion = new MergeAttributesCoercion(requestAttrs, coercion);
         }
 
-        if (coercion != null)
+        if (coercion != null) {
             coercion.coerce(ctx.getAttributes(), ctx.getCoercedAttributes());
+            metricsService.recordSince(Metric.STORE_COERCE, session.getCalledAET(), start);
+        }
     }
 
-    private Attributes queryMWL(StoreContext ctx, ArchiveAttributeCoercion rule) {
+    private Attributes queryMWL(final StoreContext ctx, ArchiveAttributeCoercion rule) {
         MergeMWLMatchingKey mergeMWLMatchingKey = rule.getMergeMWLMatchingKey();
-        String tplURI = rule.getMergeMWLTemplateURI();
+        final String tplURI = rule.getMergeMWLTemplateURI();
         if (mergeMWLMatchingKey == null || tplURI == null)
             return null;
 
         MergeMWLQueryParam queryParam =
                 MergeMWLQueryParam.valueOf(mergeMWLMatchingKey, ctx.getAttributes());
 
-        Cache.Entry<Attributes> entry = mergeMWLCache.getEntry(queryParam);
-        if (entry != null)
-            return entry.value();
+        return mergeMWLCache.getEntry(queryParam,
+                new Cache.Loader<MergeMWLQueryParam, Attributes, RuntimeException>() {
+                    @Override
+                    public Attributes load(MergeMWLQueryParam queryParam) {
+                        return queryMWL(ctx, queryParam, tplURI);
+                    }
+                }).value();
+    }
 
+    private Attributes queryMWL(StoreContext ctx, MergeMWLQueryParam queryParam, String tplURI) {
         List<Attributes> mwlItems = ejb.queryMWL(ctx, queryParam);
-        if (mwlItems == null) {
-            mergeMWLCache.put(queryParam, null);
+        if (mwlItems == null)
             return null;
-        }
+
         Attributes result = null;
         Sequence reqAttrsSeq = null;
         try {
@@ -489,7 +637,6 @@ class StoreServiceImpl implements StoreService {
         } catch (SAXException e) {
             LOG.error("{}: Failed to apply XSL: {}", ctx.getStoreSession(), tplURI, e);
         }
-        mergeMWLCache.put(queryParam, result);
         return result;
     }
 
@@ -508,12 +655,14 @@ class StoreServiceImpl implements StoreService {
     }
 
     private Storage getStorage(StoreSession session, StorageDescriptor descriptor) {
-        Storage storage = session.getStorage(descriptor.getStorageID());
-        if (storage == null) {
-            storage = storageFactory.getStorage(descriptor);
-            session.putStorage(descriptor.getStorageID(), storage);
+        synchronized (session) {
+            Storage storage = session.getStorage(descriptor.getStorageID());
+            if (storage == null) {
+                storage = storageFactory.getStorage(descriptor);
+                session.putStorage(descriptor.getStorageID(), storage);
+            }
+            return storage;
         }
-        return storage;
     }
 
     private final class TranscoderHandler implements Transcoder.Handler {
@@ -526,7 +675,8 @@ class StoreServiceImpl implements StoreService {
         @Override
         public OutputStream newOutputStream(Transcoder transcoder, Attributes dataset) throws IOException {
             storeContext.setAttributes(dataset);
-            ArchiveCompressionRule compressionRule = selectCompressionRule(transcoder, storeContext);
+            ArchiveCompressionRule compressionRule = selectCompressionRule(transcoder.getImageDescriptor(),
+                    transcoder.getSourceTransferSyntaxType(), storeContext);
             if (compressionRule != null) {
                 transcoder.setDestinationTransferSyntax(compressionRule.getTransferSyntax());
                 transcoder.setCompressParams(compressionRule.getImageWriteParams());
@@ -553,7 +703,26 @@ class StoreServiceImpl implements StoreService {
         writeCtx.setStudyInstanceUID(storeContext.getStudyInstanceUID());
         writeCtx.setMessageDigest(storage.getStorageDescriptor().getMessageDigest());
         storeContext.setWriteContext(objectType, writeCtx);
-        return storage.openOutputStream(writeCtx);
+        return timed(storage.openOutputStream(writeCtx), descriptor.getStorageID());
+    }
+
+    private OutputStream timed(OutputStream out, final String storageID) {
+        final long start = System.nanoTime();
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                try {
+                    out.close();
+                } finally {
+                    metricsService.recordSince(Metric.STORAGE_WRITE, storageID, start);
+                }
+            }
+        };
     }
 
     @Override
@@ -573,12 +742,12 @@ class StoreServiceImpl implements StoreService {
         ejb.restoreInstances(session, studyUID, seriesUID);
     }
 
-    private ArchiveCompressionRule selectCompressionRule(Transcoder transcoder, StoreContext storeContext) {
-        ImageDescriptor imageDescriptor = transcoder.getImageDescriptor();
+    private ArchiveCompressionRule selectCompressionRule(ImageDescriptor imageDescriptor,
+            TransferSyntaxType sourceTransferSyntaxType, StoreContext storeContext) {
         if (imageDescriptor == null) // not an image
             return null;
 
-        if (transcoder.getSourceTransferSyntaxType() != TransferSyntaxType.NATIVE) // already compressed
+        if (sourceTransferSyntaxType != TransferSyntaxType.NATIVE) // already compressed
             return null;
 
         StoreSession session = storeContext.getStoreSession();
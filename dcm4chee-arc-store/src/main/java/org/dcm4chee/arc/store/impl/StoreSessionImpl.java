@@ -56,6 +56,7 @@ import org.dcm4chee.arc.store.StoreSession;
 import javax.servlet.http.HttpServletRequest;
 import java.io.IOException;
 import java.net.Socket;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -75,8 +76,9 @@ class StoreSessionImpl implements StoreSession {
     private final Map<String, Storage> storageMap = new HashMap<>();
     private Study cachedStudy;
     private final Map<String,Series> seriesCache = new HashMap<>();
-    private Map<Long,UIDMap> uidMapCache = new HashMap<>();
+    private final Map<Long,UIDMap> uidMapCache = Collections.synchronizedMap(new HashMap<Long,UIDMap>());
     private Map<String, String> uidMap;
+    private final UpdateDBQueue updateDBQueue = new UpdateDBQueue();
 
     StoreSessionImpl(HttpServletRequest httpRequest, String pathParam, Association as, ApplicationEntity ae,
                             Socket socket, HL7Segment msh, StoreService storeService) {
@@ -86,7 +88,6 @@ class StoreSessionImpl implements StoreSession {
         this.socket = socket;
         this.msh = msh;
         this.storeService = storeService;
-        this.uidMapCache = new HashMap<>();
         this.calledAET = as != null ? as.getCalledAET() : httpRequest != null ? pathParam : ae.getAETitle();
     }
 
@@ -152,18 +153,22 @@ class StoreSessionImpl implements StoreSession {
                 : null;
     }
 
+    UpdateDBQueue getUpdateDBQueue() {
+        return updateDBQueue;
+    }
+
     @Override
-    public Study getCachedStudy(String studyInstanceUID) {
+    public synchronized Study getCachedStudy(String studyInstanceUID) {
         return isStudyCached(studyInstanceUID) ? cachedStudy : null;
     }
 
     @Override
-    public Series getCachedSeries(String studyInstanceUID, String seriesIUID) {
+    public synchronized Series getCachedSeries(String studyInstanceUID, String seriesIUID) {
         return isStudyCached(studyInstanceUID) ? seriesCache.get(seriesIUID) : null;
     }
 
     @Override
-    public void cacheSeries(Series series) {
+    public synchronized void cacheSeries(Series series) {
         Study study = series.getStudy();
         if (!isStudyCached(study.getStudyInstanceUID())) {
             cachedStudy = study;
@@ -172,6 +177,15 @@ class StoreSessionImpl implements StoreSession {
         seriesCache.put(series.getSeriesInstanceUID(), series);
     }
 
+    /**
+     * Clears cached entities, which may refer to entities persisted by a rolled back transaction.
+     */
+    synchronized void clearCache() {
+        cachedStudy = null;
+        seriesCache.clear();
+        uidMapCache.clear();
+    }
+
     private boolean isStudyCached(String studyInstanceUID) {
         return cachedStudy != null && cachedStudy.getStudyInstanceUID().equals(studyInstanceUID);
     }
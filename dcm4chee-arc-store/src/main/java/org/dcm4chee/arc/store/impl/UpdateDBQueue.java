@@ -0,0 +1,195 @@
+/*
+ * *** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is part of dcm4che, an implementation of DICOM(TM) in
+ * Java(TM), hosted at https://github.com/gunterze/dcm4che.
+ *
+ * The Initial Developer of the Original Code is
+ * J4Care.
+ * Portions created by the Initial Developer are Copyright (C) 2017
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):
+ * See @authors listed below
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ *
+ * *** END LICENSE BLOCK *****
+ */
+
+
+package org.dcm4chee.arc.store.impl;
+
+import org.dcm4che3.net.service.DicomServiceException;
+import org.dcm4chee.arc.store.StoreContext;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Collects instances of one Series received concurrently within one Store Session, to update the DB for them
+ * in one transaction. The first queued instance waits up to the configured delay for instances of the same Series,
+ * which are still received - if there are none, the DB is updated immediately.
+ *
+ * @author Gunter Zeilinger <gunterze@gmail.com>
+ * @since Apr 2017
+ */
+class UpdateDBQueue {
+
+    interface Updater {
+        void updateDB(List<Entry> batch);
+    }
+
+    private final ArrayDeque<Entry> queue = new ArrayDeque<>();
+    private int receiving;
+    private boolean updating;
+
+    synchronized void receiveStarted() {
+        receiving++;
+    }
+
+    synchronized void receiveFailed() {
+        receiving--;
+        notifyAll();
+    }
+
+    UpdateDBResult updateDB(StoreContext ctx, int maxBatchSize, long maxBatchDelay, Updater updater)
+            throws DicomServiceException {
+        Entry entry = new Entry(ctx);
+        List<Entry> batch;
+        boolean interrupted = false;
+        synchronized (this) {
+            receiving--;
+            queue.add(entry);
+            notifyAll();
+            while (updating && !entry.done) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (entry.done) {
+                if (interrupted)
+                    Thread.currentThread().interrupt();
+                return entry.result();
+            }
+            updating = true;
+            long end = System.currentTimeMillis() + maxBatchDelay;
+            long remaining;
+            while (receiving > 0 && countSameSeries(ctx) < maxBatchSize
+                    && (remaining = end - System.currentTimeMillis()) > 0) {
+                try {
+                    wait(remaining);
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    break;
+                }
+            }
+            batch = removeSameSeries(ctx, maxBatchSize);
+        }
+        try {
+            updater.updateDB(batch);
+        } finally {
+            synchronized (this) {
+                updating = false;
+                for (Entry e : batch)
+                    e.done = true;
+                notifyAll();
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+        return entry.result();
+    }
+
+    private int countSameSeries(StoreContext ctx) {
+        int count = 0;
+        for (Entry e : queue)
+            if (e.isSameSeries(ctx))
+                count++;
+        return count;
+    }
+
+    private List<Entry> removeSameSeries(StoreContext ctx, int maxBatchSize) {
+        List<Entry> batch = new ArrayList<>();
+        for (Iterator<Entry> iter = queue.iterator(); iter.hasNext() && batch.size() < maxBatchSize;) {
+            Entry e = iter.next();
+            if (e.isSameSeries(ctx)) {
+                iter.remove();
+                batch.add(e);
+            }
+        }
+        return batch;
+    }
+
+    static final class Entry {
+        private final StoreContext ctx;
+        private UpdateDBResult result;
+        private DicomServiceException exception;
+        private RuntimeException runtimeException;
+        private boolean done;
+
+        Entry(StoreContext ctx) {
+            this.ctx = ctx;
+        }
+
+        StoreContext getStoreContext() {
+            return ctx;
+        }
+
+        void setResult(UpdateDBResult result) {
+            this.result = result;
+            this.exception = null;
+            this.runtimeException = null;
+        }
+
+        void setException(DicomServiceException exception) {
+            this.result = null;
+            this.exception = exception;
+            this.runtimeException = null;
+        }
+
+        void setException(RuntimeException runtimeException) {
+            this.result = null;
+            this.exception = null;
+            this.runtimeException = runtimeException;
+        }
+
+        boolean isSameSeries(StoreContext other) {
+            return ctx.getSeriesInstanceUID().equals(other.getSeriesInstanceUID())
+                    && ctx.getStudyInstanceUID().equals(other.getStudyInstanceUID());
+        }
+
+        UpdateDBResult result() throws DicomServiceException {
+            if (exception != null)
+                throw exception;
+            if (runtimeException != null)
+                throw runtimeException;
+            return result;
+        }
+    }
+}
@@ -59,6 +59,7 @@ import org.dcm4chee.arc.conf.ArchiveDeviceExtension;
 import org.dcm4chee.arc.store.StoreContext;
 import org.dcm4chee.arc.store.StoreService;
 import org.dcm4chee.arc.store.StoreSession;
+import org.jboss.resteasy.spi.ResteasyProviderFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -81,6 +82,8 @@ import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
 
 /**
  * @author Gunter Zeilinger <gunterze@gmail.com>
@@ -112,12 +115,17 @@ public class StowRS {
     private String acceptedStudyInstanceUID;
     private final Set<String> studyInstanceUIDs = new HashSet<>();
 
-    private final ArrayList<Attributes> instances = new ArrayList<>();
+    private final ArrayList<PendingInstance> pendingInstances = new ArrayList<>();
+    private final ArrayList<StoreResult> results = new ArrayList<>();
     private final Attributes response = new Attributes();
     private Sequence sopSequence;
     private Sequence failedSOPSequence;
     private java.nio.file.Path spoolDirectory;
-    private Map<String, BulkDataWithMediaType> bulkdataMap = new HashMap<>();
+    private Map<String, BulkDataWithMediaType> bulkdataMap = new ConcurrentHashMap<>();
+    private String requestURL;
+    private int maxParallelism;
+    private int memoryThreshold;
+    private Semaphore storePermits;
 
     @Override
     public String toString() {
@@ -256,7 +264,28 @@ public class StowRS {
                 purgeSpoolDirectory();
             }
         });
-        final StoreSession session = service.newStoreSession(request, aet, getApplicationEntity());
+        ArchiveDeviceExtension arcDev = device.getDeviceExtension(ArchiveDeviceExtension.class);
+        maxParallelism = arcDev.getStowMaxParallelism();
+        memoryThreshold = arcDev.getStowMemoryThreshold();
+        storePermits = new Semaphore(maxParallelism);
+        requestURL = request.getRequestURL().toString();
+        // pass the request itself instead of the injected thread bound proxy, which is not accessible
+        // from threads storing instances in parallel
+        HttpServletRequest httpRequest = ResteasyProviderFactory.getContextData(HttpServletRequest.class);
+        final StoreSession session = service.newStoreSession(httpRequest, aet, getApplicationEntity());
+        try {
+            parse(in, input, session);
+        } finally {
+            waitForStoreTasks();
+        }
+        for (StoreResult result : results)
+            addToResponse(result);
+
+        response.setString(Tag.RetrieveURL, VR.UR, retrieveURL());
+        ar.resume(Response.status(status()).entity(output.entity(response)).build());
+    }
+
+    private void parse(InputStream in, final Input input, final StoreSession session) throws IOException {
         new MultipartParser(boundary()).parse(new BufferedInputStream(in), new MultipartParser.Handler() {
             @Override
             public void bodyPart(int partNumber, MultipartInputStream in) throws IOException {
@@ -275,12 +304,57 @@ public class StowRS {
                 }
             }
         });
-        for (Attributes instance : instances) {
-            storeDicomObject(session, instance);
+        for (PendingInstance pending : pendingInstances)
+            storeDicomObject(session, pending);
+        pendingInstances.clear();
+    }
+
+    /**
+     * Executes {@code task} by a thread of the device, if storing of instances in parallel is configured and a
+     * permit is available. Otherwise blocks the parsing of the request until a permit is available.
+     */
+    private void execute(final Runnable task) throws IOException {
+        if (maxParallelism == 1) {
+            task.run();
+            return;
+        }
+        try {
+            storePermits.acquire();
+        } catch (InterruptedException e) {
+            throw new InterruptedIOException();
+        }
+        try {
+            device.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        task.run();
+                    } finally {
+                        storePermits.release();
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            storePermits.release();
+            throw e;
         }
+    }
 
-        response.setString(Tag.RetrieveURL, VR.UR, retrieveURL());
-        ar.resume(Response.status(status()).entity(output.entity(response)).build());
+    private void waitForStoreTasks() {
+        storePermits.acquireUninterruptibly(maxParallelism);
+        storePermits.release(maxParallelism);
+    }
+
+    private void addToResponse(StoreResult result) throws IOException {
+        if (result.exception != null)
+            throw result.exception;
+
+        if (result.studyInstanceUID != null) {
+            studyInstanceUIDs.add(result.studyInstanceUID);
+            sopSequence().add(result.sopRef);
+        } else if (result.sopRef != null) {
+            failedSOPSequence().add(result.sopRef);
+        }
     }
 
     private void purgeSpoolDirectory() {
@@ -328,7 +402,7 @@ public class StowRS {
                 if (!MediaTypes.equalsIgnoreParameters(mediaType, MediaTypes.APPLICATION_DICOM_TYPE))
                     return false;
 
-                stowRS.storeDicomObject(session, in);
+                stowRS.receiveDicomObject(session, in);
                 return true;
             }
         },
@@ -337,9 +411,9 @@ public class StowRS {
             boolean readBodyPart(StowRS stowRS, StoreSession session, MultipartInputStream in,
                                  MediaType mediaType, String contentLocation) throws Exception {
                 if (!MediaTypes.equalsIgnoreParameters(mediaType, MediaTypes.APPLICATION_DICOM_XML_TYPE))
-                    return stowRS.spoolBulkdata(session, in, mediaType, contentLocation);
+                    return stowRS.receiveBulkdata(session, in, mediaType, contentLocation);
 
-                stowRS.instances.add(SAXReader.parse(in));
+                stowRS.receiveInstance(session, SAXReader.parse(in));
                 return true;
             }
         },
@@ -348,10 +422,10 @@ public class StowRS {
             boolean readBodyPart(StowRS stowRS, StoreSession session, MultipartInputStream in,
                                  MediaType mediaType, String contentLocation) throws Exception {
                 if (!MediaTypes.equalsIgnoreParameters(mediaType, MediaType.APPLICATION_JSON_TYPE))
-                    return stowRS.spoolBulkdata(session, in, mediaType, contentLocation);
+                    return stowRS.receiveBulkdata(session, in, mediaType, contentLocation);
 
                 JSONReader reader = new JSONReader(Json.createParser(new InputStreamReader(in, "UTF-8")));
-                stowRS.instances.add(reader.readDataset(null));
+                stowRS.receiveInstance(session, reader.readDataset(null));
                 return true;
             }
         };
@@ -360,31 +434,85 @@ public class StowRS {
                                       MediaType mediaType, String contentLocation) throws Exception;
     }
 
-    private void storeDicomObject(StoreSession session, MultipartInputStream in) throws IOException {
+    private void receiveDicomObject(final StoreSession session, MultipartInputStream in) throws IOException {
+        final StoreResult result = new StoreResult();
+        results.add(result);
+        if (maxParallelism == 1) {
+            storeDicomObject(session, in, result);
+            return;
+        }
+        final byte[] b = new byte[memoryThreshold + 1];
+        final int len = readAvailable(in, b);
+        if (len == b.length) {
+            storeDicomObject(session, new SequenceInputStream(new ByteArrayInputStream(b), in), result);
+            return;
+        }
+        execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    storeDicomObject(session, new ByteArrayInputStream(b, 0, len), result);
+                } catch (IOException e) {
+                    LOG.warn("{}: Failed to store received object:\n", session, e);
+                    result.exception = e;
+                }
+            }
+        });
+    }
+
+    private void storeDicomObject(StoreSession session, InputStream in, StoreResult result) throws IOException {
         StoreContext ctx = service.newStoreContext(session);
         ctx.setAcceptedStudyInstanceUID(acceptedStudyInstanceUID);
         try {
             service.store(ctx, in);
-            studyInstanceUIDs.add(ctx.getStudyInstanceUID());
-            sopSequence().add(mkSOPRefWithRetrieveURL(ctx));
+            result.stored(ctx.getStudyInstanceUID(), mkSOPRefWithRetrieveURL(ctx));
         } catch (DicomServiceException e) {
             LOG.info("{}: Failed to store {}", session, UID.nameOf(ctx.getSopClassUID()), e);
-            failedSOPSequence().add(mkSOPRefWithFailureReason(ctx, e));
+            result.failed(mkSOPRefWithFailureReason(ctx, e));
+        } catch (RuntimeException e) {
+            LOG.warn("{}: Failed to store {}", session, UID.nameOf(ctx.getSopClassUID()), e);
+            result.failed(mkSOPRefWithFailureReason(ctx, new DicomServiceException(Status.ProcessingFailure, e)));
         }
     }
 
-    private void storeDicomObject(StoreSession session, Attributes attrs) throws IOException {
+    private void receiveInstance(StoreSession session, Attributes attrs) throws IOException {
+        StoreResult result = new StoreResult();
+        results.add(result);
+        PendingInstance pending = new PendingInstance(attrs, result);
+        if (pending.missingBulkdata.isEmpty())
+            storeDicomObject(session, pending);
+        else
+            pendingInstances.add(pending);
+    }
+
+    private void storeDicomObject(final StoreSession session, final PendingInstance pending) throws IOException {
+        execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    storeDicomObject(session, pending.attrs, pending.result);
+                } catch (IOException e) {
+                    pending.result.exception = e;
+                }
+            }
+        });
+    }
+
+    private void storeDicomObject(StoreSession session, Attributes attrs, StoreResult result) throws IOException {
         StoreContext ctx = service.newStoreContext(session);
         ctx.setAcceptedStudyInstanceUID(acceptedStudyInstanceUID);
         try {
             ctx.setReceiveTransferSyntax(MediaTypes.transferSyntaxOf(resolveBulkdataRefs(attrs)));
             service.store(ctx, attrs);
-            studyInstanceUIDs.add(ctx.getStudyInstanceUID());
-            sopSequence().add(mkSOPRefWithRetrieveURL(ctx));
+            result.stored(ctx.getStudyInstanceUID(), mkSOPRefWithRetrieveURL(ctx));
         } catch (DicomServiceException e) {
             ctx.setAttributes(attrs);
             LOG.info("{}: Failed to store {}", session, UID.nameOf(ctx.getSopClassUID()), e);
-            failedSOPSequence().add(mkSOPRefWithFailureReason(ctx, e));
+            result.failed(mkSOPRefWithFailureReason(ctx, e));
+        } catch (RuntimeException e) {
+            ctx.setAttributes(attrs);
+            LOG.warn("{}: Failed to store {}", session, UID.nameOf(ctx.getSopClassUID()), e);
+            result.failed(mkSOPRefWithFailureReason(ctx, new DicomServiceException(Status.ProcessingFailure, e)));
         }
     }
 
@@ -414,27 +542,54 @@ public class StowRS {
         if (bulkdataWithMediaType == null)
             throw new DicomServiceException(0xA922, "Missing Bulkdata: " + bulkdata.getURI());
         if (tag != Tag.PixelData || MediaType.APPLICATION_OCTET_STREAM_TYPE.equals(bulkdataWithMediaType.mediaType)) {
-            bulkdata.setURI(bulkdataWithMediaType.bulkData.getURI());
+            if (bulkdataWithMediaType.bytes != null)
+                attrs.setValue(tag, vr, bulkdataWithMediaType.bytes);
+            else
+                bulkdata.setURI(bulkdataWithMediaType.bulkData.getURI());
         } else {
             Fragments frags = attrs.newFragments(tag, vr, 2);
             frags.add(ByteUtils.EMPTY_BYTES);
-            frags.add(new BulkData(null, bulkdataWithMediaType.bulkData.getURI(), false));
+            frags.add(bulkdataWithMediaType.bytes != null
+                    ? bulkdataWithMediaType.bytes
+                    : new BulkData(null, bulkdataWithMediaType.bulkData.getURI(), false));
             mediaType[0] = bulkdataWithMediaType.mediaType;
         }
     }
 
-    private boolean spoolBulkdata(StoreSession session, MultipartInputStream in, MediaType mediaType,
-                                  String contentLocation) throws IOException {
-        if (spoolDirectory == null)
-            spoolDirectory = Files.createTempDirectory(spoolDirectoryRoot(), null);
-        java.nio.file.Path spoolFile = Files.createTempFile(spoolDirectory, null, null);
-        try (OutputStream out = Files.newOutputStream(spoolFile)) {
-            StreamUtils.copy(in, out);
+    private boolean receiveBulkdata(StoreSession session, MultipartInputStream in, MediaType mediaType,
+                                    String contentLocation) throws IOException {
+        byte[] b = new byte[memoryThreshold + 1];
+        int len = readAvailable(in, b);
+        if (len < b.length) {
+            bulkdataMap.put(contentLocation, new BulkDataWithMediaType(Arrays.copyOf(b, len), mediaType));
+        } else {
+            if (spoolDirectory == null)
+                spoolDirectory = Files.createTempDirectory(spoolDirectoryRoot(), null);
+            java.nio.file.Path spoolFile = Files.createTempFile(spoolDirectory, null, null);
+            try (OutputStream out = Files.newOutputStream(spoolFile)) {
+                out.write(b);
+                StreamUtils.copy(in, out);
+            }
+            bulkdataMap.put(contentLocation, new BulkDataWithMediaType(spoolFile, mediaType));
+        }
+        for (Iterator<PendingInstance> iter = pendingInstances.iterator(); iter.hasNext();) {
+            PendingInstance pending = iter.next();
+            if (pending.missingBulkdata.remove(contentLocation) && pending.missingBulkdata.isEmpty()) {
+                iter.remove();
+                storeDicomObject(session, pending);
+            }
         }
-        bulkdataMap.put(contentLocation, new BulkDataWithMediaType(spoolFile, mediaType));
         return true;
     }
 
+    private static int readAvailable(InputStream in, byte[] b) throws IOException {
+        int off = 0;
+        int read;
+        while (off < b.length && (read = in.read(b, off, b.length - off)) > 0)
+            off += read;
+        return off;
+    }
+
     private java.nio.file.Path spoolDirectoryRoot() throws IOException {
         ArchiveDeviceExtension arcDev = device.getDeviceExtension(ArchiveDeviceExtension.class);
         return  Files.createDirectories(Paths.get(StringUtils.replaceSystemProperties(
@@ -451,14 +606,14 @@ public class StowRS {
         if (studyInstanceUIDs.size() != 1)
             return null;
 
-        StringBuffer retrieveURL = request.getRequestURL();
+        StringBuilder retrieveURL = new StringBuilder(requestURL);
         if (retrieveURL.lastIndexOf("/studies") + 8 == retrieveURL.length())
             retrieveURL.append('/').append(studyInstanceUIDs.iterator().next());
         return retrieveURL.toString();
     }
 
     private String retrieveURL(StoreContext ctx) {
-        StringBuffer retrieveURL = request.getRequestURL();
+        StringBuilder retrieveURL = new StringBuilder(requestURL);
         if (retrieveURL.lastIndexOf("/studies") + 8 == retrieveURL.length())
             retrieveURL.append('/').append(ctx.getStudyInstanceUID());
         retrieveURL.append("/series/").append(ctx.getSeriesInstanceUID());
@@ -531,12 +686,61 @@ public class StowRS {
 
     private static class BulkDataWithMediaType {
         final BulkData bulkData;
+        final byte[] bytes;
         final MediaType mediaType;
 
         private BulkDataWithMediaType(java.nio.file.Path path, MediaType mediaType) throws IOException {
             this.bulkData = new BulkData(path.toUri().toString(), 0, (int) Files.size(path), false);
+            this.bytes = null;
             this.mediaType = mediaType;
         }
+
+        private BulkDataWithMediaType(byte[] bytes, MediaType mediaType) {
+            this.bulkData = null;
+            this.bytes = bytes;
+            this.mediaType = mediaType;
+        }
+    }
+
+    private static class StoreResult {
+        private String studyInstanceUID;
+        private Attributes sopRef;
+        private IOException exception;
+
+        void stored(String studyInstanceUID, Attributes sopRef) {
+            this.studyInstanceUID = studyInstanceUID;
+            this.sopRef = sopRef;
+        }
+
+        void failed(Attributes sopRef) {
+            this.sopRef = sopRef;
+        }
+    }
+
+    private class PendingInstance {
+        final Attributes attrs;
+        final StoreResult result;
+        final Set<String> missingBulkdata = new HashSet<>();
+
+        PendingInstance(Attributes attrs, StoreResult result) throws IOException {
+            this.attrs = attrs;
+            this.result = result;
+            try {
+                attrs.accept(new Attributes.Visitor() {
+                    @Override
+                    public boolean visit(Attributes attrs, int tag, VR vr, Object value) {
+                        if (value instanceof BulkData) {
+                            String uri = ((BulkData) value).getURI();
+                            if (!bulkdataMap.containsKey(uri))
+                                missingBulkdata.add(uri);
+                        }
+                        return true;
+                    }
+                }, true);
+            } catch (Exception e) {
+                throw new IOException(e);
+            }
+        }
     }
 
     private Response getResponse(String errorMessage, Response.Status status) {
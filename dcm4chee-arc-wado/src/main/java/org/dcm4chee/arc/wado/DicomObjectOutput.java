@@ -42,8 +42,11 @@ package org.dcm4chee.arc.wado;
 
 import org.dcm4che3.data.Attributes;
 import org.dcm4che3.imageio.codec.Transcoder;
+import org.dcm4che3.util.StreamUtils;
+import org.dcm4chee.arc.retrieve.DicomObjectPassthrough;
 import org.dcm4chee.arc.retrieve.InstanceLocations;
 import org.dcm4chee.arc.retrieve.RetrieveContext;
+import org.dcm4chee.arc.retrieve.RetrieveService;
 
 import javax.ws.rs.core.StreamingOutput;
 import java.io.IOException;
@@ -56,6 +59,8 @@ import java.util.Collection;
  */
 public class DicomObjectOutput implements StreamingOutput {
 
+    private static final int COPY_BUFFER_SIZE = 65536;
+
     private final RetrieveContext ctx;
     private final InstanceLocations inst;
     private final Collection<String> tsuids;
@@ -68,7 +73,15 @@ public class DicomObjectOutput implements StreamingOutput {
 
     @Override
     public void write(final OutputStream out) throws IOException {
-        try (Transcoder transcoder = ctx.getRetrieveService().openTranscoder(ctx, inst, tsuids, true)) {
+        RetrieveService service = ctx.getRetrieveService();
+        try (DicomObjectPassthrough passthrough = service.openPassthrough(ctx, inst, tsuids, true)) {
+            if (passthrough != null) {
+                passthrough.writeHeader(out, service.getAttributesCoercion(ctx, inst));
+                StreamUtils.copy(passthrough.getInputStream(), out, new byte[COPY_BUFFER_SIZE]);
+                return;
+            }
+        }
+        try (Transcoder transcoder = service.openTranscoder(ctx, inst, tsuids, true)) {
             transcoder.transcode(new Transcoder.Handler() {
                 @Override
                 public OutputStream newOutputStream(Transcoder transcoder, Attributes dataset) throws IOException {
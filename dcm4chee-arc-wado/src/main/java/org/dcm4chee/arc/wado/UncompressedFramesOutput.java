@@ -45,6 +45,7 @@ import org.dcm4che3.imageio.codec.ImageDescriptor;
 import org.dcm4che3.io.DicomInputStream;
 import org.dcm4che3.util.SafeClose;
 import org.dcm4che3.util.StreamUtils;
+import org.dcm4chee.arc.retrieve.FrameIndex;
 import org.dcm4chee.arc.retrieve.InstanceLocations;
 import org.dcm4chee.arc.retrieve.RetrieveContext;
 import org.dcm4chee.arc.retrieve.RetrieveService;
@@ -52,6 +53,7 @@ import org.dcm4chee.arc.retrieve.RetrieveService;
 import javax.ws.rs.core.StreamingOutput;
 import java.io.Closeable;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -64,6 +66,7 @@ public class UncompressedFramesOutput implements StreamingOutput, Closeable {
 
     private final RetrieveContext ctx;
     private final InstanceLocations inst;
+    private FrameIndex frameIndex;
     private DicomInputStream dis;
     private final int[] frameList;
     private final Path[] spoolFiles;
@@ -83,9 +86,15 @@ public class UncompressedFramesOutput implements StreamingOutput, Closeable {
     @Override
     public void write(OutputStream out) throws IOException {
         try {
-            if (frameListIndex == 0)
-                initDicomInputStream();
-
+            if (frameListIndex == 0) {
+                frameIndex = ctx.getRetrieveService().getFrameIndex(ctx, inst);
+                if (frameIndex == null)
+                    initDicomInputStream();
+            }
+            if (frameIndex != null) {
+                writeFrame(out, frameList[frameListIndex++]);
+                return;
+            }
             if (dis == null) {
                 Files.copy(spoolFiles[frameListIndex++], out);
                 return;
@@ -105,6 +114,15 @@ public class UncompressedFramesOutput implements StreamingOutput, Closeable {
         }
     }
 
+    private void writeFrame(OutputStream out, int frame) throws IOException {
+        if (frame > frameIndex.getNumberOfFrames())
+            throw new IOException("Requested frame #" + frame + " exceeds number of frames in requested object");
+
+        try (InputStream in = ctx.getRetrieveService().openFrameInputStream(ctx, frameIndex, frame)) {
+            StreamUtils.copy(in, out, frameIndex.getLength(frame));
+        }
+    }
+
     private void skipFrame() throws IOException {
         for (int i = frameListIndex; i < frameList.length; i++) {
             if (frame == frameList[i]) {
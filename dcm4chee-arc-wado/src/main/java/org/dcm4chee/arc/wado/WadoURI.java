@@ -50,6 +50,8 @@ import org.dcm4che3.net.Device;
 import org.dcm4che3.util.StringUtils;
 import org.dcm4che3.ws.rs.MediaTypes;
 import org.dcm4chee.arc.conf.ArchiveAEExtension;
+import org.dcm4chee.arc.image.RenderedImageCache;
+import org.dcm4chee.arc.image.RenderedImageOutput;
 import org.dcm4chee.arc.retrieve.InstanceLocations;
 import org.dcm4chee.arc.retrieve.RetrieveContext;
 import org.dcm4chee.arc.retrieve.RetrieveService;
@@ -113,6 +115,9 @@ public class WadoURI {
     @Inject @RetrieveWADO
     private Event<RetrieveContext> retrieveWado;
 
+    @Inject
+    private RenderedImageCache renderedImageCache;
+
     @Context
     private Request req;
 
@@ -292,8 +297,15 @@ public class WadoURI {
         throw new AssertionError("objectType: " + objectType);
     }
 
-    private RenderedImageOutput renderImage(RetrieveContext ctx, InstanceLocations inst,
-                                            MediaType mimeType, int imageIndex) throws IOException {
+    private StreamingOutput renderImage(RetrieveContext ctx, InstanceLocations inst,
+                                        MediaType mimeType, int imageIndex) throws IOException {
+        String cacheKey = RenderedImageCache.keyOf(inst.getSopInstanceUID(), inst.getUpdatedTime(), imageIndex,
+                mimeType, rows, columns, windowCenter, windowWidth, region, imageQuality,
+                presentationUID, presentationSeriesUID);
+        StreamingOutput cached = renderedImageCache.get(cacheKey);
+        if (cached != null)
+            return cached;
+
         Attributes attrs = inst.getAttributes();
         DicomImageReadParam readParam = new DicomImageReadParam();
         if (windowCenter != null && windowWidth != null) {
@@ -313,9 +325,10 @@ public class WadoURI {
             writeParam.setCompressionQuality(parseInt(imageQuality) / 100.f);
 
         ImageReader imageReader = getDicomImageReader();
-        return new RenderedImageOutput(service.openDicomInputStream(ctx, inst),
-                imageReader, readParam, parseInt(rows), parseInt(columns), imageIndex,
-                imageWriter, writeParam);
+        return renderedImageCache.cacheOutput(cacheKey,
+                new RenderedImageOutput(service.openDicomInputStream(ctx, inst),
+                        imageReader, readParam, parseInt(rows), parseInt(columns), imageIndex,
+                        imageWriter, writeParam));
     }
 
     private int frameNumber(Attributes attrs) {